@@ -1,12 +1,9 @@
 package edu.brown.cs.student.main.data.census;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import edu.brown.cs.student.main.exceptions.DatasourceException;
+import edu.brown.cs.student.main.json.JsonCodecs;
 import okio.Buffer;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
@@ -51,10 +48,7 @@ public class ACSSource implements CensusDataSource{
       URL requestUrl =
           new URL("https://api.census.gov/data/2021/acs/acs1/subject/variables?get=NAME,S2802_C03_022E&for=county:" + countyCode + "&in=state:" + stateCode);
       HttpURLConnection clientConnection = connect(requestUrl);
-      Moshi moshi = new Moshi.Builder().build();
-      Type listListStringObject = Types.newParameterizedType(List.class, List.class, String.class);
-      JsonAdapter<List<List<String>>> adapter = moshi.adapter(listListStringObject);
-      List<List<String>> input = adapter.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
+      List<List<String>> input = JsonCodecs.ROWS.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
       BroadbandData locInfo = new BroadbandData(input);
       clientConnection.disconnect();
       return locInfo;
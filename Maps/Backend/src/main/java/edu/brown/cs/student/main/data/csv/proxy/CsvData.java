@@ -2,6 +2,7 @@ package edu.brown.cs.student.main.data.csv.proxy;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * This is the state class that will contain information that will be shared
@@ -17,6 +18,12 @@ public class CsvData{
      */
     private final List<List<List<String>>> proxyData = new ArrayList<>();
 
+    /**
+     * Identifies the current contents of proxyData. It is replaced whenever they change, and is
+     * random so that it never repeats, not even across restarts.
+     */
+    private volatile String version = UUID.randomUUID().toString();
+
     public CsvData(){
 
     }
@@ -31,6 +38,7 @@ public class CsvData{
     public void loadProxyData(List<List<String>> data){
         clearData();
         this.proxyData.add(data);
+        this.version = UUID.randomUUID().toString();
     }
     /**
      * This accessor retrieves the csv list of list of string content from the container,
@@ -58,7 +66,17 @@ public class CsvData{
     public void clearData(){
         if(isLoaded()){
             this.proxyData.remove(0);
+            this.version = UUID.randomUUID().toString();
         }
     }
 
+    /**
+     * Accessor for the identifier of the currently loaded data, which changes every time a file is
+     * loaded or the data is cleared, so responses computed from the data can be cached by it.
+     * @return version of the loaded data
+     */
+    public String getVersion(){
+        return this.version;
+    }
+
 }
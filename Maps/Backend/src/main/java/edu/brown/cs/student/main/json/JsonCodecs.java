@@ -0,0 +1,90 @@
+package edu.brown.cs.student.main.json;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import okio.Buffer;
+
+/**
+ * The JSON adapters every handler reads and writes with, built once for the whole server. Moshi
+ * builds an adapter for a type by looking at its fields and remembers it, so building a Moshi
+ * for every request, as the handlers used to, looked at the same classes again every time. The
+ * adapters here are thread-safe and shared. Responses are written into a buffer kept for each
+ * thread and returned as UTF-8 bytes, which Spark sends as they are, rather than as a String
+ * that would be encoded again. Packages with types of their own to write build on this one (see
+ * MapsCodecs), so it depends on none of them.
+ */
+public final class JsonCodecs {
+  private static final Moshi MOSHI = new Moshi.Builder().build();
+
+  /**
+   * Adapter for the response maps the handlers build, whose values may be strings, numbers,
+   * booleans, lists and maps.
+   */
+  public static final JsonAdapter<Map<String, Object>> RESPONSE =
+      MOSHI.adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+
+  /**
+   * Adapter for rows of values, such as the census API returns; each row is read as it comes.
+   */
+  public static final JsonAdapter<List<List<String>>> ROWS =
+      MOSHI.adapter(Types.newParameterizedType(List.class, List.class));
+
+  private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+  private JsonCodecs() {
+  }
+
+  /**
+   * @param type the type to read or write
+   * @return the shared adapter for it
+   */
+  public static <T> JsonAdapter<T> adapter(Type type) {
+    return MOSHI.adapter(type);
+  }
+
+  /**
+   * @return a builder for a Moshi with the adapters here, to which adapters for more types can
+   *     be added
+   */
+  public static Moshi.Builder newBuilder() {
+    return MOSHI.newBuilder();
+  }
+
+  /**
+   * Writes a response map.
+   * @param response the response
+   * @return its JSON, as UTF-8
+   */
+  public static byte[] toJson(Map<String, Object> response) {
+    return toJson(RESPONSE, response);
+  }
+
+  /**
+   * Writes a value with an adapter, into this thread's buffer.
+   * @param adapter the adapter to write with
+   * @param value the value
+   * @return its JSON, as UTF-8
+   */
+  public static <T> byte[] toJson(JsonAdapter<T> adapter, T value) {
+    Buffer buffer = BUFFERS.get();
+    if (buffer.size() != 0) {
+      // already being written to further up this thread's stack
+      buffer = new Buffer();
+    }
+    try {
+      adapter.toJson(buffer, value);
+      return buffer.readByteArray();
+    } catch (IOException e) {
+      // a Buffer never fails to accept writes
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.clear();
+    }
+  }
+}
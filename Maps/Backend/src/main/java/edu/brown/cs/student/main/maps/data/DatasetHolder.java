@@ -0,0 +1,37 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared state between the maps handlers and the dataset reloader. It always points at exactly
+ * one complete MapsDataset; reading it takes no lock, and a new version replaces the old one
+ * with a single atomic swap.
+ */
+public class DatasetHolder {
+  private final AtomicReference<MapsDataset> current;
+
+  /**
+   * @param initial the dataset version to serve until another is published
+   */
+  public DatasetHolder(MapsDataset initial) {
+    this.current = new AtomicReference<>(initial);
+  }
+
+  /**
+   * Returns the active version. A request should call this once and use the result throughout,
+   * so that it sees one consistent version even if a reload happens while it runs.
+   * @return the active dataset version
+   */
+  public MapsDataset current() {
+    return this.current.get();
+  }
+
+  /**
+   * Makes a fully built version the active one.
+   * @param next the new version
+   * @return the version that was active before
+   */
+  public MapsDataset publish(MapsDataset next) {
+    return this.current.getAndSet(next);
+  }
+}
@@ -0,0 +1,92 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the dataset file and, whenever it changes, builds a complete new MapsDataset on a
+ * background thread and publishes it to the DatasetHolder. Requests keep being served from the
+ * old version while the new one is built, and each new version gets the same kind of spatial
+ * index as the one it replaces. If the new file can't be loaded, the old version simply stays
+ * active.
+ */
+public class DatasetReloader {
+  // writers often touch a file several times in a row; wait for it to settle before loading
+  private static final long SETTLE_MILLIS = 500;
+
+  private final Path path;
+  private final DatasetHolder holder;
+
+  /**
+   * @param path the dataset file to watch
+   * @param holder where new versions are published
+   */
+  public DatasetReloader(Path path, DatasetHolder holder) {
+    this.path = path.toAbsolutePath();
+    this.holder = holder;
+  }
+
+  /**
+   * Starts watching on a daemon thread, so the watcher never keeps the server from exiting.
+   */
+  public void start() {
+    Thread watcher = new Thread(this::watch, "maps-dataset-reloader");
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  /**
+   * Loads the file again if it no longer matches the active version, and publishes the result.
+   * @return the newly published version, or null if the file hadn't changed
+   * @throws IOException if the changed file can't be loaded; the old version stays active
+   */
+  public MapsDataset reloadIfChanged() throws IOException {
+    MapsDataset active = this.holder.current();
+    if (MapsDataset.versionIdOf(this.path).equals(active.getVersionId())) {
+      return null;
+    }
+    MapsDataset next = MapsDataset.load(this.path, active.getGeneration() + 1,
+        active.getSpatialIndex().kind());
+    this.holder.publish(next);
+    System.out.println("Reloaded maps dataset " + next.getVersionId() + " (generation "
+        + next.getGeneration() + ") in " + next.getLoadMillis() + " ms");
+    return next;
+  }
+
+  private void watch() {
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      this.path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          touched |= event.kind() == StandardWatchEventKinds.OVERFLOW
+              || this.path.getFileName().equals(event.context());
+        }
+        if (!key.reset()) {
+          System.err.println("Stopped watching " + this.path + ": directory is gone");
+          return;
+        }
+        if (touched) {
+          Thread.sleep(SETTLE_MILLIS);
+          try {
+            this.reloadIfChanged();
+          } catch (IOException e) {
+            System.err.println("Keeping the current maps dataset, reload failed: "
+                + e.getMessage());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      System.err.println("Can't watch " + this.path + " for changes: " + e.getMessage());
+    }
+  }
+}
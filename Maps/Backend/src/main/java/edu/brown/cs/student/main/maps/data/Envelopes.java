@@ -0,0 +1,152 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bounding box of every feature, kept in four parallel primitive arrays indexed by feature
+ * id (its position in the FeatureStore). Each box covers every vertex of every ring of every
+ * polygon of the feature. A feature without coordinates has an empty box (all NaN), which never
+ * intersects anything.
+ */
+public final class Envelopes {
+  private final double[] minX;
+  private final double[] minY;
+  private final double[] maxX;
+  private final double[] maxY;
+
+  /**
+   * Creates envelopes from already filled arrays, which are used as they are.
+   * @param minX smallest longitude of each feature
+   * @param minY smallest latitude of each feature
+   * @param maxX largest longitude of each feature
+   * @param maxY largest latitude of each feature
+   */
+  public Envelopes(double[] minX, double[] minY, double[] maxX, double[] maxY) {
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+  }
+
+  /**
+   * Computes the envelope of every feature with one pass over its vertices.
+   * @param features the features, in id order
+   * @return their envelopes
+   */
+  public static Envelopes of(List<Feature> features) {
+    int size = features.size();
+    Envelopes envelopes = new Envelopes(new double[size], new double[size], new double[size],
+        new double[size]);
+    Arrays.fill(envelopes.minX, Double.NaN);
+    Arrays.fill(envelopes.minY, Double.NaN);
+    Arrays.fill(envelopes.maxX, Double.NaN);
+    Arrays.fill(envelopes.maxY, Double.NaN);
+    for (int id = 0; id < size; id++) {
+      Feature feature = features.get(id);
+      if (feature == null || feature.geometry == null || feature.geometry.coordinates == null) {
+        continue;
+      }
+      PackedCoordinates coordinates = feature.geometry.coordinates;
+      if (coordinates.vertexCount() == 0) {
+        continue;
+      }
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (int vertex = 0; vertex < coordinates.vertexCount(); vertex++) {
+        double x = coordinates.x(vertex);
+        double y = coordinates.y(vertex);
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+      }
+      envelopes.minX[id] = minX;
+      envelopes.minY[id] = minY;
+      envelopes.maxX[id] = maxX;
+      envelopes.maxY[id] = maxY;
+    }
+    return envelopes;
+  }
+
+  /**
+   * @return number of features
+   */
+  public int size() {
+    return this.minX.length;
+  }
+
+  /**
+   * @param id feature id
+   * @return whether the feature has no coordinates (and so no envelope)
+   */
+  public boolean isEmpty(int id) {
+    return Double.isNaN(this.minX[id]);
+  }
+
+  /**
+   * @param id feature id
+   * @return smallest longitude of the feature
+   */
+  public double minX(int id) {
+    return this.minX[id];
+  }
+
+  /**
+   * @param id feature id
+   * @return smallest latitude of the feature
+   */
+  public double minY(int id) {
+    return this.minY[id];
+  }
+
+  /**
+   * @param id feature id
+   * @return largest longitude of the feature
+   */
+  public double maxX(int id) {
+    return this.maxX[id];
+  }
+
+  /**
+   * @param id feature id
+   * @return largest latitude of the feature
+   */
+  public double maxY(int id) {
+    return this.maxY[id];
+  }
+
+  /**
+   * Checks whether a feature's envelope overlaps a box (touching counts). If it doesn't, no part
+   * of the feature can be inside the box.
+   * @param id feature id
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @return whether the envelope and the box share any point
+   */
+  public boolean intersects(int id, double minX, double minY, double maxX, double maxY) {
+    return this.minX[id] <= maxX && this.maxX[id] >= minX
+        && this.minY[id] <= maxY && this.maxY[id] >= minY;
+  }
+
+  /**
+   * Checks whether a feature's envelope lies completely inside a box. If it does, every vertex
+   * of the feature is inside the box.
+   * @param id feature id
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @return whether the envelope is contained in the box
+   */
+  public boolean within(int id, double minX, double minY, double maxX, double maxY) {
+    return this.minX[id] >= minX && this.maxX[id] <= maxX
+        && this.minY[id] >= minY && this.maxY[id] <= maxY;
+  }
+}
@@ -0,0 +1,31 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+
+/**
+ * Receives features one at a time while a GeoJSON file is being streamed in, so a consumer (the
+ * feature store, an index builder, a validator) never needs the whole parsed file at once.
+ */
+@FunctionalInterface
+public interface FeatureSink {
+
+  /**
+   * Called once per feature, in file order.
+   * @param feature the feature that was just parsed
+   * @throws IOException if the sink rejects the feature, which stops the ingest
+   */
+  void accept(Feature feature) throws IOException;
+
+  /**
+   * Combines this sink with another one, so each feature is handed to both in turn.
+   * @param next the sink to call after this one
+   * @return a sink that feeds both
+   */
+  default FeatureSink andThen(FeatureSink next) {
+    return feature -> {
+      this.accept(feature);
+      next.accept(feature);
+    };
+  }
+}
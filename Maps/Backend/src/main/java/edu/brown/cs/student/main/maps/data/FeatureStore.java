@@ -0,0 +1,177 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, in-memory copy of the redlining GeoJSON dataset. The file is parsed once when the
+ * store is created and the store is then shared by the maps handlers, so a request only has to
+ * filter and serialize features instead of re-reading and re-parsing the whole file. The JSON of
+ * every feature is also rendered once, when a response first needs it, so responses can copy it
+ * instead of serializing again, while loading (from a snapshot in particular) stays fast and a
+ * version that is never asked for features holds no JSON.
+ */
+public class FeatureStore {
+  /**
+   * Location of the dataset when no other path is configured, relative to the Backend directory.
+   */
+  public static final String DEFAULT_PATH =
+      "src/main/java/edu/brown/cs/student/main/geodata/fullDownload.json";
+
+  private final String type;
+  private final List<Feature> features;
+  private final Envelopes envelopes;
+  private volatile FeatureJson featureJson;
+
+  /**
+   * Creates a store over the given features and computes their envelopes. The list is copied,
+   * so later changes to it are not seen by the store.
+   * @param type the GeoJSON type of the collection (normally "FeatureCollection")
+   * @param features the features of the dataset
+   */
+  public FeatureStore(String type, List<Feature> features) {
+    this.type = type;
+    this.features = Collections.unmodifiableList(new ArrayList<>(features));
+    this.envelopes = Envelopes.of(this.features);
+  }
+
+  /**
+   * Creates a store whose envelopes were computed ahead of time, as they are in a snapshot.
+   * @param type the GeoJSON type of the collection
+   * @param features the features of the dataset
+   * @param envelopes the envelope of each feature, in the same order
+   */
+  FeatureStore(String type, List<Feature> features, Envelopes envelopes) {
+    this.type = type;
+    this.features = Collections.unmodifiableList(new ArrayList<>(features));
+    this.envelopes = envelopes;
+  }
+
+  /**
+   * Loads a dataset file, which may either be GeoJSON or a binary snapshot written by
+   * SnapshotCompiler. Snapshots are memory-mapped rather than parsed, so they load much faster.
+   * @param path location of the dataset
+   * @return store containing every feature of the dataset
+   * @throws IOException if the file can't be read or isn't a valid dataset
+   */
+  public static FeatureStore load(Path path) throws IOException {
+    return SnapshotLoader.isSnapshot(path) ? SnapshotLoader.load(path) : fromFile(path);
+  }
+
+  /**
+   * Streams a GeoJSON feature collection file into a new store, one feature at a time.
+   * @param path location of the GeoJSON file
+   * @return store containing every feature of the file
+   * @throws IOException if the file can't be read or isn't valid GeoJSON
+   */
+  public static FeatureStore fromFile(Path path) throws IOException {
+    Builder builder = new Builder();
+    builder.type(new GeoJsonFeatureReader().read(path, builder));
+    return builder.build();
+  }
+
+  /**
+   * Accessor for the GeoJSON type of the dataset
+   * @return the collection type
+   */
+  public String getType() {
+    return this.type;
+  }
+
+  /**
+   * Accessor for every feature in the dataset. The returned list can't be modified.
+   * @return all features, in file order
+   */
+  public List<Feature> getFeatures() {
+    return this.features;
+  }
+
+  /**
+   * Accessor for the envelope of every feature, indexed by the feature's position in
+   * getFeatures()
+   * @return the feature envelopes
+   */
+  public Envelopes getEnvelopes() {
+    return this.envelopes;
+  }
+
+  /**
+   * Accessor for the rendered JSON of every feature, indexed by the feature's position in
+   * getFeatures(). It is rendered on first use and then kept.
+   * @return the feature encodings
+   */
+  public FeatureJson getFeatureJson() {
+    FeatureJson json = this.featureJson;
+    if (json == null) {
+      synchronized (this) {
+        json = this.featureJson;
+        if (json == null) {
+          json = FeatureJson.of(this.features);
+          this.featureJson = json;
+        }
+      }
+    }
+    return json;
+  }
+
+  /**
+   * Accessor for the size of the rendered JSON of every feature, without rendering it
+   * @return bytes held by the JSON, or 0 if it hasn't been rendered yet
+   */
+  public long getFeatureJsonBytes() {
+    FeatureJson json = this.featureJson;
+    return json == null ? 0 : json.memoryBytes();
+  }
+
+  /**
+   * Wraps a subset of this store's features in a new collection so it can be serialized as a
+   * response. The store itself is never changed.
+   * @param selected the features to include
+   * @return a collection with this store's type and the selected features
+   */
+  public GeoJsonCollection collectionOf(List<Feature> selected) {
+    GeoJsonCollection collection = new GeoJsonCollection();
+    collection.type = this.type;
+    collection.features = selected;
+    return collection;
+  }
+
+  /**
+   * Collects streamed features into a new store. As a FeatureSink it can be handed directly to
+   * a GeoJsonFeatureReader, or combined with other sinks to build indexes in the same pass.
+   */
+  public static class Builder implements FeatureSink {
+    private String type = "FeatureCollection";
+    private final List<Feature> features = new ArrayList<>();
+
+    /**
+     * Sets the collection type; null keeps the default of "FeatureCollection".
+     * @param type the GeoJSON type of the collection
+     * @return this builder
+     */
+    public Builder type(String type) {
+      if (type != null) {
+        this.type = type;
+      }
+      return this;
+    }
+
+    @Override
+    public void accept(Feature feature) {
+      this.features.add(feature);
+    }
+
+    /**
+     * @return a store over every feature accepted so far
+     */
+    public FeatureStore build() {
+      return new FeatureStore(this.type, this.features);
+    }
+  }
+}
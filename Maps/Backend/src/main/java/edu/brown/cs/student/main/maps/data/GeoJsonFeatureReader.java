@@ -0,0 +1,77 @@
+package edu.brown.cs.student.main.maps.data;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.io.IOException;
+import java.nio.file.Path;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Streams a GeoJSON feature collection straight from a file. The reader walks the "features"
+ * array token by token and parses one feature at a time, handing each to a FeatureSink, so the
+ * raw text is never held in memory as a whole, only the features the sink decides to keep.
+ */
+public class GeoJsonFeatureReader {
+  private final JsonAdapter<Feature> featureAdapter;
+
+  /**
+   * Uses the shared feature adapter (see MapsCodecs), which is reused for every feature of
+   * every file.
+   */
+  public GeoJsonFeatureReader() {
+    this.featureAdapter = MapsCodecs.FEATURE;
+  }
+
+  /**
+   * Streams every feature of a GeoJSON file into the sink.
+   * @param path location of the GeoJSON file
+   * @param sink receiver for each feature
+   * @return the collection's "type" member, or null if it has none
+   * @throws IOException if the file can't be read, isn't valid GeoJSON, or the sink fails
+   */
+  public String read(Path path, FeatureSink sink) throws IOException {
+    try (BufferedSource source = Okio.buffer(Okio.source(path));
+        JsonReader reader = JsonReader.of(source)) {
+      return this.read(reader, sink);
+    }
+  }
+
+  /**
+   * Streams every feature of a GeoJSON feature collection into the sink. Members other than
+   * "type" and "features" are skipped without being parsed.
+   * @param reader reader positioned at the start of the collection object
+   * @param sink receiver for each feature
+   * @return the collection's "type" member, or null if it has none
+   * @throws IOException if the JSON isn't a feature collection or the sink fails
+   */
+  public String read(JsonReader reader, FeatureSink sink) throws IOException {
+    reader.setLenient(true);
+    String type = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "type":
+          type = reader.peek() == JsonReader.Token.NULL ? reader.nextNull() : reader.nextString();
+          break;
+        case "features":
+          if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            break;
+          }
+          reader.beginArray();
+          while (reader.hasNext()) {
+            sink.accept(this.featureAdapter.fromJson(reader));
+          }
+          reader.endArray();
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return type;
+  }
+}
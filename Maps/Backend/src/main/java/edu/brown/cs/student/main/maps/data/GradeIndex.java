@@ -0,0 +1,123 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Indexes a dataset version's features by HOLC grade: for every grade that occurs, a bitset of
+ * the ids of the features that have it, and how many there are. Features without a grade are in
+ * none of them. Each feature's grade is also kept as a small number, so the grades of any set of
+ * features can be counted with one array lookup per feature, without looking at the features.
+ */
+public final class GradeIndex {
+  private static final int UNGRADED = -1;
+
+  private final Map<String, BitSet> grades;
+  private final String[] names;
+  private final int[] ordinals;
+  private final Map<String, Integer> counts;
+  private final int ungraded;
+
+  private GradeIndex(Map<String, BitSet> grades, int[] ordinals) {
+    this.grades = grades;
+    this.names = grades.keySet().toArray(new String[0]);
+    this.ordinals = ordinals;
+    int total = ordinals.length;
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (Map.Entry<String, BitSet> grade : grades.entrySet()) {
+      int count = grade.getValue().cardinality();
+      counts.put(grade.getKey(), count);
+      total -= count;
+    }
+    this.counts = Collections.unmodifiableMap(counts);
+    this.ungraded = total;
+  }
+
+  /**
+   * Builds the index of a dataset version's features.
+   * @param features the features, in file order
+   * @return the index
+   */
+  public static GradeIndex of(List<Feature> features) {
+    Map<String, BitSet> grades = new TreeMap<>();
+    for (int id = 0; id < features.size(); id++) {
+      Feature feature = features.get(id);
+      String grade = feature == null || feature.properties == null
+          ? null : feature.properties.holc_grade;
+      if (grade != null) {
+        grades.computeIfAbsent(grade, key -> new BitSet(features.size())).set(id);
+      }
+    }
+    List<String> names = new ArrayList<>(grades.keySet());
+    int[] ordinals = new int[features.size()];
+    Arrays.fill(ordinals, UNGRADED);
+    for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+      BitSet graded = grades.get(names.get(ordinal));
+      for (int id = graded.nextSetBit(0); id >= 0; id = graded.nextSetBit(id + 1)) {
+        ordinals[id] = ordinal;
+      }
+    }
+    return new GradeIndex(grades, ordinals);
+  }
+
+  /**
+   * Finds the features with any of some grades.
+   * @param grades the grades, matched exactly
+   * @return a new bitset of the ids of the features that have one of them
+   */
+  public BitSet features(Collection<String> grades) {
+    BitSet ids = new BitSet();
+    for (String grade : grades) {
+      BitSet graded = this.grades.get(grade);
+      if (graded != null) {
+        ids.or(graded);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * @return the grades that occur, in order
+   */
+  public Set<String> grades() {
+    return this.grades.keySet();
+  }
+
+  /**
+   * @return how many features have each grade, for every grade that occurs, in order
+   */
+  public Map<String, Integer> counts() {
+    return this.counts;
+  }
+
+  /**
+   * @return how many features have no grade
+   */
+  public int ungradedCount() {
+    return this.ungraded;
+  }
+
+  /**
+   * Counts the grades of some of the features.
+   * @param ids ids of the features to count
+   * @return how many of them have each grade, for every grade that occurs (0 if none of them
+   *     has it), in order, and then how many have no grade
+   */
+  public int[] counts(int[] ids) {
+    int[] counts = new int[this.names.length + 1];
+    for (int id : ids) {
+      int ordinal = this.ordinals[id];
+      counts[ordinal == UNGRADED ? this.names.length : ordinal]++;
+    }
+    return counts;
+  }
+}
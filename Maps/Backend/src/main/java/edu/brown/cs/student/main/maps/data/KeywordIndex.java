@@ -0,0 +1,306 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Searches the area descriptions of a dataset version. Every feature's description values are
+ * joined once when the index is built, and a trigram index over the joined descriptions (see
+ * TrigramIndex) picks out the few a substring search has to check. The values are also split
+ * into words for an inverted index that maps each word to the sorted ids of the features whose
+ * description uses it, so a word search only looks up and intersects those lists, however many
+ * features there are. Several phrases can also be looked for at once with a PhraseMatcher.
+ */
+public final class KeywordIndex {
+  private static final int[] NONE = new int[0];
+  // a fork-join task matches this many descriptions itself instead of splitting further
+  private static final int MATCH_BATCH = 1024;
+
+  private final String[] descriptions;
+  private final Map<String, int[]> postings;
+  private final TrigramIndex trigrams;
+
+  private KeywordIndex(String[] descriptions, Map<String, int[]> postings,
+      TrigramIndex trigrams) {
+    this.descriptions = descriptions;
+    this.postings = postings;
+    this.trigrams = trigrams;
+  }
+
+  /**
+   * Builds the index of a dataset version's features.
+   * @param features the features, in file order
+   * @return the index
+   */
+  public static KeywordIndex of(List<Feature> features) {
+    String[] descriptions = new String[features.size()];
+    Map<String, Postings> lists = new HashMap<>();
+    for (int id = 0; id < descriptions.length; id++) {
+      Feature feature = features.get(id);
+      Map<String, String> description = feature == null || feature.properties == null
+          ? null : feature.properties.area_description_data;
+      if (description == null) {
+        continue;
+      }
+      StringBuilder text = new StringBuilder();
+      for (String line : description.values()) {
+        text.append(line);
+        // each value is split on its own, so no word runs from one value into the next
+        for (String term : terms(line)) {
+          lists.computeIfAbsent(term, key -> new Postings()).add(id);
+        }
+      }
+      descriptions[id] = text.toString();
+    }
+    Map<String, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+    lists.forEach((term, list) -> postings.put(term, Arrays.copyOf(list.ids, list.count)));
+    return new KeywordIndex(descriptions, postings,
+        TrigramIndex.of(descriptions, TrigramIndex.DEFAULT_BUDGET_BYTES));
+  }
+
+  /**
+   * Splits text into the words the index is keyed by: runs of letters and digits, lowercased.
+   * @param text the text to split
+   * @return the words, in order and with repeats
+   */
+  public static List<String> terms(String text) {
+    List<String> terms = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (word && start < 0) {
+        start = i;
+      } else if (!word && start >= 0) {
+        terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Finds the features whose joined description contains a string, exactly and case-sensitively.
+   * Only the features the trigram index can't rule out are checked.
+   * @param area the string to look for
+   * @return sorted ids of the matching features
+   */
+  public int[] containing(String area) {
+    int[] candidates = this.trigrams.candidates(area);
+    int length = candidates == null ? this.descriptions.length : candidates.length;
+    int[] ids = new int[length];
+    int kept = 0;
+    for (int i = 0; i < length; i++) {
+      int id = candidates == null ? i : candidates[i];
+      if (this.descriptions[id] != null && this.descriptions[id].contains(area)) {
+        ids[kept++] = id;
+      }
+    }
+    return Arrays.copyOf(ids, kept);
+  }
+
+  /**
+   * Finds the features whose description uses every word of a query, in any order and case.
+   * @param query the words to look for
+   * @return sorted ids of the matching features; none if the query has no words
+   */
+  public int[] withWords(String query) {
+    List<int[]> lists = new ArrayList<>();
+    for (String term : terms(query)) {
+      int[] list = this.postings.get(term);
+      if (list == null) {
+        return NONE;
+      }
+      lists.add(list);
+    }
+    if (lists.isEmpty()) {
+      return NONE;
+    }
+    // intersect the shortest lists first, so the candidates shrink as fast as possible
+    lists.sort(Comparator.comparingInt(list -> list.length));
+    int[] ids = lists.get(0);
+    for (int i = 1; i < lists.size() && ids.length > 0; i++) {
+      ids = intersect(ids, lists.get(i));
+    }
+    return ids;
+  }
+
+  /**
+   * Finds which phrases every description contains, in one pass over each. Only the
+   * descriptions the trigram index can't rule out are read: those that may contain any of the
+   * phrases, or every one of them when all is set. They are split between the cores of the
+   * common fork-join pool.
+   * @param matcher the phrases to look for
+   * @param all whether only features that contain every phrase are wanted
+   * @return for each feature, by id, the phrases found in its description as bits (see
+   *     PhraseMatcher.match); 0 for a feature without a description or that wasn't read
+   */
+  public long[] match(PhraseMatcher matcher, boolean all) {
+    int[] candidates = this.candidates(matcher.phrases(matcher.all()), all);
+    long[] found = new long[this.descriptions.length];
+    int length = candidates == null ? found.length : candidates.length;
+    ForkJoinPool.commonPool().invoke(new MatchTask(matcher, candidates, found, 0, length));
+    return found;
+  }
+
+  /**
+   * The features that may contain any or all of some phrases, or null for every feature.
+   */
+  private int[] candidates(List<String> phrases, boolean all) {
+    int[] ids = all ? null : NONE;
+    for (String phrase : phrases) {
+      int[] list = this.trigrams.candidates(phrase);
+      if (list == null) {
+        // a phrase that can't be narrowed rules nothing out, and lets anything in
+        if (all) {
+          continue;
+        }
+        return null;
+      }
+      if (!all) {
+        ids = union(ids, list);
+      } else if (ids == null) {
+        ids = list;
+      } else {
+        ids = ids.length <= list.length ? intersect(ids, list) : intersect(list, ids);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * @param id the feature's position in the store
+   * @return the description of a feature, its values joined in order, or null if it has none
+   */
+  public String description(int id) {
+    return this.descriptions[id];
+  }
+
+  /**
+   * Accessor for the trigram index that narrows substring searches
+   * @return the trigram index
+   */
+  public TrigramIndex getTrigrams() {
+    return this.trigrams;
+  }
+
+  /**
+   * @return number of distinct words in the index
+   */
+  public int termCount() {
+    return this.postings.size();
+  }
+
+  /**
+   * The ids of the features using one word, while the index is built.
+   */
+  private static final class Postings {
+    private int[] ids = new int[4];
+    private int count;
+
+    private void add(int id) {
+      // features are added in order, so a word seen before in this description is the last id
+      if (this.count > 0 && this.ids[this.count - 1] == id) {
+        return;
+      }
+      if (this.count == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, this.count * 2);
+      }
+      this.ids[this.count++] = id;
+    }
+  }
+
+  /**
+   * Matches a range of the candidates, halving it until it is small enough to do directly.
+   */
+  private final class MatchTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final PhraseMatcher matcher;
+    private final int[] candidates;
+    private final long[] found;
+    private final int from;
+    private final int to;
+
+    private MatchTask(PhraseMatcher matcher, int[] candidates, long[] found, int from, int to) {
+      this.matcher = matcher;
+      this.candidates = candidates;
+      this.found = found;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= MATCH_BATCH) {
+        for (int i = this.from; i < this.to; i++) {
+          int id = this.candidates == null ? i : this.candidates[i];
+          this.found[id] = this.matcher.match(KeywordIndex.this.descriptions[id]);
+        }
+        return;
+      }
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new MatchTask(this.matcher, this.candidates, this.found, this.from, middle),
+          new MatchTask(this.matcher, this.candidates, this.found, middle, this.to));
+    }
+  }
+
+  /**
+   * Intersects a short sorted list with a longer one, finding each of its ids in the longer one
+   * by galloping from where the last one was found.
+   */
+  private static int[] intersect(int[] shorter, int[] longer) {
+    int[] ids = new int[shorter.length];
+    int kept = 0;
+    int from = 0;
+    for (int id : shorter) {
+      int step = 1;
+      int to = from;
+      while (to < longer.length && longer[to] < id) {
+        from = to + 1;
+        to += step;
+        step *= 2;
+      }
+      int found = Arrays.binarySearch(longer, from, Math.min(to + 1, longer.length), id);
+      if (found >= 0) {
+        ids[kept++] = id;
+        from = found + 1;
+      } else {
+        from = -found - 1;
+      }
+      if (from >= longer.length) {
+        break;
+      }
+    }
+    return Arrays.copyOf(ids, kept);
+  }
+
+  /**
+   * Merges two sorted lists, keeping each id once.
+   */
+  private static int[] union(int[] first, int[] second) {
+    int[] ids = new int[first.length + second.length];
+    int kept = 0;
+    int i = 0;
+    int j = 0;
+    while (i < first.length || j < second.length) {
+      int id;
+      if (j == second.length || (i < first.length && first[i] <= second[j])) {
+        id = first[i++];
+      } else {
+        id = second[j++];
+      }
+      if (kept == 0 || ids[kept - 1] != id) {
+        ids[kept++] = id;
+      }
+    }
+    return Arrays.copyOf(ids, kept);
+  }
+}
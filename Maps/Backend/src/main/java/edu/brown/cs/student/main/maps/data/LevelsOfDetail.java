@@ -0,0 +1,228 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.geometry.Simplifier;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Geometry;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Simplified copies of every feature at a few fixed tolerances, computed once per dataset
+ * version so zoomed-out views can be served with far fewer vertices. Level i is meant for zoom
+ * ZOOMS[i]: its tolerance is about one screen pixel at that zoom, so the simplification can't
+ * be seen. Features keep their ids (list positions) and properties at every level, and a feature
+ * that simplification can't shrink is shared with the original list rather than copied. Each
+ * level is simplified, and its JSON rendered, the first time it is needed, like the original
+ * features' JSON in FeatureStore, so a level that is never asked for costs nothing and loading
+ * stays fast.
+ */
+public final class LevelsOfDetail {
+  /**
+   * The zoom levels that get a simplified copy of the dataset; deeper zooms use the original.
+   */
+  public static final int[] ZOOMS = {4, 6, 8, 10, 12};
+
+  private final List<Feature> original;
+  private final double[] tolerances;
+  private final AtomicReferenceArray<Level> levels;
+  private final Supplier<FeatureJson> originalJson;
+  // one slot per level, and a last one for the original features when no originalJson is given
+  private final AtomicReferenceArray<FeatureJson> levelJson;
+  private final long originalVertexCount;
+
+  private LevelsOfDetail(List<Feature> original, double[] tolerances,
+      Supplier<FeatureJson> originalJson, long originalVertexCount) {
+    this.original = original;
+    this.tolerances = tolerances;
+    this.levels = new AtomicReferenceArray<>(ZOOMS.length);
+    this.originalJson = originalJson;
+    this.levelJson = new AtomicReferenceArray<>(ZOOMS.length + 1);
+    this.originalVertexCount = originalVertexCount;
+  }
+
+  /**
+   * Sets up the levels of every feature at the tolerance of each zoom in ZOOMS; each level is
+   * simplified when it is first asked for.
+   * @param features the original features
+   * @return the levels of detail
+   */
+  public static LevelsOfDetail of(List<Feature> features) {
+    return of(features, null);
+  }
+
+  /**
+   * Sets up the levels of every feature at the tolerance of each zoom in ZOOMS, reusing the
+   * JSON the original features are rendered to elsewhere.
+   * @param features the original features
+   * @param json supplies the rendered original features when they are first needed, such as
+   *     FeatureStore::getFeatureJson; null to render and keep them here
+   * @return the levels of detail
+   */
+  public static LevelsOfDetail of(List<Feature> features, Supplier<FeatureJson> json) {
+    double[] tolerances = new double[ZOOMS.length];
+    for (int level = 0; level < ZOOMS.length; level++) {
+      tolerances[level] = toleranceForZoom(ZOOMS[level]);
+    }
+    long vertexCount = 0;
+    for (Feature feature : features) {
+      vertexCount += vertexCount(feature);
+    }
+    return new LevelsOfDetail(features, tolerances, json, vertexCount);
+  }
+
+  /**
+   * The tolerance that keeps simplification under about one pixel of a 256 pixel tile at a zoom
+   * level (measured at the equator, so it is finer than needed further north).
+   * @param zoom the zoom level
+   * @return the tolerance in degrees
+   */
+  public static double toleranceForZoom(int zoom) {
+    return 360.0 / 256 / Math.pow(2, zoom);
+  }
+
+  /**
+   * Picks the coarsest level whose tolerance doesn't exceed the one asked for.
+   * @param tolerance largest acceptable error in degrees
+   * @return the features of that level, or the original features if no level is fine enough
+   */
+  public List<Feature> forTolerance(double tolerance) {
+    int level = this.levelFor(tolerance);
+    return level < 0 ? this.original : this.level(level).features;
+  }
+
+  /**
+   * Picks the level suited to a zoom level.
+   * @param zoom the zoom level
+   * @return the features to draw at that zoom
+   */
+  public List<Feature> forZoom(int zoom) {
+    return this.forTolerance(toleranceForZoom(zoom));
+  }
+
+  /**
+   * The rendered JSON of the features forTolerance picks, rendering it if this is the first
+   * time it is needed.
+   * @param tolerance largest acceptable error in degrees
+   * @return the JSON of that level's features, indexed like them
+   */
+  public FeatureJson jsonForTolerance(double tolerance) {
+    int level = this.levelFor(tolerance);
+    if (level < 0 && this.originalJson != null) {
+      return this.originalJson.get();
+    }
+    int slot = level < 0 ? ZOOMS.length : level;
+    FeatureJson json = this.levelJson.get(slot);
+    if (json == null) {
+      synchronized (this.levelJson) {
+        json = this.levelJson.get(slot);
+        if (json == null) {
+          json = FeatureJson.of(level < 0 ? this.original : this.level(level).features);
+          this.levelJson.set(slot, json);
+        }
+      }
+    }
+    return json;
+  }
+
+  /**
+   * Accessor for the size of the rendered JSON of the simplified levels, not counting the
+   * original features. Levels that haven't been asked for yet hold none.
+   * @return bytes held by the levels' JSON
+   */
+  public long getJsonBytes() {
+    long bytes = 0;
+    for (int level = 0; level < ZOOMS.length; level++) {
+      FeatureJson json = this.levelJson.get(level);
+      bytes += json == null ? 0 : json.memoryBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * A simplified level, simplifying every feature if this is the first time it is needed.
+   */
+  private Level level(int level) {
+    Level simplified = this.levels.get(level);
+    if (simplified == null) {
+      synchronized (this.levels) {
+        simplified = this.levels.get(level);
+        if (simplified == null) {
+          List<Feature> features = new ArrayList<>(this.original.size());
+          long vertexCount = 0;
+          for (Feature feature : this.original) {
+            Feature copy = simplify(feature, this.tolerances[level]);
+            vertexCount += vertexCount(copy);
+            features.add(copy);
+          }
+          simplified = new Level(Collections.unmodifiableList(features), vertexCount);
+          this.levels.set(level, simplified);
+        }
+      }
+    }
+    return simplified;
+  }
+
+  private int levelFor(double tolerance) {
+    for (int level = 0; level < this.tolerances.length; level++) {
+      if (this.tolerances[level] <= tolerance) {
+        return level;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Accessor for how many vertices each level holds, from the coarsest level to the original
+   * features (the last entry). A level that hasn't been simplified yet has null.
+   * @return the vertex count of every level
+   */
+  public List<Long> getVertexCounts() {
+    List<Long> counts = new ArrayList<>();
+    for (int level = 0; level < ZOOMS.length; level++) {
+      Level simplified = this.levels.get(level);
+      counts.add(simplified == null ? null : simplified.vertexCount);
+    }
+    counts.add(this.originalVertexCount);
+    return counts;
+  }
+
+  private static Feature simplify(Feature feature, double tolerance) {
+    if (feature == null || feature.geometry == null || feature.geometry.coordinates == null) {
+      return feature;
+    }
+    PackedCoordinates simplified = Simplifier.simplify(feature.geometry.coordinates, tolerance);
+    if (simplified == feature.geometry.coordinates) {
+      return feature;
+    }
+    Feature copy = new Feature();
+    copy.type = feature.type;
+    copy.properties = feature.properties;
+    copy.geometry = new Geometry();
+    copy.geometry.type = feature.geometry.type;
+    copy.geometry.coordinates = simplified;
+    return copy;
+  }
+
+  private static long vertexCount(Feature feature) {
+    return feature == null || feature.geometry == null || feature.geometry.coordinates == null
+        ? 0 : feature.geometry.coordinates.vertexCount();
+  }
+
+  /**
+   * The features of one simplified level and how many vertices they have.
+   */
+  private static final class Level {
+    private final List<Feature> features;
+    private final long vertexCount;
+
+    private Level(List<Feature> features, long vertexCount) {
+      this.features = features;
+      this.vertexCount = vertexCount;
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.geometry.PreparedGeometry;
+import edu.brown.cs.student.main.maps.index.SearchCache;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.tiles.TileCache;
+import edu.brown.cs.student.main.maps.tiles.TileGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One complete, immutable version of the maps dataset: the features plus everything derived from
+ * them. A new version is always loaded and spatially indexed before it is published through a
+ * DatasetHolder, so a request that picked up this version can finish with it even if a newer one
+ * is swapped in meanwhile. The structures only some requests need (the simplified levels of
+ * detail, the prepared geometry of each feature and the keyword index) are built the first time
+ * one of them does, so a version loaded from a snapshot can serve in milliseconds.
+ */
+public final class MapsDataset {
+  private final FeatureStore store;
+  private final SpatialIndex spatialIndex;
+  private final SearchCache searchCache;
+  private final AtomicReferenceArray<PreparedGeometry> preparedGeometries;
+  private final LevelsOfDetail levelsOfDetail;
+  private volatile KeywordIndex keywordIndex;
+  private final GradeIndex gradeIndex;
+  private final TileCache tiles;
+  private final int generation;
+  private final String versionId;
+  private final long loadMillis;
+  private final Instant loadedAt;
+
+  private MapsDataset(FeatureStore store, int generation, String versionId,
+      SpatialIndex.Kind indexKind, long startNanos) {
+    this.store = store;
+    this.spatialIndex = indexKind.build(store.getEnvelopes());
+    this.searchCache = new SearchCache(this.spatialIndex, store.getEnvelopes(),
+        SearchCache.DEFAULT_BUDGET_BYTES);
+    this.preparedGeometries = new AtomicReferenceArray<>(store.getFeatures().size());
+    this.levelsOfDetail = LevelsOfDetail.of(store.getFeatures(), store::getFeatureJson);
+    this.gradeIndex = GradeIndex.of(store.getFeatures());
+    this.tiles = new TileCache(new TileGenerator(this.levelsOfDetail, this.spatialIndex));
+    this.generation = generation;
+    this.versionId = versionId;
+    this.loadMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    this.loadedAt = Instant.now();
+  }
+
+  /**
+   * Loads a dataset file (GeoJSON or snapshot) and builds a version from it, indexed with an
+   * R-tree.
+   * @param path the dataset file
+   * @param generation how many versions this process has loaded, including this one
+   * @return the new version
+   * @throws IOException if the file can't be loaded
+   */
+  public static MapsDataset load(Path path, int generation) throws IOException {
+    return load(path, generation, SpatialIndex.Kind.RTREE);
+  }
+
+  /**
+   * Loads a dataset file (GeoJSON or snapshot) and builds a version from it.
+   * @param path the dataset file
+   * @param generation how many versions this process has loaded, including this one
+   * @param indexKind which spatial index to build over the features
+   * @return the new version
+   * @throws IOException if the file can't be loaded
+   */
+  public static MapsDataset load(Path path, int generation, SpatialIndex.Kind indexKind)
+      throws IOException {
+    long start = System.nanoTime();
+    // read the id first, so a file replaced during loading is picked up again by the next check
+    String versionId = versionIdOf(path);
+    return new MapsDataset(FeatureStore.load(path), generation, versionId, indexKind, start);
+  }
+
+  /**
+   * Builds a version from features that are already in memory, indexed with an R-tree.
+   * @param store the features
+   * @param generation how many versions this process has loaded, including this one
+   * @param versionId identifier of the data the store holds
+   * @return the new version
+   */
+  public static MapsDataset of(FeatureStore store, int generation, String versionId) {
+    return of(store, generation, versionId, SpatialIndex.Kind.RTREE);
+  }
+
+  /**
+   * Builds a version from features that are already in memory.
+   * @param store the features
+   * @param generation how many versions this process has loaded, including this one
+   * @param versionId identifier of the data the store holds
+   * @param indexKind which spatial index to build over the features
+   * @return the new version
+   */
+  public static MapsDataset of(FeatureStore store, int generation, String versionId,
+      SpatialIndex.Kind indexKind) {
+    return new MapsDataset(store, generation, versionId, indexKind, System.nanoTime());
+  }
+
+  /**
+   * Identifies the current content of a dataset file by its size and modification time, which
+   * is cheap to check and changes whenever the file is rewritten or replaced.
+   * @param path the dataset file
+   * @return an identifier for the file's current content
+   * @throws IOException if the file's attributes can't be read
+   */
+  public static String versionIdOf(Path path) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    return Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-"
+        + Long.toHexString(attributes.size());
+  }
+
+  /**
+   * Accessor for the features of this version
+   * @return the feature store
+   */
+  public FeatureStore getStore() {
+    return this.store;
+  }
+
+  /**
+   * Accessor for the spatial index over the envelopes of this version's features
+   * @return the spatial index
+   */
+  public SpatialIndex getSpatialIndex() {
+    return this.spatialIndex;
+  }
+
+  /**
+   * Accessor for the cache of recent bounding box searches over this version's spatial index
+   * @return the search cache
+   */
+  public SearchCache getSearchCache() {
+    return this.searchCache;
+  }
+
+  /**
+   * Accessor for the geometry of a feature, prepared for fast point-in-polygon tests the first
+   * time it is asked for
+   * @param id the feature's position in the store
+   * @return the prepared geometry, or null if the feature has no coordinates
+   */
+  public PreparedGeometry getPreparedGeometry(int id) {
+    PreparedGeometry prepared = this.preparedGeometries.get(id);
+    if (prepared == null) {
+      Feature feature = this.store.getFeatures().get(id);
+      if (feature == null || feature.geometry == null || feature.geometry.coordinates == null) {
+        return null;
+      }
+      // two threads may both prepare it, but they build the same thing and one is kept
+      this.preparedGeometries.compareAndSet(id, null,
+          PreparedGeometry.of(feature.geometry.coordinates));
+      prepared = this.preparedGeometries.get(id);
+    }
+    return prepared;
+  }
+
+  /**
+   * Accessor for the simplified copies of this version's features
+   * @return the levels of detail
+   */
+  public LevelsOfDetail getLevelsOfDetail() {
+    return this.levelsOfDetail;
+  }
+
+  /**
+   * Accessor for the index of this version's area descriptions, which is built the first time it
+   * is asked for
+   * @return the keyword index
+   */
+  public KeywordIndex getKeywordIndex() {
+    KeywordIndex index = this.keywordIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = this.keywordIndex;
+        if (index == null) {
+          index = KeywordIndex.of(this.store.getFeatures());
+          this.keywordIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Checks whether the keyword index has been built yet, without building it
+   * @return whether getKeywordIndex has been called on this version
+   */
+  public boolean hasKeywordIndex() {
+    return this.keywordIndex != null;
+  }
+
+  /**
+   * Accessor for the index of this version's HOLC grades
+   * @return the grade index
+   */
+  public GradeIndex getGradeIndex() {
+    return this.gradeIndex;
+  }
+
+  /**
+   * Accessor for the vector tiles of this version, which are generated as they are requested
+   * @return the tile cache
+   */
+  public TileCache getTiles() {
+    return this.tiles;
+  }
+
+  /**
+   * Accessor for the version's position in this process: 1 for the dataset loaded at startup,
+   * 2 for the first reload and so on
+   * @return the generation
+   */
+  public int getGeneration() {
+    return this.generation;
+  }
+
+  /**
+   * Accessor for the identifier of the data this version was built from
+   * @return the version id
+   */
+  public String getVersionId() {
+    return this.versionId;
+  }
+
+  /**
+   * Accessor for how long it took to load and build this version
+   * @return the load duration in milliseconds
+   */
+  public long getLoadMillis() {
+    return this.loadMillis;
+  }
+
+  /**
+   * Accessor for when this version finished building
+   * @return the build completion time
+   */
+  public Instant getLoadedAt() {
+    return this.loadedAt;
+  }
+}
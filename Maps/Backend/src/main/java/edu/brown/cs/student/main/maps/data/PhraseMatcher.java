@@ -0,0 +1,159 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds which of several phrases a text contains in one pass over it, however many phrases there
+ * are (the Aho-Corasick algorithm). The phrases are compiled into a trie whose missing edges are
+ * filled in from the longest suffix that is also in the trie, so reading a text is one table
+ * lookup per character, and every state knows the phrases that end there. Matching is exact and
+ * case-sensitive, like String.contains, and a matcher can be shared between threads.
+ */
+public final class PhraseMatcher {
+  /**
+   * Most phrases a matcher takes, since the phrases found are reported as the bits of a long.
+   */
+  public static final int MAX_PHRASES = Long.SIZE;
+
+  // characters below this have their symbol looked up in a table, the rest by binary search
+  private static final int DIRECT = 128;
+
+  private final List<String> phrases;
+  private final char[] alphabet;
+  private final int[] directSymbols = new int[DIRECT];
+  private final int width;
+  private final int[] next;
+  private final long[] output;
+  private final long all;
+
+  /**
+   * Compiles a matcher.
+   * @param phrases the phrases to look for, none of them empty, in the order their bits are given
+   * @throws IllegalArgumentException if there are no phrases, more than MAX_PHRASES, or an empty
+   *     one
+   */
+  public PhraseMatcher(List<String> phrases) {
+    if (phrases.isEmpty() || phrases.size() > MAX_PHRASES) {
+      throw new IllegalArgumentException("a matcher takes 1 to " + MAX_PHRASES + " phrases");
+    }
+    this.phrases = List.copyOf(phrases);
+    StringBuilder characters = new StringBuilder();
+    int length = 0;
+    for (String phrase : phrases) {
+      if (phrase.isEmpty()) {
+        throw new IllegalArgumentException("phrases can't be empty");
+      }
+      characters.append(phrase);
+      length += phrase.length();
+    }
+    this.alphabet = characters.chars().distinct().sorted().collect(StringBuilder::new,
+        StringBuilder::appendCodePoint, StringBuilder::append).toString().toCharArray();
+    for (int c = 0; c < DIRECT; c++) {
+      this.directSymbols[c] = this.search((char) c);
+    }
+    // symbol 0 stands for every character that is in no phrase, which always leads to the root
+    this.width = this.alphabet.length + 1;
+    int[] next = new int[(length + 1) * this.width];
+    Arrays.fill(next, -1);
+    long[] output = new long[length + 1];
+    int states = 1;
+    for (int i = 0; i < phrases.size(); i++) {
+      int state = 0;
+      for (int c = 0; c < phrases.get(i).length(); c++) {
+        int edge = state * this.width + this.symbol(phrases.get(i).charAt(c));
+        if (next[edge] < 0) {
+          next[edge] = states++;
+        }
+        state = next[edge];
+      }
+      output[state] |= 1L << i;
+    }
+
+    // breadth first, so each state's suffix is complete before the state is
+    int[] suffix = new int[states];
+    int[] queue = new int[states];
+    int head = 0;
+    int tail = 0;
+    for (int symbol = 0; symbol < this.width; symbol++) {
+      if (next[symbol] < 0) {
+        next[symbol] = 0;
+      } else {
+        queue[tail++] = next[symbol];
+      }
+    }
+    while (head < tail) {
+      int state = queue[head++];
+      output[state] |= output[suffix[state]];
+      for (int symbol = 0; symbol < this.width; symbol++) {
+        int edge = state * this.width + symbol;
+        int fallback = next[suffix[state] * this.width + symbol];
+        if (next[edge] < 0) {
+          next[edge] = fallback;
+        } else {
+          suffix[next[edge]] = fallback;
+          queue[tail++] = next[edge];
+        }
+      }
+    }
+    // edges hold the offset of their state's row rather than its number, saving a multiply
+    this.next = Arrays.copyOf(next, states * this.width);
+    for (int edge = 0; edge < this.next.length; edge++) {
+      this.next[edge] *= this.width;
+    }
+    this.output = new long[this.next.length];
+    for (int state = 0; state < states; state++) {
+      this.output[state * this.width] = output[state];
+    }
+    this.all = phrases.size() == Long.SIZE ? -1L : (1L << phrases.size()) - 1;
+  }
+
+  /**
+   * Reads a text once, stopping early if every phrase has been found.
+   * @param text the text to search
+   * @return the phrases the text contains, as bits by phrase position; 0 if none or text is null
+   */
+  public long match(String text) {
+    if (text == null) {
+      return 0;
+    }
+    long found = 0;
+    int state = 0;
+    for (int i = 0; i < text.length() && found != this.all; i++) {
+      state = this.next[state + this.symbol(text.charAt(i))];
+      found |= this.output[state];
+    }
+    return found;
+  }
+
+  /**
+   * @return the bits of match for a text that contains every phrase
+   */
+  public long all() {
+    return this.all;
+  }
+
+  /**
+   * @param found bits returned by match
+   * @return the phrases they stand for, in order
+   */
+  public List<String> phrases(long found) {
+    List<String> phrases = new ArrayList<>(Long.bitCount(found));
+    for (int i = 0; i < this.phrases.size(); i++) {
+      if ((found & (1L << i)) != 0) {
+        phrases.add(this.phrases.get(i));
+      }
+    }
+    return phrases;
+  }
+
+  private int symbol(char c) {
+    return c < DIRECT ? this.directSymbols[c] : this.search(c);
+  }
+
+  private int search(char c) {
+    int index = Arrays.binarySearch(this.alphabet, c);
+    return index < 0 ? 0 : index + 1;
+  }
+}
@@ -0,0 +1,126 @@
+package edu.brown.cs.student.main.maps.data;
+
+import edu.brown.cs.student.main.maps.geometry.Haversine;
+import edu.brown.cs.student.main.maps.geometry.PreparedGeometry;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Nearest-neighbour and radius queries over a dataset version. Distances are great-circle
+ * kilometres from the point to the nearest edge of a feature, or 0 when the feature contains
+ * the point. The spatial index hands features over nearest first, so a query only measures the
+ * features it returns plus the few whose envelopes are closer than the last of them.
+ */
+public final class Proximity {
+  private Proximity() {
+  }
+
+  /**
+   * Finds the k features nearest to a point.
+   * @param dataset the dataset version to search
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @param k how many features to return
+   * @return up to k features, nearest first, each a copy with distance_km set
+   */
+  public static List<Feature> nearest(MapsDataset dataset, double lat, double lon, int k) {
+    return nearest(dataset, lat, lon, k, id -> true);
+  }
+
+  /**
+   * Finds the k features nearest to a point among those a filter keeps. Features the filter
+   * drops are never measured, and don't count towards k.
+   * @param dataset the dataset version to search
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @param k how many features to return
+   * @param keep which features may be returned, by id
+   * @return up to k features, nearest first, each a copy with distance_km set
+   */
+  public static List<Feature> nearest(MapsDataset dataset, double lat, double lon, int k,
+      IntPredicate keep) {
+    List<Feature> found = new ArrayList<>(Math.min(k, 64));
+    if (k <= 0) {
+      return found;
+    }
+    List<Feature> features = dataset.getStore().getFeatures();
+    dataset.getSpatialIndex().nearest(lat, lon, Double.POSITIVE_INFINITY,
+        id -> keep.test(id) ? distanceKm(dataset, id, lat, lon) : Double.POSITIVE_INFINITY,
+        (id, distanceKm) -> {
+          if (!keep.test(id)) {
+            return true;
+          }
+          found.add(withDistance(features.get(id), distanceKm));
+          return found.size() < k;
+        });
+    return found;
+  }
+
+  /**
+   * Finds every feature within a distance of a point.
+   * @param dataset the dataset version to search
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @param radiusKm the largest distance to include
+   * @return the features, nearest first, each a copy with distance_km set
+   */
+  public static List<Feature> within(MapsDataset dataset, double lat, double lon,
+      double radiusKm) {
+    return within(dataset, lat, lon, radiusKm, id -> true);
+  }
+
+  /**
+   * Finds every feature within a distance of a point among those a filter keeps. Features the
+   * filter drops are never measured.
+   * @param dataset the dataset version to search
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @param radiusKm the largest distance to include
+   * @param keep which features may be returned, by id
+   * @return the features, nearest first, each a copy with distance_km set
+   */
+  public static List<Feature> within(MapsDataset dataset, double lat, double lon,
+      double radiusKm, IntPredicate keep) {
+    List<Feature> found = new ArrayList<>();
+    List<Feature> features = dataset.getStore().getFeatures();
+    dataset.getSpatialIndex().nearest(lat, lon, radiusKm,
+        id -> keep.test(id) ? distanceKm(dataset, id, lat, lon) : Double.POSITIVE_INFINITY,
+        (id, distanceKm) -> {
+          if (keep.test(id)) {
+            found.add(withDistance(features.get(id), distanceKm));
+          }
+          return true;
+        });
+    return found;
+  }
+
+  /**
+   * @return the distance from a point to a feature in kilometres, 0 if the feature contains it
+   */
+  static double distanceKm(MapsDataset dataset, int id, double lat, double lon) {
+    PreparedGeometry prepared = dataset.getPreparedGeometry(id);
+    if (prepared == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+    if (prepared.contains(lon, lat)) {
+      return 0;
+    }
+    return Haversine.distanceToEdgesKm(
+        dataset.getStore().getFeatures().get(id).geometry.coordinates, lat, lon);
+  }
+
+  /**
+   * A shallow copy of a feature carrying its distance, rounded to the metre; the dataset's own
+   * features are shared between requests and are never changed.
+   */
+  private static Feature withDistance(Feature feature, double distanceKm) {
+    Feature copy = new Feature();
+    copy.type = feature.type;
+    copy.geometry = feature.geometry;
+    copy.properties = feature.properties;
+    copy.distance_km = Math.round(distanceKm * 1000) / 1000.0;
+    return copy;
+  }
+}
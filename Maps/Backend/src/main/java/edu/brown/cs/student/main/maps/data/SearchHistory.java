@@ -0,0 +1,353 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers recent keyword searches by id, so that one can be replayed without searching again.
+ * Each search keeps only the ids of the features it found, as a bitset or, when that is smaller,
+ * as a sorted array, together with the dataset version they index into. Searching for the same
+ * thing against the same version again refreshes the existing entry instead of adding one.
+ * Lookups never lock; adding a search takes a lock only to evict, least recently used first,
+ * once there are more than a maximum number of searches or their ids take more than a byte
+ * budget. Searches that haven't been used for longer than a time to live are never returned, and
+ * are dropped once eviction reaches them. Under the lock the searches are ordered by when they
+ * were last used as of their last placement; a lookup doesn't lock to move its search, so when
+ * eviction finds the first search was used since, it moves it to its place and looks again.
+ * The first search left is then the least recently used, found without scanning the rest. A
+ * search heavier than the whole budget isn't kept at all.
+ */
+public final class SearchHistory {
+  /**
+   * Default most searches kept at once.
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  /**
+   * Default memory budget for the kept ids, in bytes.
+   */
+  public static final long DEFAULT_BUDGET_BYTES = 16L << 20;
+
+  /**
+   * Default time a search is kept after it was last used.
+   */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+  /**
+   * What record returns for a search whose ids take more than the whole budget, which is not
+   * kept; ids of kept searches start at 1.
+   */
+  public static final long NOT_KEPT = 0;
+
+  // every entry costs its ids plus roughly this much for the entry, its strings and map nodes
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+  // lastUsed of a search that has been dropped, which can't be used any more
+  private static final long DROPPED = Long.MIN_VALUE;
+
+  private final int maxEntries;
+  private final long budgetBytes;
+  private final long ttlNanos;
+  private final LongSupplier clock;
+  private final Map<Long, Search> byId = new ConcurrentHashMap<>();
+  private final Map<Query, Search> byQuery = new ConcurrentHashMap<>();
+  // guarded by this, by placedAt then id, so the least recently used as of placement is first
+  private final TreeSet<Search> order = new TreeSet<>(
+      Comparator.comparingLong((Search search) -> search.placedAt).thenComparingLong(
+          (Search search) -> search.id));
+  private final AtomicLong nextId = new AtomicLong(1);
+  private long bytes;
+
+  /**
+   * Creates a history with the default limits.
+   */
+  public SearchHistory() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_BUDGET_BYTES, DEFAULT_TTL, System::nanoTime);
+  }
+
+  /**
+   * @param maxEntries most searches kept at once
+   * @param budgetBytes how much memory the kept ids may take
+   * @param ttl how long a search is kept after it was last used
+   * @param clock the current time, in nanoseconds
+   */
+  public SearchHistory(int maxEntries, long budgetBytes, Duration ttl, LongSupplier clock) {
+    this.maxEntries = maxEntries;
+    this.budgetBytes = budgetBytes;
+    this.ttlNanos = ttl.toNanos();
+    this.clock = clock;
+  }
+
+  /**
+   * Records a search, or refreshes it if the same one is already kept.
+   * @param version the id of the dataset version that was searched
+   * @param area what was searched for
+   * @param match how it was matched, such as "substring"
+   * @param ids sorted ids of the features found
+   * @return the search's id, or NOT_KEPT if its ids are too large to keep
+   */
+  public long record(String version, String area, String match, int[] ids) {
+    return this.record(version, area, match, null, ids);
+  }
+
+  /**
+   * Records a search narrowed to some HOLC grades, or refreshes it if the same one is already
+   * kept.
+   * @param version the id of the dataset version that was searched
+   * @param area what was searched for
+   * @param match how it was matched, such as "substring"
+   * @param grades the grades the features found were narrowed to, such as "C,D", or null
+   * @param ids sorted ids of the features found
+   * @return the search's id, or NOT_KEPT if its ids are too large to keep
+   */
+  public long record(String version, String area, String match, String grades, int[] ids) {
+    long now = this.clock.getAsLong();
+    Query query = new Query(version, area, match, grades);
+    Search kept = this.byQuery.get(query);
+    // use fails if eviction dropped the search first, and eviction keeps it if use came first
+    if (kept != null && kept.use(now, this.ttlNanos)) {
+      return kept.id;
+    }
+    Result result = Result.of(ids);
+    if (result.bytes() + ENTRY_OVERHEAD_BYTES > this.budgetBytes) {
+      return NOT_KEPT;
+    }
+    synchronized (this) {
+      kept = this.byQuery.get(query);
+      if (kept != null && kept.use(now, this.ttlNanos)) {
+        this.place(kept);
+        return kept.id;
+      } else if (kept != null) {
+        this.remove(kept);
+      }
+      Search search = new Search(this.nextId.getAndIncrement(), query, result, now);
+      this.byId.put(search.id, search);
+      this.byQuery.put(query, search);
+      this.place(search);
+      this.bytes += search.weight();
+      this.evict(now);
+      return search.id;
+    }
+  }
+
+  /**
+   * Looks up a kept search, which then counts as used.
+   * @param id the search's id
+   * @return the search, or null if there is none with that id or it expired
+   */
+  public Search get(long id) {
+    long now = this.clock.getAsLong();
+    Search search = this.byId.get(id);
+    return search != null && search.use(now, this.ttlNanos) ? search : null;
+  }
+
+  /**
+   * @return the searches still kept, most recently used first
+   */
+  public List<Search> recent() {
+    long now = this.clock.getAsLong();
+    List<Search> searches = new ArrayList<>();
+    for (Search search : this.byId.values()) {
+      if (!this.expired(search.lastUsed.get(), now)) {
+        searches.add(search);
+      }
+    }
+    searches.sort(Comparator.comparingLong((Search search) -> search.lastUsed.get()).reversed()
+        .thenComparing(Comparator.comparingLong((Search search) -> search.id).reversed()));
+    return searches;
+  }
+
+  /**
+   * @return number of searches kept, including expired ones not yet dropped
+   */
+  public int size() {
+    return this.byId.size();
+  }
+
+  /**
+   * @return memory the kept searches take, in bytes
+   */
+  public synchronized long bytes() {
+    return this.bytes;
+  }
+
+  private boolean expired(long lastUsed, long now) {
+    return lastUsed == DROPPED || now - lastUsed > this.ttlNanos;
+  }
+
+  /**
+   * Puts a search in the eviction order as of when it was last used.
+   */
+  private void place(Search search) {
+    this.order.remove(search);
+    search.placedAt = search.lastUsed.get();
+    this.order.add(search);
+  }
+
+  /**
+   * Drops the least recently used searches until the history is within its limits, and the
+   * expired ones at the front of the order on the way.
+   */
+  private void evict(long now) {
+    while (!this.order.isEmpty()) {
+      Search oldest = this.order.first();
+      long lastUsed = oldest.lastUsed.get();
+      boolean expired = this.expired(lastUsed, now);
+      if (!expired && this.bytes <= this.budgetBytes && this.order.size() <= this.maxEntries) {
+        return;
+      }
+      if (!expired && lastUsed != oldest.placedAt) {
+        // looked up without the lock since it was placed, so it may not be the oldest after all
+        this.place(oldest);
+      } else if (oldest.lastUsed.compareAndSet(lastUsed, DROPPED)) {
+        this.remove(oldest);
+      }
+    }
+  }
+
+  private void remove(Search search) {
+    search.lastUsed.set(DROPPED);
+    this.byId.remove(search.id);
+    this.byQuery.remove(search.query, search);
+    this.order.remove(search);
+    this.bytes -= search.weight();
+  }
+
+  /**
+   * What a search was for, which identifies it within a dataset version.
+   */
+  private record Query(String version, String area, String match, String grades) {
+  }
+
+  /**
+   * One kept search.
+   */
+  public static final class Search {
+    private final long id;
+    private final Query query;
+    private final Result result;
+    private final AtomicLong lastUsed;
+    // lastUsed when the search was last placed in the eviction order, no later than lastUsed
+    private long placedAt;
+
+    private Search(long id, Query query, Result result, long lastUsed) {
+      this.id = id;
+      this.query = query;
+      this.result = result;
+      this.lastUsed = new AtomicLong(lastUsed);
+    }
+
+    /**
+     * Marks the search as used, unless it has expired or been dropped. lastUsed always moves
+     * forward, so eviction can tell the search was used even if the clock hasn't.
+     */
+    private boolean use(long now, long ttlNanos) {
+      while (true) {
+        long last = this.lastUsed.get();
+        if (last == DROPPED || now - last > ttlNanos) {
+          return false;
+        }
+        if (this.lastUsed.compareAndSet(last, Math.max(last + 1, now))) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * @return the search's id
+     */
+    public long getId() {
+      return this.id;
+    }
+
+    /**
+     * @return the id of the dataset version that was searched
+     */
+    public String getVersion() {
+      return this.query.version;
+    }
+
+    /**
+     * @return what was searched for
+     */
+    public String getArea() {
+      return this.query.area;
+    }
+
+    /**
+     * @return how it was matched
+     */
+    public String getMatch() {
+      return this.query.match;
+    }
+
+    /**
+     * @return the grades the features found were narrowed to, or null if they weren't
+     */
+    public String getGrades() {
+      return this.query.grades;
+    }
+
+    /**
+     * @return number of features found
+     */
+    public int getCount() {
+      return this.result.count;
+    }
+
+    /**
+     * @return sorted ids of the features found
+     */
+    public int[] getIds() {
+      return this.result.ids();
+    }
+
+    private long weight() {
+      return this.result.bytes() + ENTRY_OVERHEAD_BYTES;
+    }
+  }
+
+  /**
+   * The ids a search found, in whichever of a bitset or a sorted array takes less memory.
+   */
+  private static final class Result {
+    private final int count;
+    private final BitSet bits;
+    private final int[] ids;
+
+    private Result(int count, BitSet bits, int[] ids) {
+      this.count = count;
+      this.bits = bits;
+      this.ids = ids;
+    }
+
+    private static Result of(int[] ids) {
+      int length = ids.length == 0 ? 0 : ids[ids.length - 1] + 1;
+      // a bitset takes a bit per id up to the highest, an array four bytes per id found
+      if ((long) length / Byte.SIZE < (long) ids.length * Integer.BYTES) {
+        BitSet bits = new BitSet(length);
+        for (int id : ids) {
+          bits.set(id);
+        }
+        return new Result(ids.length, bits, null);
+      }
+      return new Result(ids.length, null, ids.clone());
+    }
+
+    private int[] ids() {
+      return this.bits != null ? this.bits.stream().toArray() : this.ids.clone();
+    }
+
+    private long bytes() {
+      return this.bits != null
+          ? this.bits.size() / Byte.SIZE : (long) this.ids.length * Integer.BYTES;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package edu.brown.cs.student.main.maps.data;
+
+import static edu.brown.cs.student.main.maps.data.SnapshotFormat.*;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a GeoJSON dataset into the binary snapshot described in SnapshotFormat, so that servers
+ * can map it with SnapshotLoader instead of parsing JSON at startup. Run it from the command line
+ * with the GeoJSON file and the snapshot file to create as arguments.
+ */
+public class SnapshotCompiler {
+
+  /**
+   * Compiles a GeoJSON file into a snapshot.
+   * @param args the GeoJSON file to read and the snapshot file to write
+   * @throws IOException if either file can't be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: SnapshotCompiler <input.json> <output.snapshot>");
+      System.exit(1);
+    }
+    long start = System.nanoTime();
+    FeatureStore store = FeatureStore.fromFile(Path.of(args[0]));
+    compile(store, Path.of(args[1]));
+    System.out.println("Wrote " + store.getFeatures().size() + " features to " + args[1] + " in "
+        + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+
+  /**
+   * Writes every feature of the store into a snapshot file. The file is written under a
+   * temporary name next to the output and then moved into place, so a reader never sees a
+   * half-written snapshot.
+   * @param store the dataset to write
+   * @param output the snapshot file to create or replace
+   * @throws IOException if the file can't be written or the dataset is too large to map
+   */
+  public static void compile(FeatureStore store, Path output) throws IOException {
+    List<Feature> features = store.getFeatures();
+    Map<String, Integer> stringIds = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+
+    // first pass: size every section and number the distinct strings
+    intern(store.getType(), stringIds, strings);
+    long vertices = 0;
+    long ints = 0;
+    for (Feature feature : features) {
+      if (feature == null) {
+        continue;
+      }
+      intern(feature.type, stringIds, strings);
+      PackedCoordinates coordinates = coordinatesOf(feature);
+      if (feature.geometry != null) {
+        intern(feature.geometry.type, stringIds, strings);
+      }
+      if (coordinates != null) {
+        vertices += coordinates.vertexCount();
+        ints += coordinates.ringCount() + 1 + coordinates.polygonCount() + 1;
+      }
+      if (feature.properties != null) {
+        intern(feature.properties.name, stringIds, strings);
+        intern(feature.properties.holc_grade, stringIds, strings);
+        if (feature.properties.area_description_data != null) {
+          for (Map.Entry<String, String> entry :
+              feature.properties.area_description_data.entrySet()) {
+            intern(entry.getKey(), stringIds, strings);
+            intern(entry.getValue(), stringIds, strings);
+          }
+          ints += 2L * feature.properties.area_description_data.size();
+        }
+      }
+    }
+    byte[][] encoded = new byte[strings.size()][];
+    long stringBytes = 0;
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+      stringBytes += encoded[i].length;
+    }
+
+    long featureTable = HEADER_BYTES;
+    long intTable = align(featureTable + (long) features.size() * FEATURE_INTS * Integer.BYTES);
+    long envelopes = align(intTable + ints * Integer.BYTES);
+    long xs = envelopes + 4L * features.size() * Double.BYTES;
+    long ys = xs + vertices * Double.BYTES;
+    long stringTable = ys + vertices * Double.BYTES;
+    long end = stringTable + (strings.size() + 1L) * Integer.BYTES + stringBytes;
+    if (end > Integer.MAX_VALUE) {
+      throw new IOException("dataset is too large for a single snapshot (" + end + " bytes)");
+    }
+
+    Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+          StandardOpenOption.WRITE)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, end);
+        buffer.order(ORDER);
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_VERSION, VERSION);
+        buffer.putInt(H_FEATURES, features.size());
+        buffer.putInt(H_STRINGS, strings.size());
+        buffer.putLong(H_VERTICES, vertices);
+        buffer.putLong(H_INTS, ints);
+        buffer.putLong(H_FEATURE_TABLE, featureTable);
+        buffer.putLong(H_INT_TABLE, intTable);
+        buffer.putLong(H_ENVELOPES, envelopes);
+        buffer.putLong(H_XS, xs);
+        buffer.putLong(H_YS, ys);
+        buffer.putLong(H_STRING_TABLE, stringTable);
+        buffer.putInt(H_COLLECTION_TYPE, idOf(store.getType(), stringIds));
+
+        int intCursor = 0;
+        int vertexCursor = 0;
+        for (int id = 0; id < features.size(); id++) {
+          Feature feature = features.get(id);
+          int record = (int) featureTable + id * FEATURE_INTS * Integer.BYTES;
+          int envelope = (int) envelopes + id * 4 * Double.BYTES;
+          buffer.putDouble(envelope, store.getEnvelopes().minX(id));
+          buffer.putDouble(envelope + Double.BYTES, store.getEnvelopes().minY(id));
+          buffer.putDouble(envelope + 2 * Double.BYTES, store.getEnvelopes().maxX(id));
+          buffer.putDouble(envelope + 3 * Double.BYTES, store.getEnvelopes().maxY(id));
+          if (feature == null) {
+            putField(buffer, record, F_FLAGS, NULL_FEATURE);
+            continue;
+          }
+          PackedCoordinates coordinates = coordinatesOf(feature);
+          int flags = 0;
+          putField(buffer, record, F_TYPE, idOf(feature.type, stringIds));
+          putField(buffer, record, F_GEOMETRY_TYPE,
+              feature.geometry == null ? NO_STRING : idOf(feature.geometry.type, stringIds));
+          if (feature.geometry != null) {
+            flags |= HAS_GEOMETRY;
+          }
+
+          if (coordinates != null) {
+            flags |= HAS_COORDINATES | (coordinates.isMulti() ? MULTI : 0);
+            putField(buffer, record, F_VERTEX_START, vertexCursor);
+            putField(buffer, record, F_VERTEX_COUNT, coordinates.vertexCount());
+            putField(buffer, record, F_RING_TABLE, intCursor);
+            putField(buffer, record, F_RING_COUNT, coordinates.ringCount());
+            putField(buffer, record, F_POLYGON_COUNT, coordinates.polygonCount());
+            for (int ring = 0; ring <= coordinates.ringCount(); ring++) {
+              int start = ring < coordinates.ringCount()
+                  ? coordinates.ringStart(ring) : coordinates.vertexCount();
+              buffer.putInt((int) intTable + intCursor++ * Integer.BYTES, start);
+            }
+            for (int polygon = 0; polygon <= coordinates.polygonCount(); polygon++) {
+              int start = polygon < coordinates.polygonCount()
+                  ? coordinates.polygonStart(polygon) : coordinates.ringCount();
+              buffer.putInt((int) intTable + intCursor++ * Integer.BYTES, start);
+            }
+            for (int vertex = 0; vertex < coordinates.vertexCount(); vertex++) {
+              buffer.putDouble((int) xs + (vertexCursor + vertex) * Double.BYTES,
+                  coordinates.x(vertex));
+              buffer.putDouble((int) ys + (vertexCursor + vertex) * Double.BYTES,
+                  coordinates.y(vertex));
+            }
+            vertexCursor += coordinates.vertexCount();
+          }
+          putField(buffer, record, F_NAME, NO_STRING);
+          putField(buffer, record, F_GRADE, NO_STRING);
+          putField(buffer, record, F_DESCRIPTION, NO_STRING);
+          if (feature.properties != null) {
+            flags |= HAS_PROPERTIES;
+            putField(buffer, record, F_NAME, idOf(feature.properties.name, stringIds));
+            putField(buffer, record, F_GRADE, idOf(feature.properties.holc_grade, stringIds));
+            Map<String, String> description = feature.properties.area_description_data;
+            if (description != null) {
+              putField(buffer, record, F_DESCRIPTION, intCursor);
+              putField(buffer, record, F_DESCRIPTION_COUNT, description.size());
+              for (Map.Entry<String, String> entry : description.entrySet()) {
+                buffer.putInt((int) intTable + intCursor++ * Integer.BYTES,
+                    idOf(entry.getKey(), stringIds));
+                buffer.putInt((int) intTable + intCursor++ * Integer.BYTES,
+                    idOf(entry.getValue(), stringIds));
+              }
+            }
+          }
+          putField(buffer, record, F_FLAGS, flags);
+        }
+
+        int offset = 0;
+        int bytes = (int) stringTable + (encoded.length + 1) * Integer.BYTES;
+        for (int i = 0; i <= encoded.length; i++) {
+          buffer.putInt((int) stringTable + i * Integer.BYTES, offset);
+          if (i < encoded.length) {
+            buffer.put(bytes + offset, encoded[i]);
+            offset += encoded[i].length;
+          }
+        }
+        buffer.force();
+      }
+      Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static PackedCoordinates coordinatesOf(Feature feature) {
+    return feature.geometry == null ? null : feature.geometry.coordinates;
+  }
+
+  private static void intern(String value, Map<String, Integer> ids, List<String> strings) {
+    if (value != null && !ids.containsKey(value)) {
+      ids.put(value, strings.size());
+      strings.add(value);
+    }
+  }
+
+  private static int idOf(String value, Map<String, Integer> ids) {
+    return value == null ? NO_STRING : ids.get(value);
+  }
+
+  private static void putField(MappedByteBuffer buffer, int record, int field, int value) {
+    buffer.putInt(record + field * Integer.BYTES, value);
+  }
+}
@@ -0,0 +1,76 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary dataset snapshot shared by SnapshotCompiler and SnapshotLoader. All
+ * values are little-endian and every section starts on an 8 byte boundary.
+ *
+ * <pre>
+ * header      magic, version, feature count, string count, vertex count, int count,
+ *             the byte offset of every section below, then the collection type string id
+ * features    FEATURE_INTS ints per feature (see the F_ constants)
+ * ints        per feature: ring offsets, polygon offsets, then description key/value string ids
+ * envelopes   minX, minY, maxX, maxY doubles per feature (NaN when it has no geometry)
+ * xs, ys      longitude and latitude of every vertex of every feature, feature after feature
+ * strings     byte offset of every string (plus the end offset), then their UTF-8 bytes
+ * </pre>
+ *
+ * Strings are deduplicated and referred to by id; NO_STRING stands for null. A null feature has
+ * a record with only the NULL_FEATURE flag set and NaN envelope.
+ */
+final class SnapshotFormat {
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  static final int MAGIC = 0x5350414D; // "MAPS" when read little-endian
+  static final int VERSION = 1;
+  static final int NO_STRING = -1;
+
+  // header: 4 ints, 2 longs, 6 long section offsets, then 1 int (padded to 8 bytes)
+  static final int H_MAGIC = 0;
+  static final int H_VERSION = 4;
+  static final int H_FEATURES = 8;
+  static final int H_STRINGS = 12;
+  static final int H_VERTICES = 16;
+  static final int H_INTS = 24;
+  static final int H_FEATURE_TABLE = 32;
+  static final int H_INT_TABLE = 40;
+  static final int H_ENVELOPES = 48;
+  static final int H_XS = 56;
+  static final int H_YS = 64;
+  static final int H_STRING_TABLE = 72;
+  static final int H_COLLECTION_TYPE = 80;
+  static final int HEADER_BYTES = 88;
+
+  // one feature record
+  static final int F_TYPE = 0;
+  static final int F_GEOMETRY_TYPE = 1;
+  static final int F_FLAGS = 2;
+  static final int F_VERTEX_START = 3;
+  static final int F_VERTEX_COUNT = 4;
+  static final int F_RING_TABLE = 5;
+  static final int F_RING_COUNT = 6;
+  static final int F_POLYGON_COUNT = 7;
+  static final int F_NAME = 8;
+  static final int F_GRADE = 9;
+  static final int F_DESCRIPTION = 10;
+  static final int F_DESCRIPTION_COUNT = 11;
+  static final int FEATURE_INTS = 12;
+
+  // bits of F_FLAGS
+  static final int HAS_GEOMETRY = 1;
+  static final int HAS_COORDINATES = 2;
+  static final int MULTI = 4;
+  static final int HAS_PROPERTIES = 8;
+  // the features list held null here; every other field of the record is unused
+  static final int NULL_FEATURE = 16;
+
+  private SnapshotFormat() {
+  }
+
+  /**
+   * Rounds a byte offset up to the next multiple of 8.
+   */
+  static long align(long offset) {
+    return (offset + 7) & ~7L;
+  }
+}
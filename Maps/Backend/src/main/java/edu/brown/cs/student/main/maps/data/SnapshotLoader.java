@@ -0,0 +1,174 @@
+package edu.brown.cs.student.main.maps.data;
+
+import static edu.brown.cs.student.main.maps.data.SnapshotFormat.*;
+
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Geometry;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Properties;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a snapshot written by SnapshotCompiler by memory-mapping it. Vertex coordinates are never
+ * copied: every feature's geometry is a view into the mapped file, so it lives outside the Java
+ * heap and the operating system pages it in as queries touch it. Only the small tables and the
+ * property strings are decoded onto the heap.
+ */
+public class SnapshotLoader {
+
+  /**
+   * Checks whether a file starts like a snapshot (rather than, for example, GeoJSON text).
+   * @param path file to check
+   * @return whether the file has the snapshot magic number
+   * @throws IOException if the file can't be read
+   */
+  public static boolean isSnapshot(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ORDER);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {
+        // keep reading until the four bytes are in or the file ends
+      }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Maps a snapshot file and builds a store whose geometries read straight from the mapping.
+   * @param path the snapshot file
+   * @return store over every feature in the snapshot
+   * @throws IOException if the file can't be mapped or isn't a snapshot of a supported version
+   */
+  public static FeatureStore load(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is not a dataset snapshot");
+      }
+      // the mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ORDER);
+    }
+    if (buffer.getInt(H_MAGIC) != MAGIC) {
+      throw new IOException(path + " is not a dataset snapshot");
+    }
+    if (buffer.getInt(H_VERSION) != VERSION) {
+      throw new IOException(path + " has snapshot version " + buffer.getInt(H_VERSION)
+          + " but only version " + VERSION + " is supported");
+    }
+
+    int featureCount = buffer.getInt(H_FEATURES);
+    int vertexCount = (int) buffer.getLong(H_VERTICES);
+    int featureTable = (int) buffer.getLong(H_FEATURE_TABLE);
+    int intTable = (int) buffer.getLong(H_INT_TABLE);
+    String[] strings = readStrings(buffer);
+    DoubleBuffer xs = section(buffer, (int) buffer.getLong(H_XS), vertexCount);
+    DoubleBuffer ys = section(buffer, (int) buffer.getLong(H_YS), vertexCount);
+
+    List<Feature> features = new ArrayList<>(featureCount);
+    for (int id = 0; id < featureCount; id++) {
+      int record = featureTable + id * FEATURE_INTS * Integer.BYTES;
+      int flags = field(buffer, record, F_FLAGS);
+      if ((flags & NULL_FEATURE) != 0) {
+        features.add(null);
+        continue;
+      }
+      Feature feature = new Feature();
+      feature.type = stringAt(strings, field(buffer, record, F_TYPE));
+
+      if ((flags & HAS_GEOMETRY) != 0) {
+        feature.geometry = new Geometry();
+        feature.geometry.type = stringAt(strings, field(buffer, record, F_GEOMETRY_TYPE));
+      }
+      if ((flags & HAS_COORDINATES) != 0) {
+        int vertexStart = field(buffer, record, F_VERTEX_START);
+        int vertices = field(buffer, record, F_VERTEX_COUNT);
+        int ringTable = field(buffer, record, F_RING_TABLE);
+        int rings = field(buffer, record, F_RING_COUNT);
+        int polygons = field(buffer, record, F_POLYGON_COUNT);
+        int[] ringOffsets = readInts(buffer, intTable, ringTable, rings + 1);
+        int[] polygonOffsets = readInts(buffer, intTable, ringTable + rings + 1, polygons + 1);
+        feature.geometry.coordinates = new PackedCoordinates(xs.slice(vertexStart, vertices),
+            ys.slice(vertexStart, vertices), ringOffsets, polygonOffsets, (flags & MULTI) != 0);
+      }
+
+      if ((flags & HAS_PROPERTIES) != 0) {
+        Properties properties = new Properties();
+        properties.name = stringAt(strings, field(buffer, record, F_NAME));
+        properties.holc_grade = stringAt(strings, field(buffer, record, F_GRADE));
+        int description = field(buffer, record, F_DESCRIPTION);
+        if (description != NO_STRING) {
+          int entries = field(buffer, record, F_DESCRIPTION_COUNT);
+          int[] ids = readInts(buffer, intTable, description, 2 * entries);
+          Map<String, String> data = new LinkedHashMap<>();
+          for (int entry = 0; entry < entries; entry++) {
+            data.put(stringAt(strings, ids[2 * entry]), stringAt(strings, ids[2 * entry + 1]));
+          }
+          properties.area_description_data = data;
+        }
+        feature.properties = properties;
+      }
+      features.add(feature);
+    }
+    return new FeatureStore(stringAt(strings, buffer.getInt(H_COLLECTION_TYPE)), features,
+        readEnvelopes(buffer, featureCount));
+  }
+
+  private static String[] readStrings(ByteBuffer buffer) {
+    int count = buffer.getInt(H_STRINGS);
+    int table = (int) buffer.getLong(H_STRING_TABLE);
+    int bytes = table + (count + 1) * Integer.BYTES;
+    String[] strings = new String[count];
+    for (int i = 0; i < count; i++) {
+      int start = buffer.getInt(table + i * Integer.BYTES);
+      int end = buffer.getInt(table + (i + 1) * Integer.BYTES);
+      byte[] utf8 = new byte[end - start];
+      buffer.get(bytes + start, utf8);
+      strings[i] = new String(utf8, StandardCharsets.UTF_8);
+    }
+    return strings;
+  }
+
+  private static Envelopes readEnvelopes(ByteBuffer buffer, int featureCount) {
+    DoubleBuffer envelopes = section(buffer, (int) buffer.getLong(H_ENVELOPES), 4 * featureCount);
+    double[] minX = new double[featureCount];
+    double[] minY = new double[featureCount];
+    double[] maxX = new double[featureCount];
+    double[] maxY = new double[featureCount];
+    for (int id = 0; id < featureCount; id++) {
+      minX[id] = envelopes.get(4 * id);
+      minY[id] = envelopes.get(4 * id + 1);
+      maxX[id] = envelopes.get(4 * id + 2);
+      maxY[id] = envelopes.get(4 * id + 3);
+    }
+    return new Envelopes(minX, minY, maxX, maxY);
+  }
+
+  private static DoubleBuffer section(ByteBuffer buffer, int offset, int doubles) {
+    return buffer.slice(offset, doubles * Double.BYTES).order(ORDER).asDoubleBuffer();
+  }
+
+  private static int[] readInts(ByteBuffer buffer, int intTable, int start, int count) {
+    int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = buffer.getInt(intTable + (start + i) * Integer.BYTES);
+    }
+    return values;
+  }
+
+  private static int field(ByteBuffer buffer, int record, int field) {
+    return buffer.getInt(record + field * Integer.BYTES);
+  }
+
+  private static String stringAt(String[] strings, int id) {
+    return id == NO_STRING ? null : strings[id];
+  }
+}
@@ -0,0 +1,412 @@
+package edu.brown.cs.student.main.maps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Narrows a substring search down to the texts that could contain it. Every run of three
+ * characters (a trigram) of every text is indexed with the sorted ids of the texts it occurs in,
+ * and a text can only contain a query if it has every trigram of the query, so intersecting the
+ * query's lists gives a short list of candidates that a real substring check then confirms.
+ * Lists are stored as delta-encoded varints, and the index stays within a byte budget by
+ * dropping the longest lists, which are the ones that narrow a search the least. Every list is
+ * sized from the chunks before any is encoded, so the dropped ones are never built; a query whose
+ * trigrams were all dropped, or that is shorter than three characters, can't be narrowed and
+ * has to check every text. The index is built in parallel over chunks of the texts.
+ */
+public final class TrigramIndex {
+  /**
+   * Default memory budget of the encoded lists, in bytes.
+   */
+  public static final long DEFAULT_BUDGET_BYTES = 32L << 20;
+
+  // roughly what each list costs besides its bytes: the map entry, the boxed key and the list
+  private static final int LIST_OVERHEAD_BYTES = 96;
+  // each parallel task indexes about this many texts
+  private static final int CHUNK_SIZE = 2048;
+
+  private static final long TRIGRAM_MASK = (1L << 48) - 1;
+
+  private final Map<Long, Postings> postings;
+  private final Set<Long> dropped;
+  private final long memoryBytes;
+
+  private TrigramIndex(Map<Long, Postings> postings, Set<Long> dropped, long memoryBytes) {
+    this.postings = postings;
+    this.dropped = dropped;
+    this.memoryBytes = memoryBytes;
+  }
+
+  /**
+   * Indexes a set of texts.
+   * @param texts the texts, by id; null texts are never candidates
+   * @param budgetBytes how much memory the lists may take
+   * @return the index
+   */
+  public static TrigramIndex of(String[] texts, long budgetBytes) {
+    int chunks = (texts.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    List<Table> parts = IntStream.range(0, chunks).parallel()
+        .mapToObj(chunk -> index(texts, chunk * CHUNK_SIZE,
+            Math.min(texts.length, (chunk + 1) * CHUNK_SIZE)))
+        .toList();
+    Set<Long> distinct = new HashSet<>();
+    for (Table part : parts) {
+      part.forEachKey(distinct::add);
+    }
+    long[] trigrams = distinct.stream().mapToLong(Long::longValue).toArray();
+
+    // size every joined list before encoding any, so that only the ones kept are ever built;
+    // each is packed as its weight above its position, so sorting puts the shortest first
+    long[] bySize = new long[trigrams.length];
+    IntStream.range(0, trigrams.length).parallel().forEach(i ->
+        bySize[i] = ((long) (joinedLength(parts, trigrams[i]) + LIST_OVERHEAD_BYTES) << 32) | i);
+    Arrays.sort(bySize);
+    long plannedBytes = 0;
+    int keep = 0;
+    while (keep < bySize.length && plannedBytes + (bySize[keep] >>> 32) <= budgetBytes) {
+      plannedBytes += bySize[keep] >>> 32;
+      keep++;
+    }
+    Set<Long> dropped = new HashSet<>();
+    for (int i = keep; i < bySize.length; i++) {
+      dropped.add(trigrams[(int) bySize[i]]);
+    }
+
+    // the chunks are in id order, so joining each trigram's lists chunk by chunk keeps it sorted
+    Map<Long, Postings> encoded = new ConcurrentHashMap<>(keep * 4 / 3 + 1);
+    IntStream.range(0, keep).parallel().forEach(i -> {
+      long trigram = trigrams[(int) bySize[i]];
+      Encoder joined = new Encoder();
+      for (Table part : parts) {
+        Encoder list = part.get(trigram);
+        if (list != null) {
+          joined.append(list);
+        }
+      }
+      encoded.put(trigram, joined.finish());
+    });
+    long memoryBytes = 0;
+    for (Postings list : encoded.values()) {
+      memoryBytes += weight(list);
+    }
+    return new TrigramIndex(new HashMap<>(encoded), dropped, memoryBytes);
+  }
+
+  /**
+   * Finds the texts that could contain a query, which still have to be checked.
+   * @param query the string to look for
+   * @return sorted ids of the candidates, or null if the index can't narrow the search
+   */
+  public int[] candidates(String query) {
+    List<Postings> lists = new ArrayList<>();
+    Set<Long> seen = new HashSet<>();
+    for (int i = 0; i + 3 <= query.length(); i++) {
+      long trigram = trigram(query, i);
+      if (!seen.add(trigram)) {
+        continue;
+      }
+      Postings list = this.postings.get(trigram);
+      if (list != null) {
+        lists.add(list);
+      } else if (!this.dropped.contains(trigram)) {
+        // nothing has this trigram, so nothing can contain the query
+        return new int[0];
+      }
+    }
+    if (lists.isEmpty()) {
+      return null;
+    }
+    lists.sort(Comparator.comparingInt(list -> list.count));
+    int[] ids = lists.get(0).decode();
+    for (int i = 1; i < lists.size() && ids.length > 0; i++) {
+      ids = lists.get(i).intersect(ids);
+    }
+    return ids;
+  }
+
+  /**
+   * @return memory the lists take, in bytes, counted from every list the build encoded
+   */
+  public long memoryBytes() {
+    return this.memoryBytes;
+  }
+
+  /**
+   * @return number of trigrams with a list
+   */
+  public int trigramCount() {
+    return this.postings.size();
+  }
+
+  /**
+   * @return number of trigrams whose lists were dropped to stay within the budget
+   */
+  public int droppedCount() {
+    return this.dropped.size();
+  }
+
+  private static Table index(String[] texts, int from, int to) {
+    Table part = new Table();
+    for (int id = from; id < to; id++) {
+      String text = texts[id];
+      if (text == null) {
+        continue;
+      }
+      // each trigram is the last one shifted along by a character
+      long trigram = 0;
+      for (int i = 0; i < text.length(); i++) {
+        trigram = ((trigram << 16) | text.charAt(i)) & TRIGRAM_MASK;
+        if (i >= 2) {
+          part.add(trigram, id);
+        }
+      }
+    }
+    return part;
+  }
+
+  private static long trigram(String text, int start) {
+    return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16)
+        | text.charAt(start + 2);
+  }
+
+  private static long weight(Postings list) {
+    return list.bytes.length + LIST_OVERHEAD_BYTES;
+  }
+
+  /**
+   * The length of a trigram's list once the chunks' lists are joined, without joining them: each
+   * chunk's bytes are copied except its first gap, which is written again from the last id before
+   * it.
+   */
+  private static int joinedLength(List<Table> parts, long trigram) {
+    int length = 0;
+    int last = -1;
+    for (Table part : parts) {
+      Encoder list = part.get(trigram);
+      if (list != null) {
+        int position = list.firstGapLength();
+        length += list.length - position + varintLength(list.first() - last);
+        last = list.last;
+      }
+    }
+    return length;
+  }
+
+  private static int varintLength(int value) {
+    int length = 1;
+    while ((value & ~0x7f) != 0) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * The lists of one chunk, by trigram, in an open-addressing table so that indexing a text
+   * doesn't box a key for every one of its trigrams.
+   */
+  private static final class Table {
+    private long[] keys = new long[1024];
+    private Encoder[] lists = new Encoder[1024];
+    private int size;
+
+    private void add(long trigram, int id) {
+      int slot = this.slot(trigram);
+      if (this.lists[slot] == null) {
+        this.keys[slot] = trigram;
+        this.lists[slot] = new Encoder();
+        if (++this.size * 2 > this.keys.length) {
+          this.grow();
+          slot = this.slot(trigram);
+        }
+      }
+      this.lists[slot].add(id);
+    }
+
+    private Encoder get(long trigram) {
+      return this.lists[this.slot(trigram)];
+    }
+
+    private void forEachKey(LongConsumer action) {
+      for (int slot = 0; slot < this.keys.length; slot++) {
+        if (this.lists[slot] != null) {
+          action.accept(this.keys[slot]);
+        }
+      }
+    }
+
+    /**
+     * The slot that holds a trigram, or the empty one where it would go.
+     */
+    private int slot(long trigram) {
+      int mask = this.keys.length - 1;
+      int slot = (int) (trigram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+      while (this.lists[slot] != null && this.keys[slot] != trigram) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    private void grow() {
+      long[] keys = this.keys;
+      Encoder[] lists = this.lists;
+      this.keys = new long[keys.length * 2];
+      this.lists = new Encoder[keys.length * 2];
+      for (int slot = 0; slot < keys.length; slot++) {
+        if (lists[slot] != null) {
+          int to = this.slot(keys[slot]);
+          this.keys[to] = keys[slot];
+          this.lists[to] = lists[slot];
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes sorted ids as the varint-encoded gaps between them, the first one counted from -1.
+   */
+  private static final class Encoder {
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int count;
+    private int last = -1;
+
+    private void add(int id) {
+      // texts are indexed in order, so a trigram seen before in this text is the last id
+      if (id == this.last) {
+        return;
+      }
+      this.write(id - this.last);
+      this.last = id;
+      this.count++;
+    }
+
+    /**
+     * Adds the ids of another list, which all come after this one's; only its first gap has to
+     * be written again, the rest of its bytes are copied.
+     */
+    private void append(Encoder other) {
+      int position = other.firstGapLength();
+      this.write(other.first() - this.last);
+      int rest = other.length - position;
+      if (this.length + rest > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + rest));
+      }
+      System.arraycopy(other.bytes, position, this.bytes, this.length, rest);
+      this.length += rest;
+      this.last = other.last;
+      this.count += other.count;
+    }
+
+    /**
+     * The first id, whose gap is counted from -1.
+     */
+    private int first() {
+      int first = -1;
+      int shift = 0;
+      int position = 0;
+      byte b;
+      do {
+        b = this.bytes[position++];
+        first += (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      return first;
+    }
+
+    private int firstGapLength() {
+      int length = 1;
+      while (this.bytes[length - 1] < 0) {
+        length++;
+      }
+      return length;
+    }
+
+    private void write(int gap) {
+      if (this.length + 5 > this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+      }
+      while ((gap & ~0x7f) != 0) {
+        this.bytes[this.length++] = (byte) ((gap & 0x7f) | 0x80);
+        gap >>>= 7;
+      }
+      this.bytes[this.length++] = (byte) gap;
+    }
+
+    private Postings finish() {
+      return new Postings(this.count, Arrays.copyOf(this.bytes, this.length));
+    }
+  }
+
+  /**
+   * The sorted ids of the texts that have one trigram, delta-encoded.
+   */
+  private static final class Postings {
+    private final int count;
+    private final byte[] bytes;
+
+    private Postings(int count, byte[] bytes) {
+      this.count = count;
+      this.bytes = bytes;
+    }
+
+    private int[] decode() {
+      int[] ids = new int[this.count];
+      int position = 0;
+      int id = -1;
+      for (int i = 0; i < this.count; i++) {
+        int gap = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = this.bytes[position++];
+          gap |= (b & 0x7f) << shift;
+          shift += 7;
+        } while (b < 0);
+        id += gap;
+        ids[i] = id;
+      }
+      return ids;
+    }
+
+    /**
+     * Keeps the ids of a sorted array that are also in this list, decoding it as it goes.
+     */
+    private int[] intersect(int[] candidates) {
+      int[] ids = new int[candidates.length];
+      int kept = 0;
+      int position = 0;
+      int decoded = 0;
+      int id = -1;
+      for (int candidate : candidates) {
+        while (id < candidate && decoded < this.count) {
+          int gap = 0;
+          int shift = 0;
+          byte b;
+          do {
+            b = this.bytes[position++];
+            gap |= (b & 0x7f) << shift;
+            shift += 7;
+          } while (b < 0);
+          id += gap;
+          decoded++;
+        }
+        if (id == candidate) {
+          ids[kept++] = candidate;
+        } else if (id < candidate) {
+          break;
+        }
+      }
+      return Arrays.copyOf(ids, kept);
+    }
+  }
+}
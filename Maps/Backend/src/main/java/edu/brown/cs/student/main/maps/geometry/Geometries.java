@@ -0,0 +1,125 @@
+package edu.brown.cs.student.main.maps.geometry;
+
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+
+/**
+ * Exact geometric predicates over packed polygon coordinates. Coordinates are treated as planar
+ * longitude/latitude pairs, the same way the rest of the maps code compares them.
+ */
+public final class Geometries {
+  private Geometries() {
+  }
+
+  /**
+   * Checks whether any part of a (multi)polygon overlaps a box, counting touching edges.
+   * The polygon overlaps when one of its vertices is in the box, when one of its edges crosses
+   * the box, or otherwise when the box lies entirely inside it (which is tested with one corner).
+   * @param coordinates the polygon's coordinates
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @return whether the polygon and the box share at least one point
+   */
+  public static boolean intersectsBox(PackedCoordinates coordinates, double minX, double minY,
+      double maxX, double maxY) {
+    for (int ring = 0; ring < coordinates.ringCount(); ring++) {
+      int start = coordinates.ringStart(ring);
+      int end = coordinates.ringEnd(ring);
+      for (int vertex = start; vertex < end; vertex++) {
+        double x = coordinates.x(vertex);
+        double y = coordinates.y(vertex);
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          return true;
+        }
+        int next = vertex + 1 < end ? vertex + 1 : start;
+        if (segmentIntersectsBox(x, y, coordinates.x(next), coordinates.y(next),
+            minX, minY, maxX, maxY)) {
+          return true;
+        }
+      }
+    }
+    return contains(coordinates, minX, minY);
+  }
+
+  /**
+   * Checks whether a point lies inside a (multi)polygon using the even-odd rule, so points in a
+   * hole are outside. Points exactly on an edge may land on either side.
+   * @param coordinates the polygon's coordinates
+   * @param x longitude of the point
+   * @param y latitude of the point
+   * @return whether the point is inside
+   */
+  public static boolean contains(PackedCoordinates coordinates, double x, double y) {
+    for (int polygon = 0; polygon < coordinates.polygonCount(); polygon++) {
+      boolean inside = false;
+      for (int ring = coordinates.polygonStart(polygon); ring < coordinates.polygonEnd(polygon);
+          ring++) {
+        if (ringContains(coordinates, ring, x, y)) {
+          inside = !inside;
+        }
+      }
+      if (inside) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Casts a ray from the point towards +x and counts how many edges of the ring it crosses.
+   * @param coordinates the polygon's coordinates
+   * @param ring the ring to test
+   * @param x longitude of the point
+   * @param y latitude of the point
+   * @return whether the ray crosses an odd number of edges
+   */
+  public static boolean ringContains(PackedCoordinates coordinates, int ring, double x,
+      double y) {
+    int start = coordinates.ringStart(ring);
+    int end = coordinates.ringEnd(ring);
+    boolean inside = false;
+    for (int vertex = start, previous = end - 1; vertex < end; previous = vertex++) {
+      double x1 = coordinates.x(vertex);
+      double y1 = coordinates.y(vertex);
+      double x2 = coordinates.x(previous);
+      double y2 = coordinates.y(previous);
+      if ((y1 > y) != (y2 > y) && x < (x2 - x1) * (y - y1) / (y2 - y1) + x1) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  /**
+   * Clips a segment against a box (Liang-Barsky) to decide whether any part of it lies inside.
+   * @return whether the segment from (x1, y1) to (x2, y2) touches the box
+   */
+  static boolean segmentIntersectsBox(double x1, double y1, double x2, double y2, double minX,
+      double minY, double maxX, double maxY) {
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double[] p = {-dx, dx, -dy, dy};
+    double[] q = {x1 - minX, maxX - x1, y1 - minY, maxY - y1};
+    double enter = 0;
+    double exit = 1;
+    for (int i = 0; i < 4; i++) {
+      if (p[i] == 0) {
+        if (q[i] < 0) {
+          return false;
+        }
+      } else {
+        double t = q[i] / p[i];
+        if (p[i] < 0) {
+          enter = Math.max(enter, t);
+        } else {
+          exit = Math.min(exit, t);
+        }
+        if (enter > exit) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,126 @@
+package edu.brown.cs.student.main.maps.geometry;
+
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+
+/**
+ * Great-circle distances on a spherical earth, in kilometres, between points, boxes and polygon
+ * edges given as longitude/latitude in degrees.
+ */
+public final class Haversine {
+  /**
+   * Mean radius of the earth in kilometres.
+   */
+  public static final double EARTH_RADIUS_KM = 6371.0088;
+
+  /**
+   * Half the earth's circumference: no two points are farther apart than this.
+   */
+  public static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+  private Haversine() {
+  }
+
+  /**
+   * @return the great-circle distance between two points in kilometres
+   */
+  public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+    double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+    double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+    double a = sinLat * sinLat
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /**
+   * The shortest distance from a point to any point of a longitude/latitude box (0 inside it).
+   * The nearest point lies straight north or south when the point is within the box's
+   * longitudes, and otherwise on the nearer of its two bounding meridians.
+   * @return the distance in kilometres
+   */
+  public static double distanceToBoxKm(double lat, double lon, double minX, double minY,
+      double maxX, double maxY) {
+    if (lon >= minX && lon <= maxX) {
+      double nearestLat = Math.max(minY, Math.min(maxY, lat));
+      return Math.toRadians(Math.abs(lat - nearestLat)) * EARTH_RADIUS_KM;
+    }
+    double toMin = Math.abs(wrap(lon - minX));
+    double toMax = Math.abs(wrap(lon - maxX));
+    return distanceToMeridianKm(lat, lon, toMin <= toMax ? minX : maxX, minY, maxY);
+  }
+
+  /**
+   * The shortest distance from a point to a stretch of meridian. Within 90 degrees of longitude
+   * the nearest point of the whole meridian is the foot of the perpendicular great circle, and
+   * distance grows away from it; beyond 90 degrees that point is the farthest instead, so the
+   * nearest point of the stretch is one of its ends.
+   */
+  private static double distanceToMeridianKm(double lat, double lon, double meridian,
+      double minY, double maxY) {
+    double deltaLon = Math.toRadians(Math.abs(wrap(lon - meridian)));
+    if (deltaLon >= Math.PI / 2) {
+      return Math.min(distanceKm(lat, lon, minY, meridian), distanceKm(lat, lon, maxY, meridian));
+    }
+    double footLat = Math.toDegrees(Math.atan(Math.tan(Math.toRadians(lat)) / Math.cos(deltaLon)));
+    return distanceKm(lat, lon, Math.max(minY, Math.min(maxY, footLat)), meridian);
+  }
+
+  /**
+   * The shortest distance from a point to the edges of every ring of a polygon. Each edge is
+   * short enough to be treated as straight in a local projection around the point; the nearest
+   * point of the edge is found there and its great-circle distance is measured.
+   * @param coordinates the polygon's coordinates
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @return the distance in kilometres, or infinity for a geometry without vertices
+   */
+  public static double distanceToEdgesKm(PackedCoordinates coordinates, double lat, double lon) {
+    double scale = Math.cos(Math.toRadians(lat));
+    double best = Double.POSITIVE_INFINITY;
+    for (int ring = 0; ring < coordinates.ringCount(); ring++) {
+      int start = coordinates.ringStart(ring);
+      int end = coordinates.ringEnd(ring);
+      for (int vertex = start; vertex < end; vertex++) {
+        int next = vertex + 1 < end ? vertex + 1 : start;
+        double ax = wrap(coordinates.x(vertex) - lon) * scale;
+        double ay = coordinates.y(vertex) - lat;
+        double dx = wrap(coordinates.x(next) - coordinates.x(vertex)) * scale;
+        double dy = coordinates.y(next) - coordinates.y(vertex);
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0
+            ? Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSquared)) : 0;
+        double nearestLon = coordinates.x(vertex)
+            + t * wrap(coordinates.x(next) - coordinates.x(vertex));
+        double nearestLat = coordinates.y(vertex) + t * dy;
+        best = Math.min(best, distanceKm(lat, lon, nearestLat, nearestLon));
+      }
+    }
+    return best;
+  }
+
+  /**
+   * A box that holds every point within a distance of a point, for narrowing a search with a
+   * spatial index. It spans every longitude when the circle reaches a pole or the antimeridian.
+   * @return the box as {minX, minY, maxX, maxY}
+   */
+  public static double[] boxAround(double lat, double lon, double radiusKm) {
+    double angle = radiusKm / EARTH_RADIUS_KM;
+    double deltaLat = Math.toDegrees(angle);
+    double minY = lat - deltaLat;
+    double maxY = lat + deltaLat;
+    if (minY <= -90 || maxY >= 90 || angle >= Math.PI / 2) {
+      return new double[] {-180, Math.max(-90, minY), 180, Math.min(90, maxY)};
+    }
+    double deltaLon = Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(Math.toRadians(lat))));
+    if (lon - deltaLon < -180 || lon + deltaLon > 180) {
+      return new double[] {-180, minY, 180, maxY};
+    }
+    return new double[] {lon - deltaLon, minY, lon + deltaLon, maxY};
+  }
+
+  /**
+   * @return a longitude difference brought into [-180, 180)
+   */
+  private static double wrap(double degrees) {
+    return degrees - 360 * Math.floor((degrees + 180) / 360);
+  }
+}
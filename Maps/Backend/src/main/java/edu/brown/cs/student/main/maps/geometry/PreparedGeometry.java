@@ -0,0 +1,165 @@
+package edu.brown.cs.student.main.maps.geometry;
+
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.Arrays;
+
+/**
+ * A (multi)polygon prepared for fast point-in-polygon tests. For each polygon, its latitude range
+ * is cut into horizontal bands and every edge (of the outer ring and of the holes) is listed in
+ * each band it crosses. A test then only looks at the edges in the point's band, instead of every
+ * edge of the polygon, so it stays cheap even for polygons with thousands of vertices.
+ *
+ * <p>Containment uses the even-odd rule over all rings of a polygon, so points in a hole are
+ * outside, and a point is inside a MultiPolygon when it is inside any of its polygons. Points
+ * exactly on an edge may land on either side.
+ */
+public final class PreparedGeometry {
+  // aim for about this many edges per band
+  private static final int EDGES_PER_BAND = 8;
+  private static final int MAX_BANDS = 4096;
+
+  private final PackedCoordinates coordinates;
+  private final BandIndex[] polygons;
+
+  private PreparedGeometry(PackedCoordinates coordinates, BandIndex[] polygons) {
+    this.coordinates = coordinates;
+    this.polygons = polygons;
+  }
+
+  /**
+   * Builds the band index of every polygon.
+   * @param coordinates the geometry to prepare
+   * @return the prepared geometry
+   */
+  public static PreparedGeometry of(PackedCoordinates coordinates) {
+    BandIndex[] polygons = new BandIndex[coordinates.polygonCount()];
+    for (int polygon = 0; polygon < polygons.length; polygon++) {
+      polygons[polygon] = BandIndex.of(coordinates, polygon);
+    }
+    return new PreparedGeometry(coordinates, polygons);
+  }
+
+  /**
+   * Checks whether a point lies inside the geometry.
+   * @param x longitude of the point
+   * @param y latitude of the point
+   * @return whether the point is inside
+   */
+  public boolean contains(double x, double y) {
+    for (BandIndex polygon : this.polygons) {
+      if (polygon.contains(this.coordinates, x, y)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The band index of one polygon. The edges of band b are listed from
+   * edgeStart[b] to edgeStart[b + 1], each as the indexes of its two vertices.
+   */
+  private static final class BandIndex {
+    final double minY;
+    final double maxY;
+    final double bandHeight;
+    final int bands;
+    final int[] edgeStart;
+    final int[] from;
+    final int[] to;
+
+    private BandIndex(double minY, double maxY, int bands, int[] edgeStart, int[] from,
+        int[] to) {
+      this.minY = minY;
+      this.maxY = maxY;
+      this.bands = bands;
+      this.bandHeight = maxY > minY ? (maxY - minY) / bands : 1;
+      this.edgeStart = edgeStart;
+      this.from = from;
+      this.to = to;
+    }
+
+    static BandIndex of(PackedCoordinates coordinates, int polygon) {
+      int firstRing = coordinates.polygonStart(polygon);
+      int lastRing = coordinates.polygonEnd(polygon);
+      double minY = Double.POSITIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      int edges = 0;
+      for (int vertex = coordinates.ringStart(firstRing);
+          vertex < coordinates.ringStart(lastRing); vertex++) {
+        minY = Math.min(minY, coordinates.y(vertex));
+        maxY = Math.max(maxY, coordinates.y(vertex));
+        edges++;
+      }
+      if (edges == 0) {
+        return new BandIndex(0, -1, 1, new int[2], new int[0], new int[0]);
+      }
+      int bands = Math.max(1, Math.min(MAX_BANDS, edges / EDGES_PER_BAND));
+      BandIndex layout = new BandIndex(minY, maxY, bands, new int[bands + 1], null, null);
+
+      // count, then fill, the edges of each band
+      int[] counts = layout.edgeStart;
+      forEachEdge(coordinates, firstRing, lastRing, (a, b) -> {
+        for (int i = layout.band(Math.min(coordinates.y(a), coordinates.y(b)));
+            i <= layout.band(Math.max(coordinates.y(a), coordinates.y(b))); i++) {
+          counts[i + 1]++;
+        }
+      });
+      for (int i = 0; i < bands; i++) {
+        counts[i + 1] += counts[i];
+      }
+      int[] from = new int[counts[bands]];
+      int[] to = new int[counts[bands]];
+      int[] next = Arrays.copyOf(counts, bands);
+      forEachEdge(coordinates, firstRing, lastRing, (a, b) -> {
+        for (int i = layout.band(Math.min(coordinates.y(a), coordinates.y(b)));
+            i <= layout.band(Math.max(coordinates.y(a), coordinates.y(b))); i++) {
+          from[next[i]] = a;
+          to[next[i]] = b;
+          next[i]++;
+        }
+      });
+      return new BandIndex(minY, maxY, bands, counts, from, to);
+    }
+
+    boolean contains(PackedCoordinates coordinates, double x, double y) {
+      if (!(y >= this.minY && y <= this.maxY)) {
+        return false;
+      }
+      int band = this.band(y);
+      boolean inside = false;
+      for (int i = this.edgeStart[band]; i < this.edgeStart[band + 1]; i++) {
+        double x1 = coordinates.x(this.from[i]);
+        double y1 = coordinates.y(this.from[i]);
+        double x2 = coordinates.x(this.to[i]);
+        double y2 = coordinates.y(this.to[i]);
+        if ((y1 > y) != (y2 > y) && x < (x2 - x1) * (y - y1) / (y2 - y1) + x1) {
+          inside = !inside;
+        }
+      }
+      return inside;
+    }
+
+    private int band(double y) {
+      return Math.max(0, Math.min(this.bands - 1, (int) ((y - this.minY) / this.bandHeight)));
+    }
+
+    /**
+     * Calls the visitor with the vertex indexes of every edge of the given rings, closing each
+     * ring back to its first vertex.
+     */
+    private static void forEachEdge(PackedCoordinates coordinates, int firstRing, int lastRing,
+        EdgeVisitor visitor) {
+      for (int ring = firstRing; ring < lastRing; ring++) {
+        int start = coordinates.ringStart(ring);
+        int end = coordinates.ringEnd(ring);
+        for (int vertex = start; vertex < end; vertex++) {
+          visitor.visit(vertex, vertex + 1 < end ? vertex + 1 : start);
+        }
+      }
+    }
+  }
+
+  private interface EdgeVisitor {
+    void visit(int from, int to);
+  }
+}
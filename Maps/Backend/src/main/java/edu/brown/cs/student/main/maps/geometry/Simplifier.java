@@ -0,0 +1,155 @@
+package edu.brown.cs.student.main.maps.geometry;
+
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.Arrays;
+
+/**
+ * Simplifies polygon rings with the Douglas-Peucker algorithm: a run of vertices is replaced by
+ * a straight segment whenever none of them is farther than the tolerance from it, so the shape
+ * never moves by more than the tolerance. Outer rings always keep at least a triangle, so every
+ * polygon stays visible; holes that shrink below a triangle are dropped.
+ */
+public final class Simplifier {
+  private Simplifier() {
+  }
+
+  /**
+   * Simplifies every ring of a (multi)polygon.
+   * @param coordinates the coordinates to simplify
+   * @param tolerance largest distance (in degrees) a removed vertex may lie from the result
+   * @return the simplified coordinates, or the same object if no vertex could be removed
+   */
+  public static PackedCoordinates simplify(PackedCoordinates coordinates, double tolerance) {
+    PackedCoordinates.Builder builder = new PackedCoordinates.Builder();
+    boolean changed = false;
+    for (int polygon = 0; polygon < coordinates.polygonCount(); polygon++) {
+      builder.startPolygon();
+      for (int ring = coordinates.polygonStart(polygon); ring < coordinates.polygonEnd(polygon);
+          ring++) {
+        int start = coordinates.ringStart(ring);
+        int end = coordinates.ringEnd(ring);
+        boolean[] keep = simplifyRing(coordinates, start, end, tolerance,
+            ring == coordinates.polygonStart(polygon));
+        if (keep == null) {
+          changed = true;
+          continue;
+        }
+        builder.startRing();
+        for (int vertex = start; vertex < end; vertex++) {
+          if (keep[vertex - start]) {
+            builder.addVertex(coordinates.x(vertex), coordinates.y(vertex));
+          } else {
+            changed = true;
+          }
+        }
+      }
+    }
+    return changed ? builder.build(coordinates.isMulti()) : coordinates;
+  }
+
+  /**
+   * Picks the vertices of one ring to keep.
+   * @return which vertices (relative to start) to keep, or null to drop the whole ring
+   */
+  private static boolean[] simplifyRing(PackedCoordinates coordinates, int start, int end,
+      double tolerance, boolean outer) {
+    int count = end - start;
+    boolean[] keep = new boolean[count];
+    // rings too small to simplify, and degenerate rings, are left as they are
+    if (count <= 4) {
+      return keepAll(keep);
+    }
+    // a closed ring starts and ends on the same vertex, so split it at the vertex farthest from
+    // the start and simplify both halves
+    int far = 0;
+    double farDistance = -1;
+    for (int i = 1; i < count - 1; i++) {
+      double distance = squaredDistance(coordinates, start, start + i);
+      if (distance > farDistance) {
+        far = i;
+        farDistance = distance;
+      }
+    }
+    keep[0] = true;
+    keep[far] = true;
+    keep[count - 1] = true;
+    double squaredTolerance = tolerance * tolerance;
+    int[] stack = new int[2 * count];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = far;
+    stack[top++] = far;
+    stack[top++] = count - 1;
+    int kept = 3;
+    // the vertex farthest from the first split line, in case the ring needs forcing open
+    int widest = -1;
+    double widestDistance = 0;
+    while (top > 0) {
+      int last = stack[--top];
+      int first = stack[--top];
+      int split = -1;
+      double splitDistance = -1;
+      for (int i = first + 1; i < last; i++) {
+        double distance = squaredSegmentDistance(coordinates, start + i, start + first,
+            start + last);
+        if (distance > splitDistance) {
+          split = i;
+          splitDistance = distance;
+        }
+      }
+      if (split < 0) {
+        continue;
+      }
+      if (splitDistance > widestDistance) {
+        widest = split;
+        widestDistance = splitDistance;
+      }
+      if (splitDistance > squaredTolerance) {
+        keep[split] = true;
+        kept++;
+        stack[top++] = first;
+        stack[top++] = split;
+        stack[top++] = split;
+        stack[top++] = last;
+      }
+    }
+    if (kept < 4) {
+      if (!outer || widest < 0) {
+        return outer ? keepAll(keep) : null;
+      }
+      keep[widest] = true;
+    }
+    return keep;
+  }
+
+  private static boolean[] keepAll(boolean[] keep) {
+    Arrays.fill(keep, true);
+    return keep;
+  }
+
+  private static double squaredDistance(PackedCoordinates coordinates, int a, int b) {
+    double dx = coordinates.x(a) - coordinates.x(b);
+    double dy = coordinates.y(a) - coordinates.y(b);
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * @return squared distance from vertex p to the segment from vertex a to vertex b
+   */
+  private static double squaredSegmentDistance(PackedCoordinates coordinates, int p, int a,
+      int b) {
+    double ax = coordinates.x(a);
+    double ay = coordinates.y(a);
+    double dx = coordinates.x(b) - ax;
+    double dy = coordinates.y(b) - ay;
+    double px = coordinates.x(p) - ax;
+    double py = coordinates.y(p) - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    if (lengthSquared > 0) {
+      double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+      px -= t * dx;
+      py -= t * dy;
+    }
+    return px * px + py * py;
+  }
+}
@@ -0,0 +1,348 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A query combining several feature filters, such as
+ * keyword('industrial') AND bbox(41, 43, -72, -70) AND grade IN (C, D) AND NOT keyword('Negro').
+ * Each filter is answered from its own index as a bitset of feature ids, and the bitsets are
+ * combined a 64-bit word at a time, so no feature is looked at again until the ids that are
+ * left are sent. The filters are:
+ * keyword('text'), areas whose description contains the text (as mapsKeyWord);
+ * words('text'), areas whose description uses every word of it (as mapsKeyWord with match=word);
+ * bbox(lowerLat, upperLat, lowerLong, upperLong), areas inside the box, or bbox(..., intersects)
+ * for areas that overlap it (as /mapsBoundingBox);
+ * grade IN (A, B, ...), areas with one of the HOLC grades.
+ * They are combined with NOT, AND and OR, which bind in that order, and parentheses; keywords are
+ * case-insensitive and text is quoted with ' or ", with \ escaping the next character.
+ */
+final class FeatureQuery {
+  // deeper nesting than this is refused rather than risk running out of stack
+  private static final int MAX_DEPTH = 64;
+
+  private final Node root;
+
+  private FeatureQuery(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Parses a query.
+   * @param text the query
+   * @return the parsed query
+   * @throws IllegalArgumentException with a description of the problem if the query is invalid
+   */
+  static FeatureQuery parse(String text) {
+    Parser parser = new Parser(text);
+    Node root = parser.or(0);
+    if (parser.peek() != null) {
+      throw new IllegalArgumentException("unexpected '" + parser.peek() + "' at position "
+          + parser.position);
+    }
+    return new FeatureQuery(root);
+  }
+
+  /**
+   * Finds the features of a dataset version that match the query.
+   * @param dataset the version to query
+   * @return the ids of the matching features
+   */
+  BitSet evaluate(MapsDataset dataset) {
+    return this.root.evaluate(dataset);
+  }
+
+  private static BitSet bitsOf(int[] ids) {
+    BitSet bits = new BitSet(ids.length == 0 ? 0 : ids[ids.length - 1] + 1);
+    for (int id : ids) {
+      bits.set(id);
+    }
+    return bits;
+  }
+
+  /**
+   * One part of a query, which evaluates to a new bitset the caller may change.
+   */
+  private interface Node {
+    BitSet evaluate(MapsDataset dataset);
+  }
+
+  private record Keyword(String text, boolean words) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      return bitsOf(this.words ? dataset.getKeywordIndex().withWords(this.text)
+          : dataset.getKeywordIndex().containing(this.text));
+    }
+  }
+
+  private record Box(double lowerLat, double upperLat, double lowerLong, double upperLong,
+      boolean intersects) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      return bitsOf(MapsBoundingHandler.filterFeatureByCoordinates(dataset, this.lowerLat,
+          this.upperLat, this.lowerLong, this.upperLong, this.intersects));
+    }
+  }
+
+  private record Grade(List<String> grades) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      return dataset.getGradeIndex().features(this.grades);
+    }
+  }
+
+  private record Not(Node node) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      BitSet bits = this.node.evaluate(dataset);
+      bits.flip(0, dataset.getStore().getFeatures().size());
+      return bits;
+    }
+  }
+
+  private record And(List<Node> nodes) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      // the negated parts are taken away from the rest, so they never have to be flipped
+      BitSet bits = null;
+      for (Node node : this.nodes) {
+        if (!(node instanceof Not)) {
+          if (bits == null) {
+            bits = node.evaluate(dataset);
+          } else {
+            bits.and(node.evaluate(dataset));
+          }
+          if (bits.isEmpty()) {
+            return bits;
+          }
+        }
+      }
+      if (bits == null) {
+        bits = new BitSet();
+        bits.set(0, dataset.getStore().getFeatures().size());
+      }
+      for (Node node : this.nodes) {
+        if (node instanceof Not not && !bits.isEmpty()) {
+          bits.andNot(not.node.evaluate(dataset));
+        }
+      }
+      return bits;
+    }
+  }
+
+  private record Or(List<Node> nodes) implements Node {
+    @Override
+    public BitSet evaluate(MapsDataset dataset) {
+      BitSet bits = new BitSet();
+      for (Node node : this.nodes) {
+        bits.or(node.evaluate(dataset));
+      }
+      return bits;
+    }
+  }
+
+  /**
+   * Reads a query by recursive descent, a token at a time. Tokens are words, numbers, quoted
+   * text and the characters ( ) and ,.
+   */
+  private static final class Parser {
+    private final String text;
+    private int position;
+
+    private Parser(String text) {
+      this.text = text;
+    }
+
+    private Node or(int depth) {
+      List<Node> nodes = new ArrayList<>();
+      nodes.add(this.and(depth));
+      while (this.acceptWord("or")) {
+        nodes.add(this.and(depth));
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new Or(nodes);
+    }
+
+    private Node and(int depth) {
+      List<Node> nodes = new ArrayList<>();
+      nodes.add(this.unary(depth));
+      while (this.acceptWord("and")) {
+        nodes.add(this.unary(depth));
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new And(nodes);
+    }
+
+    private Node unary(int depth) {
+      if (depth > MAX_DEPTH) {
+        throw new IllegalArgumentException("the query is nested more than " + MAX_DEPTH
+            + " levels deep");
+      }
+      if (this.acceptWord("not")) {
+        return new Not(this.unary(depth + 1));
+      }
+      if (this.accept("(")) {
+        Node node = this.or(depth + 1);
+        this.expect(")");
+        return node;
+      }
+      int start = this.position;
+      String name = this.next("a filter");
+      switch (name.toLowerCase(Locale.ROOT)) {
+        case "keyword", "words" -> {
+          this.expect("(");
+          String text = this.string();
+          this.expect(")");
+          if (text.isEmpty()) {
+            throw new IllegalArgumentException(name + " needs some text to look for");
+          }
+          return new Keyword(text, name.equalsIgnoreCase("words"));
+        }
+        case "bbox" -> {
+          this.expect("(");
+          double[] bounds = new double[4];
+          for (int i = 0; i < bounds.length; i++) {
+            if (i > 0) {
+              this.expect(",");
+            }
+            bounds[i] = this.number();
+          }
+          boolean intersects = false;
+          if (this.accept(",")) {
+            String mode = this.next("a mode");
+            intersects = mode.equalsIgnoreCase("intersects");
+            if (!intersects && !mode.equalsIgnoreCase("contained")) {
+              throw new IllegalArgumentException("bbox mode must be 'contained' or 'intersects'");
+            }
+          }
+          this.expect(")");
+          if (bounds[0] < -90.0 || bounds[0] > 90.0 || bounds[1] < -90.0 || bounds[1] > 90.0
+              || bounds[2] < -180.0 || bounds[2] > 180.0 || bounds[3] < -180.0
+              || bounds[3] > 180.0) {
+            throw new IllegalArgumentException(
+                "latitude must be between -90 and 90 and longitude must be between -180 and 180");
+          }
+          return new Box(bounds[0], bounds[1], bounds[2], bounds[3], intersects);
+        }
+        case "grade", "holc_grade" -> {
+          if (!this.acceptWord("in")) {
+            throw new IllegalArgumentException("expected IN after " + name);
+          }
+          this.expect("(");
+          List<String> grades = new ArrayList<>();
+          do {
+            grades.add(this.string());
+          } while (this.accept(","));
+          this.expect(")");
+          return new Grade(grades);
+        }
+        default -> throw new IllegalArgumentException("unknown filter '" + name
+            + "' at position " + start + "; expected keyword, words, bbox or grade");
+      }
+    }
+
+    /**
+     * Reads text, quoted or as a single unquoted word.
+     */
+    private String string() {
+      this.skipSpaces();
+      if (this.position < this.text.length()
+          && (this.text.charAt(this.position) == '\'' || this.text.charAt(this.position) == '"')) {
+        char quote = this.text.charAt(this.position++);
+        StringBuilder value = new StringBuilder();
+        while (this.position < this.text.length() && this.text.charAt(this.position) != quote) {
+          if (this.text.charAt(this.position) == '\\' && this.position + 1 < this.text.length()) {
+            this.position++;
+          }
+          value.append(this.text.charAt(this.position++));
+        }
+        if (this.position == this.text.length()) {
+          throw new IllegalArgumentException("unterminated text starting with " + quote);
+        }
+        this.position++;
+        return value.toString();
+      }
+      return this.next("some text");
+    }
+
+    private double number() {
+      String token = this.next("a number");
+      try {
+        return Double.parseDouble(token);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("'" + token + "' is not a number");
+      }
+    }
+
+    private void expect(String token) {
+      if (!this.accept(token)) {
+        String found = this.peek();
+        throw new IllegalArgumentException("expected '" + token + "' at position " + this.position
+            + (found == null ? " but the query ended" : " but found '" + found + "'"));
+      }
+    }
+
+    private boolean accept(String token) {
+      if (token.equals(this.peek())) {
+        this.position += token.length();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean acceptWord(String word) {
+      String token = this.peek();
+      if (token != null && token.equalsIgnoreCase(word)) {
+        this.position += token.length();
+        return true;
+      }
+      return false;
+    }
+
+    private String next(String what) {
+      String token = this.peek();
+      if (token == null || isPunctuation(token.charAt(0)) || isQuote(token.charAt(0))) {
+        throw new IllegalArgumentException("expected " + what + " at position " + this.position);
+      }
+      this.position += token.length();
+      return token;
+    }
+
+    /**
+     * The next token, without reading it: a punctuation character, a quote, or a run of
+     * anything else up to a space or one of those; null at the end of the query.
+     */
+    private String peek() {
+      this.skipSpaces();
+      if (this.position == this.text.length()) {
+        return null;
+      }
+      char first = this.text.charAt(this.position);
+      if (isPunctuation(first) || isQuote(first)) {
+        return String.valueOf(first);
+      }
+      int end = this.position;
+      while (end < this.text.length() && !Character.isWhitespace(this.text.charAt(end))
+          && !isPunctuation(this.text.charAt(end)) && !isQuote(this.text.charAt(end))) {
+        end++;
+      }
+      return this.text.substring(this.position, end);
+    }
+
+    private void skipSpaces() {
+      while (this.position < this.text.length()
+          && Character.isWhitespace(this.text.charAt(this.position))) {
+        this.position++;
+      }
+    }
+
+    private static boolean isPunctuation(char c) {
+      return c == '(' || c == ')' || c == ',';
+    }
+
+    private static boolean isQuote(char c) {
+      return c == '\'' || c == '"';
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
+import edu.brown.cs.student.main.maps.json.GeoJsonResponseWriter;
+import edu.brown.cs.student.main.server.ResponseCompression;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Chooses between the two response formats of the maps handlers that return features. The
+ * legacy format puts the collection in data as an escaped JSON string, which the client has to
+ * parse a second time; the stream format writes it as a plain JSON object straight to the
+ * response (see GeoJsonResponseWriter). A request picks one with format=stream or
+ * format=legacy, and otherwise gets the maps.format system property, which is legacy unless set.
+ */
+final class FeatureResponses {
+  /**
+   * The system property naming the default format.
+   */
+  static final String FORMAT_PROPERTY = "maps.format";
+
+  private FeatureResponses() {
+  }
+
+  /**
+   * @param request the incoming HTTP request
+   * @return whether the response should be streamed rather than use the legacy format
+   */
+  static boolean streamRequested(Request request) {
+    String format = request.queryParams("format");
+    if (format == null || format.isEmpty()) {
+      format = System.getProperty(FORMAT_PROPERTY, "legacy");
+    }
+    return "stream".equalsIgnoreCase(format.trim());
+  }
+
+  /**
+   * Streams a response holding a feature collection to the client, compressed if the client
+   * accepts it (see ResponseCompression).
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to write to
+   * @param type the response type, such as "success"
+   * @param fields any other top-level fields, in order
+   * @param collection the features to send
+   * @return the (empty) body for Spark to send after what was already written
+   * @throws IOException if writing to the client fails
+   */
+  static Object stream(Request request, Response response, String type,
+      Map<String, ?> fields, GeoJsonCollection collection) throws IOException {
+    response.type("application/json");
+    try (OutputStream out = ResponseCompression.outputStream(request, response)) {
+      GeoJsonResponseWriter.write(out, type, fields, collection);
+    }
+    return "";
+  }
+
+  /**
+   * Streams a response holding some of a dataset's features to the client, copying their
+   * pre-rendered JSON, compressed if the client accepts it (see ResponseCompression).
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to write to
+   * @param type the response type, such as "success"
+   * @param fields any other top-level fields, in order
+   * @param collectionType the GeoJSON type of the collection
+   * @param json the rendered features
+   * @param ids which of the rendered features to send, in order
+   * @return the (empty) body for Spark to send after what was already written
+   * @throws IOException if writing to the client fails
+   */
+  static Object stream(Request request, Response response, String type,
+      Map<String, ?> fields, String collectionType, FeatureJson json, int[] ids)
+      throws IOException {
+    response.type("application/json");
+    try (OutputStream out = ResponseCompression.outputStream(request, response)) {
+      GeoJsonResponseWriter.write(out, type, fields, collectionType, json, ids);
+    }
+    return "";
+  }
+}
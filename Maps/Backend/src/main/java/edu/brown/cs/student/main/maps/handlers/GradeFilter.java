@@ -0,0 +1,84 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * The grade parameter the maps handlers that return features share, such as grade=C,D, which
+ * keeps only the features with one of those HOLC grades. The features that have them are looked
+ * up once in the dataset's grade index (see GradeIndex), so filtering costs a bit lookup per
+ * feature found.
+ */
+final class GradeFilter {
+  /**
+   * The error description for a grade parameter that names no grades.
+   */
+  static final String ERROR = "grade must list one or more HOLC grades separated by commas, "
+      + "such as grade=C,D";
+
+  private final List<String> grades;
+
+  private GradeFilter(List<String> grades) {
+    this.grades = grades;
+  }
+
+  /**
+   * Reads the grade parameter.
+   * @param parameter the parameter, as given (may be null)
+   * @return the filter, or null if there is no parameter
+   * @throws IllegalArgumentException if the parameter names no grades
+   */
+  static GradeFilter parse(String parameter) {
+    if (parameter == null) {
+      return null;
+    }
+    Set<String> grades = new LinkedHashSet<>();
+    for (String grade : parameter.split(",")) {
+      if (!grade.isBlank()) {
+        grades.add(grade.trim());
+      }
+    }
+    if (grades.isEmpty()) {
+      throw new IllegalArgumentException(ERROR);
+    }
+    return new GradeFilter(new ArrayList<>(grades));
+  }
+
+  /**
+   * @return the grades kept, in the order given
+   */
+  List<String> grades() {
+    return this.grades;
+  }
+
+  /**
+   * @param dataset the dataset version the ids index into
+   * @return whether a feature has one of the grades, by id
+   */
+  IntPredicate of(MapsDataset dataset) {
+    BitSet graded = dataset.getGradeIndex().features(this.grades);
+    return graded::get;
+  }
+
+  /**
+   * Keeps the features that have one of the grades.
+   * @param dataset the dataset version the ids index into
+   * @param ids ids of features, in order
+   * @return the ids of those with one of the grades, in the same order
+   */
+  int[] filter(MapsDataset dataset, int[] ids) {
+    IntPredicate graded = this.of(dataset);
+    return Arrays.stream(ids).filter(graded).toArray();
+  }
+
+  @Override
+  public String toString() {
+    return String.join(",", this.grades);
+  }
+}
@@ -1,23 +1,24 @@
 package edu.brown.cs.student.main.maps.handlers;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.JsonReader;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
-import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
-import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
-import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Properties;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.KeywordIndex;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.data.PhraseMatcher;
+import edu.brown.cs.student.main.maps.data.SearchHistory;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
-import edu.brown.cs.student.main.maps.json.JsonParsing;
-import okio.Buffer;
 import spark.Request;
 import spark.Response;
 import spark.Route;
@@ -26,17 +27,40 @@ import spark.Route;
  * Handles search queries for GeoJSON data based on area keywords
  */
 public class MapsAreaKeyWordHandler implements Route {
-  public Map<String,Object> searchHistory;
+  private final SearchHistory searchHistory;
+  private final DatasetHolder datasets;
 
   /**
-   * Default constructor initializing search history
+   * Constructor initializing search history
+   * @param datasets holder of the active dataset version that searches run against
    */
-  public MapsAreaKeyWordHandler(){
-  this.searchHistory = new HashMap<>();
-}
+  public MapsAreaKeyWordHandler(DatasetHolder datasets){
+    this(datasets, new SearchHistory());
+  }
+
+  /**
+   * Constructor for a handler that records its searches in a shared history
+   * @param datasets holder of the active dataset version that searches run against
+   * @param searchHistory where searches are recorded, so they can be replayed by id
+   */
+  public MapsAreaKeyWordHandler(DatasetHolder datasets, SearchHistory searchHistory){
+    this.searchHistory = searchHistory;
+    this.datasets = datasets;
+  }
 
   /**
-   * Handles the search request, error handles, and returns the result
+   * Handles the search request, error handles, and returns the result. By default a feature
+   * matches when its area description contains the keyword exactly; with match=word it matches
+   * when its description uses every word of the keyword, in any order or case, which is looked
+   * up in the dataset's inverted index (see KeywordIndex). With match=any or match=all the
+   * keyword holds several terms separated by '|', all looked for in one pass over each
+   * description (see PhraseMatcher), and a feature matches when its description contains any or
+   * all of them; matched_terms then lists the terms each returned feature contains, in the order
+   * of the features. With grade=, such as grade=C,D, only features with one of those HOLC grades
+   * are returned (see GradeFilter). Every search is recorded in the search history, and search_id names it
+   * there so it can be replayed (see MapsSearchHistoryHandler); a search whose results are too
+   * large to keep has none. The format parameter picks a
+   * legacy or streamed response (see FeatureResponses).
    * @param request request The incoming HTTP request
    * @param response The HTTP response to be generated
    * @return JSON response based on the search query
@@ -46,77 +70,126 @@ public class MapsAreaKeyWordHandler implements Route {
   public Object handle(Request request, Response response) throws Exception {
     try {
       String area = request.queryParams("Area");
-      Moshi moshi = new Moshi.Builder().build();
-      Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-      JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
-      JsonReader reader = JsonReader.of(new Buffer().writeUtf8(Files.readString(Path.of(
-          "/Users/francescaelia/Documents/CS32/maps-dsedarou-felia/Maps/Backend/src/main/java/edu/brown/cs/student/main/geodata/fullDownload.json"))));
-      GeoJsonCollection geoFeature = JsonParsing.fromJsonGeneral(reader, GeoJsonCollection.class);
+      MapsDataset dataset = this.datasets.current();
+      FeatureStore featureStore = dataset.getStore();
+      FeatureJson json = featureStore.getFeatureJson();
 
 
       if (area.isEmpty()) {
         Map<String, Object> responseMap = new HashMap<>();
         responseMap.put("type", "error_bad_request");
         responseMap.put("error_description", "Please input an area key word");
-        return adapter.toJson(responseMap);
+        return MapsCodecs.toJson(responseMap);
+      }
+      String match = request.queryParams("match");
+      boolean words = "word".equals(match);
+      boolean phrases = "any".equals(match) || "all".equals(match);
+      if (match != null && !words && !phrases && !"substring".equals(match)) {
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("type", "error_bad_request");
+        responseMap.put("error_type", "incorrect query format");
+        responseMap.put("error_description", "match must be 'substring', 'word', 'any' or 'all'");
+        return MapsCodecs.toJson(responseMap);
+      }
+      GradeFilter grades;
+      try {
+        grades = GradeFilter.parse(request.queryParams("grade"));
+      } catch (IllegalArgumentException e) {
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("type", "error_bad_request");
+        responseMap.put("error_type", "incorrect query format");
+        responseMap.put("error_description", e.getMessage());
+        return MapsCodecs.toJson(responseMap);
       }
 
-      if (!(JsonParsing.toJsonGeneral(geoFeature).contains(area))){
+      KeywordIndex keywords = dataset.getKeywordIndex();
+      int[] ids;
+      List<List<String>> matchedTerms = null;
+      if (phrases) {
+        List<String> terms = splitTerms(area);
+        if (terms.isEmpty() || terms.size() > PhraseMatcher.MAX_PHRASES) {
+          Map<String, Object> responseMap = new HashMap<>();
+          responseMap.put("type", "error_bad_request");
+          responseMap.put("error_type", "incorrect query format");
+          responseMap.put("error_description", "Area must hold 1 to " + PhraseMatcher.MAX_PHRASES
+              + " terms separated by '|'");
+          return MapsCodecs.toJson(responseMap);
+        }
+        PhraseMatcher matcher = new PhraseMatcher(terms);
+        boolean all = "all".equals(match);
+        long[] found = keywords.match(matcher, all);
+        IntPredicate graded = grades == null ? id -> true : grades.of(dataset);
+        ids = IntStream.range(0, found.length)
+            .filter(id -> (all ? found[id] == matcher.all() : found[id] != 0) && graded.test(id))
+            .toArray();
+        matchedTerms = new ArrayList<>(ids.length);
+        for (int id : ids) {
+          matchedTerms.add(matcher.phrases(found[id]));
+        }
+      } else {
+        ids = words ? keywords.withWords(area) : keywords.containing(area);
+        if (grades != null) {
+          ids = grades.filter(dataset, ids);
+        }
+      }
+      long searchId = this.searchHistory.record(dataset.getVersionId(), area,
+          match == null ? "substring" : match, grades == null ? null : grades.toString(), ids);
+      // a search too large to keep gets no search_id, since it couldn't be replayed
+      Map<String, Object> searchIdField = searchId == SearchHistory.NOT_KEPT
+          ? Map.of() : Map.of("search_id", searchId);
+      if (ids.length == 0){
         Map<String, Object> responseMap = new HashMap<>();
         responseMap.put("type", "error_bad_request");
         responseMap.put("error_description", "There were no areas that matched this area description");
-        geoFeature.features = filterFeatureByArea(geoFeature, area);
-        this.searchHistory.put(area, geoFeature.features);
-        responseMap.put("data", JsonParsing.toJsonGeneral(geoFeature));
-        return adapter.toJson(responseMap);
+        responseMap.putAll(searchIdField);
+        if (FeatureResponses.streamRequested(request)) {
+          Map<String, Object> fields = new LinkedHashMap<>();
+          fields.put("error_description", "There were no areas that matched this area description");
+          fields.putAll(searchIdField);
+          return FeatureResponses.stream(request, response, "error_bad_request", fields,
+              featureStore.getType(), json, ids);
+        }
+        responseMap.put("data", CollectionJson.of(featureStore.getType(), json, ids));
+        return MapsCodecs.toJson(responseMap);
+      }
+      if (FeatureResponses.streamRequested(request)) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.putAll(searchIdField);
+        if (matchedTerms != null) {
+          fields.put("matched_terms", matchedTerms);
+        }
+        return FeatureResponses.stream(request, response, "success", fields,
+            featureStore.getType(), json, ids);
       }
       Map<String, Object> responseMap = new HashMap<>();
-
       responseMap.put("type", "success");
-      geoFeature.features = filterFeatureByArea(geoFeature, area);
-      this.searchHistory.put(area, geoFeature.features);
-      responseMap.put("data", JsonParsing.toJsonGeneral(geoFeature));
-      return adapter.toJson(responseMap);
+      responseMap.putAll(searchIdField);
+      if (matchedTerms != null) {
+        responseMap.put("matched_terms", matchedTerms);
+      }
+      responseMap.put("data", CollectionJson.of(featureStore.getType(), json, ids));
+      return MapsCodecs.toJson(responseMap);
     } catch(Exception e) {
-      Moshi moshi = new Moshi.Builder().build();
-      Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-      JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
       Map<String, Object> responseMap = new HashMap<>();
       responseMap.put("type", "failure");
       responseMap.put("error_description", "The search query must be formatted as 'mapsKeyWord?Area=[area description]'");
-      return adapter.toJson(responseMap);
+      return MapsCodecs.toJson(responseMap);
     }
   }
 
   /**
-   * Helper method that filters GeoJSON features based on the specified area keyword
-   * @param geoJsonCollection the GeoJSON collection to filter
-   * @param area the area keyword to filter by
-   * @return list of filtered GeoJSON features
+   * Helper method that splits a multi-term search into its terms, dropping empty and repeated ones
+   * @param area the terms, separated by '|'
+   * @return the terms, in order
    */
-  private static List<Feature> filterFeatureByArea(GeoJsonCollection geoJsonCollection, String area){
-    List<Feature> filteredFeatures = new ArrayList<>(geoJsonCollection.features);
-    Iterator<Feature> iterator = filteredFeatures.iterator();
-    while (iterator.hasNext()) {
-      Feature feature = iterator.next();
-      Properties properties = feature.properties;
-      Map<String, String> description = properties.area_description_data;
-      if (description==null){
-        iterator.remove();
-        continue;
-      }
-
-      String allData = new String();
-
-      for (String line: description.values())  {
-        allData += line;
-      }
-      if (!allData.contains(area)) {
-        iterator.remove();
-        continue;
+  private static List<String> splitTerms(String area){
+    Set<String> terms = new LinkedHashSet<>();
+    for (String term : area.split("\\|")) {
+      if (!term.isEmpty()) {
+        terms.add(term);
       }
     }
-    return filteredFeatures;
+    return new ArrayList<>(terms);
   }
 
 }
@@ -1,32 +1,46 @@
 package edu.brown.cs.student.main.maps.handlers;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.JsonReader;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.LevelsOfDetail;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.geometry.Geometries;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
 import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
-import edu.brown.cs.student.main.maps.json.JsonParsing;
-import okio.Buffer;
+import edu.brown.cs.student.main.maps.json.GeoJsonResponseWriter;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import edu.brown.cs.student.main.server.RenderedResponse;
 import spark.Request;
 import spark.Response;
 import spark.Route;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Handles search queries for GeoJSON data based on bounding coordinates.
  */
 public class MapsBoundingHandler implements Route {
+    private final DatasetHolder datasets;
+    private final WholeDatasetResponses wholeDataset = new WholeDatasetResponses();
+
     /**
-     * Default constructor for MapsBoundingHandler class
+     * Constructor for MapsBoundingHandler class
+     * @param datasets holder of the active dataset version that queries are filtered from
      */
-    public MapsBoundingHandler(){
+    public MapsBoundingHandler(DatasetHolder datasets){
+        this.datasets = datasets;
     }
 
     /**
-     * Handles the bounding box search request, error handlers, and returns the result
+     * Handles the bounding box search request, error handlers, and returns the result. The format
+     * parameter picks a legacy or streamed response (see FeatureResponses). A box that covers
+     * every feature, which is what a client asks for to draw the whole map, gets a response that
+     * was rendered once for the dataset version and is sent from a file, with an ETag so a client
+     * that already has it gets 304 Not Modified. With grade=, such as grade=C,D, only features
+     * with one of those HOLC grades are returned (see GradeFilter).
      * @param request the incoming HTTP request
      * @param response the HTTP response to be generated
      * @return JSON response based on the bounding box search query
@@ -35,19 +49,15 @@ public class MapsBoundingHandler implements Route {
     @Override
     public Object handle(Request request, Response response) throws Exception {
         try {
-            Moshi moshi = new Moshi.Builder().build();
-            Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-            JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
-            JsonReader reader = JsonReader.of(new Buffer().writeUtf8(Files.readString(Path.of(
-                    "/Users/francescaelia/Documents/CS32/maps-dsedarou-felia/Maps/Backend/src/main/java/edu/brown/cs/student/main/geodata/fullDownload.json"))));
-            GeoJsonCollection geoFeature = JsonParsing.fromJsonGeneral(reader, GeoJsonCollection.class);
+            MapsDataset dataset = this.datasets.current();
+            FeatureStore featureStore = dataset.getStore();
 
             if (request.queryParams("lowerLatitude").isEmpty() || request.queryParams("upperLatitude").isEmpty()
                 || request.queryParams("lowerLongitude").isEmpty() || request.queryParams("upperLongitude").isEmpty()){
                 Map<String, Object> responseMap = new HashMap<>();
                 responseMap.put("type", "error_bad_request");
                 responseMap.put("error_description", "please make sure you inputted values for all your bounds");
-                return adapter.toJson(responseMap);
+                return MapsCodecs.toJson(responseMap);
 
             }
             try {
@@ -55,74 +65,179 @@ public class MapsBoundingHandler implements Route {
                 double upperLat = Double.parseDouble(request.queryParams("upperLatitude"));
                 double lowerLong = Double.parseDouble(request.queryParams("lowerLongitude"));
                 double upperLong = Double.parseDouble(request.queryParams("upperLongitude"));
-                geoFeature.features = filterFeatureByCoordinates(geoFeature, lowerLat, upperLat, lowerLong, upperLong);
-
                 if (lowerLat < -90.0 || lowerLat > 90.0 || upperLat < -90.0 || upperLat > 90.0
                     || lowerLong < -180.0 || lowerLong > 180.0 || upperLong < -180.0 || upperLong > 180.0){
                     Map<String, Object> responseBoundFailure = new HashMap<>();
                     responseBoundFailure.put("type", "error_bad_request");
                     responseBoundFailure.put("error_type", "incorrect query format");
                     responseBoundFailure.put("error_description", "latitude must be between -90 and 90 and longitude must be between -180 and 180");
-                    return adapter.toJson(responseBoundFailure);
+                    return MapsCodecs.toJson(responseBoundFailure);
+                }
+
+                String mode = request.queryParams("mode");
+                boolean intersects = "intersects".equals(mode);
+                if (mode != null && !intersects && !"contained".equals(mode)){
+                    Map<String, Object> responseModeFailure = new HashMap<>();
+                    responseModeFailure.put("type", "error_bad_request");
+                    responseModeFailure.put("error_type", "incorrect query format");
+                    responseModeFailure.put("error_description", "mode must be 'contained' or 'intersects'");
+                    return MapsCodecs.toJson(responseModeFailure);
+                }
+                GradeFilter grades;
+                try {
+                    grades = GradeFilter.parse(request.queryParams("grade"));
+                } catch (IllegalArgumentException e) {
+                    Map<String, Object> responseGradeFailure = new HashMap<>();
+                    responseGradeFailure.put("type", "error_bad_request");
+                    responseGradeFailure.put("error_type", "incorrect query format");
+                    responseGradeFailure.put("error_description", e.getMessage());
+                    return MapsCodecs.toJson(responseGradeFailure);
+                }
+                Double tolerance = tolerance(request.queryParams("zoom"), request.queryParams("tolerance"));
+                if (tolerance == null){
+                    Map<String, Object> responseDetailFailure = new HashMap<>();
+                    responseDetailFailure.put("type", "error_bad_request");
+                    responseDetailFailure.put("error_type", "incorrect query format");
+                    responseDetailFailure.put("error_description", "give either a zoom (a whole number from 0 to 22) or a tolerance (a non-negative number of degrees), not both");
+                    return MapsCodecs.toJson(responseDetailFailure);
+                }
+                FeatureJson json = dataset.getLevelsOfDetail().jsonForTolerance(tolerance);
+                boolean stream = FeatureResponses.streamRequested(request);
+                if (grades == null && this.wholeDataset.covers(dataset, lowerLat, upperLat, lowerLong, upperLong)){
+                    RenderedResponse whole = null;
+                    try {
+                        whole = this.wholeDataset.get(dataset, json, stream, out -> {
+                            int[] all = filterFeatureByCoordinates(dataset, lowerLat, upperLat, lowerLong, upperLong, intersects);
+                            if (stream) {
+                                GeoJsonResponseWriter.write(out, "success", Map.of(), featureStore.getType(), json, all);
+                            } else {
+                                Map<String, Object> responseMap = new HashMap<>();
+                                responseMap.put("type", "success");
+                                responseMap.put("data", CollectionJson.of(featureStore.getType(), json, all));
+                                out.write(MapsCodecs.toJson(responseMap));
+                            }
+                        });
+                    } catch (IOException e) {
+                        // answered below without the file, as any other box would be (also if a reload deleted it meanwhile)
+                    }
+                    Object sent = whole == null ? null
+                        : whole.send(request, response, stream ? "application/json" : "text/html; charset=utf-8");
+                    if (sent != null) {
+                        return sent;
+                    }
+                }
+                int[] ids = filterFeatureByCoordinates(dataset, lowerLat, upperLat, lowerLong, upperLong, intersects);
+                if (grades != null){
+                    ids = grades.filter(dataset, ids);
+                }
+                if (stream){
+                    return FeatureResponses.stream(request, response, "success", Map.of(), featureStore.getType(), json, ids);
                 }
 
                 Map<String, Object> responseMap = new HashMap<>();
                 responseMap.put("type", "success");
-                responseMap.put("data", JsonParsing.toJsonGeneral(geoFeature));
-                return adapter.toJson(responseMap);
+                responseMap.put("data", CollectionJson.of(featureStore.getType(), json, ids));
+                return MapsCodecs.toJson(responseMap);
 
             }catch (NumberFormatException e){
                 Map<String, Object> responseEntryFailure = new HashMap<>();
                 responseEntryFailure.put("type", "error_bad_request");
                 responseEntryFailure.put("error_type", "incorrect query format");
                 responseEntryFailure.put("error_description", "min and max latitude and longitude must be valid double values");
-                return adapter.toJson(responseEntryFailure);
+                return MapsCodecs.toJson(responseEntryFailure);
             }
         } catch(Exception e) {
-            Moshi moshi = new Moshi.Builder().build();
-            Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-            JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
             Map<String, Object> responseMapExceptionFailure = new HashMap<>();
             responseMapExceptionFailure.put("type", "error_bad_request");
             responseMapExceptionFailure.put("error_type", "incorrect query format");
             responseMapExceptionFailure.put("error_description", "Search query must include: 'lowerLatitude', 'upperLatitude', 'lowerLongitude', 'upperLongitude'");
 
-            return adapter.toJson(responseMapExceptionFailure);
+            return MapsCodecs.toJson(responseMapExceptionFailure);
         }
 
     }
 
     /**
-     * Helper method that filters GeoJSON features based on bounding coordinates
-     * @param geoJsonCollection The GeoJSON collection to filter
+     * Helper method that filters GeoJSON features based on bounding coordinates. By default a
+     * feature is kept when the outer ring of its first polygon lies inside the box; in intersects
+     * mode it is kept when any part of it overlaps the box. The dataset's spatial index supplies the
+     * features whose envelope overlaps the box, in file order, through a cache that answers boxes
+     * inside a recently searched one from that search's candidates (see SearchCache). Each
+     * candidate's envelope then settles most of them with a few comparisons: one whose envelope is
+     * inside the box is kept, and only the rest have their geometry walked vertex by vertex.
+     * Matching is always done on the original geometry, whatever level of detail is returned.
+     * @param dataset The dataset version to filter
      * @param lowerLat lower latitude bound
      * @param upperLat upper latitude bound
      * @param lowerLong lower longitude bound
      * @param upperLong upper longitude bound
-     * @return list of filtered GeoJSON features
+     * @param intersects whether overlapping features are kept, not only contained ones
+     * @return ids of the filtered GeoJSON features, in file order
      */
-    private static List<GeoJsonCollection.Feature> filterFeatureByCoordinates(GeoJsonCollection geoJsonCollection, double lowerLat, double upperLat, double lowerLong, double upperLong){
-        List<GeoJsonCollection.Feature> filteredFeatures = new ArrayList<>(geoJsonCollection.features);
-        Iterator<GeoJsonCollection.Feature> iterator = filteredFeatures.iterator();
-        while (iterator.hasNext()) {
-            GeoJsonCollection.Feature feature = iterator.next();
-            GeoJsonCollection.Geometry geometry = feature.geometry;
-            if (geometry != null){
-                List<List<List<List<Double>>>> coordinatesList = geometry.coordinates;
-                List<List<Double>> coordinates = coordinatesList.get(0).get(0);
+    static int[] filterFeatureByCoordinates(MapsDataset dataset, double lowerLat, double upperLat, double lowerLong, double upperLong, boolean intersects){
+        List<GeoJsonCollection.Feature> features = dataset.getStore().getFeatures();
+        Envelopes envelopes = dataset.getStore().getEnvelopes();
+        int[] ids = dataset.getSearchCache().search(lowerLong, lowerLat, upperLong, upperLat);
 
-                for (List<Double> coordinatePair : coordinates) {
-                    if (!(coordinatePair.get(0) >= lowerLong && coordinatePair.get(0) <= upperLong
-                            && coordinatePair.get(1) >= lowerLat && coordinatePair.get(1) <= upperLat)) {
-                        iterator.remove();
-                        break;
-                    }
-                }
+        int kept = 0;
+        for (int id : ids) {
+            PackedCoordinates coordinates = features.get(id).geometry.coordinates;
+            boolean keep = envelopes.within(id, lowerLong, lowerLat, upperLong, upperLat)
+                || (intersects
+                    ? Geometries.intersectsBox(coordinates, lowerLong, lowerLat, upperLong, upperLat)
+                    : outerRingWithin(coordinates, lowerLat, upperLat, lowerLong, upperLong));
+            if (keep) {
+                ids[kept++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, kept);
+    }
+
+    /**
+     * Helper method that turns the zoom or tolerance parameter, at most one of which may be
+     * given, into the tolerance of the level of detail to return. Without either, the tolerance
+     * is 0, which picks the original features.
+     * @param zoom the zoom parameter (may be null)
+     * @param tolerance the tolerance parameter, in degrees (may be null)
+     * @return the tolerance in degrees, or null if the parameters are invalid
+     */
+    private static Double tolerance(String zoom, String tolerance){
+        try {
+            if (zoom != null && tolerance != null) {
+                return null;
+            } else if (zoom != null) {
+                int level = Integer.parseInt(zoom);
+                return level < 0 || level > 22 ? null : LevelsOfDetail.toleranceForZoom(level);
+            } else if (tolerance != null) {
+                double degrees = Double.parseDouble(tolerance);
+                return !(degrees >= 0) ? null : degrees;
             }
-            else{
-                iterator.remove();
+            return 0.0;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Helper method that checks whether every vertex of the first polygon's outer ring is inside the bounds
+     * @param coordinates the feature's coordinates
+     * @param lowerLat lower latitude bound
+     * @param upperLat upper latitude bound
+     * @param lowerLong lower longitude bound
+     * @param upperLong upper longitude bound
+     * @return whether the outer ring is inside the bounds
+     */
+    private static boolean outerRingWithin(PackedCoordinates coordinates, double lowerLat, double upperLat, double lowerLong, double upperLong){
+        if (coordinates.ringCount() == 0) {
+            return false;
+        }
+        for (int vertex = coordinates.ringStart(0); vertex < coordinates.ringEnd(0); vertex++) {
+            double x = coordinates.x(vertex);
+            double y = coordinates.y(vertex);
+            if (!(x >= lowerLong && x <= upperLong && y >= lowerLat && y <= upperLat)) {
+                return false;
             }
         }
-        return filteredFeatures;
+        return true;
     }
-}
\ No newline at end of file
+}
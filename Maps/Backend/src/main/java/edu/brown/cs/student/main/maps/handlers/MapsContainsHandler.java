@@ -0,0 +1,107 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.geometry.PreparedGeometry;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Handles point lookups: which redlining areas contain a given latitude and longitude.
+ */
+public class MapsContainsHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsContainsHandler class
+   * @param datasets holder of the active dataset version that lookups run against
+   */
+  public MapsContainsHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Finds the features containing the point given by the lat and lon parameters. The spatial
+   * index narrows the search to features whose envelope holds the point, and each of those is
+   * tested against its prepared geometry, so holes and MultiPolygons are handled exactly.
+   * With grade=, such as grade=C,D, only features with one of those HOLC grades are returned
+   * (see GradeFilter).
+   * The format parameter picks a legacy or streamed response (see FeatureResponses).
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON response with the matching features, in dataset order
+   * @throws Exception thrown if the features can't be serialized
+   */
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    String lat = request.queryParams("lat");
+    String lon = request.queryParams("lon");
+    if (lat == null || lon == null || lat.isEmpty() || lon.isEmpty()) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_description", "please make sure you inputted values for lat and lon");
+      return MapsCodecs.toJson(responseMap);
+    }
+    double latitude;
+    double longitude;
+    try {
+      latitude = Double.parseDouble(lat);
+      longitude = Double.parseDouble(lon);
+    } catch (NumberFormatException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", "lat and lon must be valid double values");
+      return MapsCodecs.toJson(responseMap);
+    }
+    if (!(latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0)) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description",
+          "latitude must be between -90 and 90 and longitude must be between -180 and 180");
+      return MapsCodecs.toJson(responseMap);
+    }
+    GradeFilter grades;
+    try {
+      grades = GradeFilter.parse(request.queryParams("grade"));
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", e.getMessage());
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    MapsDataset dataset = this.datasets.current();
+    int[] ids = dataset.getSpatialIndex().search(longitude, latitude, longitude, latitude);
+    int containing = 0;
+    for (int id : ids) {
+      PreparedGeometry geometry = dataset.getPreparedGeometry(id);
+      if (geometry != null && geometry.contains(longitude, latitude)) {
+        ids[containing++] = id;
+      }
+    }
+    ids = Arrays.copyOf(ids, containing);
+    if (grades != null) {
+      ids = grades.filter(dataset, ids);
+    }
+    FeatureStore store = dataset.getStore();
+    if (FeatureResponses.streamRequested(request)) {
+      return FeatureResponses.stream(request, response, "success", Map.of(), store.getType(),
+          store.getFeatureJson(), ids);
+    }
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("data",
+        CollectionJson.of(store.getType(), store.getFeatureJson(), ids));
+    return MapsCodecs.toJson(responseMap);
+  }
+}
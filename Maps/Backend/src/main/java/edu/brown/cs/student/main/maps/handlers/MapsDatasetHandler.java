@@ -0,0 +1,72 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.KeywordIndex;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.index.SearchCache;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.HashMap;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Reports which version of the maps dataset is being served, so that a reload can be checked
+ * from outside the server.
+ */
+public class MapsDatasetHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsDatasetHandler class
+   * @param datasets holder of the active dataset version
+   */
+  public MapsDatasetHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Returns the id, generation, load duration, size, spatial index, number of cached tiles,
+   * vertex count of each level of detail simplified so far, size of the feature JSON rendered so
+   * far, bounding box search cache statistics and, once a search has built it, keyword index
+   * sizes of the active dataset version
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON description of the active dataset version
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    MapsDataset dataset = this.datasets.current();
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("version", dataset.getVersionId());
+    responseMap.put("generation", dataset.getGeneration());
+    responseMap.put("load_millis", dataset.getLoadMillis());
+    responseMap.put("loaded_at", dataset.getLoadedAt().toString());
+    responseMap.put("feature_count", dataset.getStore().getFeatures().size());
+    responseMap.put("spatial_index", dataset.getSpatialIndex().kind().toString());
+    responseMap.put("cached_tiles", dataset.getTiles().size());
+    responseMap.put("lod_vertex_counts", dataset.getLevelsOfDetail().getVertexCounts());
+    responseMap.put("feature_json_bytes", dataset.getStore().getFeatureJsonBytes()
+        + dataset.getLevelsOfDetail().getJsonBytes());
+    SearchCache searchCache = dataset.getSearchCache();
+    Map<String, Object> cacheMap = new HashMap<>();
+    cacheMap.put("hits", searchCache.hits());
+    cacheMap.put("misses", searchCache.misses());
+    cacheMap.put("evictions", searchCache.evictions());
+    cacheMap.put("entries", searchCache.size());
+    cacheMap.put("bytes", searchCache.bytes());
+    responseMap.put("bbox_cache", cacheMap);
+    if (dataset.hasKeywordIndex()) {
+      KeywordIndex keywords = dataset.getKeywordIndex();
+      Map<String, Object> keywordMap = new HashMap<>();
+      keywordMap.put("words", keywords.termCount());
+      keywordMap.put("trigrams", keywords.getTrigrams().trigramCount());
+      keywordMap.put("dropped_trigrams", keywords.getTrigrams().droppedCount());
+      keywordMap.put("trigram_bytes", keywords.getTrigrams().memoryBytes());
+      responseMap.put("keyword_index", keywordMap);
+    }
+    return MapsCodecs.toJson(responseMap);
+  }
+}
@@ -0,0 +1,160 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.GradeIndex;
+import edu.brown.cs.student.main.maps.data.KeywordIndex;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Counts the features of each HOLC grade among those a search finds, without sending the
+ * features themselves, for dashboards that only chart how many areas of each grade there are.
+ */
+public class MapsFacetsHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsFacetsHandler class
+   * @param datasets holder of the active dataset version that searches run against
+   */
+  public MapsFacetsHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Finds features the way /mapsBoundingBox (lowerLatitude, upperLatitude, lowerLongitude,
+   * upperLongitude and mode), mapsKeyWord (Area, and match=substring or word) and /mapsQuery (q)
+   * would, keeping those that every search given finds, and counts their grades. Without any
+   * search, the counts for the whole dataset, which are kept from when it was loaded, are
+   * returned. Each count is one array lookup per feature found (see GradeIndex), and no geometry
+   * is serialized.
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON response with total, the count of every grade in grades, and ungraded
+   * @throws Exception thrown if the response can't be serialized
+   */
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    MapsDataset dataset = this.datasets.current();
+    BitSet found;
+    try {
+      found = this.search(request, dataset);
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", e.getMessage());
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    GradeIndex gradeIndex = dataset.getGradeIndex();
+    Map<String, Object> grades = new LinkedHashMap<>();
+    int total;
+    int ungraded;
+    if (found == null) {
+      grades.putAll(gradeIndex.counts());
+      total = dataset.getStore().getFeatures().size();
+      ungraded = gradeIndex.ungradedCount();
+    } else {
+      int[] ids = found.stream().toArray();
+      int[] counts = gradeIndex.counts(ids);
+      int ordinal = 0;
+      for (String grade : gradeIndex.grades()) {
+        grades.put(grade, counts[ordinal++]);
+      }
+      total = ids.length;
+      ungraded = counts[ordinal];
+    }
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("total", total);
+    responseMap.put("grades", grades);
+    responseMap.put("ungraded", ungraded);
+    return MapsCodecs.toJson(responseMap);
+  }
+
+  /**
+   * Helper method that runs the searches a request gives and keeps what all of them find.
+   * @param request the incoming HTTP request
+   * @param dataset the dataset version to search
+   * @return the ids of the features found, or null if the request gives no search
+   * @throws IllegalArgumentException with a description of the problem if a search is invalid
+   */
+  private BitSet search(Request request, MapsDataset dataset) {
+    BitSet found = null;
+    String q = request.queryParams("q");
+    if (q != null && !q.isBlank()) {
+      found = FeatureQuery.parse(q).evaluate(dataset);
+    }
+
+    String area = request.queryParams("Area");
+    if (area != null && !area.isEmpty()) {
+      String match = request.queryParams("match");
+      if (match != null && !"substring".equals(match) && !"word".equals(match)) {
+        throw new IllegalArgumentException("match must be 'substring' or 'word'");
+      }
+      KeywordIndex keywords = dataset.getKeywordIndex();
+      found = and(found, "word".equals(match) ? keywords.withWords(area)
+          : keywords.containing(area));
+    }
+
+    String[] bounds = {request.queryParams("lowerLatitude"), request.queryParams("upperLatitude"),
+        request.queryParams("lowerLongitude"), request.queryParams("upperLongitude")};
+    int given = 0;
+    for (String bound : bounds) {
+      given += bound == null || bound.isEmpty() ? 0 : 1;
+    }
+    if (given > 0) {
+      if (given < bounds.length) {
+        throw new IllegalArgumentException(
+            "please make sure you inputted values for all your bounds");
+      }
+      double[] values = new double[bounds.length];
+      try {
+        for (int i = 0; i < bounds.length; i++) {
+          values[i] = Double.parseDouble(bounds[i]);
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(
+            "min and max latitude and longitude must be valid double values");
+      }
+      if (!(values[0] >= -90.0 && values[0] <= 90.0 && values[1] >= -90.0 && values[1] <= 90.0
+          && values[2] >= -180.0 && values[2] <= 180.0 && values[3] >= -180.0
+          && values[3] <= 180.0)) {
+        throw new IllegalArgumentException(
+            "latitude must be between -90 and 90 and longitude must be between -180 and 180");
+      }
+      String mode = request.queryParams("mode");
+      boolean intersects = "intersects".equals(mode);
+      if (mode != null && !intersects && !"contained".equals(mode)) {
+        throw new IllegalArgumentException("mode must be 'contained' or 'intersects'");
+      }
+      found = and(found, MapsBoundingHandler.filterFeatureByCoordinates(dataset, values[0],
+          values[1], values[2], values[3], intersects));
+    }
+    return found;
+  }
+
+  /**
+   * Helper method that keeps the features found so far that a further search also finds
+   * @param found the ids found so far, or null if nothing was searched yet
+   * @param ids the ids the further search found, in order
+   * @return the ids both found
+   */
+  private static BitSet and(BitSet found, int[] ids) {
+    BitSet bits = new BitSet();
+    for (int id : ids) {
+      if (found == null || found.get(id)) {
+        bits.set(id);
+      }
+    }
+    return bits;
+  }
+}
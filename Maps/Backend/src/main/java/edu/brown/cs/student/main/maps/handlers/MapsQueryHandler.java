@@ -0,0 +1,90 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Handles queries that combine keyword, bounding box and grade filters in one request, such as
+ * /mapsQuery?q=keyword('industrial') AND grade IN (C, D) AND NOT keyword('Negro'); see
+ * FeatureQuery for what a query may hold.
+ */
+public class MapsQueryHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsQueryHandler class
+   * @param datasets holder of the active dataset version that queries run against
+   */
+  public MapsQueryHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Parses the q parameter, finds the features that match it and returns them with their count.
+   * With grade=, such as grade=C,D, only features with one of those HOLC grades are returned
+   * (see GradeFilter).
+   * The format parameter picks a legacy or streamed response (see FeatureResponses).
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON response with the matching features, in file order
+   * @throws Exception thrown if the features can't be serialized
+   */
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    String q = request.queryParams("q");
+    if (q == null || q.isBlank()) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_description", "please input a query in q, such as "
+          + "keyword('industrial') AND grade IN (C, D)");
+      return MapsCodecs.toJson(responseMap);
+    }
+    FeatureQuery query;
+    try {
+      query = FeatureQuery.parse(q);
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", e.getMessage());
+      return MapsCodecs.toJson(responseMap);
+    }
+    GradeFilter grades;
+    try {
+      grades = GradeFilter.parse(request.queryParams("grade"));
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", e.getMessage());
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    MapsDataset dataset = this.datasets.current();
+    FeatureStore featureStore = dataset.getStore();
+    BitSet matching = query.evaluate(dataset);
+    if (grades != null) {
+      matching.and(dataset.getGradeIndex().features(grades.grades()));
+    }
+    int[] ids = matching.stream().toArray();
+    if (FeatureResponses.streamRequested(request)) {
+      return FeatureResponses.stream(request, response, "success", Map.of("count", ids.length),
+          featureStore.getType(), featureStore.getFeatureJson(), ids);
+    }
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("count", ids.length);
+    responseMap.put("data", CollectionJson.of(featureStore.getType(),
+        featureStore.getFeatureJson(), ids));
+    return MapsCodecs.toJson(responseMap);
+  }
+}
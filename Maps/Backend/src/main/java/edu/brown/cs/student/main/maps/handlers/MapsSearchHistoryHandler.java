@@ -0,0 +1,120 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.data.SearchHistory;
+import edu.brown.cs.student.main.maps.data.SearchHistory.Search;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Lists the keyword searches in the search history, and replays one of them by id straight from
+ * the feature ids it kept, without searching again.
+ */
+public class MapsSearchHistoryHandler implements Route {
+  private final DatasetHolder datasets;
+  private final SearchHistory searchHistory;
+
+  /**
+   * Constructor for MapsSearchHistoryHandler class
+   * @param datasets holder of the active dataset version
+   * @param searchHistory the history the keyword handler records its searches in
+   */
+  public MapsSearchHistoryHandler(DatasetHolder datasets, SearchHistory searchHistory) {
+    this.datasets = datasets;
+    this.searchHistory = searchHistory;
+  }
+
+  /**
+   * Without an id, returns the kept searches, most recently used first, each with its
+   * search_id, area, match, grade (if it was narrowed to some) and number of results. With id=,
+   * returns that search's features the way mapsKeyWord did, in the legacy or streamed format
+   * (see FeatureResponses), as long as the dataset hasn't changed since.
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON list of searches, or the features of one
+   * @throws Exception thrown if the features can't be serialized
+   */
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    String id = request.queryParams("id");
+    if (id == null || id.isEmpty()) {
+      List<Map<String, Object>> searches = new ArrayList<>();
+      for (Search search : this.searchHistory.recent()) {
+        Map<String, Object> searchMap = new HashMap<>();
+        searchMap.put("search_id", search.getId());
+        searchMap.put("area", search.getArea());
+        searchMap.put("match", search.getMatch());
+        if (search.getGrades() != null) {
+          searchMap.put("grade", search.getGrades());
+        }
+        searchMap.put("count", search.getCount());
+        searches.add(searchMap);
+      }
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "success");
+      responseMap.put("searches", searches);
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    Search search;
+    try {
+      search = this.searchHistory.get(Long.parseLong(id));
+    } catch (NumberFormatException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", "id must be a search_id returned by mapsKeyWord");
+      return MapsCodecs.toJson(responseMap);
+    }
+    if (search == null) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_description",
+          "There is no search with this id in the history; it may have expired");
+      return MapsCodecs.toJson(responseMap);
+    }
+    MapsDataset dataset = this.datasets.current();
+    if (!dataset.getVersionId().equals(search.getVersion())) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_description",
+          "The dataset has changed since this search was made; please search again");
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    FeatureStore featureStore = dataset.getStore();
+    int[] ids = search.getIds();
+    if (FeatureResponses.streamRequested(request)) {
+      Map<String, Object> fields = new LinkedHashMap<>();
+      fields.put("search_id", search.getId());
+      fields.put("area", search.getArea());
+      fields.put("match", search.getMatch());
+      if (search.getGrades() != null) {
+        fields.put("grade", search.getGrades());
+      }
+      return FeatureResponses.stream(request, response, "success", fields,
+          featureStore.getType(), featureStore.getFeatureJson(), ids);
+    }
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("search_id", search.getId());
+    responseMap.put("area", search.getArea());
+    responseMap.put("match", search.getMatch());
+    if (search.getGrades() != null) {
+      responseMap.put("grade", search.getGrades());
+    }
+    responseMap.put("data", CollectionJson.of(featureStore.getType(),
+        featureStore.getFeatureJson(), ids));
+    return MapsCodecs.toJson(responseMap);
+  }
+}
@@ -0,0 +1,52 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.HashMap;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Serves the redlining features as Mapbox Vector Tiles at /tiles/:z/:x/:y, so that a map only
+ * downloads the features of the tiles it shows, clipped and quantized for their zoom level.
+ */
+public class MapsTileHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsTileHandler class
+   * @param datasets holder of the active dataset version that tiles are drawn from
+   */
+  public MapsTileHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Returns the requested tile from the active version's tile cache. The y parameter may end in
+   * a file extension such as ".mvt" or ".pbf", which is ignored.
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return the encoded tile, or a JSON error if the tile doesn't exist
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    try {
+      String y = request.params(":y");
+      int extension = y.indexOf('.');
+      byte[] tile = this.datasets.current().getTiles().get(
+          Integer.parseInt(request.params(":z")), Integer.parseInt(request.params(":x")),
+          Integer.parseInt(extension >= 0 ? y.substring(0, extension) : y));
+      response.type("application/vnd.mapbox-vector-tile");
+      return tile;
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", "tiles are requested as /tiles/z/x/y with a zoom "
+          + "from 0 to 22 and x and y from 0 to 2^zoom - 1");
+      return MapsCodecs.toJson(responseMap);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.data.Proximity;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Handles radius queries: every redlining area within a given distance of a latitude and
+ * longitude.
+ */
+public class MapsWithinHandler implements Route {
+  private final DatasetHolder datasets;
+
+  /**
+   * Constructor for MapsWithinHandler class
+   * @param datasets holder of the active dataset version that queries run against
+   */
+  public MapsWithinHandler(DatasetHolder datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Finds the features within radiusKm kilometres of the point given by the lat and lon
+   * parameters, measured from the point to each feature's nearest edge (0 for features
+   * containing the point).
+   * With grade=, such as grade=C,D, only features with one of those HOLC grades are returned
+   * (see GradeFilter).
+   * The format parameter picks a legacy or streamed response (see FeatureResponses).
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to be generated
+   * @return JSON response with the features nearest first, each with its distance_km
+   * @throws Exception thrown if the features can't be serialized
+   */
+  @Override
+  public Object handle(Request request, Response response) throws Exception {
+    String lat = request.queryParams("lat");
+    String lon = request.queryParams("lon");
+    String radiusKm = request.queryParams("radiusKm");
+    if (lat == null || lon == null || radiusKm == null || lat.isEmpty() || lon.isEmpty()
+        || radiusKm.isEmpty()) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_description",
+          "please make sure you inputted values for lat, lon and radiusKm");
+      return MapsCodecs.toJson(responseMap);
+    }
+    double latitude;
+    double longitude;
+    try {
+      latitude = Double.parseDouble(lat);
+      longitude = Double.parseDouble(lon);
+    } catch (NumberFormatException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", "lat and lon must be valid double values");
+      return MapsCodecs.toJson(responseMap);
+    }
+    if (!(latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0)) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description",
+          "latitude must be between -90 and 90 and longitude must be between -180 and 180");
+      return MapsCodecs.toJson(responseMap);
+    }
+    double radius;
+    try {
+      radius = Double.parseDouble(radiusKm);
+    } catch (NumberFormatException e) {
+      radius = Double.NaN;
+    }
+    if (!(radius >= 0) || Double.isInfinite(radius)) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", "radiusKm must be a non-negative number");
+      return MapsCodecs.toJson(responseMap);
+    }
+    GradeFilter grades;
+    try {
+      grades = GradeFilter.parse(request.queryParams("grade"));
+    } catch (IllegalArgumentException e) {
+      Map<String, Object> responseMap = new HashMap<>();
+      responseMap.put("type", "error_bad_request");
+      responseMap.put("error_type", "incorrect query format");
+      responseMap.put("error_description", e.getMessage());
+      return MapsCodecs.toJson(responseMap);
+    }
+
+    MapsDataset dataset = this.datasets.current();
+    List<Feature> found = Proximity.within(dataset, latitude, longitude, radius,
+        grades == null ? id -> true : grades.of(dataset));
+    GeoJsonCollection collection = dataset.getStore().collectionOf(found);
+    if (FeatureResponses.streamRequested(request)) {
+      return FeatureResponses.stream(request, response, "success", Map.of(), collection);
+    }
+    Map<String, Object> responseMap = new HashMap<>();
+    responseMap.put("type", "success");
+    responseMap.put("data", CollectionJson.of(collection));
+    return MapsCodecs.toJson(responseMap);
+  }
+}
@@ -0,0 +1,165 @@
+package edu.brown.cs.student.main.maps.handlers;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.server.RenderedResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the responses of bounding box queries that cover the whole dataset, which only depend on
+ * the dataset version, the level of detail and the format. Each one is rendered the first time it
+ * is asked for (see RenderedResponse) and kept until a newer dataset version is seen, when the
+ * files of the old version are deleted, and closed once the responses being sent from them are
+ * done. Whatever is left in the directory is deleted when the server stops.
+ */
+final class WholeDatasetResponses {
+  private final AtomicReference<Version> current = new AtomicReference<>();
+  private Path directory;
+
+  /**
+   * Finds whether a box holds the envelope of every feature, so the query returns all of them.
+   * @param dataset the dataset version being queried
+   * @param lowerLat lower latitude bound
+   * @param upperLat upper latitude bound
+   * @param lowerLong lower longitude bound
+   * @param upperLong upper longitude bound
+   * @return whether the box covers the whole dataset
+   */
+  boolean covers(MapsDataset dataset, double lowerLat, double upperLat, double lowerLong,
+      double upperLong) {
+    Version version = this.versionOf(dataset);
+    return version != null && version.extent != null
+        && lowerLong <= version.extent[0] && lowerLat <= version.extent[1]
+        && upperLong >= version.extent[2] && upperLat >= version.extent[3];
+  }
+
+  /**
+   * Returns the rendered response of a whole dataset query, rendering it if it hasn't been yet.
+   * @param dataset the dataset version being queried
+   * @param json the level of detail that is returned
+   * @param stream whether the response is in the stream format
+   * @param renderer writes the response, if it has to be rendered
+   * @return the response, or null if a newer dataset version has taken over meanwhile
+   * @throws IOException if the response can't be rendered
+   */
+  RenderedResponse get(MapsDataset dataset, FeatureJson json, boolean stream,
+      RenderedResponse.Renderer renderer) throws IOException {
+    Version version = this.versionOf(dataset);
+    if (version == null) {
+      return null;
+    }
+    RenderedResponse rendered;
+    try {
+      rendered = version.responses.computeIfAbsent(new Key(json, stream), key -> {
+        try {
+          return RenderedResponse.render(this.directory(), renderer);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (version.deleted) {
+      // the version was replaced while this was rendered, so its deletion may have missed it
+      rendered.delete();
+      return null;
+    }
+    return rendered;
+  }
+
+  /**
+   * Moves on to a dataset version that is newer than the one kept, deleting the old responses.
+   * @return the kept state for the version, or null if the version is older than the one kept
+   */
+  private Version versionOf(MapsDataset dataset) {
+    while (true) {
+      Version version = this.current.get();
+      if (version != null && version.dataset == dataset) {
+        return version;
+      }
+      if (version != null && version.dataset.getGeneration() > dataset.getGeneration()) {
+        return null;
+      }
+      Version next = new Version(dataset);
+      if (this.current.compareAndSet(version, next)) {
+        if (version != null) {
+          version.delete();
+        }
+        return next;
+      }
+    }
+  }
+
+  private synchronized Path directory() throws IOException {
+    if (this.directory == null) {
+      Path directory = Files.createTempDirectory("maps-responses-");
+      // one hook for the whole directory, rather than a deleteOnExit entry for every file, which
+      // would pile up with every reload
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteAll(directory)));
+      this.directory = directory;
+    }
+    return this.directory;
+  }
+
+  private static void deleteAll(Path directory) {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      // the server is stopping; the system's temporary file cleanup gets the rest
+    }
+  }
+
+  private record Key(FeatureJson json, boolean stream) {
+  }
+
+  private static final class Version {
+    private final MapsDataset dataset;
+    private final double[] extent;
+    private final Map<Key, RenderedResponse> responses = new ConcurrentHashMap<>();
+    private volatile boolean deleted;
+
+    private Version(MapsDataset dataset) {
+      this.dataset = dataset;
+      Envelopes envelopes = dataset.getStore().getEnvelopes();
+      double[] bounds = null;
+      for (int id = 0; id < envelopes.size(); id++) {
+        if (envelopes.isEmpty(id)) {
+          continue;
+        }
+        if (bounds == null) {
+          bounds = new double[] {envelopes.minX(id), envelopes.minY(id), envelopes.maxX(id),
+              envelopes.maxY(id)};
+        } else {
+          bounds[0] = Math.min(bounds[0], envelopes.minX(id));
+          bounds[1] = Math.min(bounds[1], envelopes.minY(id));
+          bounds[2] = Math.max(bounds[2], envelopes.maxX(id));
+          bounds[3] = Math.max(bounds[3], envelopes.maxY(id));
+        }
+      }
+      this.extent = bounds;
+    }
+
+    private void delete() {
+      this.deleted = true;
+      for (RenderedResponse response : this.responses.values()) {
+        try {
+          response.delete();
+        } catch (IOException e) {
+          // deleted with the directory when the server stops
+        }
+      }
+    }
+  }
+}
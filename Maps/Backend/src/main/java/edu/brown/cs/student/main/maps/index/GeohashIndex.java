@@ -0,0 +1,269 @@
+package edu.brown.cs.student.main.maps.index;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A sparse index over geohash-style cells: the world is split into 2^level by 2^level cells, and
+ * a cell's key interleaves the bits of its longitude and latitude numbers the way a geohash does,
+ * so cells sharing a key prefix are nested inside one another. Each feature is filed under the
+ * deepest level at which its envelope touches at most a 2x2 block of cells, so small features
+ * land in small cells and large ones in large cells. Only cells that hold features are stored
+ * (as a sorted key table), which keeps memory proportional to the data however sparse it is.
+ *
+ * <p>A query works level by level, walking key prefixes down from the whole world the way a
+ * geohash prefix search does: a prefix cell entirely under the box contributes its whole run of
+ * keys, one crossing the box's edge is split into its four children, and one with no stored keys
+ * is dropped after a binary search. A feature listed in several cells is reported only from the
+ * cell holding the south-west corner of its overlap with the box.
+ */
+public final class GeohashIndex implements SpatialIndex {
+  static final int MAX_LEVEL = 20;
+  private static final int LEVEL_SHIFT = 2 * MAX_LEVEL;
+
+  private final Envelopes envelopes;
+  private final int size;
+  private final long[] keys;
+  private final int[] cellStart;
+  private final int[] items;
+  private final int[] levelStart;
+
+  /**
+   * Builds the index, choosing a level for each feature from the size of its envelope.
+   * @param envelopes the envelope of every feature; features with an empty envelope are skipped
+   */
+  public GeohashIndex(Envelopes envelopes) {
+    this.envelopes = envelopes;
+    long[] pairKeys = new long[4 * envelopes.size()];
+    int[] pairIds = new int[pairKeys.length];
+    int pairs = 0;
+    int size = 0;
+    for (int id = 0; id < envelopes.size(); id++) {
+      if (envelopes.isEmpty(id)) {
+        continue;
+      }
+      size++;
+      int level = levelOf(envelopes, id);
+      for (int cellY = cellY(envelopes.minY(id), level); cellY <= cellY(envelopes.maxY(id), level);
+          cellY++) {
+        for (int cellX = cellX(envelopes.minX(id), level);
+            cellX <= cellX(envelopes.maxX(id), level); cellX++) {
+          pairKeys[pairs] = key(level, cellX, cellY);
+          pairIds[pairs] = id;
+          pairs++;
+        }
+      }
+    }
+    this.size = size;
+
+    long[] sorted = Arrays.copyOf(pairKeys, pairs);
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    this.keys = Arrays.copyOf(sorted, distinct);
+
+    this.cellStart = new int[distinct + 1];
+    int[] cellOfPair = new int[pairs];
+    for (int pair = 0; pair < pairs; pair++) {
+      cellOfPair[pair] = Arrays.binarySearch(this.keys, pairKeys[pair]);
+      this.cellStart[cellOfPair[pair] + 1]++;
+    }
+    for (int cell = 0; cell < distinct; cell++) {
+      this.cellStart[cell + 1] += this.cellStart[cell];
+    }
+    this.items = new int[pairs];
+    int[] next = Arrays.copyOf(this.cellStart, distinct);
+    for (int pair = 0; pair < pairs; pair++) {
+      this.items[next[cellOfPair[pair]]++] = pairIds[pair];
+    }
+
+    this.levelStart = new int[MAX_LEVEL + 2];
+    for (int level = 0; level <= MAX_LEVEL + 1; level++) {
+      int position = Arrays.binarySearch(this.keys, (long) level << LEVEL_SHIFT);
+      this.levelStart[level] = position >= 0 ? position : -position - 1;
+    }
+  }
+
+  @Override
+  public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+    for (int level = 0; level <= MAX_LEVEL; level++) {
+      if (this.levelStart[level] == this.levelStart[level + 1]) {
+        continue;
+      }
+      Query query = new Query(level, minX, minY, maxX, maxY, visitor);
+      this.descend(query, this.levelStart[level], this.levelStart[level + 1], 0, 0, 0);
+    }
+  }
+
+  /**
+   * Visits the stored cells of the query's level that lie under the box and inside one prefix
+   * cell: the cell (prefixX, prefixY) at level depth, whose level-L descendants are exactly the
+   * keys between from and to. Prefixes entirely under the box are taken whole, prefixes crossing
+   * its edge are split into their four children, and empty prefixes are skipped.
+   */
+  private void descend(Query query, int from, int to, int depth, int prefixX, int prefixY) {
+    if (from == to) {
+      return;
+    }
+    int shift = query.level - depth;
+    int firstX = prefixX << shift;
+    int lastX = ((prefixX + 1) << shift) - 1;
+    int firstY = prefixY << shift;
+    int lastY = ((prefixY + 1) << shift) - 1;
+    if (lastX < query.firstX || firstX > query.lastX || lastY < query.firstY
+        || firstY > query.lastY) {
+      return;
+    }
+    if (shift == 0 || (firstX >= query.firstX && lastX <= query.lastX && firstY >= query.firstY
+        && lastY <= query.lastY)) {
+      for (int cell = from; cell < to; cell++) {
+        long morton = this.keys[cell] & ((1L << LEVEL_SHIFT) - 1);
+        this.visitCell(cell, query, compact(morton), compact(morton >>> 1));
+      }
+      return;
+    }
+    long childSpan = 1L << (2 * (shift - 1));
+    long childKey = key(query.level, firstX, firstY);
+    int childFrom = from;
+    for (int child = 0; child < 4; child++) {
+      childKey += child == 0 ? 0 : childSpan;
+      int childTo = child == 3 ? to : lowerBound(this.keys, childFrom, to, childKey + childSpan);
+      this.descend(query, childFrom, childTo, depth + 1, (prefixX << 1) | (child & 1),
+          (prefixY << 1) | (child >> 1));
+      childFrom = childTo;
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public long memoryBytes() {
+    return 8L * this.keys.length
+        + 4L * (this.cellStart.length + this.items.length + this.levelStart.length);
+  }
+
+  @Override
+  public Kind kind() {
+    return Kind.GEOHASH;
+  }
+
+  private void visitCell(int cell, Query query, int cellX, int cellY) {
+    for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+      int id = this.items[i];
+      if (this.envelopes.intersects(id, query.minX, query.minY, query.maxX, query.maxY)
+          && cellX(Math.max(query.minX, this.envelopes.minX(id)), query.level) == cellX
+          && cellY(Math.max(query.minY, this.envelopes.minY(id)), query.level) == cellY) {
+        query.visitor.accept(id);
+      }
+    }
+  }
+
+  /**
+   * @return the first position in keys[from..to) holding a key of at least key
+   */
+  private static int lowerBound(long[] keys, int from, int to, long key) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the deepest level at which the feature's envelope covers at most 2x2 cells
+   */
+  private static int levelOf(Envelopes envelopes, int id) {
+    for (int level = MAX_LEVEL; level > 0; level--) {
+      if (cellX(envelopes.maxX(id), level) - cellX(envelopes.minX(id), level) <= 1
+          && cellY(envelopes.maxY(id), level) - cellY(envelopes.minY(id), level) <= 1) {
+        return level;
+      }
+    }
+    return 0;
+  }
+
+  static int cellX(double longitude, int level) {
+    int cells = 1 << level;
+    int cell = (int) Math.floor((longitude + 180) / 360 * cells);
+    return Math.max(0, Math.min(cells - 1, cell));
+  }
+
+  static int cellY(double latitude, int level) {
+    int cells = 1 << level;
+    int cell = (int) Math.floor((latitude + 90) / 180 * cells);
+    return Math.max(0, Math.min(cells - 1, cell));
+  }
+
+  static long key(int level, int cellX, int cellY) {
+    return ((long) level << LEVEL_SHIFT) | spread(cellX) | (spread(cellY) << 1);
+  }
+
+  /**
+   * Moves bit i of value to bit 2i, leaving the odd bits free for the other coordinate.
+   */
+  private static long spread(int value) {
+    long bits = value & 0xFFFFFFFFL;
+    bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+    bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+    bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    bits = (bits | (bits << 2)) & 0x3333333333333333L;
+    bits = (bits | (bits << 1)) & 0x5555555555555555L;
+    return bits;
+  }
+
+  /**
+   * Reverses spread: gathers the even bits of bits into the low half.
+   */
+  private static int compact(long bits) {
+    bits &= 0x5555555555555555L;
+    bits = (bits | (bits >>> 1)) & 0x3333333333333333L;
+    bits = (bits | (bits >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    bits = (bits | (bits >>> 4)) & 0x00FF00FF00FF00FFL;
+    bits = (bits | (bits >>> 8)) & 0x0000FFFF0000FFFFL;
+    bits = (bits | (bits >>> 16)) & 0x00000000FFFFFFFFL;
+    return (int) bits;
+  }
+
+  /**
+   * One box query against one level: the box itself and the range of level cells under it.
+   */
+  private static final class Query {
+    final int level;
+    final double minX;
+    final double minY;
+    final double maxX;
+    final double maxY;
+    final int firstX;
+    final int lastX;
+    final int firstY;
+    final int lastY;
+    final IntConsumer visitor;
+
+    Query(int level, double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+      this.level = level;
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = maxX;
+      this.maxY = maxY;
+      this.firstX = cellX(minX, level);
+      this.lastX = cellX(maxX, level);
+      this.firstY = cellY(minY, level);
+      this.lastY = cellY(maxY, level);
+      this.visitor = visitor;
+    }
+  }
+}
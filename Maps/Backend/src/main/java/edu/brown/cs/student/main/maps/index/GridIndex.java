@@ -0,0 +1,166 @@
+package edu.brown.cs.student.main.maps.index;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid laid over the extent of the dataset, with about one cell per feature (fewer if
+ * features are larger than such cells would be). Every feature is listed in each cell its
+ * envelope covers, so a query just visits the cells under the box. This is the cheapest structure
+ * when features are spread fairly evenly over one area, such as a single city, but it wastes
+ * cells on empty space when coverage is sparse.
+ *
+ * <p>The cell lists are stored back to back in one array (cell c holds
+ * items[cellStart[c]..cellStart[c + 1])). A feature that spans several cells is reported only
+ * from the cell holding the south-west corner of its overlap with the box, so no id is reported
+ * twice.
+ */
+public final class GridIndex implements SpatialIndex {
+  // keeps the cell table reasonable for huge or very elongated datasets
+  private static final int MAX_CELLS_PER_AXIS = 2048;
+
+  private final Envelopes envelopes;
+  private final int size;
+  private final double minX;
+  private final double minY;
+  private final double maxX;
+  private final double maxY;
+  private final int columns;
+  private final int rows;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int[] cellStart;
+  private final int[] items;
+
+  /**
+   * Builds a grid sized to the extent and number of the features.
+   * @param envelopes the envelope of every feature; features with an empty envelope are skipped
+   */
+  public GridIndex(Envelopes envelopes) {
+    this.envelopes = envelopes;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    int size = 0;
+    double totalWidth = 0;
+    double totalHeight = 0;
+    for (int id = 0; id < envelopes.size(); id++) {
+      if (!envelopes.isEmpty(id)) {
+        size++;
+        totalWidth += envelopes.maxX(id) - envelopes.minX(id);
+        totalHeight += envelopes.maxY(id) - envelopes.minY(id);
+        minX = Math.min(minX, envelopes.minX(id));
+        minY = Math.min(minY, envelopes.minY(id));
+        maxX = Math.max(maxX, envelopes.maxX(id));
+        maxY = Math.max(maxY, envelopes.maxY(id));
+      }
+    }
+    this.size = size;
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+
+    double width = maxX - minX;
+    double height = maxY - minY;
+    if (size == 0) {
+      this.columns = 0;
+      this.rows = 0;
+    } else if (width <= 0 || height <= 0) {
+      // every feature on one line: a single row or column is as good as it gets
+      this.columns = width > 0 ? clampCells(size) : 1;
+      this.rows = height > 0 ? clampCells(size) : 1;
+    } else {
+      // about one cell per feature, but no cells smaller than the average feature, which
+      // would list every feature in many cells
+      int columns = (int) Math.ceil(Math.sqrt(size * width / height));
+      int rows = (int) Math.ceil((double) size / columns);
+      this.columns = clampCells(Math.min(columns, (int) (width * size / totalWidth)));
+      this.rows = clampCells(Math.min(rows, (int) (height * size / totalHeight)));
+    }
+    this.cellWidth = this.columns > 0 && width > 0 ? width / this.columns : 1;
+    this.cellHeight = this.rows > 0 && height > 0 ? height / this.rows : 1;
+
+    this.cellStart = new int[this.columns * this.rows + 1];
+    for (int id = 0; id < envelopes.size(); id++) {
+      if (!envelopes.isEmpty(id)) {
+        for (int row = this.row(envelopes.minY(id)); row <= this.row(envelopes.maxY(id)); row++) {
+          for (int column = this.column(envelopes.minX(id));
+              column <= this.column(envelopes.maxX(id)); column++) {
+            this.cellStart[row * this.columns + column + 1]++;
+          }
+        }
+      }
+    }
+    for (int cell = 0; cell < this.columns * this.rows; cell++) {
+      this.cellStart[cell + 1] += this.cellStart[cell];
+    }
+    this.items = new int[this.cellStart[this.cellStart.length - 1]];
+    int[] next = this.cellStart.clone();
+    for (int id = 0; id < envelopes.size(); id++) {
+      if (!envelopes.isEmpty(id)) {
+        for (int row = this.row(envelopes.minY(id)); row <= this.row(envelopes.maxY(id)); row++) {
+          for (int column = this.column(envelopes.minX(id));
+              column <= this.column(envelopes.maxX(id)); column++) {
+            this.items[next[row * this.columns + column]++] = id;
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+    if (this.size == 0 || maxX < this.minX || minX > this.maxX || maxY < this.minY
+        || minY > this.maxY) {
+      return;
+    }
+    int firstRow = this.row(minY);
+    int lastRow = this.row(maxY);
+    int firstColumn = this.column(minX);
+    int lastColumn = this.column(maxX);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int cell = row * this.columns + column;
+        for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+          int id = this.items[i];
+          if (this.envelopes.intersects(id, minX, minY, maxX, maxY)
+              && this.column(Math.max(minX, this.envelopes.minX(id))) == column
+              && this.row(Math.max(minY, this.envelopes.minY(id))) == row) {
+            visitor.accept(id);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public long memoryBytes() {
+    return 4L * (this.cellStart.length + this.items.length);
+  }
+
+  @Override
+  public Kind kind() {
+    return Kind.GRID;
+  }
+
+  private int column(double x) {
+    int column = (int) ((x - this.minX) / this.cellWidth);
+    return Math.max(0, Math.min(this.columns - 1, column));
+  }
+
+  private int row(double y) {
+    int row = (int) ((y - this.minY) / this.cellHeight);
+    return Math.max(0, Math.min(this.rows - 1, row));
+  }
+
+  private static int clampCells(int cells) {
+    return Math.max(1, Math.min(MAX_CELLS_PER_AXIS, cells));
+  }
+}
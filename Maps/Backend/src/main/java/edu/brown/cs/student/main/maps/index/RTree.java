@@ -0,0 +1,361 @@
+package edu.brown.cs.student.main.maps.index;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.geometry.Haversine;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * A static R-tree over feature envelopes, bulk loaded with Sort-Tile-Recursive (STR) packing.
+ * Every node except the last of each level is completely full, and nodes that are near each
+ * other on the map end up under the same parent, so a box query only descends into the few
+ * branches that overlap it: roughly O(log n + k) for k results instead of a scan over every
+ * feature. The tree is built once per dataset version and never changes, so it is safe to query
+ * from any number of threads.
+ *
+ * <p>Nodes are stored level by level in flat arrays: level 0 holds the leaves, whose children are
+ * feature ids, and the last level holds the root. The children of a node are always a contiguous
+ * range of the level below.
+ */
+public final class RTree implements SpatialIndex {
+  private static final int DEFAULT_NODE_CAPACITY = 16;
+
+  private final Envelopes envelopes;
+  private final int nodeCapacity;
+  private final int[] items;
+  private final Level[] levels;
+
+  /**
+   * Builds a tree with the default node capacity.
+   * @param envelopes the envelope of every feature; features with an empty envelope are skipped
+   */
+  public RTree(Envelopes envelopes) {
+    this(envelopes, DEFAULT_NODE_CAPACITY);
+  }
+
+  /**
+   * Builds a tree whose nodes hold up to nodeCapacity children each.
+   * @param envelopes the envelope of every feature; features with an empty envelope are skipped
+   * @param nodeCapacity maximum children per node, at least 2
+   */
+  public RTree(Envelopes envelopes, int nodeCapacity) {
+    if (nodeCapacity < 2) {
+      throw new IllegalArgumentException("nodes need room for at least 2 children");
+    }
+    this.envelopes = envelopes;
+    this.nodeCapacity = nodeCapacity;
+
+    int[] ids = new int[envelopes.size()];
+    int count = 0;
+    double[] centerX = new double[envelopes.size()];
+    double[] centerY = new double[envelopes.size()];
+    for (int id = 0; id < envelopes.size(); id++) {
+      if (!envelopes.isEmpty(id)) {
+        ids[count++] = id;
+        centerX[id] = (envelopes.minX(id) + envelopes.maxX(id)) / 2;
+        centerY[id] = (envelopes.minY(id) + envelopes.maxY(id)) / 2;
+      }
+    }
+    this.items = Arrays.copyOf(ids, count);
+    sortTileRecursive(this.items, centerX, centerY, nodeCapacity);
+
+    List<Level> built = new ArrayList<>();
+    if (count > 0) {
+      Level level = Level.leaves(this.items, envelopes, nodeCapacity);
+      built.add(level);
+      while (level.size() > 1) {
+        int[] order = level.sortTileRecursiveOrder(nodeCapacity);
+        level = level.reorder(order);
+        built.set(built.size() - 1, level);
+        level = level.parents(nodeCapacity);
+        built.add(level);
+      }
+    }
+    this.levels = built.toArray(new Level[0]);
+  }
+
+  @Override
+  public void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+    if (this.levels.length == 0) {
+      return;
+    }
+    // depth-first; each level adds at most one node's children to the stack
+    int[] stackLevel = new int[this.levels.length * this.nodeCapacity + 1];
+    int[] stackNode = new int[stackLevel.length];
+    int top = 0;
+    stackLevel[0] = this.levels.length - 1;
+    stackNode[0] = 0;
+    top++;
+    while (top > 0) {
+      top--;
+      Level level = this.levels[stackLevel[top]];
+      int node = stackNode[top];
+      if (!level.intersects(node, minX, minY, maxX, maxY)) {
+        continue;
+      }
+      int start = level.childStart[node];
+      int end = start + level.childCount[node];
+      if (stackLevel[top] == 0) {
+        for (int child = start; child < end; child++) {
+          int id = this.items[child];
+          if (this.envelopes.intersects(id, minX, minY, maxX, maxY)) {
+            visitor.accept(id);
+          }
+        }
+      } else {
+        int childLevel = stackLevel[top] - 1;
+        for (int child = start; child < end; child++) {
+          stackLevel[top] = childLevel;
+          stackNode[top] = child;
+          top++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Best-first traversal: nodes, envelopes and measured features share one queue ordered by
+   * distance. A node's box and a feature's envelope are lower bounds for everything beneath
+   * them, so when a measured feature reaches the head of the queue nothing left can be nearer.
+   * Only the nodes and features closer than the last result are ever expanded or measured.
+   */
+  @Override
+  public void nearest(double lat, double lon, double maxDistanceKm, Distance distance,
+      NearestVisitor visitor) {
+    if (this.levels.length == 0) {
+      return;
+    }
+    PriorityQueue<Candidate> queue = new PriorityQueue<>();
+    int root = this.levels.length - 1;
+    queue.add(new Candidate(this.levels[root].distanceKm(0, lat, lon), root, 0));
+    while (!queue.isEmpty()) {
+      Candidate candidate = queue.poll();
+      if (candidate.distanceKm > maxDistanceKm) {
+        return;
+      }
+      if (candidate.level == Candidate.MEASURED) {
+        if (!visitor.visit(candidate.index, candidate.distanceKm)) {
+          return;
+        }
+      } else if (candidate.level == Candidate.ENVELOPE) {
+        queue.add(new Candidate(distance.distanceKm(candidate.index), Candidate.MEASURED,
+            candidate.index));
+      } else {
+        Level level = this.levels[candidate.level];
+        int start = level.childStart[candidate.index];
+        int end = start + level.childCount[candidate.index];
+        for (int child = start; child < end; child++) {
+          if (candidate.level == 0) {
+            int id = this.items[child];
+            queue.add(new Candidate(Haversine.distanceToBoxKm(lat, lon, this.envelopes.minX(id),
+                this.envelopes.minY(id), this.envelopes.maxX(id), this.envelopes.maxY(id)),
+                Candidate.ENVELOPE, id));
+          } else {
+            Level below = this.levels[candidate.level - 1];
+            queue.add(new Candidate(below.distanceKm(child, lat, lon), candidate.level - 1,
+                child));
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.items.length;
+  }
+
+  @Override
+  public long memoryBytes() {
+    long bytes = 4L * this.items.length;
+    for (Level level : this.levels) {
+      // four doubles for the box and two ints for the child range
+      bytes += 40L * level.size();
+    }
+    return bytes;
+  }
+
+  @Override
+  public Kind kind() {
+    return Kind.RTREE;
+  }
+
+  /**
+   * @return number of levels, counting the leaves and the root
+   */
+  public int height() {
+    return this.levels.length;
+  }
+
+  /**
+   * Orders elements the STR way: sorted into vertical slices by x, then by y within each slice,
+   * so that consecutive runs of nodeCapacity elements are compact tiles.
+   */
+  static void sortTileRecursive(int[] elements, double[] centerX, double[] centerY,
+      int nodeCapacity) {
+    int nodes = (elements.length + nodeCapacity - 1) / nodeCapacity;
+    int slices = (int) Math.ceil(Math.sqrt(nodes));
+    int sliceSize = Math.max(1, slices * nodeCapacity);
+    sortByKey(elements, 0, elements.length, centerX);
+    for (int start = 0; start < elements.length; start += sliceSize) {
+      sortByKey(elements, start, Math.min(elements.length, start + sliceSize), centerY);
+    }
+  }
+
+  /**
+   * Sorts a range of (non-negative) element indices by a key without boxing: each key is
+   * scaled to 31 bits and packed above its element into a long. Quantizing the key only
+   * affects the order of nearly equal keys, which doesn't matter for packing.
+   */
+  static void sortByKey(int[] elements, int from, int to, double[] key) {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i = from; i < to; i++) {
+      min = Math.min(min, key[elements[i]]);
+      max = Math.max(max, key[elements[i]]);
+    }
+    double scale = max > min ? Integer.MAX_VALUE / (max - min) : 0;
+    long[] packed = new long[to - from];
+    for (int i = from; i < to; i++) {
+      long quantized = (long) ((key[elements[i]] - min) * scale);
+      packed[i - from] = (quantized << 32) | elements[i];
+    }
+    Arrays.sort(packed);
+    for (int i = from; i < to; i++) {
+      elements[i] = (int) packed[i - from];
+    }
+  }
+
+  /**
+   * An entry of the nearest-neighbour queue: a node (by level and position), a feature whose
+   * envelope distance is known, or a feature whose exact distance is known. At equal distances
+   * measured features come first, so ties are reported without expanding anything else.
+   */
+  private static final class Candidate implements Comparable<Candidate> {
+    static final int ENVELOPE = -1;
+    static final int MEASURED = -2;
+
+    final double distanceKm;
+    final int level;
+    final int index;
+
+    Candidate(double distanceKm, int level, int index) {
+      this.distanceKm = distanceKm;
+      this.level = level;
+      this.index = index;
+    }
+
+    @Override
+    public int compareTo(Candidate other) {
+      int byDistance = Double.compare(this.distanceKm, other.distanceKm);
+      return byDistance != 0 ? byDistance : Integer.compare(this.level, other.level);
+    }
+  }
+
+  /**
+   * One level of the tree: the bounding box and child range of each of its nodes.
+   */
+  private static final class Level {
+    final double[] minX;
+    final double[] minY;
+    final double[] maxX;
+    final double[] maxY;
+    final int[] childStart;
+    final int[] childCount;
+
+    private Level(int size) {
+      this.minX = new double[size];
+      this.minY = new double[size];
+      this.maxX = new double[size];
+      this.maxY = new double[size];
+      this.childStart = new int[size];
+      this.childCount = new int[size];
+    }
+
+    static Level leaves(int[] items, Envelopes envelopes, int nodeCapacity) {
+      Level level = new Level((items.length + nodeCapacity - 1) / nodeCapacity);
+      for (int node = 0; node < level.size(); node++) {
+        int start = node * nodeCapacity;
+        int end = Math.min(items.length, start + nodeCapacity);
+        level.childStart[node] = start;
+        level.childCount[node] = end - start;
+        level.minX[node] = Double.POSITIVE_INFINITY;
+        level.minY[node] = Double.POSITIVE_INFINITY;
+        level.maxX[node] = Double.NEGATIVE_INFINITY;
+        level.maxY[node] = Double.NEGATIVE_INFINITY;
+        for (int child = start; child < end; child++) {
+          int id = items[child];
+          level.minX[node] = Math.min(level.minX[node], envelopes.minX(id));
+          level.minY[node] = Math.min(level.minY[node], envelopes.minY(id));
+          level.maxX[node] = Math.max(level.maxX[node], envelopes.maxX(id));
+          level.maxY[node] = Math.max(level.maxY[node], envelopes.maxY(id));
+        }
+      }
+      return level;
+    }
+
+    Level parents(int nodeCapacity) {
+      Level parents = new Level((this.size() + nodeCapacity - 1) / nodeCapacity);
+      for (int node = 0; node < parents.size(); node++) {
+        int start = node * nodeCapacity;
+        int end = Math.min(this.size(), start + nodeCapacity);
+        parents.childStart[node] = start;
+        parents.childCount[node] = end - start;
+        parents.minX[node] = Double.POSITIVE_INFINITY;
+        parents.minY[node] = Double.POSITIVE_INFINITY;
+        parents.maxX[node] = Double.NEGATIVE_INFINITY;
+        parents.maxY[node] = Double.NEGATIVE_INFINITY;
+        for (int child = start; child < end; child++) {
+          parents.minX[node] = Math.min(parents.minX[node], this.minX[child]);
+          parents.minY[node] = Math.min(parents.minY[node], this.minY[child]);
+          parents.maxX[node] = Math.max(parents.maxX[node], this.maxX[child]);
+          parents.maxY[node] = Math.max(parents.maxY[node], this.maxY[child]);
+        }
+      }
+      return parents;
+    }
+
+    int[] sortTileRecursiveOrder(int nodeCapacity) {
+      int[] order = new int[this.size()];
+      double[] centerX = new double[this.size()];
+      double[] centerY = new double[this.size()];
+      for (int node = 0; node < this.size(); node++) {
+        order[node] = node;
+        centerX[node] = (this.minX[node] + this.maxX[node]) / 2;
+        centerY[node] = (this.minY[node] + this.maxY[node]) / 2;
+      }
+      sortTileRecursive(order, centerX, centerY, nodeCapacity);
+      return order;
+    }
+
+    Level reorder(int[] order) {
+      Level reordered = new Level(this.size());
+      for (int node = 0; node < order.length; node++) {
+        reordered.minX[node] = this.minX[order[node]];
+        reordered.minY[node] = this.minY[order[node]];
+        reordered.maxX[node] = this.maxX[order[node]];
+        reordered.maxY[node] = this.maxY[order[node]];
+        reordered.childStart[node] = this.childStart[order[node]];
+        reordered.childCount[node] = this.childCount[order[node]];
+      }
+      return reordered;
+    }
+
+    int size() {
+      return this.minX.length;
+    }
+
+    double distanceKm(int node, double lat, double lon) {
+      return Haversine.distanceToBoxKm(lat, lon, this.minX[node], this.minY[node],
+          this.maxX[node], this.maxY[node]);
+    }
+
+    boolean intersects(int node, double minX, double minY, double maxX, double maxY) {
+      return this.minX[node] <= maxX && this.maxX[node] >= minX
+          && this.minY[node] <= maxY && this.maxY[node] >= minY;
+    }
+  }
+}
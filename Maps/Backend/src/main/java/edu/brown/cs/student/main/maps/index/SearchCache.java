@@ -0,0 +1,206 @@
+package edu.brown.cs.student.main.maps.index;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers recent bounding box searches so that the boxes a map asks for while it pans and
+ * zooms inside a region it just fetched are answered without going back to the spatial index.
+ * A search that misses is widened to a grid whose cells are about a quarter of the box's size,
+ * plus one cell on each side, and the widened box's candidates are kept. A later box inside a
+ * kept box that isn't much bigger than it is answered by checking only that box's candidates
+ * against it, which are already in file order. Entries are evicted least recently used first
+ * once their ids take more than a byte budget, or there are more than MAX_ENTRIES of them. A
+ * cache belongs to one dataset version and is dropped with it, so it never has to be
+ * invalidated.
+ */
+public final class SearchCache {
+  /**
+   * Default memory budget for the cached ids, in bytes.
+   */
+  public static final long DEFAULT_BUDGET_BYTES = 16L << 20;
+
+  /**
+   * Most boxes kept at once; every lookup scans them all, so this keeps lookups to a few
+   * microseconds.
+   */
+  public static final int MAX_ENTRIES = 256;
+
+  // every entry costs its ids plus roughly this much for the entry, key and map node
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+  // boxes smaller than this are widened as if they were this big, about 100 m of latitude
+  private static final double MIN_CELL_DEGREES = 1.0 / 1024;
+  // a cached box answers boxes down to two zoom levels in from the one it was searched for
+  private static final double MAX_AREA_RATIO = 16;
+
+  private final SpatialIndex index;
+  private final Envelopes envelopes;
+  private final long budgetBytes;
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private long bytes;
+
+  /**
+   * @param index the spatial index searches that miss go to
+   * @param envelopes the envelopes the index was built over
+   * @param budgetBytes how much memory the cached ids may take
+   */
+  public SearchCache(SpatialIndex index, Envelopes envelopes, long budgetBytes) {
+    this.index = index;
+    this.envelopes = envelopes;
+    this.budgetBytes = budgetBytes;
+  }
+
+  /**
+   * Finds every feature whose envelope overlaps a box, exactly like SpatialIndex.search, from a
+   * cached box that holds it if there is one.
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @return sorted ids of the matching features
+   */
+  public int[] search(double minX, double minY, double maxX, double maxY) {
+    if (!(minX <= maxX && minY <= maxY)) {
+      return this.index.search(minX, minY, maxX, maxY);
+    }
+    Key key = widen(minX, minY, maxX, maxY);
+    // a box far bigger than this one's own widened box has too many candidates to be worth it
+    double maxArea = key.area() * MAX_AREA_RATIO;
+    Entry best = null;
+    for (Entry entry : this.entries.values()) {
+      if (entry.holds(minX, minY, maxX, maxY) && entry.key.area() <= maxArea
+          && (best == null || entry.ids.length < best.ids.length)) {
+        best = entry;
+      }
+    }
+    if (best != null) {
+      this.hits.increment();
+      best.lastUsed = this.clock.incrementAndGet();
+      return this.filter(best.ids, minX, minY, maxX, maxY);
+    }
+    this.misses.increment();
+    int[] ids = this.index.search(key.minX, key.minY, key.maxX, key.maxY);
+    this.put(key, ids);
+    return this.filter(ids, minX, minY, maxX, maxY);
+  }
+
+  /**
+   * @return how many searches were answered from a cached box
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * @return how many searches went to the spatial index
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * @return how many boxes were dropped to stay within the budget
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * @return number of boxes currently cached
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * @return memory the cached boxes take, in bytes
+   */
+  public synchronized long bytes() {
+    return this.bytes;
+  }
+
+  /**
+   * Widens a box to the cache's grid: the cell size is the power of two nearest below a quarter
+   * of the box's larger side, and the box is rounded out to whole cells plus one more on each
+   * side, within the range of longitude and latitude.
+   */
+  static Key widen(double minX, double minY, double maxX, double maxY) {
+    double side = Math.max(maxX - minX, maxY - minY) / 4;
+    double cell = Math.max(MIN_CELL_DEGREES, Math.scalb(1.0, Math.getExponent(side)));
+    return new Key(
+        Math.max(-180, (Math.floor(minX / cell) - 1) * cell),
+        Math.max(-90, (Math.floor(minY / cell) - 1) * cell),
+        Math.min(180, (Math.ceil(maxX / cell) + 1) * cell),
+        Math.min(90, (Math.ceil(maxY / cell) + 1) * cell));
+  }
+
+  private int[] filter(int[] candidates, double minX, double minY, double maxX, double maxY) {
+    int[] ids = new int[candidates.length];
+    int kept = 0;
+    for (int id : candidates) {
+      if (this.envelopes.intersects(id, minX, minY, maxX, maxY)) {
+        ids[kept++] = id;
+      }
+    }
+    return Arrays.copyOf(ids, kept);
+  }
+
+  private synchronized void put(Key key, int[] ids) {
+    long weight = weight(ids);
+    // a box that would take most of the budget would only push out many useful ones
+    if (weight > this.budgetBytes / 4 || this.entries.containsKey(key)) {
+      return;
+    }
+    this.entries.put(key, new Entry(key, ids, this.clock.incrementAndGet()));
+    this.bytes += weight;
+    while (this.bytes > this.budgetBytes || this.entries.size() > MAX_ENTRIES) {
+      Entry oldest = null;
+      for (Entry entry : this.entries.values()) {
+        if (oldest == null || entry.lastUsed < oldest.lastUsed) {
+          oldest = entry;
+        }
+      }
+      this.entries.remove(oldest.key);
+      this.bytes -= weight(oldest.ids);
+      this.evictions.increment();
+    }
+  }
+
+  private static long weight(int[] ids) {
+    return (long) ids.length * Integer.BYTES + ENTRY_OVERHEAD_BYTES;
+  }
+
+  /**
+   * A widened box, which identifies a cache entry.
+   */
+  record Key(double minX, double minY, double maxX, double maxY) {
+    double area() {
+      return (this.maxX - this.minX) * (this.maxY - this.minY);
+    }
+  }
+
+  private static final class Entry {
+    private final Key key;
+    private final int[] ids;
+    private volatile long lastUsed;
+
+    private Entry(Key key, int[] ids, long lastUsed) {
+      this.key = key;
+      this.ids = ids;
+      this.lastUsed = lastUsed;
+    }
+
+    private boolean holds(double minX, double minY, double maxX, double maxY) {
+      return this.key.minX <= minX && this.key.minY <= minY
+          && this.key.maxX >= maxX && this.key.maxY >= maxY;
+    }
+  }
+}
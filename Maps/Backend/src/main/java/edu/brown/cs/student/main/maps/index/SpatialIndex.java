@@ -0,0 +1,184 @@
+package edu.brown.cs.student.main.maps.index;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.geometry.Haversine;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds the features whose envelope overlaps a box. Implementations are built once over the
+ * envelopes of a dataset version and never change afterwards, so they can be queried from any
+ * number of threads. Which implementation works best depends on the data: the R-tree adapts to
+ * any distribution, the grid is cheapest for one dense area, and the geohash index only spends
+ * memory on the cells that actually hold features, which suits sparse nationwide coverage.
+ */
+public interface SpatialIndex {
+
+  /**
+   * Finds every feature whose envelope overlaps a box (touching counts). Each matching id is
+   * reported exactly once, in no particular order.
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @param visitor called once with the id of each matching feature
+   */
+  void search(double minX, double minY, double maxX, double maxY, IntConsumer visitor);
+
+  /**
+   * Finds every feature whose envelope overlaps a box, like search(..., visitor), and returns
+   * their ids in ascending order, which is the order of the features in the dataset.
+   * @param minX west edge of the box
+   * @param minY south edge of the box
+   * @param maxX east edge of the box
+   * @param maxY north edge of the box
+   * @return sorted ids of the matching features
+   */
+  default int[] search(double minX, double minY, double maxX, double maxY) {
+    int[][] found = {new int[16]};
+    int[] count = {0};
+    this.search(minX, minY, maxX, maxY, id -> {
+      if (count[0] == found[0].length) {
+        found[0] = Arrays.copyOf(found[0], count[0] * 2);
+      }
+      found[0][count[0]++] = id;
+    });
+    int[] ids = Arrays.copyOf(found[0], count[0]);
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  /**
+   * Reports features in order of increasing great-circle distance from a point, until the
+   * visitor asks to stop or every feature within maxDistanceKm has been reported. Envelopes only
+   * give a lower bound on a feature's distance; the exact distance is asked for lazily, so the
+   * features beyond the last one reported are never measured.
+   *
+   * <p>This version searches boxes around the point whose radius doubles each round, reporting
+   * the features whose exact distance is within the radius. Indexes that can order their nodes
+   * by distance override it with a best-first traversal.
+   * @param lat latitude of the point
+   * @param lon longitude of the point
+   * @param maxDistanceKm features farther than this are never reported
+   * @param distance exact distance to a feature, never less than the distance to its envelope
+   * @param visitor called with each feature and its distance, nearest first
+   */
+  default void nearest(double lat, double lon, double maxDistanceKm, Distance distance,
+      NearestVisitor visitor) {
+    Map<Integer, Double> measured = new HashMap<>();
+    BitSet reported = new BitSet();
+    double radius = Math.min(1, maxDistanceKm);
+    while (true) {
+      double[] box = Haversine.boxAround(lat, lon, radius);
+      List<Integer> ready = new ArrayList<>();
+      for (int id : this.search(box[0], box[1], box[2], box[3])) {
+        if (!reported.get(id)
+            && measured.computeIfAbsent(id, distance::distanceKm) <= radius) {
+          ready.add(id);
+        }
+      }
+      ready.sort((a, b) -> Double.compare(measured.get(a), measured.get(b)));
+      for (int id : ready) {
+        reported.set(id);
+        if (!visitor.visit(id, measured.get(id))) {
+          return;
+        }
+      }
+      if (radius >= maxDistanceKm || radius >= Haversine.MAX_DISTANCE_KM) {
+        return;
+      }
+      radius = Math.min(radius * 2, maxDistanceKm);
+    }
+  }
+
+  /**
+   * @return number of features in the index (features with an empty envelope are left out)
+   */
+  int size();
+
+  /**
+   * @return approximate heap size of the index's own arrays, not counting the envelopes
+   */
+  long memoryBytes();
+
+  /**
+   * @return which implementation this is
+   */
+  Kind kind();
+
+  /**
+   * Measures the exact distance from a nearest-neighbour query's point to a feature.
+   */
+  @FunctionalInterface
+  interface Distance {
+    /**
+     * @param id the feature
+     * @return its distance in kilometres
+     */
+    double distanceKm(int id);
+  }
+
+  /**
+   * Receives the results of a nearest-neighbour query one at a time, nearest first.
+   */
+  @FunctionalInterface
+  interface NearestVisitor {
+    /**
+     * @param id the feature
+     * @param distanceKm its distance in kilometres
+     * @return whether to keep going with the next nearest feature
+     */
+    boolean visit(int id, double distanceKm);
+  }
+
+  /**
+   * The available implementations, selected by name with the maps.index system property.
+   */
+  enum Kind {
+    RTREE(RTree::new),
+    GRID(GridIndex::new),
+    GEOHASH(GeohashIndex::new);
+
+    private final Function<Envelopes, SpatialIndex> factory;
+
+    Kind(Function<Envelopes, SpatialIndex> factory) {
+      this.factory = factory;
+    }
+
+    /**
+     * Builds an index of this kind.
+     * @param envelopes the envelope of every feature
+     * @return the new index
+     */
+    public SpatialIndex build(Envelopes envelopes) {
+      return this.factory.apply(envelopes);
+    }
+
+    /**
+     * Looks up a kind by its name, ignoring case.
+     * @param name "rtree", "grid" or "geohash"
+     * @return the matching kind
+     * @throws IllegalArgumentException if no kind has that name
+     */
+    public static Kind parse(String name) {
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("unknown spatial index '" + name
+            + "', expected one of " + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return this.name().toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package edu.brown.cs.student.main.maps.json;
+
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.ToJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * A feature collection as the legacy maps responses carry it in data: a JSON string holding the
+ * collection's JSON, {"features": [...], "return Type": "success", "type": ...}. Put in a
+ * response map, it is written by its own adapter (see MapsCodecs), which copies the collection's
+ * JSON into the response and escapes it on the way, instead of building it as a String that the
+ * response map would then copy a second time to escape it. The JSON inside has no control or line
+ * separator characters, which Moshi always escapes, so only quotes and backslashes need escaping.
+ */
+public final class CollectionJson {
+  private static final ByteString QUOTE_OR_BACKSLASH = ByteString.encodeUtf8("\"\\");
+
+  private final String type;
+  private final FeatureJson json;
+  private final int[] ids;
+  private final List<Feature> features;
+
+  private CollectionJson(String type, FeatureJson json, int[] ids, List<Feature> features) {
+    this.type = type;
+    this.json = json;
+    this.ids = ids;
+    this.features = features;
+  }
+
+  /**
+   * @param type the GeoJSON type of the collection
+   * @param json the rendered features
+   * @param ids which of the rendered features to include, in order
+   * @return the collection of some of a dataset's features, copied from their rendered JSON
+   */
+  public static CollectionJson of(String type, FeatureJson json, int[] ids) {
+    return new CollectionJson(type, json, ids, null);
+  }
+
+  /**
+   * @param collection features made for one request, such as those carrying a distance
+   * @return the collection, whose features are serialized as it is written
+   */
+  public static CollectionJson of(GeoJsonCollection collection) {
+    return new CollectionJson(collection.type, null, null, collection.features);
+  }
+
+  /**
+   * Writes the collection's JSON, unescaped.
+   * @param sink where to write
+   * @throws IOException if the sink fails
+   */
+  public void writeTo(BufferedSink sink) throws IOException {
+    sink.writeUtf8("{\"features\":[");
+    if (this.features != null) {
+      for (int i = 0; i < this.features.size(); i++) {
+        if (i > 0) {
+          sink.writeByte(',');
+        }
+        MapsCodecs.FEATURE.toJson(sink, this.features.get(i));
+      }
+    } else {
+      for (int i = 0; i < this.ids.length; i++) {
+        if (i > 0) {
+          sink.writeByte(',');
+        }
+        this.json.writeTo(sink, this.ids[i]);
+      }
+    }
+    sink.writeUtf8("],\"return Type\":\"success\"");
+    if (this.type != null) {
+      sink.writeUtf8(",\"type\":");
+      JsonWriter.of(sink).value(this.type).flush();
+    }
+    sink.writeByte('}');
+  }
+
+  /**
+   * @return the collection's JSON
+   */
+  @Override
+  public String toString() {
+    try {
+      Buffer buffer = new Buffer();
+      this.writeTo(buffer);
+      return buffer.readUtf8();
+    } catch (IOException e) {
+      // a Buffer never fails to accept writes
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes a collection as a JSON string holding its JSON. Collections are only ever written,
+   * so there is no @FromJson method, and reading one is left to whatever Moshi would otherwise
+   * use; null is written as null by Moshi without calling this.
+   */
+  public static final class Adapter {
+    /**
+     * @param writer where to write
+     * @param value the collection
+     * @throws IOException if the writer fails
+     */
+    @ToJson
+    public void toJson(JsonWriter writer, CollectionJson value) throws IOException {
+      Buffer text = new Buffer();
+      value.writeTo(text);
+      try (BufferedSink out = writer.valueSink()) {
+        out.writeByte('"');
+        while (!text.exhausted()) {
+          long escape = text.indexOfElement(QUOTE_OR_BACKSLASH);
+          if (escape == -1) {
+            out.write(text, text.size());
+          } else {
+            out.write(text, escape);
+            out.writeByte('\\');
+            out.writeByte(text.readByte());
+          }
+        }
+        out.writeByte('"');
+      }
+    }
+  }
+}
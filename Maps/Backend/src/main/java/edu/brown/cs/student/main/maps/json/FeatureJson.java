@@ -0,0 +1,80 @@
+package edu.brown.cs.student.main.maps.json;
+
+import com.squareup.moshi.JsonAdapter;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import okio.Buffer;
+import okio.BufferedSink;
+
+/**
+ * The JSON encoding of every feature of a list, rendered once and kept as UTF-8 bytes. All
+ * encodings share one array, feature i covering bytes [offset(i), offset(i + 1)), so a
+ * response can be put together by copying slices instead of serializing the features again.
+ * The features are immutable and each dataset version renders its own, so the bytes can never
+ * disagree with the features they came from.
+ */
+public final class FeatureJson {
+  static final JsonAdapter<Feature> FEATURE_ADAPTER = MapsCodecs.FEATURE;
+
+  private final byte[] bytes;
+  private final int[] offsets;
+
+  private FeatureJson(byte[] bytes, int[] offsets) {
+    this.bytes = bytes;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Renders every feature of a list, exactly as Moshi would write it inside a collection.
+   * @param features the features to render
+   * @return their encodings, indexed like the list
+   */
+  public static FeatureJson of(List<Feature> features) {
+    Buffer buffer = new Buffer();
+    int[] offsets = new int[features.size() + 1];
+    try {
+      for (int id = 0; id < features.size(); id++) {
+        FEATURE_ADAPTER.toJson(buffer, features.get(id));
+        offsets[id + 1] = Math.toIntExact(buffer.size());
+      }
+    } catch (IOException e) {
+      // a Buffer never fails to accept writes
+      throw new UncheckedIOException(e);
+    }
+    return new FeatureJson(buffer.readByteArray(), offsets);
+  }
+
+  /**
+   * @return number of features rendered
+   */
+  public int size() {
+    return this.offsets.length - 1;
+  }
+
+  /**
+   * @param id the feature's position in the list
+   * @return length in bytes of the feature's encoding
+   */
+  public int length(int id) {
+    return this.offsets[id + 1] - this.offsets[id];
+  }
+
+  /**
+   * Copies a feature's encoding to a sink.
+   * @param sink where to write
+   * @param id the feature's position in the list
+   * @throws IOException if the sink fails
+   */
+  public void writeTo(BufferedSink sink, int id) throws IOException {
+    sink.write(this.bytes, this.offsets[id], this.length(id));
+  }
+
+  /**
+   * @return heap size of the rendered bytes and their offsets
+   */
+  public long memoryBytes() {
+    return this.bytes.length + 4L * this.offsets.length;
+  }
+}
@@ -11,12 +11,14 @@ public String type;
 public List <Feature> features;
 
   /**
-   * Represents a GeoJSON features
+   * Represents a GeoJSON features. distance_km is only set on the copies returned by proximity
+   * queries, and is left out of the JSON otherwise.
    */
   public static class Feature{
   public String type;
   public Geometry geometry;
   public Properties properties;
+  public Double distance_km;
 }
 
   /**
@@ -29,10 +31,11 @@ public List <Feature> features;
 }
 
   /**
-   * Represents geometry/coordinate information in GeoJSON
+   * Represents geometry/coordinate information in GeoJSON. Coordinates are kept packed in
+   * primitive arrays (see PackedCoordinates) instead of nested lists of boxed doubles.
    */
   public static class Geometry{
   public String type;
-  public List<List<List<List<Double>>>> coordinates;
+  public PackedCoordinates coordinates;
 }
 }
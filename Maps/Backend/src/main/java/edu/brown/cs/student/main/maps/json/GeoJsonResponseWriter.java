@@ -0,0 +1,83 @@
+package edu.brown.cs.student.main.maps.json;
+
+import com.squareup.moshi.JsonWriter;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Writes a maps response straight to an output stream, one feature at a time. Unlike
+ * JsonParsing.toJsonGeneral, the collection is never turned into a String first and is not
+ * wrapped in a second layer of JSON: data is a GeoJSON object the client can use as it is.
+ * The response looks like {"type": ..., (other fields), "data": {"features": [...], "type": ...}}.
+ * Features of a dataset are copied from their pre-rendered FeatureJson; only features made for
+ * one request, such as those carrying a distance, are serialized on the spot.
+ */
+public final class GeoJsonResponseWriter {
+  private GeoJsonResponseWriter() {
+  }
+
+  /**
+   * Writes a response holding a feature collection. The stream is flushed but not closed.
+   * @param out where to write the response
+   * @param type the response type, such as "success"
+   * @param fields any other top-level fields, such as an error_description, in order
+   * @param collection the features to put in data
+   * @throws IOException if writing to the stream fails
+   */
+  public static void write(OutputStream out, String type, Map<String, ?> fields,
+      GeoJsonCollection collection) throws IOException {
+    JsonWriter writer = begin(out, type, fields);
+    for (Feature feature : collection.features) {
+      FeatureJson.FEATURE_ADAPTER.toJson(writer, feature);
+    }
+    end(writer, collection.type);
+  }
+
+  /**
+   * Writes a response holding some of a dataset's features, copying their pre-rendered JSON.
+   * The stream is flushed but not closed.
+   * @param out where to write the response
+   * @param type the response type, such as "success"
+   * @param fields any other top-level fields, such as an error_description, in order; values
+   *     may be strings, numbers, booleans, lists or maps
+   * @param collectionType the GeoJSON type of the collection
+   * @param json the rendered features
+   * @param ids which of the rendered features to put in data, in order
+   * @throws IOException if writing to the stream fails
+   */
+  public static void write(OutputStream out, String type, Map<String, ?> fields,
+      String collectionType, FeatureJson json, int[] ids) throws IOException {
+    JsonWriter writer = begin(out, type, fields);
+    for (int id : ids) {
+      try (BufferedSink value = writer.valueSink()) {
+        json.writeTo(value, id);
+      }
+    }
+    end(writer, collectionType);
+  }
+
+  private static JsonWriter begin(OutputStream out, String type, Map<String, ?> fields)
+      throws IOException {
+    JsonWriter writer = JsonWriter.of(Okio.buffer(Okio.sink(out)));
+    writer.beginObject();
+    writer.name("type").value(type);
+    for (Map.Entry<String, ?> field : fields.entrySet()) {
+      writer.name(field.getKey()).jsonValue(field.getValue());
+    }
+    writer.name("data").beginObject();
+    writer.name("features").beginArray();
+    return writer;
+  }
+
+  private static void end(JsonWriter writer, String collectionType) throws IOException {
+    writer.endArray();
+    writer.name("type").value(collectionType);
+    writer.endObject();
+    writer.endObject();
+    writer.flush();
+  }
+}
@@ -2,13 +2,7 @@ package edu.brown.cs.student.main.maps.json;
 
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.JsonReader;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Class responsible for parsing the GEOJson data
@@ -18,26 +12,28 @@ public class JsonParsing {
 
   }
   /**
-   * This is a general JSON serializer that could theoretically be used to change any given type to
-   * JSON String. (This is for other developers' use)
+   * Serializes a feature collection, as {"features": [...], "return Type": "success",
+   * "type": ...}, with the collection's own adapter (see CollectionJson) rather than by looking
+   * up its fields on every call.
    *
-   * @param object generic object to serialize
-   * @return JSON String for given object(data)
-   * @throws IllegalAccessException thrown if the serialization goes wrong
+   * @param collection the collection to serialize
+   * @return JSON String for the collection
    */
-  public static<T> String toJsonGeneral(T object) throws IllegalAccessException {
-    Field[] fields = object.getClass().getDeclaredFields();
-
-    Moshi moshi = new Moshi.Builder().build();
-    Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-    JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
+  public static String toJsonGeneral(GeoJsonCollection collection) {
+    return CollectionJson.of(collection).toString();
+  }
 
-    Map<String, Object> responseMap = new HashMap<>();
-    responseMap.put("return Type", "success");
-    for (Field field : fields) {
-      responseMap.put(field.getName(), field.get(object));
-    }
-    return adapter.toJson(responseMap);
+  /**
+   * Produces the same JSON as toJsonGeneral does for a GeoJsonCollection, for some of a
+   * dataset's features, by copying their pre-rendered encodings instead of serializing them.
+   *
+   * @param type the GeoJSON type of the collection
+   * @param json the rendered features
+   * @param ids which of the rendered features to include, in order
+   * @return JSON String for the collection
+   */
+  public static String toJsonGeneral(String type, FeatureJson json, int[] ids) {
+    return CollectionJson.of(type, json, ids).toString();
   }
 
   /**
@@ -49,8 +45,7 @@ public class JsonParsing {
    * @throws IOException if deserialization goes wrong
    */
   public static <T> T fromJsonGeneral(JsonReader source, Class<T> targetType) throws IOException {
-    Moshi moshi = new Moshi.Builder().build();
-    JsonAdapter<T> adapter = moshi.adapter(targetType);
+    JsonAdapter<T> adapter = MapsCodecs.adapter(targetType);
     source.setLenient(true);
 
     return adapter.fromJson(source);
@@ -0,0 +1,53 @@
+package edu.brown.cs.student.main.maps.json;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.json.JsonCodecs;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * The shared JSON adapters of JsonCodecs, plus those for the maps data: packed GeoJSON
+ * coordinates (see PackedCoordinatesAdapter) and the legacy data string (see CollectionJson).
+ * Built once, like JsonCodecs, and used by every maps handler.
+ */
+public final class MapsCodecs {
+  private static final Moshi MOSHI = JsonCodecs.newBuilder()
+      .add(new PackedCoordinatesAdapter())
+      .add(new CollectionJson.Adapter())
+      .build();
+
+  /**
+   * Adapter for the response maps the maps handlers build, whose values may also be GeoJSON
+   * features and collections (see CollectionJson).
+   */
+  public static final JsonAdapter<Map<String, Object>> RESPONSE =
+      MOSHI.adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+
+  /**
+   * Adapter for GeoJSON features.
+   */
+  public static final JsonAdapter<Feature> FEATURE = MOSHI.adapter(Feature.class);
+
+  private MapsCodecs() {
+  }
+
+  /**
+   * @param type the type to read or write
+   * @return the shared adapter for it
+   */
+  public static <T> JsonAdapter<T> adapter(Type type) {
+    return MOSHI.adapter(type);
+  }
+
+  /**
+   * Writes a response map, into this thread's buffer (see JsonCodecs).
+   * @param response the response
+   * @return its JSON, as UTF-8
+   */
+  public static byte[] toJson(Map<String, Object> response) {
+    return JsonCodecs.toJson(RESPONSE, response);
+  }
+}
@@ -0,0 +1,195 @@
+package edu.brown.cs.student.main.maps.json;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Represents the coordinates of a Polygon or MultiPolygon geometry without boxing. Every vertex
+ * of every ring is stored one after the other in two flat arrays (xs holds longitudes, ys holds
+ * latitudes), and two offset tables record where each ring and each polygon starts:
+ * ring r covers vertices [ringStart(r), ringEnd(r)) and polygon p covers rings
+ * [polygonStart(p), polygonEnd(p)). The first ring of a polygon is its outer ring and any
+ * further rings are its holes, as in GeoJSON. The vertex arrays are DoubleBuffers so they can
+ * either wrap heap arrays (after parsing JSON) or be views into a memory-mapped snapshot.
+ */
+public final class PackedCoordinates {
+  private final DoubleBuffer xs;
+  private final DoubleBuffer ys;
+  private final int[] ringOffsets;
+  private final int[] polygonOffsets;
+  private final boolean multi;
+
+  /**
+   * Creates packed coordinates from already filled arrays. The arrays are used as they are, not
+   * copied.
+   * @param xs longitude of every vertex
+   * @param ys latitude of every vertex
+   * @param ringOffsets first vertex of each ring, followed by the total vertex count
+   * @param polygonOffsets first ring of each polygon, followed by the total ring count
+   * @param multi whether these came from (and should be written back as) a MultiPolygon
+   */
+  public PackedCoordinates(double[] xs, double[] ys, int[] ringOffsets, int[] polygonOffsets,
+      boolean multi) {
+    this(DoubleBuffer.wrap(xs), DoubleBuffer.wrap(ys), ringOffsets, polygonOffsets, multi);
+  }
+
+  /**
+   * Creates packed coordinates over existing vertex buffers, such as slices of a mapped
+   * snapshot. Only absolute reads are made, so the buffers can be shared between threads.
+   * @param xs longitude of every vertex, from index 0 to its limit
+   * @param ys latitude of every vertex, from index 0 to its limit
+   * @param ringOffsets first vertex of each ring, followed by the total vertex count
+   * @param polygonOffsets first ring of each polygon, followed by the total ring count
+   * @param multi whether these came from (and should be written back as) a MultiPolygon
+   */
+  public PackedCoordinates(DoubleBuffer xs, DoubleBuffer ys, int[] ringOffsets,
+      int[] polygonOffsets, boolean multi) {
+    if (xs.limit() != ys.limit()) {
+      throw new IllegalArgumentException("xs and ys must have the same length");
+    }
+    this.xs = xs;
+    this.ys = ys;
+    this.ringOffsets = ringOffsets;
+    this.polygonOffsets = polygonOffsets;
+    this.multi = multi;
+  }
+
+  /**
+   * @return whether the coordinates are nested as a MultiPolygon rather than a single Polygon
+   */
+  public boolean isMulti() {
+    return this.multi;
+  }
+
+  /**
+   * @return number of polygons (always 1 for a plain Polygon)
+   */
+  public int polygonCount() {
+    return this.polygonOffsets.length - 1;
+  }
+
+  /**
+   * @return number of rings across every polygon
+   */
+  public int ringCount() {
+    return this.ringOffsets.length - 1;
+  }
+
+  /**
+   * @return number of vertices across every ring
+   */
+  public int vertexCount() {
+    return this.xs.limit();
+  }
+
+  /**
+   * @param polygon polygon index
+   * @return index of the polygon's outer ring
+   */
+  public int polygonStart(int polygon) {
+    return this.polygonOffsets[polygon];
+  }
+
+  /**
+   * @param polygon polygon index
+   * @return index one past the polygon's last ring
+   */
+  public int polygonEnd(int polygon) {
+    return this.polygonOffsets[polygon + 1];
+  }
+
+  /**
+   * @param ring ring index
+   * @return index of the ring's first vertex
+   */
+  public int ringStart(int ring) {
+    return this.ringOffsets[ring];
+  }
+
+  /**
+   * @param ring ring index
+   * @return index one past the ring's last vertex
+   */
+  public int ringEnd(int ring) {
+    return this.ringOffsets[ring + 1];
+  }
+
+  /**
+   * @param vertex vertex index
+   * @return longitude of the vertex
+   */
+  public double x(int vertex) {
+    return this.xs.get(vertex);
+  }
+
+  /**
+   * @param vertex vertex index
+   * @return latitude of the vertex
+   */
+  public double y(int vertex) {
+    return this.ys.get(vertex);
+  }
+
+  /**
+   * Incrementally fills packed coordinates one vertex at a time, growing its arrays as needed.
+   * Used by the JSON adapter so that no intermediate lists are created while parsing.
+   */
+  public static final class Builder {
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int vertices;
+    private int[] ringOffsets = new int[8];
+    private int rings;
+    private int[] polygonOffsets = new int[4];
+    private int polygons;
+
+    /**
+     * Starts a new polygon; the rings added after this call belong to it.
+     */
+    public void startPolygon() {
+      if (this.polygons == this.polygonOffsets.length) {
+        this.polygonOffsets = Arrays.copyOf(this.polygonOffsets, this.polygons * 2);
+      }
+      this.polygonOffsets[this.polygons++] = this.rings;
+    }
+
+    /**
+     * Starts a new ring in the current polygon; the vertices added after this call belong to it.
+     */
+    public void startRing() {
+      if (this.rings == this.ringOffsets.length) {
+        this.ringOffsets = Arrays.copyOf(this.ringOffsets, this.rings * 2);
+      }
+      this.ringOffsets[this.rings++] = this.vertices;
+    }
+
+    /**
+     * Appends a vertex to the current ring.
+     * @param x longitude
+     * @param y latitude
+     */
+    public void addVertex(double x, double y) {
+      if (this.vertices == this.xs.length) {
+        this.xs = Arrays.copyOf(this.xs, this.vertices * 2);
+        this.ys = Arrays.copyOf(this.ys, this.vertices * 2);
+      }
+      this.xs[this.vertices] = x;
+      this.ys[this.vertices] = y;
+      this.vertices++;
+    }
+
+    /**
+     * Trims the arrays to size and produces the finished coordinates.
+     * @param multi whether the coordinates should be written back as a MultiPolygon
+     * @return the packed coordinates
+     */
+    public PackedCoordinates build(boolean multi) {
+      int[] ringTable = Arrays.copyOf(this.ringOffsets, this.rings + 1);
+      ringTable[this.rings] = this.vertices;
+      int[] polygonTable = Arrays.copyOf(this.polygonOffsets, this.polygons + 1);
+      polygonTable[this.polygons] = this.rings;
+      return new PackedCoordinates(Arrays.copyOf(this.xs, this.vertices),
+          Arrays.copyOf(this.ys, this.vertices), ringTable, polygonTable, multi);
+    }
+  }
+}
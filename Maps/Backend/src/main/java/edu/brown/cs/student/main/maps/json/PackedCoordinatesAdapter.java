@@ -0,0 +1,129 @@
+package edu.brown.cs.student.main.maps.json;
+
+import com.squareup.moshi.FromJson;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.ToJson;
+import java.io.IOException;
+
+/**
+ * Moshi adapter that reads GeoJSON Polygon and MultiPolygon coordinate arrays straight into
+ * PackedCoordinates, and writes them back out in the same nesting they were read with.
+ */
+public class PackedCoordinatesAdapter {
+  private static final int POLYGON_DEPTH = 3;
+  private static final int MULTI_POLYGON_DEPTH = 4;
+
+  /**
+   * Parses a coordinates array without building any intermediate lists.
+   * @param reader reader positioned at the coordinates array
+   * @return the packed coordinates, or null for a JSON null
+   * @throws IOException if the array isn't Polygon or MultiPolygon shaped
+   */
+  @FromJson
+  public PackedCoordinates fromJson(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    int depth = nestingDepth(reader);
+    PackedCoordinates.Builder builder = new PackedCoordinates.Builder();
+    if (depth == MULTI_POLYGON_DEPTH) {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        readPolygon(reader, builder);
+      }
+      reader.endArray();
+    } else if (depth == POLYGON_DEPTH) {
+      readPolygon(reader, builder);
+    } else {
+      throw new JsonDataException(
+          "expected Polygon or MultiPolygon coordinates at " + reader.getPath());
+    }
+    return builder.build(depth == MULTI_POLYGON_DEPTH);
+  }
+
+  /**
+   * Writes the coordinates as nested arrays, the same way they appear in GeoJSON.
+   * @param writer writer to output to
+   * @param coordinates coordinates to write (may be null)
+   * @throws IOException if writing fails
+   */
+  @ToJson
+  public void toJson(JsonWriter writer, PackedCoordinates coordinates) throws IOException {
+    if (coordinates == null) {
+      writer.nullValue();
+      return;
+    }
+    if (coordinates.isMulti()) {
+      writer.beginArray();
+      for (int polygon = 0; polygon < coordinates.polygonCount(); polygon++) {
+        writePolygon(writer, coordinates, polygon);
+      }
+      writer.endArray();
+    } else if (coordinates.polygonCount() > 0) {
+      writePolygon(writer, coordinates, 0);
+    } else {
+      writer.beginArray();
+      writer.endArray();
+    }
+  }
+
+  /**
+   * Looks ahead (without consuming anything) to count how many arrays are nested before the
+   * first number: 3 for a Polygon, 4 for a MultiPolygon. An empty innermost array is taken to be
+   * an empty ring, and a bare empty array as a MultiPolygon without polygons.
+   */
+  private static int nestingDepth(JsonReader reader) throws IOException {
+    JsonReader peek = reader.peekJson();
+    int depth = 0;
+    while (peek.peek() == JsonReader.Token.BEGIN_ARRAY) {
+      peek.beginArray();
+      depth++;
+      if (!peek.hasNext()) {
+        return depth == 1 ? MULTI_POLYGON_DEPTH : depth + 1;
+      }
+    }
+    return depth;
+  }
+
+  private static void readPolygon(JsonReader reader, PackedCoordinates.Builder builder)
+      throws IOException {
+    builder.startPolygon();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      builder.startRing();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        reader.beginArray();
+        double x = reader.nextDouble();
+        double y = reader.nextDouble();
+        // positions may carry an altitude, which the maps never use
+        while (reader.hasNext()) {
+          reader.skipValue();
+        }
+        reader.endArray();
+        builder.addVertex(x, y);
+      }
+      reader.endArray();
+    }
+    reader.endArray();
+  }
+
+  private static void writePolygon(JsonWriter writer, PackedCoordinates coordinates, int polygon)
+      throws IOException {
+    writer.beginArray();
+    for (int ring = coordinates.polygonStart(polygon); ring < coordinates.polygonEnd(polygon);
+        ring++) {
+      writer.beginArray();
+      for (int vertex = coordinates.ringStart(ring); vertex < coordinates.ringEnd(ring); vertex++) {
+        writer.beginArray();
+        writer.value(coordinates.x(vertex));
+        writer.value(coordinates.y(vertex));
+        writer.endArray();
+      }
+      writer.endArray();
+    }
+    writer.endArray();
+  }
+}
@@ -0,0 +1,81 @@
+package edu.brown.cs.student.main.maps.tiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates tiles on first request and keeps them, with a separate least-recently-used cache
+ * for every zoom level, so that panning around at one zoom can't push out the handful of
+ * low-zoom tiles every client needs. A cache belongs to one dataset version and is dropped with
+ * it, so tiles never outlive the data they were drawn from.
+ */
+public final class TileCache {
+  /**
+   * Deepest zoom level tiles are served for.
+   */
+  public static final int MAX_ZOOM = 22;
+
+  private static final int MAX_TILES_PER_ZOOM = 1024;
+
+  private final TileGenerator generator;
+  private final List<Map<Long, byte[]>> zooms;
+
+  /**
+   * @param generator builds the tiles that aren't cached yet
+   */
+  public TileCache(TileGenerator generator) {
+    this.generator = generator;
+    this.zooms = new ArrayList<>(MAX_ZOOM + 1);
+    for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+      this.zooms.add(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+          return this.size() > MAX_TILES_PER_ZOOM;
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns a tile, generating it if it isn't cached. Tiles are generated outside the cache's
+   * lock, so a slow tile never holds up requests for cached ones.
+   * @param zoom zoom level, from 0 to MAX_ZOOM
+   * @param x tile column, from 0 to 2^zoom - 1
+   * @param y tile row, from 0 to 2^zoom - 1
+   * @return the encoded tile
+   * @throws IllegalArgumentException if the tile doesn't exist
+   */
+  public byte[] get(int zoom, int x, int y) {
+    if (zoom < 0 || zoom > MAX_ZOOM || x < 0 || y < 0 || x >= 1 << zoom || y >= 1 << zoom) {
+      throw new IllegalArgumentException("there is no tile " + zoom + "/" + x + "/" + y);
+    }
+    Map<Long, byte[]> cache = this.zooms.get(zoom);
+    long key = ((long) x << 32) | y;
+    byte[] tile;
+    synchronized (cache) {
+      tile = cache.get(key);
+    }
+    if (tile == null) {
+      tile = this.generator.tile(zoom, x, y);
+      synchronized (cache) {
+        cache.putIfAbsent(key, tile);
+      }
+    }
+    return tile;
+  }
+
+  /**
+   * @return number of tiles currently cached across every zoom level
+   */
+  public int size() {
+    int size = 0;
+    for (Map<Long, byte[]> cache : this.zooms) {
+      synchronized (cache) {
+        size += cache.size();
+      }
+    }
+    return size;
+  }
+}
@@ -0,0 +1,79 @@
+package edu.brown.cs.student.main.maps.tiles;
+
+import java.util.Arrays;
+
+/**
+ * Clips polygon rings to a rectangle with the Sutherland-Hodgman algorithm, one rectangle edge
+ * at a time. The result of clipping a ring is again a single ring; where a concave polygon
+ * leaves the rectangle and comes back, the pieces are joined by runs along the rectangle's edge,
+ * which don't show when the polygon is filled.
+ */
+public final class TileClipper {
+  private TileClipper() {
+  }
+
+  /**
+   * Clips a ring to a rectangle.
+   * @param ring vertices as x0, y0, x1, y1, ..., without repeating the first vertex at the end
+   * @param minX left edge of the rectangle
+   * @param minY top edge of the rectangle
+   * @param maxX right edge of the rectangle
+   * @param maxY bottom edge of the rectangle
+   * @return the clipped ring in the same layout, empty if nothing of it is inside
+   */
+  public static double[] clip(double[] ring, double minX, double minY, double maxX, double maxY) {
+    double[] clipped = ring;
+    clipped = clipEdge(clipped, 0, minX, false);
+    clipped = clipEdge(clipped, 0, maxX, true);
+    clipped = clipEdge(clipped, 1, minY, false);
+    clipped = clipEdge(clipped, 1, maxY, true);
+    return clipped;
+  }
+
+  /**
+   * Keeps the part of a ring on one side of an axis-parallel line.
+   * @param ring the ring to clip
+   * @param axis 0 to clip against a vertical line x = limit, 1 for a horizontal line y = limit
+   * @param limit position of the line
+   * @param keepBelow whether the kept side is coordinates up to limit, rather than from limit
+   */
+  private static double[] clipEdge(double[] ring, int axis, double limit, boolean keepBelow) {
+    int vertices = ring.length / 2;
+    if (vertices == 0) {
+      return ring;
+    }
+    double[] out = new double[ring.length + 8];
+    int size = 0;
+    for (int i = 0; i < vertices; i++) {
+      int previous = (i + vertices - 1) % vertices;
+      double px = ring[2 * previous];
+      double py = ring[2 * previous + 1];
+      double cx = ring[2 * i];
+      double cy = ring[2 * i + 1];
+      double previousValue = axis == 0 ? px : py;
+      double currentValue = axis == 0 ? cx : cy;
+      boolean previousInside = inside(previousValue, limit, keepBelow);
+      boolean currentInside = inside(currentValue, limit, keepBelow);
+      if (currentInside != previousInside) {
+        double t = (limit - previousValue) / (currentValue - previousValue);
+        if (size + 2 > out.length) {
+          out = Arrays.copyOf(out, out.length * 2);
+        }
+        out[size++] = axis == 0 ? limit : px + t * (cx - px);
+        out[size++] = axis == 0 ? py + t * (cy - py) : limit;
+      }
+      if (currentInside) {
+        if (size + 2 > out.length) {
+          out = Arrays.copyOf(out, out.length * 2);
+        }
+        out[size++] = cx;
+        out[size++] = cy;
+      }
+    }
+    return Arrays.copyOf(out, size);
+  }
+
+  private static boolean inside(double value, double limit, boolean keepBelow) {
+    return keepBelow ? value <= limit : value >= limit;
+  }
+}
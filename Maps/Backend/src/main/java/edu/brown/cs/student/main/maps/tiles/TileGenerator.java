@@ -0,0 +1,166 @@
+package edu.brown.cs.student.main.maps.tiles;
+
+import edu.brown.cs.student.main.maps.data.LevelsOfDetail;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds vector tiles from a dataset version. A tile holds the features whose envelope overlaps
+ * it (found through the spatial index), taken from the level of detail for its zoom, projected
+ * to web mercator, clipped to the tile plus a small buffer so fills don't show seams, and
+ * quantized to a 4096 by 4096 grid. Quantizing also thins out geometry at low zoom: consecutive
+ * vertices that round to the same point are merged, and rings that collapse to less than a
+ * triangle are dropped.
+ */
+public final class TileGenerator {
+  /**
+   * Name of the tile layer holding the redlining features.
+   */
+  public static final String LAYER = "redlining";
+
+  /**
+   * Size of a tile in integer tile coordinates.
+   */
+  public static final int EXTENT = 4096;
+
+  private static final int BUFFER = 64;
+
+  private final LevelsOfDetail levelsOfDetail;
+  private final SpatialIndex index;
+
+  /**
+   * @param levelsOfDetail the features to draw, simplified for each zoom level
+   * @param index spatial index over the envelopes of the original features
+   */
+  public TileGenerator(LevelsOfDetail levelsOfDetail, SpatialIndex index) {
+    this.levelsOfDetail = levelsOfDetail;
+    this.index = index;
+  }
+
+  /**
+   * Builds one tile.
+   * @param zoom zoom level
+   * @param x tile column, from the west
+   * @param y tile row, from the north
+   * @return the encoded Mapbox Vector Tile (empty if no feature reaches the tile)
+   */
+  public byte[] tile(int zoom, int x, int y) {
+    double buffer = (double) BUFFER / EXTENT;
+    int[] ids = this.index.search(
+        WebMercator.longitude(x - buffer, zoom), WebMercator.latitude(y + 1 + buffer, zoom),
+        WebMercator.longitude(x + 1 + buffer, zoom), WebMercator.latitude(y - buffer, zoom));
+
+    List<Feature> features = this.levelsOfDetail.forZoom(zoom);
+    VectorTileEncoder encoder = new VectorTileEncoder(LAYER, EXTENT);
+    for (int id : ids) {
+      Feature feature = features.get(id);
+      List<int[]> rings = this.rings(feature.geometry.coordinates, zoom, x, y);
+      if (!rings.isEmpty()) {
+        encoder.addPolygon(id, properties(feature), rings);
+      }
+    }
+    return encoder.encode();
+  }
+
+  /**
+   * Projects, clips and quantizes every ring of a feature, keeping holes only when their outer
+   * ring survives.
+   */
+  private List<int[]> rings(PackedCoordinates coordinates, int zoom, int x, int y) {
+    List<int[]> rings = new ArrayList<>();
+    for (int polygon = 0; polygon < coordinates.polygonCount(); polygon++) {
+      for (int ring = coordinates.polygonStart(polygon); ring < coordinates.polygonEnd(polygon);
+          ring++) {
+        boolean outer = ring == coordinates.polygonStart(polygon);
+        int[] quantized = this.ring(coordinates, ring, zoom, x, y, outer);
+        if (quantized == null && outer) {
+          break;
+        }
+        if (quantized != null) {
+          rings.add(quantized);
+        }
+      }
+    }
+    return rings;
+  }
+
+  /**
+   * @return the ring in tile coordinates, oriented for its role, or null if nothing is left of it
+   */
+  private int[] ring(PackedCoordinates coordinates, int ring, int zoom, int x, int y,
+      boolean outer) {
+    int start = coordinates.ringStart(ring);
+    int end = coordinates.ringEnd(ring);
+    // GeoJSON rings repeat their first vertex at the end
+    if (end - start > 1 && coordinates.x(start) == coordinates.x(end - 1)
+        && coordinates.y(start) == coordinates.y(end - 1)) {
+      end--;
+    }
+    double[] projected = new double[2 * (end - start)];
+    for (int vertex = start; vertex < end; vertex++) {
+      projected[2 * (vertex - start)] = (WebMercator.tileX(coordinates.x(vertex), zoom) - x)
+          * EXTENT;
+      projected[2 * (vertex - start) + 1] = (WebMercator.tileY(coordinates.y(vertex), zoom) - y)
+          * EXTENT;
+    }
+    double[] clipped = TileClipper.clip(projected, -BUFFER, -BUFFER, EXTENT + BUFFER,
+        EXTENT + BUFFER);
+
+    int[] quantized = new int[clipped.length];
+    int size = 0;
+    for (int i = 0; i < clipped.length; i += 2) {
+      int qx = (int) Math.round(clipped[i]);
+      int qy = (int) Math.round(clipped[i + 1]);
+      if (size == 0 || qx != quantized[size - 2] || qy != quantized[size - 1]) {
+        quantized[size++] = qx;
+        quantized[size++] = qy;
+      }
+    }
+    while (size >= 4 && quantized[0] == quantized[size - 2]
+        && quantized[1] == quantized[size - 1]) {
+      size -= 2;
+    }
+    if (size < 6) {
+      return null;
+    }
+    long area = 0;
+    for (int i = 0; i < size; i += 2) {
+      int next = (i + 2) % size;
+      area += (long) quantized[i] * quantized[next + 1] - (long) quantized[next] * quantized[i + 1];
+    }
+    if (area == 0) {
+      return null;
+    }
+    int[] result = Arrays.copyOf(quantized, size);
+    if ((area > 0) != outer) {
+      reverse(result);
+    }
+    return result;
+  }
+
+  private static void reverse(int[] ring) {
+    for (int i = 0, j = ring.length - 2; i < j; i += 2, j -= 2) {
+      int x = ring[i];
+      int y = ring[i + 1];
+      ring[i] = ring[j];
+      ring[i + 1] = ring[j + 1];
+      ring[j] = x;
+      ring[j + 1] = y;
+    }
+  }
+
+  private static Map<String, String> properties(Feature feature) {
+    Map<String, String> properties = new LinkedHashMap<>();
+    if (feature.properties != null) {
+      properties.put("name", feature.properties.name);
+      properties.put("holc_grade", feature.properties.holc_grade);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,187 @@
+package edu.brown.cs.student.main.maps.tiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a single-layer Mapbox Vector Tile (the protobuf format mapbox-gl reads for "vector"
+ * sources) holding polygon features. The protobuf is written by hand, since a tile only needs a
+ * handful of message types: the tile holds one layer, the layer holds the features plus shared
+ * tables of property keys and values, and each feature holds its tags and geometry commands.
+ */
+public final class VectorTileEncoder {
+  private static final int VERSION = 2;
+  private static final int POLYGON = 3;
+  private static final int MOVE_TO = 1;
+  private static final int LINE_TO = 2;
+  private static final int CLOSE_PATH = 7;
+
+  private final String layerName;
+  private final int extent;
+  private final Map<String, Integer> keys = new LinkedHashMap<>();
+  private final Map<String, Integer> values = new LinkedHashMap<>();
+  private final ProtoWriter features = new ProtoWriter();
+  private int featureCount;
+
+  /**
+   * @param layerName name of the layer, which style layers refer to as their source-layer
+   * @param extent size of the tile in integer tile coordinates
+   */
+  public VectorTileEncoder(String layerName, int extent) {
+    this.layerName = layerName;
+    this.extent = extent;
+  }
+
+  /**
+   * Adds a polygon feature. Its rings must already be in tile coordinates and oriented as the
+   * format requires: every outer ring has a positive signed area (clockwise with y pointing
+   * down) and is directly followed by its holes, which have a negative area.
+   * @param id feature id
+   * @param properties string properties of the feature; null values are left out
+   * @param rings each ring as x0, y0, x1, y1, ..., without repeating the first vertex
+   */
+  public void addPolygon(long id, Map<String, String> properties, List<int[]> rings) {
+    ProtoWriter tags = new ProtoWriter();
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      if (property.getValue() != null) {
+        tags.varint(this.keys.computeIfAbsent(property.getKey(), key -> this.keys.size()));
+        tags.varint(this.values.computeIfAbsent(property.getValue(),
+            value -> this.values.size()));
+      }
+    }
+
+    ProtoWriter geometry = new ProtoWriter();
+    int cursorX = 0;
+    int cursorY = 0;
+    for (int[] ring : rings) {
+      int vertices = ring.length / 2;
+      geometry.varint(command(MOVE_TO, 1));
+      geometry.varint(zigZag(ring[0] - cursorX));
+      geometry.varint(zigZag(ring[1] - cursorY));
+      geometry.varint(command(LINE_TO, vertices - 1));
+      for (int vertex = 1; vertex < vertices; vertex++) {
+        geometry.varint(zigZag(ring[2 * vertex] - ring[2 * vertex - 2]));
+        geometry.varint(zigZag(ring[2 * vertex + 1] - ring[2 * vertex - 1]));
+      }
+      geometry.varint(command(CLOSE_PATH, 1));
+      cursorX = ring[2 * vertices - 2];
+      cursorY = ring[2 * vertices - 1];
+    }
+
+    ProtoWriter feature = new ProtoWriter();
+    feature.tag(1, 0).varint(id);
+    feature.tag(2, 2).message(tags);
+    feature.tag(3, 0).varint(POLYGON);
+    feature.tag(4, 2).message(geometry);
+    this.features.tag(2, 2).message(feature);
+    this.featureCount++;
+  }
+
+  /**
+   * @return number of features added so far
+   */
+  public int featureCount() {
+    return this.featureCount;
+  }
+
+  /**
+   * @return the encoded tile; a tile without features is empty (zero bytes), which is valid
+   */
+  public byte[] encode() {
+    if (this.featureCount == 0) {
+      return new byte[0];
+    }
+    ProtoWriter layer = new ProtoWriter();
+    layer.tag(15, 0).varint(VERSION);
+    layer.tag(1, 2).string(this.layerName);
+    layer.bytes(this.features);
+    for (String key : this.keys.keySet()) {
+      layer.tag(3, 2).string(key);
+    }
+    for (String value : this.values.keySet()) {
+      ProtoWriter stringValue = new ProtoWriter();
+      stringValue.tag(1, 2).string(value);
+      layer.tag(4, 2).message(stringValue);
+    }
+    layer.tag(5, 0).varint(this.extent);
+
+    ProtoWriter tile = new ProtoWriter();
+    tile.tag(3, 2).message(layer);
+    return tile.toByteArray();
+  }
+
+  private static int command(int id, int count) {
+    return (id & 0x7) | (count << 3);
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * A growable buffer with just the protobuf encodings tiles use.
+   */
+  private static final class ProtoWriter {
+    private byte[] buffer = new byte[64];
+    private int size;
+
+    ProtoWriter tag(int field, int wireType) {
+      return this.varint((field << 3) | wireType);
+    }
+
+    ProtoWriter varint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        this.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      this.write((int) value);
+      return this;
+    }
+
+    ProtoWriter string(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      this.varint(utf8.length);
+      for (byte b : utf8) {
+        this.write(b);
+      }
+      return this;
+    }
+
+    /**
+     * Writes another buffer as a length-delimited field value.
+     */
+    ProtoWriter message(ProtoWriter message) {
+      this.varint(message.size);
+      return this.bytes(message);
+    }
+
+    /**
+     * Appends another buffer's bytes as they are.
+     */
+    ProtoWriter bytes(ProtoWriter other) {
+      this.ensure(other.size);
+      System.arraycopy(other.buffer, 0, this.buffer, this.size, other.size);
+      this.size += other.size;
+      return this;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    private void write(int b) {
+      this.ensure(1);
+      this.buffer[this.size++] = (byte) b;
+    }
+
+    private void ensure(int extra) {
+      if (this.size + extra > this.buffer.length) {
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2,
+            this.size + extra));
+      }
+    }
+  }
+}
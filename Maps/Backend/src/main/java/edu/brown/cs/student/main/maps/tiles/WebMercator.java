@@ -0,0 +1,54 @@
+package edu.brown.cs.student.main.maps.tiles;
+
+/**
+ * Conversions between longitude/latitude and the web-mercator tile grid used by slippy maps: at
+ * zoom z the world is 2^z by 2^z tiles, numbered from the north-west corner.
+ */
+public final class WebMercator {
+  /**
+   * Latitudes beyond this are cut off by the projection, which makes the world square.
+   */
+  public static final double MAX_LATITUDE = 85.05112877980659;
+
+  private WebMercator() {
+  }
+
+  /**
+   * @param longitude longitude in degrees
+   * @param zoom zoom level
+   * @return horizontal position in tiles, from the west edge of the world
+   */
+  public static double tileX(double longitude, int zoom) {
+    return (longitude + 180) / 360 * (1 << zoom);
+  }
+
+  /**
+   * @param latitude latitude in degrees (clamped to the projection's limits)
+   * @param zoom zoom level
+   * @return vertical position in tiles, from the north edge of the world
+   */
+  public static double tileY(double latitude, int zoom) {
+    double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE,
+        latitude))));
+    return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * (1 << zoom);
+  }
+
+  /**
+   * @param tileX horizontal position in tiles
+   * @param zoom zoom level
+   * @return longitude in degrees
+   */
+  public static double longitude(double tileX, int zoom) {
+    return tileX / (1 << zoom) * 360 - 180;
+  }
+
+  /**
+   * @param tileY vertical position in tiles
+   * @param zoom zoom level
+   * @return latitude in degrees
+   */
+  public static double latitude(double tileY, int zoom) {
+    double y = Math.PI * (1 - 2 * tileY / (1 << zoom));
+    return Math.toDegrees(Math.atan(Math.sinh(y)));
+  }
+}
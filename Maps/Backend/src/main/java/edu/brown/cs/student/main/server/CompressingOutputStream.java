@@ -0,0 +1,131 @@
+package edu.brown.cs.student.main.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output stream that compresses what is written to it once there is enough of it to be
+ * worth compressing. The first threshold bytes are held back; if the stream is closed before
+ * that many arrive they are sent as they are, and otherwise the encoding is announced and
+ * everything from then on goes through a gzip or deflate (zlib) compressor as it is written.
+ * Nothing beyond those first bytes is ever buffered, so large bodies are compressed while they
+ * are still being produced.
+ */
+public final class CompressingOutputStream extends OutputStream {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final OutputStream out;
+  private final String encoding;
+  private final int level;
+  private final Runnable announce;
+  private byte[] pending;
+  private int pendingCount;
+  private DeflaterOutputStream compressor;
+  private boolean closed;
+
+  /**
+   * @param out the stream to write the (possibly compressed) bytes to
+   * @param encoding "gzip" or "deflate"
+   * @param level compression level, from 1 (fastest) to 9 (smallest)
+   * @param threshold how many bytes a body needs before it is compressed
+   * @param announce called once, just before the first compressed byte is written, to set the
+   *     Content-Encoding of the response
+   */
+  public CompressingOutputStream(OutputStream out, String encoding, int level, int threshold,
+      Runnable announce) {
+    if (!encoding.equals("gzip") && !encoding.equals("deflate")) {
+      throw new IllegalArgumentException("unsupported encoding " + encoding);
+    }
+    this.out = out;
+    this.encoding = encoding;
+    this.level = level;
+    this.announce = announce;
+    this.pending = new byte[Math.max(0, threshold)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    this.write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (this.closed) {
+      throw new IOException("stream closed");
+    }
+    if (this.compressor == null && this.pendingCount + len < this.pending.length) {
+      System.arraycopy(b, off, this.pending, this.pendingCount, len);
+      this.pendingCount += len;
+      return;
+    }
+    if (this.compressor == null) {
+      this.startCompressing();
+    }
+    this.compressor.write(b, off, len);
+  }
+
+  /**
+   * Passes bytes that are already compressed on to the client. Bytes still held back below the
+   * threshold stay held back, since sending them would decide against compression.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (this.compressor != null) {
+      this.compressor.flush();
+    }
+  }
+
+  /**
+   * Sends what is left, finishing the compressed stream if there is one, and closes the
+   * underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    if (this.compressor != null) {
+      this.compressor.close();
+    } else {
+      this.out.write(this.pending, 0, this.pendingCount);
+      this.out.close();
+    }
+  }
+
+  /**
+   * @return whether the body turned out big enough to be compressed
+   */
+  public boolean isCompressing() {
+    return this.compressor != null;
+  }
+
+  private void startCompressing() throws IOException {
+    this.announce.run();
+    if (this.encoding.equals("gzip")) {
+      int gzipLevel = this.level;
+      this.compressor = new GZIPOutputStream(this.out, BUFFER_SIZE) {
+        {
+          this.def.setLevel(gzipLevel);
+        }
+      };
+    } else {
+      Deflater deflater = new Deflater(this.level);
+      this.compressor = new DeflaterOutputStream(this.out, deflater, BUFFER_SIZE) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            deflater.end();
+          }
+        }
+      };
+    }
+    this.compressor.write(this.pending, 0, this.pendingCount);
+    this.pending = null;
+  }
+}
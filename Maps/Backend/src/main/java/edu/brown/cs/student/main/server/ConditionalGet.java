@@ -0,0 +1,89 @@
+package edu.brown.cs.student.main.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletResponse;
+import spark.Request;
+import spark.Route;
+
+/**
+ * Answers conditional GETs for routes whose response only depends on the query parameters and on
+ * a version of the data behind them. The ETag is a hash of the version and the query with its
+ * parameters sorted, so it is computed before the route runs, and a request whose If-None-Match
+ * names it gets 304 Not Modified without the route filtering or serializing anything. The ETag
+ * is weak because the same content may be sent compressed or not. Every answer also carries a
+ * Cache-Control header, so browsers and CDNs know how long they may reuse it.
+ */
+public final class ConditionalGet {
+  private final Supplier<String> version;
+  private final String cacheControl;
+
+  /**
+   * @param version supplies the current version of the data the responses are computed from;
+   *     it must change whenever the data does, and never repeat
+   * @param cacheControl the Cache-Control header to send
+   */
+  public ConditionalGet(Supplier<String> version, String cacheControl) {
+    this.version = version;
+    this.cacheControl = cacheControl;
+  }
+
+  /**
+   * Wraps a route so that it is only run when the client doesn't already have its response.
+   * @param route the route to wrap
+   * @return a route that answers repeat requests with 304 Not Modified
+   */
+  public Route wrap(Route route) {
+    return (request, response) -> {
+      String etag = etag(this.version.get(), request.raw().getParameterMap());
+      response.header("ETag", etag);
+      response.header("Cache-Control", this.cacheControl);
+      if (RenderedResponse.matches(request.headers("If-None-Match"), etag)) {
+        response.status(HttpServletResponse.SC_NOT_MODIFIED);
+        return "";
+      }
+      return route.handle(request, response);
+    };
+  }
+
+  /**
+   * Computes the ETag of a response. Parameters are sorted by name, so their order in the URL
+   * doesn't matter, while the values of a repeated parameter keep their order.
+   * @param version the version of the data
+   * @param parameters the query parameters
+   * @return a weak ETag, quotes included
+   */
+  public static String etag(String version, Map<String, String[]> parameters) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("every Java platform has SHA-256", e);
+    }
+    // lengths go before every string, so no two queries can hash the same bytes
+    update(digest, version);
+    for (Map.Entry<String, String[]> parameter : new TreeMap<>(parameters).entrySet()) {
+      update(digest, parameter.getKey());
+      update(digest, parameter.getValue().length);
+      for (String value : parameter.getValue()) {
+        update(digest, value);
+      }
+    }
+    return "W/\"" + RenderedResponse.hex(digest.digest()) + "\"";
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    update(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void update(MessageDigest digest, int length) {
+    digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16),
+        (byte) (length >>> 8), (byte) length});
+  }
+}
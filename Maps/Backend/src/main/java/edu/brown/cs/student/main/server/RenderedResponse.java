@@ -0,0 +1,300 @@
+package edu.brown.cs.student.main.server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import spark.Request;
+import spark.Response;
+
+/**
+ * A response body that is rendered once into a file, next to a copy gzipped at the highest
+ * level, and then sent as often as it is asked for without being rendered, serialized or
+ * compressed again: the file is handed to the client with FileChannel.transferTo. Each copy has
+ * a strong ETag taken from a hash of its bytes, so a client that already holds it gets
+ * 304 Not Modified instead. The files stay open for as long as the response is in use; delete()
+ * removes them from the disk once nothing new will be sent from them, and the files are closed
+ * as soon as the sends that already started have finished.
+ */
+public final class RenderedResponse {
+  private final Path identity;
+  private final Path gzip;
+  private final FileChannel identityChannel;
+  private final FileChannel gzipChannel;
+  private final String identityTag;
+  private final String gzipTag;
+  private final long identitySize;
+  private final long gzipSize;
+  // sends in progress, plus one for the response itself until it is deleted
+  private final AtomicInteger users = new AtomicInteger(1);
+  private final AtomicBoolean deleted = new AtomicBoolean();
+
+  private RenderedResponse(Path identity, Path gzip, String hash) throws IOException {
+    this.identity = identity;
+    this.gzip = gzip;
+    this.identityChannel = FileChannel.open(identity, StandardOpenOption.READ);
+    this.gzipChannel = FileChannel.open(gzip, StandardOpenOption.READ);
+    this.identityTag = "\"" + hash + "\"";
+    this.gzipTag = "\"" + hash + "-gzip\"";
+    this.identitySize = this.identityChannel.size();
+    this.gzipSize = this.gzipChannel.size();
+  }
+
+  /**
+   * Writes a body out once.
+   */
+  @FunctionalInterface
+  public interface Renderer {
+    /**
+     * @param out where to write the body; it must not be closed
+     * @throws IOException if the body can't be written
+     */
+    void render(OutputStream out) throws IOException;
+  }
+
+  /**
+   * Renders a body into two new files in a directory, one plain and one gzipped. The files are
+   * removed by delete(), so whoever renders a response must delete it once it is replaced.
+   * @param directory where to put the files
+   * @param renderer writes the body
+   * @return the rendered response
+   * @throws IOException if the files can't be written
+   */
+  public static RenderedResponse render(Path directory, Renderer renderer) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("every Java platform has SHA-256", e);
+    }
+    Path identity = Files.createTempFile(directory, "response-", ".body");
+    Path gzip = Files.createTempFile(directory, "response-", ".body.gz");
+    try {
+      try (OutputStream out = new DigestOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(identity)), digest)) {
+        renderer.render(out);
+      }
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip), 8192) {
+        {
+          this.def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+      }) {
+        Files.copy(identity, out);
+      }
+      return new RenderedResponse(identity, gzip, hex(digest.digest()));
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(identity);
+      Files.deleteIfExists(gzip);
+      throw e;
+    }
+  }
+
+  /**
+   * Sends the body, gzipped if the client accepts gzip, or just the status 304 and the ETag if
+   * the client's If-None-Match already names it. Any other client gets the plain copy, since a
+   * body compressed as it is sent would need an ETag of its own and can't announce its length.
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to write to
+   * @param contentType the content type of the body
+   * @return the (empty) body for Spark to send after what was already written, or null if the
+   *     response was deleted and its files closed before it could be sent, when nothing was
+   *     written and the caller has to answer some other way
+   * @throws IOException if writing to the client fails
+   */
+  public Object send(Request request, Response response, String contentType)
+      throws IOException {
+    if (!this.retain()) {
+      return null;
+    }
+    try {
+      boolean gzipped = "gzip".equals(ResponseCompression.encoding(request));
+      String tag = gzipped ? this.gzipTag : this.identityTag;
+      response.raw().setHeader("ETag", tag);
+      if (matches(request.headers("If-None-Match"), tag)) {
+        response.status(HttpServletResponse.SC_NOT_MODIFIED);
+        return "";
+      }
+      response.type(contentType);
+      HttpServletResponse raw = response.raw();
+      if (gzipped) {
+        raw.setHeader("Content-Encoding", "gzip");
+      }
+      raw.setContentLengthLong(gzipped ? this.gzipSize : this.identitySize);
+      try (OutputStream out = raw.getOutputStream()) {
+        this.transferTo(gzipped ? this.gzipChannel : this.identityChannel,
+            Channels.newChannel(out));
+      }
+      return "";
+    } finally {
+      this.release();
+    }
+  }
+
+  /**
+   * Copies the plain body to a channel.
+   * @param target where to copy it
+   * @throws IOException if the copy fails, or ClosedChannelException if the response was
+   *     deleted and its files closed
+   */
+  public void transferTo(WritableByteChannel target) throws IOException {
+    this.transferHeld(this.identityChannel, target);
+  }
+
+  /**
+   * Copies the gzipped body to a channel.
+   * @param target where to copy it
+   * @throws IOException if the copy fails, or ClosedChannelException if the response was
+   *     deleted and its files closed
+   */
+  public void transferGzipTo(WritableByteChannel target) throws IOException {
+    this.transferHeld(this.gzipChannel, target);
+  }
+
+  /**
+   * @return the ETag of the plain body, quotes included
+   */
+  public String etag() {
+    return this.identityTag;
+  }
+
+  /**
+   * @return the ETag of the gzipped body, quotes included
+   */
+  public String gzipEtag() {
+    return this.gzipTag;
+  }
+
+  /**
+   * @return size of the plain body in bytes
+   */
+  public long size() {
+    return this.identitySize;
+  }
+
+  /**
+   * @return size of the gzipped body in bytes
+   */
+  public long gzipSize() {
+    return this.gzipSize;
+  }
+
+  /**
+   * Removes the files from the disk. Sends that already started keep reading from the open
+   * channels, which are closed by the last of them to finish, or right away if none is in
+   * progress; later sends are refused. Deleting again does nothing.
+   * @throws IOException if a file can't be deleted or closed
+   */
+  public void delete() throws IOException {
+    if (!this.deleted.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(this.identity);
+      Files.deleteIfExists(this.gzip);
+    } finally {
+      this.release();
+    }
+  }
+
+  /**
+   * Holds the files open for a send, unless they were already closed.
+   * @return whether the files may be read until release() is called
+   */
+  boolean retain() {
+    while (true) {
+      int users = this.users.get();
+      if (users == 0) {
+        return false;
+      }
+      if (this.users.compareAndSet(users, users + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Lets go of the files, closing them if this was the last use of a deleted response.
+   * @throws IOException if a file can't be closed
+   */
+  void release() throws IOException {
+    if (this.users.decrementAndGet() == 0) {
+      try {
+        this.identityChannel.close();
+      } finally {
+        this.gzipChannel.close();
+      }
+    }
+  }
+
+  /**
+   * Checks an If-None-Match header against an ETag. As HTTP asks for If-None-Match, the
+   * comparison is weak, so a "W/" prefix is ignored on either side; "*" matches any ETag.
+   * @param ifNoneMatch the header's value (may be null)
+   * @param etag the current ETag, quotes included
+   * @return whether the client already holds the body with that ETag
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes the first 128 bits of a hash in hex, which is plenty to tell versions of one body
+   * apart.
+   * @param digest a hash of at least 16 bytes
+   * @return 32 hex digits
+   */
+  static String hex(byte[] digest) {
+    StringBuilder hex = new StringBuilder(32);
+    for (int i = 0; i < 16; i++) {
+      hex.append(Character.forDigit((digest[i] >> 4) & 0xf, 16))
+          .append(Character.forDigit(digest[i] & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private void transferHeld(FileChannel channel, WritableByteChannel target) throws IOException {
+    if (!this.retain()) {
+      throw new ClosedChannelException();
+    }
+    try {
+      this.transferTo(channel, target);
+    } finally {
+      this.release();
+    }
+  }
+
+  private void transferTo(FileChannel channel, WritableByteChannel target) throws IOException {
+    long size = channel.size();
+    long position = 0;
+    while (position < size) {
+      position += channel.transferTo(position, size - position, target);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package edu.brown.cs.student.main.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import javax.servlet.http.HttpServletResponse;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * Compresses responses with gzip or deflate when the client's Accept-Encoding allows it and the
+ * body is at least a threshold size. Every route is wrapped with wrap(): a route that returns a
+ * String or byte[] has it written through a CompressingOutputStream, and a route that streams
+ * its own response gets the same stream from outputStream(). Compression happens while the body
+ * is written, so it is never held in memory a second time. The level (1 fastest to 9 smallest,
+ * 0 turns compression off) and threshold come from the compression.level and
+ * compression.threshold system properties.
+ */
+public final class ResponseCompression {
+  /**
+   * Default compression level: zlib's usual balance between speed and size.
+   */
+  public static final int DEFAULT_LEVEL = 6;
+
+  /**
+   * Default smallest body that is compressed, in bytes; below this the headers and framing
+   * cost more than compression saves.
+   */
+  public static final int DEFAULT_THRESHOLD = 1024;
+
+  private static final String ATTRIBUTE = ResponseCompression.class.getName();
+
+  private final int level;
+  private final int threshold;
+
+  /**
+   * @param level compression level from 1 to 9, or 0 to never compress
+   * @param threshold smallest body that is compressed, in bytes
+   */
+  public ResponseCompression(int level, int threshold) {
+    if (level < 0 || level > 9) {
+      throw new IllegalArgumentException("compression level must be between 0 and 9");
+    }
+    this.level = level;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @return compression configured by the compression.level and compression.threshold system
+   *     properties
+   */
+  public static ResponseCompression fromSystemProperties() {
+    return new ResponseCompression(
+        Integer.getInteger("compression.level", DEFAULT_LEVEL),
+        Integer.getInteger("compression.threshold", DEFAULT_THRESHOLD));
+  }
+
+  /**
+   * Wraps a route so that its response is compressed when the client accepts it.
+   * @param route the route to wrap
+   * @return a route with the same behaviour and a possibly compressed body
+   */
+  public Route wrap(Route route) {
+    return (request, response) -> {
+      request.attribute(ATTRIBUTE, this);
+      response.header("Vary", "Accept-Encoding");
+      Object body = route.handle(request, response);
+      // a 304 has no body to compress
+      if (!(body instanceof String || body instanceof byte[]) || response.raw().isCommitted()
+          || response.status() == HttpServletResponse.SC_NOT_MODIFIED
+          || this.encodingFor(request) == null) {
+        return body;
+      }
+      if (response.raw().getContentType() == null) {
+        // what Spark would have set had it written the body itself
+        response.type("text/html; charset=utf-8");
+      }
+      try (OutputStream out = outputStream(request, response)) {
+        if (body instanceof byte[]) {
+          out.write((byte[]) body);
+        } else {
+          Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+          writer.write((String) body);
+          writer.flush();
+        }
+      }
+      return "";
+    };
+  }
+
+  /**
+   * The stream a route should write its own response to: compressing if the route was wrapped
+   * and the client accepts it, the plain servlet output stream otherwise. The caller must close
+   * it once the whole body is written.
+   * @param request the incoming HTTP request
+   * @param response the HTTP response to write to
+   * @return the stream for the response body
+   * @throws IOException if the servlet output stream can't be opened
+   */
+  public static OutputStream outputStream(Request request, Response response)
+      throws IOException {
+    HttpServletResponse raw = response.raw();
+    String encoding = encoding(request);
+    if (encoding == null) {
+      return raw.getOutputStream();
+    }
+    ResponseCompression compression = request.attribute(ATTRIBUTE);
+    return new CompressingOutputStream(raw.getOutputStream(), encoding, compression.level,
+        compression.threshold, () -> raw.setHeader("Content-Encoding", encoding));
+  }
+
+  /**
+   * The encoding outputStream() would compress with, for a route that sends a body it already
+   * has in some encoding.
+   * @param request the incoming HTTP request
+   * @return "gzip", "deflate", or null if the route wasn't wrapped or the client accepts neither
+   */
+  public static String encoding(Request request) {
+    ResponseCompression compression = request.attribute(ATTRIBUTE);
+    return compression == null ? null : compression.encodingFor(request);
+  }
+
+  private String encodingFor(Request request) {
+    return this.level == 0 ? null : negotiate(request.headers("Accept-Encoding"));
+  }
+
+  /**
+   * Picks the encoding to use from an Accept-Encoding header, preferring gzip to deflate.
+   * Codings with q=0 are refused, and "*" stands for any coding not otherwise listed.
+   * @param acceptEncoding the header's value (may be null)
+   * @return "gzip", "deflate", or null to send the body uncompressed
+   */
+  public static String negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    double gzip = -1;
+    double deflate = -1;
+    double any = -1;
+    for (String part : acceptEncoding.split(",")) {
+      String[] params = part.split(";");
+      String coding = params[0].trim().toLowerCase(Locale.ROOT);
+      double quality = 1;
+      for (int i = 1; i < params.length; i++) {
+        String param = params[i].trim();
+        if (param.startsWith("q=")) {
+          try {
+            quality = Double.parseDouble(param.substring(2));
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        gzip = quality;
+      } else if (coding.equals("deflate")) {
+        deflate = quality;
+      } else if (coding.equals("*")) {
+        any = quality;
+      }
+    }
+    gzip = gzip < 0 ? any : gzip;
+    deflate = deflate < 0 ? any : deflate;
+    if (gzip > 0 && gzip >= deflate) {
+      return "gzip";
+    }
+    return deflate > 0 ? "deflate" : null;
+  }
+}
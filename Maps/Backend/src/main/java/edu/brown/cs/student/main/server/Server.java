@@ -1,9 +1,23 @@
 package edu.brown.cs.student.main.server;
 
-import static spark.Spark.after;
+import static spark.Spark.before;
 
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.DatasetReloader;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.data.SearchHistory;
 import edu.brown.cs.student.main.maps.handlers.MapsAreaKeyWordHandler;
 import edu.brown.cs.student.main.maps.handlers.MapsBoundingHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsContainsHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsDatasetHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsFacetsHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsNearestHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsQueryHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsSearchHistoryHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsTileHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsWithinHandler;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
 import edu.brown.cs.student.main.data.census.ACSSource;
 import edu.brown.cs.student.main.exceptions.DatasourceException;
 import edu.brown.cs.student.main.data.csv.proxy.CsvData;
@@ -14,6 +28,7 @@ import edu.brown.cs.student.main.server.handler.csv.ViewHandler;
 import spark.Spark;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  *The Server class handles the logic of using different endpoints to produced desired results,
@@ -30,9 +45,22 @@ public class Server {
    * a port that is passed into Spark. Then, an instane of CsvData is created to be passed
    * between the handlers. Each handler is instantiated alongside its necessary endpoint.
    * All the csv handlers use the sharedState as an argument, while BroadbandHandler specifically
-   * uses an ACSSource instance for later API functionality.
+   * uses an ACSSource instance for later API functionality. The redlining dataset is loaded
+   * once into a MapsDataset that the maps handlers share through a DatasetHolder; its location is
+   * the first program argument, or the maps.data system property, or FeatureStore.DEFAULT_PATH.
+   * It may be GeoJSON or a snapshot made by SnapshotCompiler. The maps.index property picks the
+   * spatial index used for bounding box queries (rtree, grid or geohash; rtree by default), and
+   * maps.format the default response format of the maps handlers (legacy or stream). Every
+   * route's response is compressed when the client accepts gzip or deflate, as configured by
+   * the compression.level and compression.threshold properties (see ResponseCompression).
+   * Routes computed only from the dataset or the loaded csv send ETags and answer repeat
+   * requests with 304 Not Modified (see ConditionalGet); maps responses may be cached for
+   * cache.maxAge seconds (60 by default), while /view is revalidated on every use. mapsKeyWord
+   * is left out, since its responses name an entry of the search history, which changes.
+   * Unless maps.reload is false, the file is watched and a changed dataset is swapped in without
+   * restarting.
    *
-   * @param args
+   * @param args optional path to the redlining GeoJSON file
    * @throws DatasourceException
    * @throws IOException
    */
@@ -40,21 +68,53 @@ public class Server {
     int port = 1234;
     Spark.port(port);
 
-    //Acess is given to all to avoid issues with accessing the server.
-    after((request, response) -> {
+    //Acess is given to all to avoid issues with accessing the server. The headers are set before
+    //the route runs, since a streamed response may already be sent when the route returns.
+    before((request, response) -> {
       response.header("Access-Control-Allow-Origin", "*");
       response.header("Access-Control-Allow-Methods", "*");
     });
 
+    ResponseCompression compression = ResponseCompression.fromSystemProperties();
     CsvData sharedState = new CsvData();
+    Path mapsData = Path.of(args.length > 0 ? args[0]
+        : System.getProperty("maps.data", FeatureStore.DEFAULT_PATH));
+    SpatialIndex.Kind mapsIndex =
+        SpatialIndex.Kind.parse(System.getProperty("maps.index", "rtree"));
+    DatasetHolder datasets = new DatasetHolder(MapsDataset.load(mapsData, 1, mapsIndex));
+    if (Boolean.parseBoolean(System.getProperty("maps.reload", "true"))) {
+      new DatasetReloader(mapsData, datasets).start();
+    }
+    ConditionalGet mapsCaching = new ConditionalGet(() -> datasets.current().getVersionId(),
+        "public, max-age=" + Integer.getInteger("cache.maxAge", 60));
+    ConditionalGet csvCaching = new ConditionalGet(sharedState::getVersion, "no-cache");
 
 
-    Spark.get("/load", new LoadHandler(sharedState));
-    Spark.get("/view", new ViewHandler(sharedState));
-    Spark.get("/search", new SearchHandler(sharedState));
-    Spark.get("/broadband", new BroadbandHandler(new ACSSource()));
-    Spark.get("mapsKeyWord", new MapsAreaKeyWordHandler());
-    Spark.get("/mapsBoundingBox", new MapsBoundingHandler());
+    Spark.get("/load", compression.wrap(new LoadHandler(sharedState)));
+    Spark.get("/view", compression.wrap(csvCaching.wrap(new ViewHandler(sharedState))));
+    Spark.get("/search", compression.wrap(new SearchHandler(sharedState)));
+    Spark.get("/broadband", compression.wrap(new BroadbandHandler(new ACSSource())));
+    SearchHistory searchHistory = new SearchHistory();
+    // not conditional: every search is recorded, and its search_id is only valid while it's kept
+    Spark.get("mapsKeyWord", compression.wrap(
+        new MapsAreaKeyWordHandler(datasets, searchHistory)));
+    Spark.get("/mapsSearchHistory", compression.wrap(
+        new MapsSearchHistoryHandler(datasets, searchHistory)));
+    Spark.get("/mapsBoundingBox", compression.wrap(
+        mapsCaching.wrap(new MapsBoundingHandler(datasets))));
+    Spark.get("/mapsContains", compression.wrap(
+        mapsCaching.wrap(new MapsContainsHandler(datasets))));
+    Spark.get("/mapsNearest", compression.wrap(
+        mapsCaching.wrap(new MapsNearestHandler(datasets))));
+    Spark.get("/mapsWithin", compression.wrap(
+        mapsCaching.wrap(new MapsWithinHandler(datasets))));
+    Spark.get("/mapsQuery", compression.wrap(
+        mapsCaching.wrap(new MapsQueryHandler(datasets))));
+    Spark.get("/mapsFacets", compression.wrap(
+        mapsCaching.wrap(new MapsFacetsHandler(datasets))));
+    Spark.get("/mapsDataset", compression.wrap(new MapsDatasetHandler(datasets)));
+    Spark.get("/tiles/:z/:x/:y", compression.wrap(
+        mapsCaching.wrap(new MapsTileHandler(datasets))));
 
 
     Spark.init();
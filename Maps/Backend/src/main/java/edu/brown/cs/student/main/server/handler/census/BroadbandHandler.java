@@ -1,13 +1,9 @@
 package edu.brown.cs.student.main.server.handler.census;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import edu.brown.cs.student.main.data.census.BroadbandData;
 import edu.brown.cs.student.main.data.census.CensusDataSource;
 import edu.brown.cs.student.main.data.census.CensusLocation;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
@@ -19,6 +15,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import edu.brown.cs.student.main.exceptions.DatasourceException;
+import edu.brown.cs.student.main.json.JsonCodecs;
 import okio.Buffer;
 import spark.Request;
 import spark.Response;
@@ -65,10 +62,7 @@ public class BroadbandHandler implements Route {
   public Map<String, String> obtainStateCodes() throws IOException, DatasourceException {
       URL requestUrl = new URL("https://api.census.gov/data/2010/dec/sf1?get=NAME&for=state:*");
       HttpURLConnection clientConnection = connect(requestUrl);
-      Moshi moshi = new Moshi.Builder().build();
-      Type listListStringObject = Types.newParameterizedType(List.class, List.class, String.class);
-      JsonAdapter<List<List<String>>> adapter = moshi.adapter(listListStringObject);
-      List<List<String>> stateCodesList = adapter.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
+      List<List<String>> stateCodesList = JsonCodecs.ROWS.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
       clientConnection.disconnect();
       Map<String, String> stateCodesMap = new HashMap<>();
       for (List<String> state : stateCodesList) {
@@ -94,10 +88,7 @@ public class BroadbandHandler implements Route {
   public String obtainCountyCode(String stateCode, String countyName) throws IOException, DatasourceException {
     URL requestUrl = new URL("https://api.census.gov/data/2010/dec/sf1?get=NAME&for=county:*&in=state:" + stateCode);
     HttpURLConnection clientConnection = connect(requestUrl);
-    Moshi moshi = new Moshi.Builder().build();
-    Type listListStringObject = Types.newParameterizedType(List.class, List.class, String.class);
-    JsonAdapter<List<List<String>>> adapter = moshi.adapter(listListStringObject);
-    List<List<String>> countyCodesList = adapter.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
+    List<List<String>> countyCodesList = JsonCodecs.ROWS.fromJson(new Buffer().readFrom(clientConnection.getInputStream()));
     clientConnection.disconnect();
     String countyCode = null;
     for (List<String> county : countyCodesList) {
@@ -112,8 +103,8 @@ public class BroadbandHandler implements Route {
    * As a class implementing Route, handle is used to obtain the broadband-specific
    * query parameters (the state and county names to receive data for), passing the result
    * to a different state class. Handle first documents the current date and time, which will be
-   * used in part with the hashmap of handler results. a Moshi instance builds and adapts to
-   * take on a Map<String,Object> format, since this is what the response will use. For a
+   * used in part with the hashmap of handler results. the shared response adapter
+   * (see JsonCodecs) writes a Map<String,Object>, since this is what the response will use. For a
    * successful query, the handler will convert the state names to codes, passing those
    * to a CensusLocation record, which is then passed to the state (API interaction) class.
    * For an unsuccessful one, (such as when the state, or code, or both were not included
@@ -133,9 +124,6 @@ public class BroadbandHandler implements Route {
     String strDate = dateFormat.format(retrieved);
 
     Map<String, Object> responseMap = new HashMap<>();
-    Moshi moshi = new Moshi.Builder().build();
-    Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-    JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
 
     responseMap.put("retrieved", strDate);
     try{
@@ -148,7 +136,7 @@ public class BroadbandHandler implements Route {
       responseMap.put("data", countyData.data());
 
 
-      return adapter.toJson(responseMap);
+      return JsonCodecs.toJson(responseMap);
 
       } catch(Exception e){
         responseMap.put("type", "error");
@@ -160,7 +148,7 @@ public class BroadbandHandler implements Route {
           responseMap.put("details", e.getMessage());
         }
 
-      return adapter.toJson(responseMap);
+      return JsonCodecs.toJson(responseMap);
       }
   }
 
@@ -1,13 +1,10 @@
 package edu.brown.cs.student.main.server.handler.csv;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import edu.brown.cs.student.main.csv.parser.Parser;
 import edu.brown.cs.student.main.csv.parser.RowToList;
 import edu.brown.cs.student.main.data.csv.proxy.CsvData;
+import edu.brown.cs.student.main.json.JsonCodecs;
 import java.io.FileReader;
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,8 +29,8 @@ public class LoadHandler implements Route {
 
   /**
    * As a class implementing Route, handle is used to load the parsed contents of the given
-   * query parameter (a file path), into the sharedData's csv container. a Moshi instance builds and
-   * adapts to take on a Map<String,Object> format, since this is what the loaded map response will
+   * query parameter (a file path), into the sharedData's csv container. the shared response adapter
+   * (see JsonCodecs) writes a Map<String,Object>, since this is what the loaded map response will
    * use. For a successful query, a Parser will be instantiated, and the handler will
    * pass the parsed data into the sharedData's container. For an unsuccessful one,
    * (such as when an invalid file path is given) an informative message will be
@@ -48,10 +45,7 @@ public class LoadHandler implements Route {
   public Object handle(Request request, Response response){
     String filePath = request.queryParams("filePath");
 
-    Moshi moshi = new Moshi.Builder().build();
-    Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-    JsonAdapter<Map<String, String>> adapter = moshi.adapter(mapStringObject);
-    Map<String, String> loadMap = new HashMap<>();
+    Map<String, Object> loadMap = new HashMap<>();
 
     try {
 
@@ -59,7 +53,7 @@ public class LoadHandler implements Route {
       this.sharedData.loadProxyData(parser.parse());
       loadMap.put("type", "success");
       loadMap.put("data", filePath);
-      return adapter.toJson(loadMap);
+      return JsonCodecs.toJson(loadMap);
 
     } catch(Exception e){
       loadMap.put("type", "error");
@@ -68,7 +62,7 @@ public class LoadHandler implements Route {
             " is incorrect.");
 
 
-      return adapter.toJson(loadMap);
+      return JsonCodecs.toJson(loadMap);
     }
   }
 }
\ No newline at end of file
@@ -1,14 +1,11 @@
 package edu.brown.cs.student.main.server.handler.csv;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import edu.brown.cs.student.main.csv.search.Searcher;
 import edu.brown.cs.student.main.data.csv.proxy.CsvData;
+import edu.brown.cs.student.main.json.JsonCodecs;
 import spark.Request;
 import spark.Response;
 import spark.Route;
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,7 +29,7 @@ public class SearchHandler implements Route {
     /**
      * As a class implementing Route, handle is used to search the parsed contents using the given
      * query parameters (target, column, and header indicator), as a guide for what data to return.
-     * a Moshi instance builds and adapts to take on a Map<String,Object> format, since this is what
+     * the shared response adapter (see JsonCodecs) writes a Map<String,Object>, since this is what
      * the search map result will use. For a successful query, a Searcher will be instantiated,
      * passing the query parameters as arguments. The given content to search through is sourced
      * from the sharedData's accessor method for getting the content of the csv. The results
@@ -53,9 +50,6 @@ public class SearchHandler implements Route {
 
 
 
-        Moshi moshi = new Moshi.Builder().build();
-        Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-        JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
         Map<String, Object> searchMap = new HashMap<>();
 
         try {
@@ -82,7 +76,7 @@ public class SearchHandler implements Route {
                 searchMap.put("data", searcher.search());
             }
 
-            return adapter.toJson(searchMap);
+            return JsonCodecs.toJson(searchMap);
 
         } catch(Exception e){
             String errorMessage = e.getMessage();
@@ -93,7 +87,7 @@ public class SearchHandler implements Route {
             searchMap.put("type","error");
             searchMap.put("error_type", "error_bad_json");
             searchMap.put("details", errorMessage);
-            return adapter.toJson(searchMap);
+            return JsonCodecs.toJson(searchMap);
         }
     }
 }
@@ -1,11 +1,8 @@
 package edu.brown.cs.student.main.server.handler.csv;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
 import edu.brown.cs.student.main.data.csv.proxy.CsvData;
+import edu.brown.cs.student.main.json.JsonCodecs;
 
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,7 +28,7 @@ public class ViewHandler implements Route {
 
     /**
      * As a class implementing Route, handle is used to view the entire parsed file.
-     * a Moshi instance builds and adapts to take on a Map<String,Object> format, since this is what
+     * the shared response adapter (see JsonCodecs) writes a Map<String,Object>, since this is what
      * the view map result will use. For a successful query, the value from accessing
      * sharedData's current loaded file will be added to the view result map.
      * For an unsuccessful one, (such no file was previously loaded) an informative message will be
@@ -44,16 +41,12 @@ public class ViewHandler implements Route {
 
     @Override
     public Object handle(Request request, Response response) {
-        Moshi moshi = new Moshi.Builder().build();
-
-        Type mapStringObject = Types.newParameterizedType(Map.class, String.class, Object.class);
-        JsonAdapter<Map<String, Object>> adapter = moshi.adapter(mapStringObject);
         Map<String, Object> viewMap = new HashMap<>();
 
         try {
             viewMap.put("type", "success");
             viewMap.put("data", this.sharedData.getProxyData());
-            return adapter.toJson(viewMap);
+            return JsonCodecs.toJson(viewMap);
 
         } catch (Exception e) {
             String errorMessage = e.getMessage();
@@ -63,7 +56,7 @@ public class ViewHandler implements Route {
             viewMap.put("type", "error");
             viewMap.put("error_type", "error_bad_json");
             viewMap.put("details", errorMessage);
-            return adapter.toJson(viewMap);
+            return JsonCodecs.toJson(viewMap);
         }
     }
 }
@@ -5,11 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
 import edu.brown.cs.student.main.maps.handlers.MapsAreaKeyWordHandler;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -29,14 +33,16 @@ public class AreaGeneralTests {
   private final Type mapStringObject =
       Types.newParameterizedType(Map.class, String.class, Object.class);
   private JsonAdapter<Map<String, Object>> adapter;
+  private static DatasetHolder datasets;
 
   /**
-   * We want this to run before all our tests, so we can establish a port.
+   * We want this to run before all our tests, so we can establish a port and load the dataset once.
    */
   @BeforeAll
-  public static void setup_before_everything() {
+  public static void setup_before_everything() throws IOException {
     // arbitrary available port.
     Spark.port(0);
+    datasets = new DatasetHolder(MapsDataset.load(Path.of(FeatureStore.DEFAULT_PATH), 1));
     Logger.getLogger("").setLevel(Level.WARNING); // empty name = root logger
   }
 
@@ -45,7 +51,7 @@ public class AreaGeneralTests {
    * */
   @BeforeEach
   public void setup() {
-    Spark.get("mapsKeyWord", new MapsAreaKeyWordHandler());
+    Spark.get("mapsKeyWord", new MapsAreaKeyWordHandler(datasets));
     Spark.init();
     Spark.awaitInitialization();
 
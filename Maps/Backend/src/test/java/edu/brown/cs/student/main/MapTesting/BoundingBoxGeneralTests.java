@@ -4,11 +4,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
 import edu.brown.cs.student.main.maps.handlers.MapsBoundingHandler;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,14 +32,16 @@ public class BoundingBoxGeneralTests {
   private final Type mapStringObject =
       Types.newParameterizedType(Map.class, String.class, Object.class);
   private JsonAdapter<Map<String, Object>> adapter;
+  private static DatasetHolder datasets;
 
   /**
-   * We want this to run before all our tests, so we can establish a port.
+   * We want this to run before all our tests, so we can establish a port and load the dataset once.
    */
   @BeforeAll
-  public static void setup_before_everything() {
+  public static void setup_before_everything() throws IOException {
     // arbitrary available port.
     Spark.port(0);
+    datasets = new DatasetHolder(MapsDataset.load(Path.of(FeatureStore.DEFAULT_PATH), 1));
     Logger.getLogger("").setLevel(Level.WARNING); // empty name = root logger
   }
 
@@ -46,7 +52,7 @@ public class BoundingBoxGeneralTests {
 
   @BeforeEach
   public void setup() {
-    Spark.get("/mapsBoundingBox", new MapsBoundingHandler());
+    Spark.get("/mapsBoundingBox", new MapsBoundingHandler(datasets));
     Spark.init();
     Spark.awaitInitialization();
 
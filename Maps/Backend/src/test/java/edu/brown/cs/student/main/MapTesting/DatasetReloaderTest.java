@@ -0,0 +1,112 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.DatasetReloader;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a changed dataset file is loaded into a new version and swapped in,
+ * while versions already handed out stay untouched.
+ */
+public class DatasetReloaderTest {
+  private Path directory;
+  private Path file;
+
+  /**
+   * Creates a dataset file with one feature in a fresh directory
+   * @throws IOException
+   */
+  @BeforeEach
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("maps");
+    this.file = this.directory.resolve("data.json");
+    writeFeatures(1, 1_000);
+  }
+
+  /**
+   * Removes the dataset file and its directory
+   * @throws IOException
+   */
+  @AfterEach
+  public void teardown() throws IOException {
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.directory);
+  }
+
+  /**
+   * This tests that a reload only happens when the file changed, and that it publishes a new
+   * version without changing the old one
+   * @throws IOException
+   */
+  @Test
+  public void testReloadSwapsVersion() throws IOException {
+    MapsDataset first = MapsDataset.load(this.file, 1);
+    DatasetHolder holder = new DatasetHolder(first);
+    DatasetReloader reloader = new DatasetReloader(this.file, holder);
+    assertNull(reloader.reloadIfChanged());
+
+    writeFeatures(3, 2_000);
+    MapsDataset second = reloader.reloadIfChanged();
+
+    assertSame(second, holder.current());
+    assertEquals(2, second.getGeneration());
+    assertEquals(3, second.getStore().getFeatures().size());
+    assertEquals(1, first.getStore().getFeatures().size());
+    assertTrue(second.getLoadMillis() >= 0);
+  }
+
+  /**
+   * This tests that a broken file leaves the old version active
+   * @throws IOException
+   */
+  @Test
+  public void testFailedReloadKeepsVersion() throws IOException {
+    MapsDataset first = MapsDataset.load(this.file, 1);
+    DatasetHolder holder = new DatasetHolder(first);
+    Files.writeString(this.file, "{\"type\":\"FeatureCollection\",\"features\":[");
+    Files.setLastModifiedTime(this.file, FileTime.fromMillis(3_000));
+
+    assertThrows(IOException.class, () -> new DatasetReloader(this.file, holder).reloadIfChanged());
+    assertSame(first, holder.current());
+  }
+
+  /**
+   * This tests that the watcher thread notices a replaced file on its own
+   * @throws Exception
+   */
+  @Test
+  public void testWatcherPicksUpChange() throws Exception {
+    DatasetHolder holder = new DatasetHolder(MapsDataset.load(this.file, 1));
+    new DatasetReloader(this.file, holder).start();
+    Thread.sleep(200);
+    writeFeatures(2, 4_000);
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (holder.current().getGeneration() == 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertEquals(2, holder.current().getStore().getFeatures().size());
+  }
+
+  private void writeFeatures(int count, long modified) throws IOException {
+    StringBuilder json = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+    for (int i = 0; i < count; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"type\":\"Feature\",\"geometry\":null,")
+          .append("\"properties\":{\"name\":\"area ").append(i).append("\"}}");
+    }
+    Files.writeString(this.file, json.append("]}"));
+    Files.setLastModifiedTime(this.file, FileTime.fromMillis(modified));
+  }
+}
@@ -0,0 +1,48 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonReader;
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.GeoJsonFeatureReader;
+import java.io.IOException;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that feature envelopes cover every polygon and ring, and that features
+ * without geometry never match a box.
+ */
+public class EnvelopesTest {
+
+  /**
+   * This tests envelopes of a MultiPolygon whose second polygon reaches past the first, and of a
+   * feature with no geometry
+   * @throws IOException
+   */
+  @Test
+  public void testEnvelopeCoversEveryPolygon() throws IOException {
+    String json = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\","
+        + "\"geometry\":{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0,0],[2,0],[2,2],[0,0]]],"
+        + "[[[5,-1],[6,-1],[6,3],[5,-1]]]]},\"properties\":{}},"
+        + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{}}]}";
+    FeatureStore.Builder builder = new FeatureStore.Builder();
+    new GeoJsonFeatureReader().read(JsonReader.of(new Buffer().writeUtf8(json)), builder);
+    Envelopes envelopes = builder.build().getEnvelopes();
+
+    assertEquals(0, envelopes.minX(0));
+    assertEquals(-1, envelopes.minY(0));
+    assertEquals(6, envelopes.maxX(0));
+    assertEquals(3, envelopes.maxY(0));
+    assertTrue(envelopes.within(0, -1, -2, 7, 4));
+    assertFalse(envelopes.within(0, -1, -2, 3, 4));
+    assertTrue(envelopes.intersects(0, 5.5, 2.5, 10, 10));
+    assertFalse(envelopes.intersects(0, 6.5, 0, 8, 1));
+
+    assertTrue(envelopes.isEmpty(1));
+    assertFalse(envelopes.intersects(1, -180, -90, 180, 90));
+    assertFalse(envelopes.within(1, -180, -90, 180, 90));
+  }
+}
@@ -0,0 +1,80 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.squareup.moshi.JsonReader;
+import edu.brown.cs.student.main.maps.data.FeatureSink;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.GeoJsonFeatureReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that GeoJSON files are streamed into sinks one feature at a time.
+ */
+public class GeoJsonFeatureReaderTest {
+  private static final String COLLECTION = "{\"type\":\"FeatureCollection\",\"bbox\":[0,0,1,1],"
+      + "\"features\":[{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\","
+      + "\"coordinates\":[[[[0,0],[1,0],[1,1],[0,0]]]]},\"properties\":{\"name\":\"first\","
+      + "\"holc_grade\":\"A\",\"area_description_data\":{\"1\":\"quiet homes\"}}},"
+      + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{\"name\":\"second\"}}]}";
+
+  /**
+   * This tests that every feature reaches every chained sink in file order, and that members the
+   * reader doesn't know about are skipped
+   * @throws IOException
+   */
+  @Test
+  public void testFeaturesReachEverySink() throws IOException {
+    List<String> first = new ArrayList<>();
+    List<String> second = new ArrayList<>();
+    FeatureSink firstSink = feature -> first.add(feature.properties.name);
+    String type = new GeoJsonFeatureReader().read(JsonReader.of(new Buffer().writeUtf8(COLLECTION)),
+        firstSink.andThen(feature -> second.add(feature.properties.name)));
+
+    assertEquals("FeatureCollection", type);
+    assertEquals(List.of("first", "second"), first);
+    assertEquals(first, second);
+  }
+
+  /**
+   * This tests that a store streamed from a file keeps geometry, properties and missing geometry
+   * @throws IOException
+   */
+  @Test
+  public void testStoreFromFile() throws IOException {
+    Path file = Files.createTempFile("features", ".json");
+    try {
+      Files.writeString(file, COLLECTION);
+      FeatureStore store = FeatureStore.fromFile(file);
+
+      assertEquals("FeatureCollection", store.getType());
+      assertEquals(2, store.getFeatures().size());
+      assertEquals(4, store.getFeatures().get(0).geometry.coordinates.vertexCount());
+      assertEquals("quiet homes", store.getFeatures().get(0).properties.area_description_data.get("1"));
+      assertNull(store.getFeatures().get(1).geometry);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * This tests that a sink can stop the ingest by throwing
+   */
+  @Test
+  public void testSinkCanRejectFeature() {
+    assertThrows(IOException.class, () -> new GeoJsonFeatureReader().read(
+        JsonReader.of(new Buffer().writeUtf8(COLLECTION)),
+        feature -> {
+          if (feature.geometry == null) {
+            throw new IOException("feature without geometry");
+          }
+        }));
+  }
+}
@@ -0,0 +1,98 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.GeoJsonFeatureReader;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonResponseWriter;
+import edu.brown.cs.student.main.maps.json.JsonParsing;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a streamed response carries the same features as the legacy format,
+ * as a plain JSON object instead of an escaped string, and that responses put together from
+ * pre-rendered feature JSON are byte for byte the ones serializing the features gives.
+ */
+public class GeoJsonResponseWriterTest {
+  private static final String COLLECTION = "{\"type\":\"FeatureCollection\","
+      + "\"features\":[{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\","
+      + "\"coordinates\":[[[[0.5,0],[1,0],[1,1],[0.5,0]]]]},\"properties\":{\"name\":\"first\","
+      + "\"holc_grade\":\"A\",\"area_description_data\":{\"1\":\"\\\"quiet\\\" homes\"}}},"
+      + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{\"name\":\"second\"}}]}";
+  private final JsonAdapter<Map<String, Object>> adapter = new Moshi.Builder().build()
+      .adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+
+  /**
+   * This tests that both formats give the same bytes from the cached feature JSON as from the
+   * features themselves, for all, some and none of the features
+   * @throws Exception
+   */
+  @Test
+  public void testCachedFeatureJson() throws Exception {
+    FeatureStore store = store();
+    FeatureJson json = store.getFeatureJson();
+    assertEquals(2, json.size());
+
+    for (int[] ids : new int[][] {{0, 1}, {1}, {}}) {
+      List<Feature> selected = new ArrayList<>();
+      for (int id : ids) {
+        selected.add(store.getFeatures().get(id));
+      }
+      GeoJsonCollection collection = store.collectionOf(selected);
+      assertEquals(JsonParsing.toJsonGeneral(collection),
+          JsonParsing.toJsonGeneral(store.getType(), json, ids));
+
+      ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+      GeoJsonResponseWriter.write(serialized, "success", Map.of(), collection);
+      ByteArrayOutputStream cached = new ByteArrayOutputStream();
+      GeoJsonResponseWriter.write(cached, "success", Map.of(), store.getType(), json, ids);
+      assertEquals(serialized.toString(StandardCharsets.UTF_8),
+          cached.toString(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * This tests the streamed data parses to exactly what the legacy data string parses to
+   * (apart from the legacy "return Type" member), with the envelope fields written first
+   * @throws Exception
+   */
+  @Test
+  public void testMatchesLegacyFormat() throws Exception {
+    FeatureStore store = store();
+    Map<String, String> fields = new LinkedHashMap<>();
+    fields.put("error_description", "none");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GeoJsonResponseWriter.write(out, "success", fields, store.collectionOf(store.getFeatures()));
+    String streamed = out.toString(StandardCharsets.UTF_8);
+
+    Map<String, Object> legacy =
+        adapter.fromJson(JsonParsing.toJsonGeneral(store.collectionOf(store.getFeatures())));
+    legacy.remove("return Type");
+    Map<String, Object> response = adapter.fromJson(streamed);
+    assertEquals(legacy, response.get("data"));
+    assertEquals("success", response.get("type"));
+    assertEquals("none", response.get("error_description"));
+    assertEquals("{\"type\":\"success\",\"error_description\":\"none\",\"data\":{\"features\":[",
+        streamed.substring(0, streamed.indexOf('[') + 1));
+  }
+
+  private static FeatureStore store() throws Exception {
+    FeatureStore.Builder builder = new FeatureStore.Builder();
+    builder.type(new GeoJsonFeatureReader().read(
+        JsonReader.of(new Buffer().writeUtf8(COLLECTION)), builder));
+    return builder.build();
+  }
+}
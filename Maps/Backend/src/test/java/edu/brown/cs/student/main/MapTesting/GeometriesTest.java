@@ -0,0 +1,43 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.geometry.Geometries;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the exact polygon/box overlap test used by the intersects bounding box mode.
+ */
+public class GeometriesTest {
+  // a 10x10 square with a 4x4 hole in the middle
+  private final PackedCoordinates square = new PackedCoordinates(
+      new double[] {0, 10, 10, 0, 0, 3, 7, 7, 3, 3},
+      new double[] {0, 0, 10, 10, 0, 3, 3, 7, 7, 3},
+      new int[] {0, 5, 10}, new int[] {0, 2}, false);
+
+  /**
+   * This tests boxes holding a vertex, crossing an edge, lying inside the polygon, lying inside
+   * the hole, and lying outside the polygon next to it
+   */
+  @Test
+  public void testIntersectsBox() {
+    assertTrue(Geometries.intersectsBox(square, 9, 9, 11, 11));
+    assertTrue(Geometries.intersectsBox(square, 4, -1, 5, 1));
+    assertTrue(Geometries.intersectsBox(square, 1, 1, 2, 2));
+    assertTrue(Geometries.intersectsBox(square, 10, 5, 12, 6));
+    assertFalse(Geometries.intersectsBox(square, 4, 4, 6, 6));
+    assertFalse(Geometries.intersectsBox(square, 10.5, 0, 12, 12));
+    assertFalse(Geometries.intersectsBox(square, 11, -5, 12, -1));
+  }
+
+  /**
+   * This tests points inside, in the hole, and outside the polygon
+   */
+  @Test
+  public void testContains() {
+    assertTrue(Geometries.contains(square, 1, 5));
+    assertFalse(Geometries.contains(square, 5, 5));
+    assertFalse(Geometries.contains(square, 11, 5));
+  }
+}
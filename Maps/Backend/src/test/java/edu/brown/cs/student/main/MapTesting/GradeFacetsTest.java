@@ -0,0 +1,179 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.handlers.MapsAreaKeyWordHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsBoundingHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsFacetsHandler;
+import edu.brown.cs.student.main.maps.handlers.MapsNearestHandler;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import spark.Spark;
+
+/**
+ * This class tests that /mapsFacets counts the grades of the features a search finds exactly as
+ * counting them one by one would, and that grade= keeps only features with the grades given.
+ */
+public class GradeFacetsTest {
+  private static final String[] WORDS = {"industrial", "railroad", "quiet", "homes"};
+  private static final String[] GRADES = SyntheticFeatures.GRADES;
+  private static final Type MAP_STRING_OBJECT =
+      Types.newParameterizedType(Map.class, String.class, Object.class);
+  private static final JsonAdapter<Map<String, Object>> ADAPTER =
+      new Moshi.Builder().build().adapter(MAP_STRING_OBJECT);
+  private static final List<Feature> FEATURES =
+      SyntheticFeatures.areas(300, 24, 0.01, WORDS, 1);
+
+  /**
+   * Serves small squares with random descriptions and grades, some without one
+   */
+  @BeforeAll
+  public static void setup() {
+    DatasetHolder datasets = new DatasetHolder(MapsDataset.of(
+        new FeatureStore("FeatureCollection", FEATURES), 1, "test"));
+    Spark.port(0);
+    Spark.get("/mapsFacets", new MapsFacetsHandler(datasets));
+    Spark.get("/mapsBoundingBox", new MapsBoundingHandler(datasets));
+    Spark.get("/mapsKeyWord", new MapsAreaKeyWordHandler(datasets));
+    Spark.get("/mapsNearest", new MapsNearestHandler(datasets));
+    Spark.init();
+    Spark.awaitInitialization();
+    Logger.getLogger("").setLevel(Level.WARNING);
+  }
+
+  /**
+   * Stops serving
+   */
+  @AfterAll
+  public static void teardown() {
+    Spark.unmap("/mapsFacets");
+    Spark.unmap("/mapsBoundingBox");
+    Spark.unmap("/mapsKeyWord");
+    Spark.unmap("/mapsNearest");
+    // stopped, not only unmapped, so later test classes can pick their own port
+    Spark.stop();
+    Spark.awaitStop();
+  }
+
+  /**
+   * This tests the counts for the whole dataset, a box, a keyword, a query and all of them at once
+   * @throws IOException
+   */
+  @Test
+  public void testFacetsMatchCounting() throws IOException {
+    assertFacets("", id -> true);
+    String box = "lowerLatitude=41.2&upperLatitude=41.7&lowerLongitude=-71.8&upperLongitude=-71.3";
+    assertFacets(box, id -> inside(id, 41.2, 41.7, -71.8, -71.3));
+    assertFacets("Area=railroad", id -> has(id, "railroad"));
+    assertFacets("Area=quiet&" + box,
+        id -> has(id, "quiet") && inside(id, 41.2, 41.7, -71.8, -71.3));
+    assertFacets("q=NOT%20keyword(homes)&Area=i", id -> !has(id, "homes") && has(id, "i"));
+    assertFacets("Area=nothing", id -> false);
+
+    Map<String, Object> body = get("/mapsFacets?lowerLatitude=41");
+    assertEquals("error_bad_request", body.get("type"));
+    body = get("/mapsFacets?Area=x&match=any");
+    assertEquals("error_bad_request", body.get("type"));
+  }
+
+  /**
+   * This tests that grade= narrows box, keyword and nearest searches to the grades given
+   * @throws IOException
+   */
+  @Test
+  public void testGradeFilter() throws IOException {
+    assertEquals(expected(id -> inside(id, 40, 43, -73, -70) && grade(id, "C", "D")),
+        names(get("/mapsBoundingBox?lowerLatitude=40&upperLatitude=43&lowerLongitude=-73"
+            + "&upperLongitude=-70&grade=C,D")));
+    assertEquals(expected(id -> has(id, "industrial") && grade(id, "A")),
+        names(get("/mapsKeyWord?Area=industrial&grade=A")));
+
+    List<String> nearest = names(get("/mapsNearest?lat=41.5&lon=-71.5&k=5&grade=B"));
+    assertEquals(5, nearest.size());
+    for (String name : nearest) {
+      assertTrue(grade(Integer.parseInt(name), "B"), name);
+    }
+
+    Map<String, Object> body = get("/mapsKeyWord?Area=industrial&grade=,");
+    assertEquals("error_bad_request", body.get("type"));
+    assertFalse(names(get("/mapsKeyWord?Area=industrial")).isEmpty());
+  }
+
+  private static void assertFacets(String query, IntPredicate found) throws IOException {
+    Map<String, Object> body = get("/mapsFacets?" + query);
+    assertEquals("success", body.get("type"), query + ": " + body);
+    Map<String, Object> grades = new LinkedHashMap<>();
+    for (String grade : GRADES) {
+      grades.put(grade, (double) IntStream.range(0, FEATURES.size())
+          .filter(id -> found.test(id) && grade(id, grade)).count());
+    }
+    assertEquals(grades, body.get("grades"), query);
+    assertEquals((double) IntStream.range(0, FEATURES.size())
+        .filter(id -> found.test(id) && grade(id, (String) null)).count(),
+        body.get("ungraded"), query);
+    assertEquals((double) IntStream.range(0, FEATURES.size()).filter(found).count(),
+        body.get("total"), query);
+    assertFalse(body.containsKey("data"), query);
+  }
+
+  private static List<String> expected(IntPredicate found) {
+    return IntStream.range(0, FEATURES.size()).filter(found)
+        .mapToObj(Integer::toString).toList();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> names(Map<String, Object> body) throws IOException {
+    List<String> names = new ArrayList<>();
+    if (!"success".equals(body.get("type"))) {
+      return names;
+    }
+    Map<String, Object> data = ADAPTER.fromJson((String) body.get("data"));
+    for (Map<String, Object> feature : (List<Map<String, Object>>) data.get("features")) {
+      names.add((String) ((Map<?, ?>) feature.get("properties")).get("name"));
+    }
+    return names;
+  }
+
+  private static Map<String, Object> get(String path) throws IOException {
+    URL url = new URL("http://localhost:" + Spark.port() + path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.connect();
+    assertEquals(200, connection.getResponseCode());
+    return ADAPTER.fromJson(new Buffer().readFrom(connection.getInputStream()));
+  }
+
+  private static boolean has(int id, String word) {
+    return SyntheticFeatures.describes(FEATURES.get(id), word);
+  }
+
+  private static boolean grade(int id, String... grades) {
+    return SyntheticFeatures.graded(FEATURES.get(id), grades);
+  }
+
+  private static boolean inside(int id, double lowerLat, double upperLat, double lowerLong,
+      double upperLong) {
+    return SyntheticFeatures.inside(FEATURES.get(id), lowerLat, upperLat, lowerLong, upperLong);
+  }
+}
@@ -0,0 +1,119 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import edu.brown.cs.student.main.maps.data.KeywordIndex;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Properties;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the keyword index finds the same features as reading every area
+ * description, both for exact substrings and for words in any order or case.
+ */
+public class KeywordIndexTest {
+  private static final String[] WORDS = {"Industrial", "railroad", "homes", "quiet", "church",
+      "river", "mills", "school", "Negro", "foreign", "well-kept", "1930s"};
+
+  /**
+   * This tests that words are runs of letters and digits, lowercased
+   */
+  @Test
+  public void testTerms() {
+    assertEquals(List.of("well", "kept", "homes", "built", "1930s", "\u00e9glise"),
+        KeywordIndex.terms("  Well-kept HOMES, built 1930s; \u00c9glise."));
+    assertEquals(List.of(), KeywordIndex.terms(" -- "));
+  }
+
+  /**
+   * This tests random descriptions against brute force, for single words, several words, words
+   * in another case and substrings across the joined description values
+   */
+  @Test
+  public void testMatchesBruteForce() {
+    Random random = new Random(4);
+    List<Feature> features = new ArrayList<>();
+    for (int id = 0; id < 2000; id++) {
+      features.add(feature(random.nextInt(10) == 0 ? null : description(random)));
+    }
+    KeywordIndex index = KeywordIndex.of(features);
+
+    for (int query = 0; query < 300; query++) {
+      int count = 1 + random.nextInt(3);
+      List<String> words = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        words.add(random.nextBoolean() ? word.toUpperCase(Locale.ROOT) : word);
+      }
+      String area = String.join(" ", words);
+      assertArrayEquals(bruteForceWords(features, area), index.withWords(area), area);
+      String fragment = WORDS[random.nextInt(WORDS.length)].substring(1, 4);
+      assertArrayEquals(bruteForceSubstring(features, fragment), index.containing(fragment),
+          fragment);
+    }
+    assertArrayEquals(new int[0], index.withWords("railroad unknownword"));
+    assertArrayEquals(new int[0], index.withWords("--"));
+  }
+
+  /**
+   * This tests that a substring may span two description values, as it always could, while a
+   * word can't, and that features without a description are never matched
+   */
+  @Test
+  public void testJoinedDescriptions() {
+    Map<String, String> description = new LinkedHashMap<>();
+    description.put("1", "rail");
+    description.put("2", "road yards");
+    KeywordIndex index = KeywordIndex.of(List.of(feature(description), feature(null)));
+
+    assertArrayEquals(new int[] {0}, index.containing("railroad"));
+    assertArrayEquals(new int[0], index.withWords("railroad"));
+    assertArrayEquals(new int[] {0}, index.withWords("ROAD rail"));
+    assertEquals("railroad yards", index.description(0));
+    assertNull(index.description(1));
+    assertEquals(3, index.termCount());
+  }
+
+  private static Map<String, String> description(Random random) {
+    Map<String, String> description = new LinkedHashMap<>();
+    for (int line = 0; line < 1 + random.nextInt(3); line++) {
+      StringBuilder text = new StringBuilder();
+      for (int word = 0; word < 1 + random.nextInt(5); word++) {
+        text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? " " : ". ");
+      }
+      description.put(Integer.toString(line), text.toString());
+    }
+    return description;
+  }
+
+  private static Feature feature(Map<String, String> description) {
+    Feature feature = new Feature();
+    feature.properties = new Properties();
+    feature.properties.area_description_data = description;
+    return feature;
+  }
+
+  private static int[] bruteForceWords(List<Feature> features, String area) {
+    List<String> terms = KeywordIndex.terms(area);
+    return IntStream.range(0, features.size()).filter(id -> {
+      Map<String, String> description = features.get(id).properties.area_description_data;
+      return description != null && description.values().stream()
+          .flatMap(line -> KeywordIndex.terms(line).stream()).toList().containsAll(terms);
+    }).toArray();
+  }
+
+  private static int[] bruteForceSubstring(List<Feature> features, String area) {
+    return IntStream.range(0, features.size()).filter(id -> {
+      Map<String, String> description = features.get(id).properties.area_description_data;
+      return description != null && String.join("", description.values()).contains(area);
+    }).toArray();
+  }
+}
@@ -0,0 +1,136 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.LevelsOfDetail;
+import edu.brown.cs.student.main.maps.geometry.Simplifier;
+import edu.brown.cs.student.main.maps.json.FeatureJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Geometry;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that geometries are simplified within their tolerance, that every polygon
+ * stays drawable, and that the right level of detail is picked for a zoom or tolerance.
+ */
+public class LevelsOfDetailTest {
+
+  /**
+   * This tests a finely drawn circle shrinks to far fewer vertices, stays closed, and that every
+   * original vertex is still within the tolerance of the simplified outline
+   */
+  @Test
+  public void testSimplifyWithinTolerance() {
+    PackedCoordinates circle = circle(0.01, 1000, 0.05, 0.05);
+    PackedCoordinates simplified = Simplifier.simplify(circle, 0.001);
+
+    assertTrue(simplified.vertexCount() < 100);
+    assertTrue(simplified.vertexCount() >= 4);
+    int last = simplified.ringEnd(0) - 1;
+    assertEquals(simplified.x(0), simplified.x(last));
+    assertEquals(simplified.y(0), simplified.y(last));
+    for (int vertex = 0; vertex < circle.vertexCount(); vertex++) {
+      double distance = distanceToRing(simplified, 0, circle.x(vertex), circle.y(vertex));
+      assertTrue(distance <= 0.001 + 1e-12);
+    }
+  }
+
+  /**
+   * This tests that a tiny polygon keeps a triangle at a huge tolerance while its hole is
+   * dropped, and that coordinates nothing can be removed from are returned as they are
+   */
+  @Test
+  public void testSmallShapes() {
+    PackedCoordinates outer = circle(0.001, 50, 0, 0);
+    double[] xs = new double[100];
+    double[] ys = new double[100];
+    for (int i = 0; i < 50; i++) {
+      xs[i] = outer.x(i);
+      ys[i] = outer.y(i);
+      xs[50 + i] = outer.x(i) / 2;
+      ys[50 + i] = outer.y(i) / 2;
+    }
+    PackedCoordinates withHole = new PackedCoordinates(xs, ys, new int[] {0, 50, 100},
+        new int[] {0, 2}, true);
+    PackedCoordinates simplified = Simplifier.simplify(withHole, 10);
+    assertEquals(1, simplified.ringCount());
+    assertEquals(4, simplified.vertexCount());
+    assertTrue(simplified.isMulti());
+
+    PackedCoordinates triangle = new PackedCoordinates(new double[] {0, 1, 0, 0},
+        new double[] {0, 0, 1, 0}, new int[] {0, 4}, new int[] {0, 1}, false);
+    assertSame(triangle, Simplifier.simplify(triangle, 10));
+  }
+
+  /**
+   * This tests that levels are picked by zoom and tolerance, that deep zooms get the original
+   * features, that features keep their properties, and that a level is only simplified, and its
+   * JSON only rendered, once it is asked for
+   */
+  @Test
+  public void testPickLevel() {
+    Feature feature = new Feature();
+    feature.type = "Feature";
+    feature.geometry = new Geometry();
+    feature.geometry.type = "Polygon";
+    feature.geometry.coordinates = circle(0.05, 2000, -71, 41);
+    List<Feature> original = List.of(feature);
+    LevelsOfDetail levels = LevelsOfDetail.of(original);
+    List<Long> counts = levels.getVertexCounts();
+    assertEquals(LevelsOfDetail.ZOOMS.length + 1, counts.size());
+    assertNull(counts.get(0));
+    assertEquals(2001L, counts.get(counts.size() - 1));
+
+    assertSame(original, levels.forZoom(18));
+    assertSame(original, levels.forTolerance(0));
+    assertSame(levels.forZoom(4), levels.forTolerance(1));
+    assertSame(levels.forZoom(12), levels.forTolerance(LevelsOfDetail.toleranceForZoom(12)));
+    assertSame(levels.forZoom(5), levels.forZoom(6));
+    assertSame(feature.properties, levels.forZoom(4).get(0).properties);
+
+    assertNull(levels.getVertexCounts().get(2));
+    for (int zoom : LevelsOfDetail.ZOOMS) {
+      assertSame(levels.forZoom(zoom), levels.forZoom(zoom));
+    }
+    counts = levels.getVertexCounts();
+    for (int level = 1; level < counts.size(); level++) {
+      assertTrue(counts.get(level - 1) <= counts.get(level));
+    }
+
+    assertEquals(0, levels.getJsonBytes());
+    FeatureJson coarsest = levels.jsonForTolerance(1);
+    assertSame(coarsest, levels.jsonForTolerance(1));
+    assertEquals(coarsest.memoryBytes(), levels.getJsonBytes());
+    assertEquals(1, levels.jsonForTolerance(0).size());
+    assertEquals(coarsest.memoryBytes(), levels.getJsonBytes());
+  }
+
+  private static PackedCoordinates circle(double radius, int vertices, double x, double y) {
+    double[] xs = new double[vertices + 1];
+    double[] ys = new double[vertices + 1];
+    for (int i = 0; i < vertices; i++) {
+      xs[i] = x + radius * Math.cos(2 * Math.PI * i / vertices);
+      ys[i] = y + radius * Math.sin(2 * Math.PI * i / vertices);
+    }
+    xs[vertices] = xs[0];
+    ys[vertices] = ys[0];
+    return new PackedCoordinates(xs, ys, new int[] {0, vertices + 1}, new int[] {0, 1}, false);
+  }
+
+  private static double distanceToRing(PackedCoordinates ring, int index, double x, double y) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int vertex = ring.ringStart(index); vertex < ring.ringEnd(index) - 1; vertex++) {
+      double ax = ring.x(vertex);
+      double ay = ring.y(vertex);
+      double dx = ring.x(vertex + 1) - ax;
+      double dy = ring.y(vertex + 1) - ay;
+      double t = Math.max(0, Math.min(1, ((x - ax) * dx + (y - ay) * dy) / (dx * dx + dy * dy)));
+      best = Math.min(best, Math.hypot(x - ax - t * dx, y - ay - t * dy));
+    }
+    return best;
+  }
+}
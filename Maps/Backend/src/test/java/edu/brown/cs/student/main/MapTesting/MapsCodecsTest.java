@@ -0,0 +1,110 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.GeoJsonFeatureReader;
+import edu.brown.cs.student.main.maps.json.CollectionJson;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.JsonParsing;
+import edu.brown.cs.student.main.maps.json.MapsCodecs;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that responses written with the shared codecs are byte for byte the ones a
+ * Moshi built for the request gave, with the legacy data string escaped straight from the
+ * features' JSON, also when many threads write at once.
+ */
+public class MapsCodecsTest {
+  // quotes, backslashes, control and line separator characters and non-ASCII text, which all
+  // have to survive being escaped twice
+  private static final String COLLECTION = "{\"type\":\"FeatureCollection\","
+      + "\"features\":[{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\","
+      + "\"coordinates\":[[[[0.5,0],[1,0],[1,1],[0.5,0]]]]},\"properties\":{\"name\":\"first\","
+      + "\"holc_grade\":\"A\",\"area_description_data\":{\"1\":\"\\\"quiet\\\" C:\\\\homes\","
+      + "\"2\":\"caf\u00e9 \\u0001\\t\\u2028 \ud83c\udfe0\"}}},"
+      + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{\"name\":\"sec\\\"ond\"}}]}";
+  private final JsonAdapter<Map<String, Object>> adapter = new Moshi.Builder().build()
+      .adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
+
+  /**
+   * This tests legacy responses for all, some and none of the features, from their rendered
+   * JSON and from the features themselves, against escaping the collection's JSON as a string
+   * @throws Exception
+   */
+  @Test
+  public void testLegacyDataMatchesStringEscaping() throws Exception {
+    FeatureStore store = store();
+    for (int[] ids : new int[][] {{0, 1}, {1}, {}}) {
+      List<Feature> selected = new ArrayList<>();
+      for (int id : ids) {
+        selected.add(store.getFeatures().get(id));
+      }
+      Map<String, Object> expected = new HashMap<>();
+      expected.put("type", "success");
+      expected.put("search_id", 7L);
+      expected.put("data", JsonParsing.toJsonGeneral(store.collectionOf(selected)));
+
+      Map<String, Object> rendered = new HashMap<>(expected);
+      rendered.put("data", CollectionJson.of(store.getType(), store.getFeatureJson(), ids));
+      Map<String, Object> serialized = new HashMap<>(expected);
+      serialized.put("data", CollectionJson.of(store.collectionOf(selected)));
+
+      String legacy = this.adapter.toJson(expected);
+      assertEquals(legacy, new String(MapsCodecs.toJson(rendered), StandardCharsets.UTF_8));
+      assertEquals(legacy, new String(MapsCodecs.toJson(serialized), StandardCharsets.UTF_8));
+      assertEquals(expected.get("data"), this.adapter.fromJson(legacy).get("data"));
+    }
+    assertTrue(JsonParsing.toJsonGeneral(store.collectionOf(store.getFeatures()))
+        .contains("caf\u00e9 \\u0001\\t\\u2028 \ud83c\udfe0"));
+  }
+
+  /**
+   * This tests that threads writing at once, each with its own buffer, never mix up responses
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    FeatureStore store = store();
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    AtomicInteger wrong = new AtomicInteger();
+    for (int thread = 0; thread < 8; thread++) {
+      int[] ids = thread % 2 == 0 ? new int[] {0, 1} : new int[] {1};
+      String expected = this.adapter.toJson(Map.of("type", "success", "data",
+          JsonParsing.toJsonGeneral(store.getType(), store.getFeatureJson(), ids)));
+      threads.execute(() -> {
+        for (int i = 0; i < 2000; i++) {
+          byte[] written = MapsCodecs.toJson(Map.of("type", "success",
+              "data", CollectionJson.of(store.getType(), store.getFeatureJson(), ids)));
+          if (!expected.equals(new String(written, StandardCharsets.UTF_8))) {
+            wrong.incrementAndGet();
+          }
+        }
+      });
+    }
+    threads.shutdown();
+    assertTrue(threads.awaitTermination(1, TimeUnit.MINUTES));
+    assertEquals(0, wrong.get());
+  }
+
+  private static FeatureStore store() throws Exception {
+    FeatureStore.Builder builder = new FeatureStore.Builder();
+    builder.type(new GeoJsonFeatureReader().read(
+        JsonReader.of(new Buffer().writeUtf8(COLLECTION)), builder));
+    return builder.build();
+  }
+}
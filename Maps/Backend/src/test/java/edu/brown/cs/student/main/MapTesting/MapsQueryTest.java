@@ -0,0 +1,149 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.maps.data.DatasetHolder;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.handlers.MapsQueryHandler;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import spark.Spark;
+
+/**
+ * This class tests that /mapsQuery combines keyword, bounding box and grade filters with NOT,
+ * AND and OR exactly as checking every feature would, and that invalid queries are explained.
+ */
+public class MapsQueryTest {
+  private static final String[] WORDS = {"industrial", "railroad", "quiet", "homes", "church"};
+  private static final Type MAP_STRING_OBJECT =
+      Types.newParameterizedType(Map.class, String.class, Object.class);
+  private static final JsonAdapter<Map<String, Object>> ADAPTER =
+      new Moshi.Builder().build().adapter(MAP_STRING_OBJECT);
+  private static final List<Feature> FEATURES =
+      SyntheticFeatures.areas(400, 23, 0.02, WORDS, 2);
+
+  /**
+   * Serves small squares with random descriptions and grades
+   */
+  @BeforeAll
+  public static void setup() {
+    DatasetHolder datasets = new DatasetHolder(MapsDataset.of(
+        new FeatureStore("FeatureCollection", FEATURES), 1, "test"));
+    Spark.port(0);
+    Spark.get("/mapsQuery", new MapsQueryHandler(datasets));
+    Spark.init();
+    Spark.awaitInitialization();
+    Logger.getLogger("").setLevel(Level.WARNING);
+  }
+
+  /**
+   * Stops serving
+   */
+  @AfterAll
+  public static void teardown() {
+    Spark.unmap("/mapsQuery");
+    // stopped, not only unmapped, so later test classes can pick their own port
+    Spark.stop();
+    Spark.awaitStop();
+  }
+
+  /**
+   * This tests combinations of every filter against checking each feature
+   * @throws IOException
+   */
+  @Test
+  public void testMatchesBruteForce() throws IOException {
+    assertMatches("keyword('industrial') AND grade IN (C, D) AND NOT keyword(\"railroad\")",
+        id -> has(id, "industrial") && grade(id, "C", "D") && !has(id, "railroad"));
+    assertMatches("bbox(41.2, 41.7, -71.8, -71.3) and grade in (A)",
+        id -> inside(id, 41.2, 41.7, -71.8, -71.3) && grade(id, "A"));
+    assertMatches("NOT (keyword(quiet) OR grade IN (B)) AND bbox(41, 42, -72, -71, intersects)",
+        id -> !(has(id, "quiet") || grade(id, "B")));
+    assertMatches("words('HOMES church') OR holc_grade IN ('D')",
+        id -> (has(id, "homes") && has(id, "church")) || grade(id, "D"));
+    assertMatches("NOT grade IN (A, B, C, D)", id -> grade(id, (String) null));
+    assertMatches("keyword('industrial') AND keyword('zzz')", id -> false);
+  }
+
+  /**
+   * This tests that invalid queries get an error saying what is wrong
+   * @throws IOException
+   */
+  @Test
+  public void testInvalidQueries() throws IOException {
+    assertError("", "please input a query");
+    assertError("keyword('a'", "expected ')'");
+    assertError("color IN (red)", "unknown filter 'color'");
+    assertError("bbox(1, 2, 3)", "expected ','");
+    assertError("bbox(91, 92, 0, 1)", "latitude must be between");
+    assertError("grade (A)", "expected IN");
+    assertError("keyword('a') keyword('b')", "unexpected 'keyword'");
+    assertError("keyword('unterminated)", "unterminated text");
+    assertError("NOT ".repeat(100) + "keyword('a')", "nested more than");
+  }
+
+  private static void assertMatches(String q, IntPredicate expected) throws IOException {
+    Map<String, Object> body = query(q);
+    assertEquals("success", body.get("type"), q + ": " + body);
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> features = (List<Map<String, Object>>)
+        ((Map<String, Object>) body.get("data")).get("features");
+    List<String> names = new ArrayList<>();
+    for (Map<String, Object> feature : features) {
+      names.add((String) ((Map<?, ?>) feature.get("properties")).get("name"));
+    }
+    List<String> expectedNames = IntStream.range(0, FEATURES.size()).filter(expected)
+        .mapToObj(Integer::toString).toList();
+    assertEquals(expectedNames, names, q);
+    assertEquals(expectedNames.size(), ((Number) body.get("count")).intValue(), q);
+  }
+
+  private static void assertError(String q, String description) throws IOException {
+    Map<String, Object> body = query(q);
+    assertEquals("error_bad_request", body.get("type"), q);
+    assertTrue(((String) body.get("error_description")).contains(description),
+        q + ": " + body.get("error_description"));
+  }
+
+  private static Map<String, Object> query(String q) throws IOException {
+    URL url = new URL("http://localhost:" + Spark.port() + "/mapsQuery?format=stream&q="
+        + URLEncoder.encode(q, StandardCharsets.UTF_8));
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.connect();
+    assertEquals(200, connection.getResponseCode());
+    return ADAPTER.fromJson(new Buffer().readFrom(connection.getInputStream()));
+  }
+
+  private static boolean has(int id, String word) {
+    return SyntheticFeatures.describes(FEATURES.get(id), word);
+  }
+
+  private static boolean grade(int id, String... grades) {
+    return SyntheticFeatures.graded(FEATURES.get(id), grades);
+  }
+
+  private static boolean inside(int id, double lowerLat, double upperLat, double lowerLong,
+      double upperLong) {
+    return SyntheticFeatures.inside(FEATURES.get(id), lowerLat, upperLat, lowerLong, upperLong);
+  }
+}
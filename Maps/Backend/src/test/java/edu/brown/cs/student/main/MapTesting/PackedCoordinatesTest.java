@@ -0,0 +1,79 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.Moshi;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Geometry;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import edu.brown.cs.student.main.maps.json.PackedCoordinatesAdapter;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that geometry coordinates are packed into flat arrays while parsing and are
+ * written back out exactly as they were read.
+ */
+public class PackedCoordinatesTest {
+  private final JsonAdapter<Geometry> adapter =
+      new Moshi.Builder().add(new PackedCoordinatesAdapter()).build().adapter(Geometry.class);
+
+  /**
+   * This tests a MultiPolygon with a hole and a second polygon keeps its ring and polygon layout
+   * @throws IOException
+   */
+  @Test
+  public void testMultiPolygonLayout() throws IOException {
+    String json = "{\"coordinates\":[[[[0.0,0.0],[4.0,0.0],[4.0,4.0],[0.0,0.0]],"
+        + "[[1.0,1.0],[2.0,1.0],[2.0,2.0],[1.0,1.0]]],[[[10.0,10.0],[11.0,10.0],[11.0,11.0],"
+        + "[10.0,10.0]]]],\"type\":\"MultiPolygon\"}";
+    PackedCoordinates coordinates = adapter.fromJson(json).coordinates;
+
+    assertTrue(coordinates.isMulti());
+    assertEquals(2, coordinates.polygonCount());
+    assertEquals(3, coordinates.ringCount());
+    assertEquals(12, coordinates.vertexCount());
+    assertEquals(0, coordinates.polygonStart(0));
+    assertEquals(2, coordinates.polygonEnd(0));
+    assertEquals(4, coordinates.ringStart(1));
+    assertEquals(8, coordinates.ringEnd(1));
+    assertEquals(11.0, coordinates.x(coordinates.ringStart(2) + 1));
+    assertEquals(10.0, coordinates.y(coordinates.ringStart(2) + 1));
+    assertEquals(json, adapter.toJson(adapter.fromJson(json)));
+  }
+
+  /**
+   * This tests a plain Polygon is written back with three levels of nesting, and that altitudes
+   * are ignored
+   * @throws IOException
+   */
+  @Test
+  public void testPolygonRoundTrip() throws IOException {
+    String json = "{\"coordinates\":[[[-71.4,41.8,12.5],[-71.3,41.8],[-71.3,41.9],[-71.4,41.8]]],"
+        + "\"type\":\"Polygon\"}";
+    Geometry geometry = adapter.fromJson(json);
+
+    assertFalse(geometry.coordinates.isMulti());
+    assertEquals(1, geometry.coordinates.polygonCount());
+    assertEquals(4, geometry.coordinates.vertexCount());
+    assertEquals("{\"coordinates\":[[[-71.4,41.8],[-71.3,41.8],[-71.3,41.9],[-71.4,41.8]]],"
+        + "\"type\":\"Polygon\"}", adapter.toJson(geometry));
+  }
+
+  /**
+   * This tests that empty and null coordinates are accepted, and that other geometry shapes are
+   * rejected with a descriptive error
+   * @throws IOException
+   */
+  @Test
+  public void testEmptyNullAndInvalid() throws IOException {
+    assertEquals(0, adapter.fromJson("{\"coordinates\":[],\"type\":\"MultiPolygon\"}")
+        .coordinates.polygonCount());
+    assertEquals(null, adapter.fromJson("{\"coordinates\":null,\"type\":\"Point\"}").coordinates);
+    assertThrows(JsonDataException.class,
+        () -> adapter.fromJson("{\"coordinates\":[1.0,2.0],\"type\":\"Point\"}"));
+  }
+}
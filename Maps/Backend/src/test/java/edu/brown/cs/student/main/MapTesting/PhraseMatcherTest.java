@@ -0,0 +1,121 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import edu.brown.cs.student.main.maps.data.KeywordIndex;
+import edu.brown.cs.student.main.maps.data.PhraseMatcher;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Properties;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a phrase matcher finds exactly the phrases String.contains finds, for
+ * phrases that overlap or hold one another, and that matching a whole keyword index across cores
+ * gives every feature its own result.
+ */
+public class PhraseMatcherTest {
+  private static final String ALPHABET = "abcr \u00e9|";
+
+  /**
+   * This tests the classic overlapping phrases, where one phrase ends inside another
+   */
+  @Test
+  public void testOverlappingPhrases() {
+    PhraseMatcher matcher = new PhraseMatcher(List.of("he", "she", "his", "hers"));
+    assertEquals(List.of("he", "she", "hers"), matcher.phrases(matcher.match("ushers")));
+    assertEquals(List.of("his"), matcher.phrases(matcher.match("this")));
+    assertEquals(List.of(), matcher.phrases(matcher.match("xyz")));
+    assertEquals(0, matcher.match(null));
+    assertEquals(0b1111, matcher.all());
+  }
+
+  /**
+   * This tests random phrases over a small alphabet against String.contains, up to the most
+   * phrases a matcher takes
+   */
+  @Test
+  public void testMatchesContains() {
+    Random random = new Random(21);
+    for (int round = 0; round < 200; round++) {
+      int count = round == 0 ? PhraseMatcher.MAX_PHRASES : 1 + random.nextInt(8);
+      List<String> phrases = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        phrases.add(text(random, 1 + random.nextInt(4)));
+      }
+      PhraseMatcher matcher = new PhraseMatcher(phrases);
+      for (int text = 0; text < 20; text++) {
+        String candidate = text(random, random.nextInt(40));
+        long expected = 0;
+        for (int i = 0; i < count; i++) {
+          if (candidate.contains(phrases.get(i))) {
+            expected |= 1L << i;
+          }
+        }
+        assertEquals(expected, matcher.match(candidate), phrases + " in " + candidate);
+      }
+    }
+  }
+
+  /**
+   * This tests that empty phrase lists, empty phrases and too many phrases are refused
+   */
+  @Test
+  public void testInvalidPhrases() {
+    assertThrows(IllegalArgumentException.class, () -> new PhraseMatcher(List.of()));
+    assertThrows(IllegalArgumentException.class, () -> new PhraseMatcher(List.of("a", "")));
+    List<String> tooMany = IntStream.rangeClosed(0, PhraseMatcher.MAX_PHRASES)
+        .mapToObj(Integer::toString).toList();
+    assertThrows(IllegalArgumentException.class, () -> new PhraseMatcher(tooMany));
+  }
+
+  /**
+   * This tests that matching the descriptions of an index, narrowed by its trigrams and split
+   * across tasks, finds the same features as matching every description one by one
+   */
+  @Test
+  public void testIndexMatch() {
+    Random random = new Random(3);
+    List<Feature> features = new ArrayList<>();
+    for (int id = 0; id < 5000; id++) {
+      Feature feature = new Feature();
+      feature.properties = new Properties();
+      if (random.nextInt(10) != 0) {
+        Map<String, String> description = new LinkedHashMap<>();
+        description.put("1", text(random, random.nextInt(30)));
+        description.put("2", text(random, random.nextInt(30)));
+        feature.properties.area_description_data = description;
+      }
+      features.add(feature);
+    }
+    KeywordIndex index = KeywordIndex.of(features);
+    PhraseMatcher matcher = new PhraseMatcher(List.of("abc", "r\u00e9", "ca"));
+    long[] expected = IntStream.range(0, features.size())
+        .mapToLong(id -> matcher.match(index.description(id))).toArray();
+    assertArrayEquals(expected, index.match(matcher, false));
+    long[] every = index.match(matcher, true);
+    for (int id = 0; id < features.size(); id++) {
+      assertEquals(expected[id] == matcher.all(), every[id] == matcher.all());
+    }
+    // a phrase too short for the trigram index means every description is read
+    PhraseMatcher shortPhrase = new PhraseMatcher(List.of("zzzz", "c"));
+    long[] any = index.match(shortPhrase, false);
+    for (int id = 0; id < features.size(); id++) {
+      assertEquals(shortPhrase.match(index.description(id)), any[id]);
+    }
+  }
+
+  private static String text(Random random, int length) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return text.toString();
+  }
+}
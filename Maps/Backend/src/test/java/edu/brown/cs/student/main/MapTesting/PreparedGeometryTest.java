@@ -0,0 +1,84 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.geometry.Geometries;
+import edu.brown.cs.student.main.maps.geometry.PreparedGeometry;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that prepared geometries answer point-in-polygon tests exactly like a plain
+ * scan over every edge, including holes and MultiPolygons.
+ */
+public class PreparedGeometryTest {
+
+  /**
+   * This tests a MultiPolygon of two jagged star-shaped polygons, the first with a star-shaped
+   * hole, against the unprepared test at many random points
+   */
+  @Test
+  public void testMatchesUnprepared() {
+    Random random = new Random(11);
+    PackedCoordinates.Builder builder = new PackedCoordinates.Builder();
+    builder.startPolygon();
+    star(builder, random, 0, 0, 1, 3000);
+    star(builder, random, 0, 0, 0.3, 500);
+    builder.startPolygon();
+    star(builder, random, 3, 1, 0.8, 1000);
+    PackedCoordinates coordinates = builder.build(true);
+    PreparedGeometry prepared = PreparedGeometry.of(coordinates);
+
+    int inside = 0;
+    for (int i = 0; i < 20_000; i++) {
+      double x = -1.5 + random.nextDouble() * 6;
+      double y = -1.5 + random.nextDouble() * 3.5;
+      boolean expected = Geometries.contains(coordinates, x, y);
+      assertEquals(expected, prepared.contains(x, y), "point " + x + ", " + y);
+      inside += expected ? 1 : 0;
+    }
+    assertTrue(inside > 1000);
+  }
+
+  /**
+   * This tests the centre of the hole, a point in the ring around it, the second polygon, and
+   * points above and below every polygon
+   */
+  @Test
+  public void testHolesAndMultiPolygons() {
+    double[] xs = {0, 10, 10, 0, 0, 3, 7, 7, 3, 3, 20, 21, 21, 20};
+    double[] ys = {0, 0, 10, 10, 0, 3, 3, 7, 7, 3, 0, 0, 1, 0};
+    PreparedGeometry prepared = PreparedGeometry.of(new PackedCoordinates(xs, ys,
+        new int[] {0, 5, 10, 14}, new int[] {0, 2, 3}, true));
+
+    assertFalse(prepared.contains(5, 5));
+    assertTrue(prepared.contains(1, 5));
+    assertTrue(prepared.contains(20.9, 0.5));
+    assertFalse(prepared.contains(5, 11));
+    assertFalse(prepared.contains(5, -1));
+  }
+
+  /**
+   * Adds a closed ring with the given number of vertices at random distances around a centre.
+   */
+  private static void star(PackedCoordinates.Builder builder, Random random, double x, double y,
+      double radius, int vertices) {
+    builder.startRing();
+    double firstX = 0;
+    double firstY = 0;
+    for (int i = 0; i < vertices; i++) {
+      double angle = 2 * Math.PI * i / vertices;
+      double distance = radius * (0.6 + 0.4 * random.nextDouble());
+      double vx = x + distance * Math.cos(angle);
+      double vy = y + distance * Math.sin(angle);
+      if (i == 0) {
+        firstX = vx;
+        firstY = vy;
+      }
+      builder.addVertex(vx, vy);
+    }
+    builder.addVertex(firstX, firstY);
+  }
+}
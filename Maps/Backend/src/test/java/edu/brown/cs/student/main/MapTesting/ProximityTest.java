@@ -0,0 +1,131 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.data.Proximity;
+import edu.brown.cs.student.main.maps.geometry.Haversine;
+import edu.brown.cs.student.main.maps.geometry.PreparedGeometry;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests great-circle distances, and that nearest-neighbour and radius queries return
+ * the same features in the same order as measuring every feature would, for every index kind.
+ */
+public class ProximityTest {
+
+  /**
+   * This tests point distances against known values and that the distance to a box is the
+   * smallest distance to any point on its edges
+   */
+  @Test
+  public void testHaversine() {
+    assertEquals(111.195, Haversine.distanceKm(0, 0, 1, 0), 0.001);
+    assertEquals(111.195 / 2, Haversine.distanceKm(60, 10, 60, 11), 0.05);
+    assertEquals(Haversine.MAX_DISTANCE_KM, Haversine.distanceKm(0, 0, 0, 180), 1e-6);
+    assertEquals(0, Haversine.distanceToBoxKm(41.8, -71.4, -72, 41, -71, 42));
+
+    Random random = new Random(12);
+    for (int trial = 0; trial < 200; trial++) {
+      double[] box = SyntheticFeatures.box(random, 3);
+      double lat = -60 + 120 * random.nextDouble();
+      double lon = -180 + 360 * random.nextDouble();
+      double bound = Haversine.distanceToBoxKm(lat, lon, box[0], box[1], box[2], box[3]);
+      double sampled = Double.POSITIVE_INFINITY;
+      for (int step = 0; step <= 2000; step++) {
+        double t = step / 2000.0;
+        double x = box[0] + t * (box[2] - box[0]);
+        double y = box[1] + t * (box[3] - box[1]);
+        sampled = Math.min(sampled, Haversine.distanceKm(lat, lon, box[1], x));
+        sampled = Math.min(sampled, Haversine.distanceKm(lat, lon, box[3], x));
+        sampled = Math.min(sampled, Haversine.distanceKm(lat, lon, y, box[0]));
+        sampled = Math.min(sampled, Haversine.distanceKm(lat, lon, y, box[2]));
+      }
+      assertTrue(bound <= sampled + 1e-6);
+      assertEquals(sampled, bound, 0.5);
+    }
+  }
+
+  /**
+   * This tests that a point inside a polygon is at distance 0, a point in its hole is measured
+   * to the hole's edge, and a point outside is measured to the nearest edge
+   */
+  @Test
+  public void testDistanceToPolygon() {
+    MapsDataset dataset = MapsDataset.of(new FeatureStore("FeatureCollection",
+        List.of(SyntheticFeatures.square(0, 0, 1, 0.5))), 1, "test");
+
+    assertEquals(0, nearestDistance(dataset, 0.7, 0.7));
+    assertEquals(Haversine.distanceKm(0, 0, 0.5, 0), nearestDistance(dataset, 0, 0), 0.002);
+    assertEquals(Haversine.distanceKm(0, 1.5, 0, 1), nearestDistance(dataset, 0, 1.5), 0.002);
+    assertEquals(Haversine.distanceKm(2, 0, 1, 0), nearestDistance(dataset, 2, 0), 0.002);
+  }
+
+  /**
+   * This tests that k-nearest and radius results match a brute force over every feature, in
+   * distance order, for every kind of spatial index
+   */
+  @Test
+  public void testMatchesBruteForce() {
+    Random random = new Random(3);
+    List<Feature> features = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      double[] box = SyntheticFeatures.box(random, 0.5);
+      features.add(SyntheticFeatures.square((box[1] + box[3]) / 2, (box[0] + box[2]) / 2,
+          (box[2] - box[0]) / 2, random.nextBoolean() ? 0.4 : 0));
+    }
+    FeatureStore store = new FeatureStore("FeatureCollection", features);
+
+    for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+      MapsDataset dataset = MapsDataset.of(store, 1, "test", kind);
+      Random queries = new Random(8);
+      for (int trial = 0; trial < 30; trial++) {
+        double lat = 20 + 35 * queries.nextDouble();
+        double lon = -130 + 70 * queries.nextDouble();
+        double[] expected = bruteForce(dataset, lat, lon);
+
+        List<Feature> nearest = Proximity.nearest(dataset, lat, lon, 15);
+        assertEquals(15, nearest.size(), kind.toString());
+        for (int i = 0; i < nearest.size(); i++) {
+          assertEquals(expected[i], nearest.get(i).distance_km, 0.0015, kind.toString());
+        }
+
+        double radius = 50 + 300 * queries.nextDouble();
+        List<Feature> within = Proximity.within(dataset, lat, lon, radius);
+        long inRadius = Arrays.stream(expected).filter(distance -> distance <= radius).count();
+        assertEquals(inRadius, within.size(), kind.toString());
+        for (int i = 1; i < within.size(); i++) {
+          assertTrue(within.get(i - 1).distance_km <= within.get(i).distance_km);
+        }
+      }
+      assertEquals(0, Proximity.within(dataset, 0, 0, 10).size());
+      assertEquals(features.size(), Proximity.nearest(dataset, 0, 0, 5000).size());
+    }
+  }
+
+  private static double nearestDistance(MapsDataset dataset, double lat, double lon) {
+    return Proximity.nearest(dataset, lat, lon, 1).get(0).distance_km;
+  }
+
+  /**
+   * Measures every feature the obvious way and sorts the distances.
+   */
+  private static double[] bruteForce(MapsDataset dataset, double lat, double lon) {
+    List<Feature> features = dataset.getStore().getFeatures();
+    double[] distances = new double[features.size()];
+    for (int id = 0; id < features.size(); id++) {
+      PreparedGeometry prepared = dataset.getPreparedGeometry(id);
+      distances[id] = prepared.contains(lon, lat) ? 0
+          : Haversine.distanceToEdgesKm(features.get(id).geometry.coordinates, lat, lon);
+    }
+    Arrays.sort(distances);
+    return distances;
+  }
+}
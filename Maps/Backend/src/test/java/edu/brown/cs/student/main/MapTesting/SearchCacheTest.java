@@ -0,0 +1,99 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.index.SearchCache;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the bounding box search cache answers exactly what the spatial index
+ * does, that boxes inside a recent search are answered from it, and that it stays in its budget.
+ */
+public class SearchCacheTest {
+
+  /**
+   * This tests a map panning and zooming around the city: every answer matches the index, and
+   * most of them come from the cache
+   */
+  @Test
+  public void testPanAndZoomMatchesIndex() {
+    Envelopes envelopes = SyntheticFeatures.envelopes(5000, 11, SyntheticFeatures.CITY, 0.01);
+    SpatialIndex index = SpatialIndex.Kind.RTREE.build(envelopes);
+    SearchCache cache = new SearchCache(index, envelopes, SearchCache.DEFAULT_BUDGET_BYTES);
+    Random random = new Random(5);
+    double[] view = {-71.45, 41.8, -71.43, 41.82};
+    for (int step = 0; step < 500; step++) {
+      double width = view[2] - view[0];
+      double height = view[3] - view[1];
+      if (random.nextInt(4) == 0) {
+        // zoom in or out around the center
+        double scale = random.nextBoolean() ? 0.5 : 2;
+        double centerX = view[0] + width / 2;
+        double centerY = view[1] + height / 2;
+        view = new double[] {centerX - width * scale / 2, centerY - height * scale / 2,
+            centerX + width * scale / 2, centerY + height * scale / 2};
+      } else {
+        // pan by up to a fifth of the view
+        double dx = (random.nextDouble() - 0.5) * width * 0.4;
+        double dy = (random.nextDouble() - 0.5) * height * 0.4;
+        view = new double[] {view[0] + dx, view[1] + dy, view[2] + dx, view[3] + dy};
+      }
+      assertArrayEquals(index.search(view[0], view[1], view[2], view[3]),
+          cache.search(view[0], view[1], view[2], view[3]), "view " + Arrays.toString(view));
+    }
+    assertEquals(500, cache.hits() + cache.misses());
+    assertTrue(cache.hits() > cache.misses(), cache.hits() + " hits");
+  }
+
+  /**
+   * This tests that a box inside a cached one is a hit unless it is much smaller, that touching
+   * still counts, and that an inverted box finds nothing without being cached
+   */
+  @Test
+  public void testSubBoxesAndEdges() {
+    Envelopes envelopes = new Envelopes(new double[] {0, 2, 10}, new double[] {0, 2, 10},
+        new double[] {1, 3, 11}, new double[] {1, 3, 11});
+    SearchCache cache = new SearchCache(SpatialIndex.Kind.RTREE.build(envelopes), envelopes,
+        SearchCache.DEFAULT_BUDGET_BYTES);
+
+    assertArrayEquals(new int[] {0, 1}, cache.search(0, 0, 4, 4));
+    assertArrayEquals(new int[] {0, 1}, cache.search(0.5, 0.5, 3.5, 3.5));
+    assertArrayEquals(new int[] {0, 1}, cache.search(1, 1, 2, 3.5));
+    assertArrayEquals(new int[] {0}, cache.search(1, 1, 1.9, 3.5));
+    assertEquals(1, cache.misses());
+    assertEquals(3, cache.hits());
+
+    // far smaller than the cached box, so it gets a box of its own
+    assertArrayEquals(new int[0], cache.search(1.5, 1.5, 1.6, 1.6));
+    assertEquals(2, cache.misses());
+    assertEquals(2, cache.size());
+
+    assertArrayEquals(new int[0], cache.search(4, 4, 0, 0));
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * This tests that least recently used boxes are evicted to stay within the byte budget
+   */
+  @Test
+  public void testEvictsWithinBudget() {
+    Envelopes envelopes = SyntheticFeatures.envelopes(20000, 3);
+    SpatialIndex index = SpatialIndex.Kind.RTREE.build(envelopes);
+    long budget = 64 * 1024;
+    SearchCache cache = new SearchCache(index, envelopes, budget);
+    Random random = new Random(9);
+    for (int query = 0; query < 300; query++) {
+      double[] box = SyntheticFeatures.box(random, SyntheticFeatures.NATIONWIDE, 2);
+      assertArrayEquals(index.search(box[0], box[1], box[2], box[3]),
+          cache.search(box[0], box[1], box[2], box[3]));
+      assertTrue(cache.bytes() <= budget, cache.bytes() + " bytes");
+      assertTrue(cache.size() <= SearchCache.MAX_ENTRIES);
+    }
+    assertTrue(cache.evictions() > 0);
+  }
+}
@@ -0,0 +1,176 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.SearchHistory;
+import edu.brown.cs.student.main.maps.data.SearchHistory.Search;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the search history gives back exactly the ids it was given, refreshes
+ * repeated searches, and stays within its entry limit, byte budget and time to live, also when
+ * many threads record at once.
+ */
+public class SearchHistoryTest {
+
+  /**
+   * This tests that dense and sparse results come back unchanged, and that the same search is
+   * only kept once per dataset version
+   */
+  @Test
+  public void testRecordAndGet() {
+    SearchHistory history = new SearchHistory();
+    int[] dense = IntStream.range(0, 1000).filter(id -> id % 3 != 0).toArray();
+    int[] sparse = {5, 100_000, 2_000_000};
+    long denseId = history.record("v1", "Boston", "substring", dense);
+    long sparseId = history.record("v1", "Providence", "word", sparse);
+    long emptyId = history.record("v1", "nowhere", "substring", new int[0]);
+
+    Search search = history.get(denseId);
+    assertArrayEquals(dense, search.getIds());
+    assertEquals("Boston", search.getArea());
+    assertEquals("substring", search.getMatch());
+    assertEquals("v1", search.getVersion());
+    assertEquals(dense.length, search.getCount());
+    assertArrayEquals(sparse, history.get(sparseId).getIds());
+    assertArrayEquals(new int[0], history.get(emptyId).getIds());
+    // the sparse result would take 250 KB as a bitset
+    assertTrue(history.bytes() < 10_000);
+
+    assertEquals(denseId, history.record("v1", "Boston", "substring", dense));
+    assertNotEquals(denseId, history.record("v2", "Boston", "substring", dense));
+    assertNotEquals(denseId, history.record("v1", "Boston", "word", dense));
+    assertEquals(5, history.size());
+    assertNull(history.get(12345));
+  }
+
+  /**
+   * This tests that the least recently used searches go first when there are too many, or
+   * when their ids take too much memory
+   */
+  @Test
+  public void testEviction() {
+    SearchHistory history = new SearchHistory(3, 1 << 20, Duration.ofHours(1), new Tick());
+    long first = history.record("v", "a", "substring", new int[] {1});
+    long second = history.record("v", "b", "substring", new int[] {2});
+    history.record("v", "c", "substring", new int[] {3});
+    history.get(first);
+    history.record("v", "d", "substring", new int[] {4});
+    assertNull(history.get(second));
+    assertNotNull(history.get(first));
+    assertEquals(3, history.size());
+    assertEquals(List.of("a", "d", "c"),
+        history.recent().stream().map(Search::getArea).toList());
+
+    SearchHistory small = new SearchHistory(100, 2048, Duration.ofHours(1), new Tick());
+    int[] big = IntStream.range(0, 8000).toArray();
+    long kept = small.record("v", "x", "substring", new int[] {1});
+    small.record("v", "y", "substring", big);
+    small.record("v", "z", "substring", big);
+    assertTrue(small.bytes() <= 2048);
+    assertNull(small.get(kept));
+  }
+
+  /**
+   * This tests that a search heavier than the whole budget isn't kept and pushes nothing out,
+   * and that a search looked up since it was recorded outlives older ones that weren't
+   */
+  @Test
+  public void testTooLargeAndUsedSearches() {
+    SearchHistory history = new SearchHistory(3, 2048, Duration.ofHours(1), new Tick());
+    long first = history.record("v", "a", "substring", new int[] {1});
+    long second = history.record("v", "b", "substring", new int[] {2});
+    int[] huge = IntStream.range(0, 2000).map(id -> id * 1000).toArray();
+    assertEquals(SearchHistory.NOT_KEPT,
+        history.record("v", "huge", "substring", huge));
+    assertEquals(2, history.size());
+    assertNotNull(history.get(first));
+    assertNotNull(history.get(second));
+
+    long third = history.record("v", "c", "substring", new int[] {3});
+    history.get(first);
+    history.record("v", "d", "substring", new int[] {4});
+    history.record("v", "e", "substring", new int[] {5});
+    assertNull(history.get(second));
+    assertNull(history.get(third));
+    assertEquals(List.of("e", "d", "a"),
+        history.recent().stream().map(Search::getArea).toList());
+  }
+
+  /**
+   * This tests that a search not used for longer than the time to live is gone, and that using
+   * it keeps it alive
+   */
+  @Test
+  public void testTimeToLive() {
+    AtomicLong now = new AtomicLong();
+    SearchHistory history = new SearchHistory(100, 1 << 20, Duration.ofNanos(100), now::get);
+    long used = history.record("v", "a", "substring", new int[] {1});
+    long unused = history.record("v", "b", "substring", new int[] {2});
+    now.set(80);
+    assertNotNull(history.get(used));
+    now.set(150);
+    assertNotNull(history.get(used));
+    assertNull(history.get(unused));
+    assertEquals(1, history.recent().size());
+    // an expired search is searched again rather than refreshed
+    assertNotEquals(unused, history.record("v", "b", "substring", new int[] {2}));
+    assertEquals(2, history.size());
+  }
+
+  /**
+   * This tests that many threads recording and replaying at once never break the limits or
+   * give back another search's ids
+   * @throws InterruptedException
+   */
+  @Test
+  public void testConcurrentUse() throws InterruptedException {
+    SearchHistory history = new SearchHistory(64, 1 << 20, Duration.ofHours(1), System::nanoTime);
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    AtomicInteger wrong = new AtomicInteger();
+    for (int thread = 0; thread < 8; thread++) {
+      threads.execute(() -> {
+        for (int i = 0; i < 5000; i++) {
+          // ids this high are kept as arrays, so every search takes the same memory
+          int key = 1000 + i % 200;
+          long id = history.record("v", Integer.toString(key), "substring", new int[] {key});
+          Search search = history.get(id);
+          if (search != null && search.getIds()[0] != key) {
+            wrong.incrementAndGet();
+          }
+
+        }
+      });
+    }
+    threads.shutdown();
+    assertTrue(threads.awaitTermination(1, TimeUnit.MINUTES));
+    assertEquals(0, wrong.get());
+    assertTrue(history.size() <= 64);
+    assertEquals(history.size() * (Integer.BYTES + 256L), history.bytes());
+  }
+
+  /**
+   * A clock that moves on by one for every reading, so each use is later than the last.
+   */
+  private static final class Tick implements LongSupplier {
+    private long now;
+
+    @Override
+    public long getAsLong() {
+      return ++this.now;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.SnapshotCompiler;
+import edu.brown.cs.student.main.maps.data.SnapshotLoader;
+import edu.brown.cs.student.main.maps.json.JsonParsing;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a dataset compiled into a binary snapshot loads back into exactly the
+ * same features as the GeoJSON it came from.
+ */
+public class SnapshotTest {
+  private static final String COLLECTION = "{\"type\":\"FeatureCollection\",\"features\":["
+      + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\",\"coordinates\":"
+      + "[[[[-71.5,41.8],[-71.4,41.8],[-71.4,41.9],[-71.5,41.8]],[[-71.46,41.84],[-71.44,41.84],"
+      + "[-71.44,41.86],[-71.46,41.84]]],[[[-70.0,40.0],[-69.0,40.0],[-69.0,41.0],[-70.0,40.0]]]]},"
+      + "\"properties\":{\"name\":\"Providence\",\"holc_grade\":\"A\",\"area_description_data\":"
+      + "{\"5\":\"sparsely settled \u00e9\",\"1\":\"quiet homes\"}}},"
+      + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+      + "[[[0.5,0.5],[1.5,0.5],[1.5,1.5],[0.5,0.5]]]},\"properties\":{\"name\":null,"
+      + "\"holc_grade\":\"D\",\"area_description_data\":null}},null,"
+      + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":null}]}";
+  private Path json;
+  private Path snapshot;
+
+  /**
+   * Writes the GeoJSON to a temporary file and compiles it before each test
+   * @throws IOException
+   */
+  @BeforeEach
+  public void setup() throws IOException {
+    this.json = Files.createTempFile("features", ".json");
+    this.snapshot = Files.createTempFile("features", ".snapshot");
+    Files.writeString(this.json, COLLECTION);
+    SnapshotCompiler.compile(FeatureStore.fromFile(this.json), this.snapshot);
+  }
+
+  /**
+   * Removes the temporary files
+   * @throws IOException
+   */
+  @AfterEach
+  public void teardown() throws IOException {
+    Files.deleteIfExists(this.json);
+    Files.deleteIfExists(this.snapshot);
+  }
+
+  /**
+   * This tests that the snapshot serializes to the same JSON as the original file, including
+   * holes, plain Polygons, nulls, null features and description order, and has the same
+   * envelopes
+   * @throws Exception
+   */
+  @Test
+  public void testSnapshotMatchesGeoJson() throws Exception {
+    FeatureStore parsed = FeatureStore.fromFile(this.json);
+    FeatureStore mapped = FeatureStore.load(this.snapshot);
+
+    assertEquals(JsonParsing.toJsonGeneral(parsed.collectionOf(parsed.getFeatures())),
+        JsonParsing.toJsonGeneral(mapped.collectionOf(mapped.getFeatures())));
+    assertEquals(parsed.getType(), mapped.getType());
+    assertNull(mapped.getFeatures().get(2));
+    for (int id = 0; id < parsed.getFeatures().size(); id++) {
+      assertEquals(parsed.getEnvelopes().minX(id), mapped.getEnvelopes().minX(id));
+      assertEquals(parsed.getEnvelopes().minY(id), mapped.getEnvelopes().minY(id));
+      assertEquals(parsed.getEnvelopes().maxX(id), mapped.getEnvelopes().maxX(id));
+      assertEquals(parsed.getEnvelopes().maxY(id), mapped.getEnvelopes().maxY(id));
+    }
+  }
+
+  /**
+   * This tests that files are told apart by their content and that other files are refused
+   * @throws IOException
+   */
+  @Test
+  public void testSnapshotDetection() throws IOException {
+    assertTrue(SnapshotLoader.isSnapshot(this.snapshot));
+    assertFalse(SnapshotLoader.isSnapshot(this.json));
+    assertThrows(IOException.class, () -> SnapshotLoader.load(this.json));
+  }
+}
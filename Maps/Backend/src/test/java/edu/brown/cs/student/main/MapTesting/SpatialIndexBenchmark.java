@@ -0,0 +1,228 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.geometry.Haversine;
+import edu.brown.cs.student.main.maps.index.SearchCache;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares bounding box candidate lookup by linear scan and by each spatial index on synthetic
+ * datasets of 10k, 100k and 1M features, both spread nationwide and packed into one city, and
+ * reports build time, memory and query latency, then times 10-nearest queries (measuring each
+ * feature as its envelope) against a scan-and-sort, and a map panning and zooming around the city
+ * with and without the search cache. This isn't a unit test; run it by hand with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=edu.brown.cs.student.main.MapTesting.SpatialIndexBenchmark}
+ * or straight from an IDE.
+ */
+public final class SpatialIndexBenchmark {
+  private static final int QUERIES = 200;
+
+  private SpatialIndexBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark and prints one table row per workload, dataset size and index.
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    run("nationwide", SyntheticFeatures.NATIONWIDE, 0.05, new double[] {0.1, 1, 5});
+    run("city", SyntheticFeatures.CITY, 0.002, new double[] {0.005, 0.02});
+    runNearest(10);
+    runPanAndZoom();
+  }
+
+  private static void runPanAndZoom() {
+    System.out.printf("%npan and zoom, city%n%9s %8s %10s %6s%n", "features", "search", "us/query",
+        "hits");
+    double[][] views = panAndZoom(QUERIES * 10);
+    for (int count : new int[] {10_000, 100_000, 1_000_000}) {
+      Envelopes envelopes = SyntheticFeatures.envelopes(count, 42, SyntheticFeatures.CITY,
+          0.002);
+      SpatialIndex index = SpatialIndex.Kind.RTREE.build(envelopes);
+      query(index, views);
+      long start = System.nanoTime();
+      long hits = query(index, views);
+      System.out.printf("%9d %8s %10.1f %6s%n", count, "rtree",
+          (System.nanoTime() - start) / 1e3 / views.length, "-");
+      // a warm-up cache, then a fresh one for the timed run, as after a reload
+      search(new SearchCache(index, envelopes, SearchCache.DEFAULT_BUDGET_BYTES), views);
+      SearchCache cache = new SearchCache(index, envelopes, SearchCache.DEFAULT_BUDGET_BYTES);
+      start = System.nanoTime();
+      if (search(cache, views) != hits) {
+        throw new IllegalStateException("the search cache disagrees with the index");
+      }
+      System.out.printf("%9d %8s %10.1f %5.0f%%%n", count, "cached",
+          (System.nanoTime() - start) / 1e3 / views.length,
+          100.0 * cache.hits() / views.length);
+    }
+  }
+
+  /**
+   * A map view that moves around the city, panning by up to a fifth of its size three times out
+   * of four and otherwise zooming in or out by a factor of two.
+   */
+  private static double[][] panAndZoom(int steps) {
+    Random random = new Random(3);
+    double[][] views = new double[steps][];
+    double[] view = {-71.45, 41.8, -71.43, 41.82};
+    for (int step = 0; step < steps; step++) {
+      double width = view[2] - view[0];
+      double height = view[3] - view[1];
+      double centerX = view[0] + width / 2;
+      double centerY = view[1] + height / 2;
+      if (random.nextInt(4) == 0) {
+        double scale = width > 0.05 || (width > 0.005 && random.nextBoolean()) ? 0.5 : 2;
+        width *= scale;
+        height *= scale;
+      } else {
+        centerX += (random.nextDouble() - 0.5) * width * 0.4;
+        centerY += (random.nextDouble() - 0.5) * height * 0.4;
+      }
+      // stay over the city
+      centerX = Math.max(SyntheticFeatures.CITY[0], Math.min(SyntheticFeatures.CITY[2], centerX));
+      centerY = Math.max(SyntheticFeatures.CITY[1], Math.min(SyntheticFeatures.CITY[3], centerY));
+      view = new double[] {centerX - width / 2, centerY - height / 2, centerX + width / 2,
+          centerY + height / 2};
+      views[step] = view;
+    }
+    return views;
+  }
+
+  private static long search(SearchCache cache, double[][] boxes) {
+    long hits = 0;
+    for (double[] box : boxes) {
+      hits += cache.search(box[0], box[1], box[2], box[3]).length;
+    }
+    return hits;
+  }
+
+  private static void runNearest(int k) {
+    System.out.printf("%n%d-nearest, nationwide%n%9s %8s %10s%n", k, "features", "index",
+        "us/query");
+    for (int count : new int[] {10_000, 100_000, 1_000_000}) {
+      Envelopes envelopes = SyntheticFeatures.envelopes(count, 42, SyntheticFeatures.NATIONWIDE,
+          0.05);
+      double[][] points = boxes(SyntheticFeatures.NATIONWIDE, 0);
+      double[] expected = new double[QUERIES];
+      scanNearest(envelopes, points, k, expected);
+      long start = System.nanoTime();
+      scanNearest(envelopes, points, k, expected);
+      System.out.printf("%9d %8s %10.1f%n", count, "scan",
+          (System.nanoTime() - start) / 1e3 / QUERIES);
+      for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+        SpatialIndex index = kind.build(envelopes);
+        double[] found = new double[QUERIES];
+        nearest(index, envelopes, points, k, found);
+        start = System.nanoTime();
+        nearest(index, envelopes, points, k, found);
+        double micros = (System.nanoTime() - start) / 1e3 / QUERIES;
+        if (!Arrays.equals(expected, found)) {
+          throw new IllegalStateException(kind + " disagrees with the scan");
+        }
+        System.out.printf("%9d %8s %10.1f%n", count, kind, micros);
+      }
+    }
+  }
+
+  /**
+   * Measures every feature and sorts, recording the distance of the kth nearest per query.
+   */
+  private static void scanNearest(Envelopes envelopes, double[][] points, int k,
+      double[] kthDistance) {
+    double[] distances = new double[envelopes.size()];
+    for (int query = 0; query < points.length; query++) {
+      for (int id = 0; id < envelopes.size(); id++) {
+        distances[id] = boxDistance(envelopes, id, points[query]);
+      }
+      Arrays.sort(distances);
+      kthDistance[query] = distances[k - 1];
+    }
+  }
+
+  private static void nearest(SpatialIndex index, Envelopes envelopes, double[][] points, int k,
+      double[] kthDistance) {
+    for (int query = 0; query < points.length; query++) {
+      double[] point = points[query];
+      int[] seen = {0};
+      int current = query;
+      index.nearest(point[1], point[0], Double.POSITIVE_INFINITY,
+          id -> boxDistance(envelopes, id, point), (id, distanceKm) -> {
+            kthDistance[current] = distanceKm;
+            return ++seen[0] < k;
+          });
+    }
+  }
+
+  private static double boxDistance(Envelopes envelopes, int id, double[] point) {
+    return Haversine.distanceToBoxKm(point[1], point[0], envelopes.minX(id), envelopes.minY(id),
+        envelopes.maxX(id), envelopes.maxY(id));
+  }
+
+  private static void run(String workload, double[] region, double featureSize,
+      double[] boxSizes) {
+    System.out.printf("%n%s%n%9s %8s %8s %9s %6s %10s %9s%n", workload, "features", "index",
+        "build ms", "memory MB", "box", "us/query", "hits/q");
+    for (int count : new int[] {10_000, 100_000, 1_000_000}) {
+      Envelopes envelopes = SyntheticFeatures.envelopes(count, 42, region, featureSize);
+      for (double size : boxSizes) {
+        double[][] boxes = boxes(region, size);
+        scan(envelopes, boxes);
+        long start = System.nanoTime();
+        long hits = scan(envelopes, boxes);
+        System.out.printf("%9d %8s %8s %9s %6.3f %10.1f %9.1f%n", count, "scan", "-", "-", size,
+            (System.nanoTime() - start) / 1e3 / QUERIES, (double) hits / QUERIES);
+      }
+      for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+        kind.build(envelopes);
+        long start = System.nanoTime();
+        SpatialIndex index = kind.build(envelopes);
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        for (double size : boxSizes) {
+          double[][] boxes = boxes(region, size);
+          // warm up before timing
+          query(index, boxes);
+          start = System.nanoTime();
+          long hits = query(index, boxes);
+          double micros = (System.nanoTime() - start) / 1e3 / QUERIES;
+          if (hits != scan(envelopes, boxes)) {
+            throw new IllegalStateException(kind + " disagrees with the scan");
+          }
+          System.out.printf("%9d %8s %8.1f %9.1f %6.3f %10.1f %9.1f%n", count, kind,
+              buildMillis, index.memoryBytes() / 1e6, size, micros, (double) hits / QUERIES);
+        }
+      }
+    }
+  }
+
+  private static double[][] boxes(double[] region, double size) {
+    Random random = new Random(1);
+    double[][] boxes = new double[QUERIES][];
+    for (int query = 0; query < QUERIES; query++) {
+      boxes[query] = SyntheticFeatures.box(random, region, size);
+    }
+    return boxes;
+  }
+
+  private static long scan(Envelopes envelopes, double[][] boxes) {
+    long hits = 0;
+    for (double[] box : boxes) {
+      for (int id = 0; id < envelopes.size(); id++) {
+        if (envelopes.intersects(id, box[0], box[1], box[2], box[3])) {
+          hits++;
+        }
+      }
+    }
+    return hits;
+  }
+
+  private static long query(SpatialIndex index, double[][] boxes) {
+    long hits = 0;
+    for (double[] box : boxes) {
+      hits += index.search(box[0], box[1], box[2], box[3]).length;
+    }
+    return hits;
+  }
+}
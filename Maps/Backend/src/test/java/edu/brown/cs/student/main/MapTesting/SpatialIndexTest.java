@@ -0,0 +1,93 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.index.RTree;
+import edu.brown.cs.student.main.maps.index.SpatialIndex;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that every spatial index implementation finds exactly the envelopes a
+ * brute-force scan finds, whatever the size or spread of the data and of the query box.
+ */
+public class SpatialIndexTest {
+
+  /**
+   * This tests many random boxes of different sizes against a linear scan, on nationwide data of
+   * several sizes (including R-trees with one level, a few levels, and a partly filled last node)
+   * and on dense city data
+   */
+  @Test
+  public void testMatchesBruteForce() {
+    for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+      Random random = new Random(7);
+      for (int count : new int[] {1, 15, 16, 17, 300, 5000}) {
+        Envelopes envelopes = SyntheticFeatures.envelopes(count, count);
+        SpatialIndex index = kind.build(envelopes);
+        for (int query = 0; query < 200; query++) {
+          double[] box = SyntheticFeatures.box(random, random.nextDouble() * 10);
+          assertArrayEquals(bruteForce(envelopes, box), index.search(box[0], box[1], box[2],
+              box[3]), kind + ", " + count + " features, box " + Arrays.toString(box));
+        }
+        assertArrayEquals(bruteForce(envelopes, new double[] {-180, -90, 180, 90}),
+            index.search(-180, -90, 180, 90), kind + ", " + count + " features, whole world");
+      }
+
+      Envelopes city = SyntheticFeatures.envelopes(3000, 3, SyntheticFeatures.CITY, 0.01);
+      SpatialIndex index = kind.build(city);
+      for (int query = 0; query < 200; query++) {
+        double[] box = SyntheticFeatures.box(random, SyntheticFeatures.CITY,
+            random.nextDouble() * 0.2);
+        assertArrayEquals(bruteForce(city, box), index.search(box[0], box[1], box[2], box[3]),
+            kind + ", city, box " + Arrays.toString(box));
+      }
+    }
+  }
+
+  /**
+   * This tests that empty envelopes are left out, that an empty index finds nothing, and that
+   * a box touching an envelope's edge counts as overlapping it
+   */
+  @Test
+  public void testEdgeCases() {
+    Envelopes envelopes = new Envelopes(new double[] {0, Double.NaN, 2},
+        new double[] {0, Double.NaN, 2}, new double[] {1, Double.NaN, 3},
+        new double[] {1, Double.NaN, 3});
+    Envelopes none = new Envelopes(new double[0], new double[0], new double[0], new double[0]);
+    for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+      SpatialIndex index = kind.build(envelopes);
+      assertEquals(kind, index.kind());
+      assertEquals(2, index.size());
+      assertArrayEquals(new int[] {0, 2}, index.search(-10, -10, 10, 10));
+      assertArrayEquals(new int[] {0, 2}, index.search(1, 1, 2, 2));
+      assertArrayEquals(new int[0], index.search(1.5, 1.5, 1.9, 1.9));
+      assertArrayEquals(new int[0], kind.build(none).search(-180, -90, 180, 90));
+    }
+
+    RTree small = new RTree(envelopes, 2);
+    assertEquals(1, small.height());
+    assertTrue(new RTree(SyntheticFeatures.envelopes(10_000, 1)).height() <= 4);
+  }
+
+  /**
+   * This tests that index kinds are picked by name, as the maps.index property does
+   */
+  @Test
+  public void testParseKind() {
+    assertEquals(SpatialIndex.Kind.GEOHASH, SpatialIndex.Kind.parse(" GeoHash"));
+    assertEquals("grid", SpatialIndex.Kind.GRID.toString());
+    assertThrows(IllegalArgumentException.class, () -> SpatialIndex.Kind.parse("quadtree"));
+  }
+
+  private static int[] bruteForce(Envelopes envelopes, double[] box) {
+    return IntStream.range(0, envelopes.size())
+        .filter(id -> envelopes.intersects(id, box[0], box[1], box[2], box[3]))
+        .toArray();
+  }
+}
@@ -0,0 +1,213 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import edu.brown.cs.student.main.maps.data.Envelopes;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Feature;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Geometry;
+import edu.brown.cs.student.main.maps.json.GeoJsonCollection.Properties;
+import edu.brown.cs.student.main.maps.json.PackedCoordinates;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random feature envelopes and query boxes for spatial index tests and benchmarks,
+ * either spread over the continental US like the full redlining dataset or packed into one city,
+ * and small square features with random grades and descriptions for handler tests, along with
+ * the checks those tests compare the handlers against.
+ */
+public final class SyntheticFeatures {
+  /**
+   * The continental US, as {west, south, east, north}.
+   */
+  public static final double[] NATIONWIDE = {-125, 25, -67, 49};
+
+  /**
+   * Roughly the area of Providence, as {west, south, east, north}.
+   */
+  public static final double[] CITY = {-71.5, 41.75, -71.35, 41.87};
+
+  /**
+   * The HOLC grades, best first.
+   */
+  public static final String[] GRADES = {"A", "B", "C", "D"};
+
+  private SyntheticFeatures() {
+  }
+
+  /**
+   * Makes envelopes of small neighborhood-sized boxes spread over the US.
+   * @param count number of envelopes
+   * @param seed random seed, so runs are repeatable
+   * @return the envelopes
+   */
+  public static Envelopes envelopes(int count, long seed) {
+    return envelopes(count, seed, NATIONWIDE, 0.05);
+  }
+
+  /**
+   * Makes envelopes of random boxes inside a region; roughly one in fifty is left empty, like a
+   * feature without geometry.
+   * @param count number of envelopes
+   * @param seed random seed, so runs are repeatable
+   * @param region area the boxes start in, as {west, south, east, north}
+   * @param maxSize largest width and height of a box in degrees
+   * @return the envelopes
+   */
+  public static Envelopes envelopes(int count, long seed, double[] region, double maxSize) {
+    Random random = new Random(seed);
+    double[] minX = new double[count];
+    double[] minY = new double[count];
+    double[] maxX = new double[count];
+    double[] maxY = new double[count];
+    for (int id = 0; id < count; id++) {
+      if (random.nextInt(50) == 0) {
+        minX[id] = Double.NaN;
+        minY[id] = Double.NaN;
+        maxX[id] = Double.NaN;
+        maxY[id] = Double.NaN;
+        continue;
+      }
+      minX[id] = region[0] + random.nextDouble() * (region[2] - region[0]);
+      minY[id] = region[1] + random.nextDouble() * (region[3] - region[1]);
+      maxX[id] = minX[id] + random.nextDouble() * maxSize;
+      maxY[id] = minY[id] + random.nextDouble() * maxSize;
+    }
+    return new Envelopes(minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Makes a random query box inside the US.
+   * @param random source of randomness
+   * @param size width and height of the box in degrees
+   * @return the box as {minX, minY, maxX, maxY}
+   */
+  public static double[] box(Random random, double size) {
+    return box(random, NATIONWIDE, size);
+  }
+
+  /**
+   * Makes a random query box inside a region (or covering it, if size is larger than the region).
+   * @param random source of randomness
+   * @param region area to query, as {west, south, east, north}
+   * @param size width and height of the box in degrees
+   * @return the box as {minX, minY, maxX, maxY}
+   */
+  public static double[] box(Random random, double[] region, double size) {
+    double minX = region[0] + random.nextDouble() * Math.max(0, region[2] - region[0] - size);
+    double minY = region[1] + random.nextDouble() * Math.max(0, region[3] - region[1] - size);
+    return new double[] {minX, minY, minX + size, minY + size};
+  }
+
+  /**
+   * Makes a square polygon feature centred on a point, with empty properties.
+   * @param lat latitude of the centre
+   * @param lon longitude of the centre
+   * @param half half the width of the square in degrees
+   * @return the feature
+   */
+  public static Feature square(double lat, double lon, double half) {
+    return square(lat, lon, half, 0);
+  }
+
+  /**
+   * Makes a square polygon feature centred on a point, with a square hole of the given fraction
+   * of its size, and empty properties.
+   * @param lat latitude of the centre
+   * @param lon longitude of the centre
+   * @param half half the width of the square in degrees
+   * @param holeFraction size of the hole relative to the square, or 0 for no hole
+   * @return the feature
+   */
+  public static Feature square(double lat, double lon, double half, double holeFraction) {
+    double h = half * holeFraction;
+    double[] xs = {lon - half, lon + half, lon + half, lon - half, lon - half,
+        lon - h, lon - h, lon + h, lon + h, lon - h};
+    double[] ys = {lat - half, lat - half, lat + half, lat + half, lat - half,
+        lat - h, lat + h, lat + h, lat - h, lat - h};
+    int vertices = holeFraction > 0 ? 10 : 5;
+    int[] rings = holeFraction > 0 ? new int[] {0, 5, 10} : new int[] {0, 5};
+    Feature feature = new Feature();
+    feature.type = "Feature";
+    feature.geometry = new Geometry();
+    feature.geometry.type = "Polygon";
+    feature.geometry.coordinates = new PackedCoordinates(Arrays.copyOf(xs, vertices),
+        Arrays.copyOf(ys, vertices), rings, new int[] {0, rings.length - 1}, false);
+    feature.properties = new Properties();
+    return feature;
+  }
+
+  /**
+   * Makes squares centred between 41 and 42 degrees north and 72 and 71 degrees west, each named
+   * after its position in the list, with a random grade (one in eight has none) and an area
+   * description of random words.
+   * @param count number of squares
+   * @param seed random seed, so runs are repeatable
+   * @param half half the width of a square in degrees
+   * @param words the words descriptions are made of
+   * @param wordsPerArea how many words each description has
+   * @return the features
+   */
+  public static List<Feature> areas(int count, long seed, double half, String[] words,
+      int wordsPerArea) {
+    Random random = new Random(seed);
+    List<Feature> features = new ArrayList<>();
+    for (int id = 0; id < count; id++) {
+      Feature feature = square(41 + random.nextDouble(), -72 + random.nextDouble(), half);
+      feature.properties.name = Integer.toString(id);
+      feature.properties.holc_grade = random.nextInt(8) == 0 ? null : GRADES[random.nextInt(4)];
+      StringBuilder description = new StringBuilder();
+      for (int word = 0; word < wordsPerArea; word++) {
+        description.append(word > 0 ? " " : "").append(words[random.nextInt(words.length)]);
+      }
+      feature.properties.area_description_data = Map.of("1", description.toString());
+      features.add(feature);
+    }
+    return features;
+  }
+
+  /**
+   * @param feature a feature made by areas()
+   * @param text what to look for
+   * @return whether the feature's description contains the text
+   */
+  public static boolean describes(Feature feature, String text) {
+    return feature.properties.area_description_data.get("1").contains(text);
+  }
+
+  /**
+   * @param feature a feature
+   * @param grades the grades to look for; null stands for no grade
+   * @return whether the feature has one of the grades
+   */
+  public static boolean graded(Feature feature, String... grades) {
+    String grade = feature.properties.holc_grade;
+    for (String candidate : grades) {
+      if (candidate == null ? grade == null : candidate.equals(grade)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param feature a feature with geometry
+   * @param lowerLat lower latitude bound
+   * @param upperLat upper latitude bound
+   * @param lowerLong lower longitude bound
+   * @param upperLong upper longitude bound
+   * @return whether every vertex of the feature lies in the box
+   */
+  public static boolean inside(Feature feature, double lowerLat, double upperLat,
+      double lowerLong, double upperLong) {
+    PackedCoordinates coordinates = feature.geometry.coordinates;
+    for (int i = 0; i < coordinates.vertexCount(); i++) {
+      if (coordinates.y(i) < lowerLat || coordinates.y(i) > upperLat
+          || coordinates.x(i) < lowerLong || coordinates.x(i) > upperLong) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
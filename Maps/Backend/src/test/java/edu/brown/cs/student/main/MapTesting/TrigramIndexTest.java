@@ -0,0 +1,118 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import edu.brown.cs.student.main.maps.data.TrigramIndex;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the trigram index never rules out a text that contains the query, with
+ * every list kept and with most of them dropped to stay within a small budget.
+ */
+public class TrigramIndexTest {
+  private static final String[] WORDS = {"Industrial", "railroad", "homes", "quiet", "church",
+      "river", "mills", "school", "well-kept", "1930s", "\u00e9glise"};
+
+  /**
+   * This tests that the candidates of random substrings of words hold every text containing
+   * them, and that a trigram no text has rules out every text
+   */
+  @Test
+  public void testCandidatesHoldEveryMatch() {
+    Random random = new Random(7);
+    String[] texts = texts(random, 5000);
+    TrigramIndex full = TrigramIndex.of(texts, TrigramIndex.DEFAULT_BUDGET_BYTES);
+    TrigramIndex small = TrigramIndex.of(texts, 2048);
+    assertEquals(0, full.droppedCount());
+    assertTrue(small.droppedCount() > 0);
+    assertTrue(small.memoryBytes() <= 2048);
+
+    for (int query = 0; query < 300; query++) {
+      String word = WORDS[random.nextInt(WORDS.length)];
+      int start = random.nextInt(word.length() - 2);
+      String fragment = word.substring(start, start + 3 + random.nextInt(word.length() - start - 2));
+      int[] matches = bruteForce(texts, fragment);
+      assertContains(full.candidates(fragment), matches, fragment);
+      assertContains(small.candidates(fragment), matches, fragment);
+    }
+    assertArrayEquals(new int[0], full.candidates("zzz"));
+    assertArrayEquals(new int[0], small.candidates("railroad zzz"));
+  }
+
+  /**
+   * This tests that with a budget far below the full index, the lists that are encoded, which
+   * are the ones kept, fit in it, that they are the short ones, and that each trigram is either
+   * kept or dropped
+   */
+  @Test
+  public void testSmallBudgetEncodesOnlyKeptLists() {
+    String[] texts = texts(new Random(11), 20000);
+    texts[0] = "zebra crossing";
+    TrigramIndex full = TrigramIndex.of(texts, TrigramIndex.DEFAULT_BUDGET_BYTES);
+    for (long budget : new long[] {0, 500, 4096, full.memoryBytes() / 2}) {
+      TrigramIndex small = TrigramIndex.of(texts, budget);
+      assertTrue(small.memoryBytes() <= budget, "budget " + budget);
+      assertEquals(full.trigramCount(), small.trigramCount() + small.droppedCount());
+    }
+    // a word in one text has short lists and is kept; one in thousands of texts is dropped
+    TrigramIndex small = TrigramIndex.of(texts, 4096);
+    assertArrayEquals(new int[] {0}, small.candidates("zebra"));
+    assertNull(small.candidates("railroad"));
+    assertEquals(0, TrigramIndex.of(texts, 0).trigramCount());
+  }
+
+  /**
+   * This tests that queries shorter than a trigram can't be narrowed, and that null texts are
+   * never candidates
+   */
+  @Test
+  public void testShortQueriesAndNullTexts() {
+    TrigramIndex index = TrigramIndex.of(new String[] {"river", null, "riverside"},
+        TrigramIndex.DEFAULT_BUDGET_BYTES);
+    assertNull(index.candidates("ri"));
+    assertNull(index.candidates(""));
+    assertArrayEquals(new int[] {0, 2}, index.candidates("river"));
+    assertArrayEquals(new int[] {2}, index.candidates("side"));
+    assertEquals(7, index.trigramCount());
+  }
+
+  private static String[] texts(Random random, int count) {
+    String[] texts = new String[count];
+    for (int id = 0; id < count; id++) {
+      if (random.nextInt(10) == 0) {
+        continue;
+      }
+      StringBuilder text = new StringBuilder();
+      for (int word = 0; word < 1 + random.nextInt(8); word++) {
+        text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? " " : "");
+      }
+      texts[id] = text.toString();
+    }
+    return texts;
+  }
+
+  private static int[] bruteForce(String[] texts, String query) {
+    return IntStream.range(0, texts.length)
+        .filter(id -> texts[id] != null && texts[id].contains(query)).toArray();
+  }
+
+  /**
+   * Checks that the candidates are sorted and hold every match; null means every text.
+   */
+  private static void assertContains(int[] candidates, int[] matches, String query) {
+    if (candidates == null) {
+      return;
+    }
+    for (int i = 1; i < candidates.length; i++) {
+      assertTrue(candidates[i - 1] < candidates[i], query);
+    }
+    int[] kept = IntStream.of(matches)
+        .filter(id -> Arrays.binarySearch(candidates, id) >= 0).toArray();
+    assertArrayEquals(matches, kept, query);
+  }
+}
@@ -0,0 +1,221 @@
+package edu.brown.cs.student.main.MapTesting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.squareup.moshi.JsonReader;
+import edu.brown.cs.student.main.maps.data.FeatureStore;
+import edu.brown.cs.student.main.maps.data.GeoJsonFeatureReader;
+import edu.brown.cs.student.main.maps.data.MapsDataset;
+import edu.brown.cs.student.main.maps.tiles.TileCache;
+import edu.brown.cs.student.main.maps.tiles.TileClipper;
+import edu.brown.cs.student.main.maps.tiles.WebMercator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that vector tiles hold exactly the features reaching them, clipped to the
+ * tile and encoded as Mapbox Vector Tile polygons, and that tiles are cached per version.
+ */
+public class VectorTileTest {
+  // one feature covering most of the western hemisphere's north, with a hole, and one small
+  // feature near Providence
+  private static final String COLLECTION = "{\"type\":\"FeatureCollection\",\"features\":["
+      + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+      + "[[[-170,10],[-10,10],[-10,80],[-170,80],[-170,10]],[[-100,40],[-90,40],[-90,50],"
+      + "[-100,50],[-100,40]]]},\"properties\":{\"name\":\"Big\",\"holc_grade\":\"C\"}},"
+      + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+      + "[[[-71.5,41.8],[-71.4,41.8],[-71.4,41.9],[-71.5,41.8]]]},"
+      + "\"properties\":{\"name\":\"Providence\",\"holc_grade\":\"A\"}}]}";
+
+  /**
+   * This tests that tile coordinates and longitude/latitude convert back and forth
+   */
+  @Test
+  public void testWebMercator() {
+    assertEquals(0.5, WebMercator.tileX(0, 0), 1e-12);
+    assertEquals(0.5, WebMercator.tileY(0, 0), 1e-12);
+    assertEquals(0, WebMercator.tileY(90, 3), 1e-9);
+    assertEquals(-71.4, WebMercator.longitude(WebMercator.tileX(-71.4, 12), 12), 1e-9);
+    assertEquals(41.8, WebMercator.latitude(WebMercator.tileY(41.8, 12), 12), 1e-9);
+  }
+
+  /**
+   * This tests clipping a ring that covers the whole rectangle, one that crosses one edge, and
+   * one that misses it
+   */
+  @Test
+  public void testClip() {
+    double[] clipped = TileClipper.clip(new double[] {-10, -10, 20, -10, 20, 20, -10, 20},
+        0, 0, 10, 10);
+    assertEquals(8, clipped.length);
+    for (double coordinate : clipped) {
+      assertTrue(coordinate == 0 || coordinate == 10);
+    }
+    clipped = TileClipper.clip(new double[] {5, 5, 15, 5, 5, 8}, 0, 0, 10, 10);
+    assertEquals(8, clipped.length);
+    for (double coordinate : clipped) {
+      assertTrue(coordinate >= 0 && coordinate <= 10);
+    }
+    assertEquals(0, TileClipper.clip(new double[] {20, 20, 30, 20, 30, 30}, 0, 0, 10, 10).length);
+  }
+
+  /**
+   * This tests which features each tile holds, that the outer ring and hole are oriented as the
+   * format requires and clipped to the tile's buffer, and that tiles come from the cache
+   * @throws IOException
+   */
+  @Test
+  public void testTiles() throws IOException {
+    FeatureStore.Builder builder = new FeatureStore.Builder();
+    new GeoJsonFeatureReader().read(JsonReader.of(new Buffer().writeUtf8(COLLECTION)), builder);
+    TileCache tiles = MapsDataset.of(builder.build(), 1, "test").getTiles();
+
+    List<Tile> world = decode(tiles.get(0, 0, 0));
+    assertEquals(2, world.size());
+    assertEquals(List.of("name", "Big", "holc_grade", "C"), world.get(0).properties);
+    assertEquals(2, world.get(0).rings.size());
+    assertTrue(area(world.get(0).rings.get(0)) > 0);
+    assertTrue(area(world.get(0).rings.get(1)) < 0);
+
+    // zoom 4 tile (5, 5) lies inside the big feature, away from its hole: one ring, clipped
+    // to the tile plus its 64 unit buffer
+    List<Tile> inside = decode(tiles.get(4, 5, 5));
+    assertEquals(1, inside.size());
+    assertEquals(1, inside.get(0).rings.size());
+    for (int coordinate : inside.get(0).rings.get(0)) {
+      assertTrue(coordinate == -64 || coordinate == 4160);
+    }
+
+    int providenceX = (int) WebMercator.tileX(-71.45, 12);
+    int providenceY = (int) WebMercator.tileY(41.85, 12);
+    List<Tile> providence = decode(tiles.get(12, providenceX, providenceY));
+    // the big feature covers Providence too
+    assertEquals(2, providence.size());
+    assertEquals(List.of("name", "Providence", "holc_grade", "A"), providence.get(1).properties);
+    assertEquals(0, tiles.get(12, 0, 0).length);
+
+    assertSame(tiles.get(0, 0, 0), tiles.get(0, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> tiles.get(2, 4, 0));
+    assertThrows(IllegalArgumentException.class, () -> tiles.get(23, 0, 0));
+  }
+
+  /**
+   * A decoded feature: its properties as key, value, key, value... and its rings as
+   * x0, y0, x1, y1...
+   */
+  private static class Tile {
+    final List<String> properties = new ArrayList<>();
+    final List<int[]> rings = new ArrayList<>();
+  }
+
+  /**
+   * Decodes the parts of a single-layer vector tile the tests look at.
+   */
+  private static List<Tile> decode(byte[] tile) {
+    List<Tile> features = new ArrayList<>();
+    for (byte[][] layerField : fields(tile)) {
+      List<byte[][]> layer = fields(layerField[1]);
+      List<String> keys = new ArrayList<>();
+      List<String> values = new ArrayList<>();
+      for (byte[][] field : layer) {
+        if (field[0][0] == 3) {
+          keys.add(new String(field[1]));
+        } else if (field[0][0] == 4) {
+          values.add(new String(fields(field[1]).get(0)[1]));
+        }
+      }
+      for (byte[][] field : layer) {
+        if (field[0][0] != 2) {
+          continue;
+        }
+        Tile feature = new Tile();
+        for (byte[][] featureField : fields(field[1])) {
+          if (featureField[0][0] == 2) {
+            List<Integer> tags = varints(featureField[1]);
+            for (int i = 0; i < tags.size(); i += 2) {
+              feature.properties.add(keys.get(tags.get(i)));
+              feature.properties.add(values.get(tags.get(i + 1)));
+            }
+          } else if (featureField[0][0] == 4) {
+            List<Integer> commands = varints(featureField[1]);
+            int x = 0;
+            int y = 0;
+            List<Integer> ring = new ArrayList<>();
+            for (int i = 0; i < commands.size(); ) {
+              int command = commands.get(i++);
+              if ((command & 7) == 7) {
+                feature.rings.add(ring.stream().mapToInt(Integer::intValue).toArray());
+                ring = new ArrayList<>();
+                continue;
+              }
+              for (int n = 0; n < command >> 3; n++) {
+                x += (commands.get(i) >>> 1) ^ -(commands.get(i) & 1);
+                y += (commands.get(i + 1) >>> 1) ^ -(commands.get(i + 1) & 1);
+                i += 2;
+                ring.add(x);
+                ring.add(y);
+              }
+            }
+          }
+        }
+        features.add(feature);
+      }
+    }
+    return features;
+  }
+
+  /**
+   * Splits a protobuf message into {field number}, value pairs; varint values are skipped.
+   */
+  private static List<byte[][]> fields(byte[] message) {
+    List<byte[][]> fields = new ArrayList<>();
+    int[] position = {0};
+    while (position[0] < message.length) {
+      int tag = varint(message, position);
+      if ((tag & 7) == 0) {
+        varint(message, position);
+        continue;
+      }
+      int length = varint(message, position);
+      byte[] value = new byte[length];
+      System.arraycopy(message, position[0], value, 0, length);
+      position[0] += length;
+      fields.add(new byte[][] {{(byte) (tag >> 3)}, value});
+    }
+    return fields;
+  }
+
+  private static List<Integer> varints(byte[] packed) {
+    List<Integer> values = new ArrayList<>();
+    int[] position = {0};
+    while (position[0] < packed.length) {
+      values.add(varint(packed, position));
+    }
+    return values;
+  }
+
+  private static int varint(byte[] bytes, int[] position) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = bytes[position[0]++];
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  private static long area(int[] ring) {
+    long area = 0;
+    for (int i = 0; i < ring.length; i += 2) {
+      int next = (i + 2) % ring.length;
+      area += (long) ring[i] * ring[next + 1] - (long) ring[next] * ring[i + 1];
+    }
+    return area;
+  }
+}
@@ -0,0 +1,123 @@
+package edu.brown.cs.student.main.server;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Shows what response compression costs and saves on typical payloads: a bounding box
+ * response of redlining features in the legacy (escaped string) format, the same features
+ * streamed, and a CSV view response. For each encoding and level it prints the compressed size
+ * as a share of the original and the single-core compression throughput. This isn't a unit
+ * test; run it by hand with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=edu.brown.cs.student.main.server.CompressionBenchmark} or from an IDE.
+ */
+public final class CompressionBenchmark {
+  private static final JsonAdapter<Object> JSON =
+      new Moshi.Builder().build().adapter(Object.class);
+
+  private CompressionBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark and prints one table row per payload, encoding and level.
+   * @param args unused
+   * @throws IOException never, everything is written to memory
+   */
+  public static void main(String[] args) throws IOException {
+    String features = features(300, new Random(7));
+    Map<String, Object> legacy = new HashMap<>();
+    legacy.put("type", "success");
+    legacy.put("data", features);
+    Map<String, String> payloads = new LinkedHashMap<>();
+    payloads.put("bbox legacy", JSON.toJson(legacy));
+    payloads.put("bbox stream", "{\"type\":\"success\",\"data\":" + features + "}");
+    payloads.put("csv view", csvView(5000, new Random(7)));
+
+    System.out.printf("%-12s %9s %8s %5s %9s %8s%n", "payload", "bytes", "encoding", "level",
+        "ratio", "MB/s");
+    for (Map.Entry<String, String> payload : payloads.entrySet()) {
+      byte[] body = payload.getValue().getBytes(StandardCharsets.UTF_8);
+      for (String encoding : new String[] {"gzip", "deflate"}) {
+        for (int level : new int[] {1, 3, 6, 9}) {
+          compress(body, encoding, level);
+          int rounds = 20;
+          long start = System.nanoTime();
+          int size = 0;
+          for (int round = 0; round < rounds; round++) {
+            size = compress(body, encoding, level);
+          }
+          double seconds = (System.nanoTime() - start) / 1e9;
+          System.out.printf(Locale.ROOT, "%-12s %9d %8s %5d %8.1f%% %8.1f%n", payload.getKey(),
+              body.length, encoding, level, 100.0 * size / body.length,
+              rounds * body.length / 1e6 / seconds);
+        }
+      }
+    }
+  }
+
+  private static int compress(byte[] body, String encoding, int level) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+    try (CompressingOutputStream stream = new CompressingOutputStream(out, encoding, level,
+        ResponseCompression.DEFAULT_THRESHOLD, () -> { })) {
+      for (int offset = 0; offset < body.length; offset += 8192) {
+        stream.write(body, offset, Math.min(8192, body.length - offset));
+      }
+    }
+    return out.size();
+  }
+
+  /**
+   * A feature collection shaped like the redlining data: MultiPolygons of a few dozen vertices
+   * with six-decimal coordinates, a grade and a paragraph of description.
+   */
+  private static String features(int count, Random random) {
+    String[] words = {"homes", "owners", "industrial", "railroad", "tracks", "good", "fair",
+        "residential", "schools", "transportation", "population", "mixed", "the", "of", "and"};
+    List<Object> list = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      double x = -71.5 + random.nextDouble();
+      double y = 41.5 + random.nextDouble();
+      List<Object> ring = new ArrayList<>();
+      for (int v = 0; v < 40; v++) {
+        double angle = 2 * Math.PI * v / 40;
+        ring.add(List.of(Math.round((x + 0.01 * Math.cos(angle)) * 1e6) / 1e6,
+            Math.round((y + 0.01 * Math.sin(angle)) * 1e6) / 1e6));
+      }
+      ring.add(ring.get(0));
+      StringBuilder description = new StringBuilder();
+      for (int w = 0; w < 60; w++) {
+        description.append(words[random.nextInt(words.length)]).append(' ');
+      }
+      list.add(Map.of("type", "Feature",
+          "geometry", Map.of("type", "MultiPolygon", "coordinates", List.of(List.of(ring))),
+          "properties", Map.of("name", "Area " + i, "holc_grade", "ABCD".charAt(i % 4) + "",
+              "area_description_data", Map.of("1", description.toString().trim()))));
+    }
+    return JSON.toJson(Map.of("type", "FeatureCollection", "features", list));
+  }
+
+  /**
+   * A /view response of a CSV with a header and numeric and text columns.
+   */
+  private static String csvView(int rows, Random random) {
+    String[] counties = {"Providence County", "Kent County", "Washington County",
+        "Newport County", "Bristol County"};
+    List<Object> data = new ArrayList<>();
+    data.add(List.of("City/Town", "County", "Median Household Income", "Population"));
+    for (int row = 0; row < rows; row++) {
+      data.add(List.of("Town " + row, counties[random.nextInt(counties.length)],
+          "" + (40_000 + random.nextInt(80_000)), "" + random.nextInt(200_000)));
+    }
+    return JSON.toJson(Map.of("type", "success", "data", data));
+  }
+}
@@ -0,0 +1,52 @@
+package edu.brown.cs.student.main.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the ETags of ConditionalGet follow the data version and the query, but
+ * not the order the parameters were given in.
+ */
+public class ConditionalGetTest {
+
+  /**
+   * This tests that reordering parameters keeps the ETag, and that any change to the version, a
+   * name or a value gives a new one
+   */
+  @Test
+  public void testEtag() {
+    Map<String, String[]> query = new LinkedHashMap<>();
+    query.put("lowerLatitude", new String[] {"40"});
+    query.put("upperLatitude", new String[] {"45"});
+    Map<String, String[]> reordered = new LinkedHashMap<>();
+    reordered.put("upperLatitude", new String[] {"45"});
+    reordered.put("lowerLatitude", new String[] {"40"});
+    String etag = ConditionalGet.etag("v1", query);
+
+    assertTrue(etag.startsWith("W/\"") && etag.endsWith("\""));
+    assertEquals(etag, ConditionalGet.etag("v1", reordered));
+    assertNotEquals(etag, ConditionalGet.etag("v2", query));
+    assertNotEquals(etag, ConditionalGet.etag("v1", Map.of("lowerLatitude", new String[] {"40"})));
+    assertNotEquals(etag, ConditionalGet.etag("v1", Map.of(
+        "lowerLatitude", new String[] {"40"}, "upperLatitude", new String[] {"46"})));
+  }
+
+  /**
+   * This tests that values can't run into the next name or value and collide
+   */
+  @Test
+  public void testNoCollisionsAcrossBoundaries() {
+    assertNotEquals(ConditionalGet.etag("v", Map.of("a", new String[] {"bc"})),
+        ConditionalGet.etag("v", Map.of("ab", new String[] {"c"})));
+    assertNotEquals(ConditionalGet.etag("v", Map.of("a", new String[] {"b", "c"})),
+        ConditionalGet.etag("v", Map.of("a", new String[] {"bc"})));
+    assertNotEquals(ConditionalGet.etag("v", Map.of("a", new String[] {"b", "c"})),
+        ConditionalGet.etag("v", Map.of("a", new String[] {"c", "b"})));
+    assertNotEquals(ConditionalGet.etag("va", Map.of()),
+        ConditionalGet.etag("v", Map.of("a", new String[0])));
+  }
+}
@@ -0,0 +1,106 @@
+package edu.brown.cs.student.main.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a rendered response sends back exactly what was rendered, plain and
+ * gzipped, and that its ETags follow the content and are matched the way If-None-Match asks.
+ */
+public class RenderedResponseTest {
+
+  /**
+   * This tests that both copies hold the rendered body and that the ETag depends on the content
+   * only
+   * @throws IOException
+   */
+  @Test
+  public void testRenderAndTransfer() throws IOException {
+    Path directory = Files.createTempDirectory("rendered");
+    byte[] body = "{\"type\":\"success\"}".repeat(500).getBytes(StandardCharsets.UTF_8);
+    RenderedResponse first = RenderedResponse.render(directory, out -> out.write(body));
+    RenderedResponse same = RenderedResponse.render(directory, out -> out.write(body));
+    RenderedResponse other = RenderedResponse.render(directory, out -> out.write('x'));
+    try {
+      ByteArrayOutputStream plain = new ByteArrayOutputStream();
+      first.transferTo(Channels.newChannel(plain));
+      assertArrayEquals(body, plain.toByteArray());
+      assertEquals(body.length, first.size());
+
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+      first.transferGzipTo(Channels.newChannel(gzipped));
+      assertEquals(gzipped.size(), first.gzipSize());
+      assertTrue(first.gzipSize() < first.size());
+      assertArrayEquals(body, new GZIPInputStream(
+          new ByteArrayInputStream(gzipped.toByteArray())).readAllBytes());
+
+      assertEquals(first.etag(), same.etag());
+      assertNotEquals(first.etag(), other.etag());
+      assertNotEquals(first.etag(), first.gzipEtag());
+      assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+    } finally {
+      first.delete();
+      same.delete();
+      other.delete();
+    }
+    try (var files = Files.list(directory)) {
+      assertEquals(0, files.count());
+    }
+    Files.delete(directory);
+  }
+
+  /**
+   * This tests that a send that started before the response was deleted can still read its open
+   * files, which are closed when it is done, and that nothing can be sent after that
+   * @throws IOException
+   */
+  @Test
+  public void testTransferAfterDelete() throws IOException {
+    Path directory = Files.createTempDirectory("rendered");
+    RenderedResponse response = RenderedResponse.render(directory, out -> out.write('x'));
+    assertTrue(response.retain());
+    response.delete();
+    response.delete();
+    Files.delete(directory);
+
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    response.transferTo(Channels.newChannel(plain));
+    assertArrayEquals(new byte[] {'x'}, plain.toByteArray());
+
+    response.release();
+    assertFalse(response.retain());
+    assertThrows(ClosedChannelException.class,
+        () -> response.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+    assertEquals(1, response.size());
+  }
+
+  /**
+   * This tests that If-None-Match lists, weak tags on either side and "*" are matched
+   */
+  @Test
+  public void testMatches() {
+    String etag = "\"abc\"";
+    assertTrue(RenderedResponse.matches("\"abc\"", etag));
+    assertTrue(RenderedResponse.matches("\"x\", W/\"abc\"", etag));
+    assertTrue(RenderedResponse.matches("*", etag));
+    assertTrue(RenderedResponse.matches("\"abc\"", "W/" + etag));
+    assertFalse(RenderedResponse.matches("\"abc-gzip\"", etag));
+    assertFalse(RenderedResponse.matches("abc", etag));
+    assertFalse(RenderedResponse.matches("", etag));
+    assertFalse(RenderedResponse.matches(null, etag));
+  }
+}
@@ -0,0 +1,91 @@
+package edu.brown.cs.student.main.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the encoding is negotiated from Accept-Encoding, and that bodies are
+ * only compressed past the threshold and decompress to exactly what was written.
+ */
+public class ResponseCompressionTest {
+
+  /**
+   * This tests that gzip is preferred, q values are honoured, and "*" covers unlisted codings
+   */
+  @Test
+  public void testNegotiate() {
+    assertEquals("gzip", ResponseCompression.negotiate("gzip, deflate, br"));
+    assertEquals("gzip", ResponseCompression.negotiate("deflate, GZIP"));
+    assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0, deflate"));
+    assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0.4, deflate;q=0.8"));
+    assertEquals("gzip", ResponseCompression.negotiate("*"));
+    assertEquals("deflate", ResponseCompression.negotiate("*;q=0.5, gzip;q=0"));
+    assertNull(ResponseCompression.negotiate("br, identity"));
+    assertNull(ResponseCompression.negotiate("*;q=0"));
+    assertNull(ResponseCompression.negotiate(""));
+    assertNull(ResponseCompression.negotiate(null));
+  }
+
+  /**
+   * This tests a body below the threshold is sent as it is and never announced as compressed
+   * @throws IOException
+   */
+  @Test
+  public void testBelowThreshold() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    boolean[] announced = {false};
+    CompressingOutputStream stream =
+        new CompressingOutputStream(out, "gzip", 6, 100, () -> announced[0] = true);
+    stream.write("{\"type\":\"success\"}".getBytes(StandardCharsets.UTF_8));
+    stream.flush();
+    assertEquals(0, out.size());
+    stream.close();
+
+    assertFalse(announced[0]);
+    assertFalse(stream.isCompressing());
+    assertEquals("{\"type\":\"success\"}", out.toString(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * This tests bodies past the threshold, written in pieces, are announced once and decompress
+   * to the original bytes with gzip and with deflate (zlib)
+   * @throws IOException
+   */
+  @Test
+  public void testCompressesPastThreshold() throws IOException {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      json.append("{\"name\":\"Area ").append(i).append("\",\"holc_grade\":\"B\"},");
+    }
+    byte[] body = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+    for (String encoding : new String[] {"gzip", "deflate"}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int[] announced = {0};
+      CompressingOutputStream stream =
+          new CompressingOutputStream(out, encoding, 6, 1024, () -> announced[0]++);
+      for (int offset = 0; offset < body.length; offset += 700) {
+        stream.write(body, offset, Math.min(700, body.length - offset));
+      }
+      stream.close();
+
+      assertEquals(1, announced[0]);
+      assertTrue(stream.isCompressing());
+      assertTrue(out.size() < body.length / 5);
+      ByteArrayInputStream compressed = new ByteArrayInputStream(out.toByteArray());
+      byte[] inflated = (encoding.equals("gzip") ? new GZIPInputStream(compressed)
+          : new InflaterInputStream(compressed)).readAllBytes();
+      assertArrayEquals(body, inflated);
+    }
+  }
+}
@@ -1,6 +1,6 @@
 import Map, { Layer, MapLayerMouseEvent, Source } from "react-map-gl";
-import { geoLayer, highlightLayer, overlayData, featureData } from "./overlays";
-import React, { Dispatch, SetStateAction, useState, useEffect } from "react";
+import { geoLayer, highlightLayer, redliningTiles } from "./overlays";
+import React, { Dispatch, SetStateAction, useState } from "react";
 import { Access_Token } from "./private/api.js";
 
 /**
@@ -35,14 +35,6 @@ function MapBox(props: MapBoxProps) {
     features: props.highlightResult,
   };
 
-  const [overlay, setOverlay] = useState<GeoJSON.FeatureCollection | undefined>(
-    undefined
-  );
-
-  useEffect(() => {
-    setOverlay(overlayData());
-  }, [props.highlightResult]);
-
   return (
     <Map
       mapboxAccessToken={Access_Token}
@@ -52,7 +44,7 @@ function MapBox(props: MapBoxProps) {
       mapStyle={"mapbox://styles/mapbox/streets-v12"}
       onClick={(ev: MapLayerMouseEvent) => onMapClick(ev)}
     >
-      <Source id="geo_data" type="geojson" data={featureData}>
+      <Source id="geo_data" type="vector" tiles={[redliningTiles]} maxzoom={14}>
         <Layer {...geoLayer} />
       </Source>
       <Source id="highlight" type="geojson" data={highlightData}>
@@ -194,13 +194,11 @@ export function REPLInput(props: REPLInputProps) {
    * @returns
    */
   async function highlight(args: string[]): Promise<GeoJSON.FeatureCollection> {
-    return fetch("http://localhost:1234/mapsKeyWord?Area=" + args[1])
+    return fetch("http://localhost:1234/mapsKeyWord?format=stream&Area=" + args[1])
       .then((r) => r.json())
       .then((response) => {
-        let parseAnswer: GeoJSON.FeatureCollection;
-        var answer;
-        answer = response.data;
-        parseAnswer = JSON.parse(answer);
+        // format=stream sends the collection as an object, not a JSON string
+        let parseAnswer: GeoJSON.FeatureCollection = response.data;
         console.log(parseAnswer);
         return parseAnswer;
       });
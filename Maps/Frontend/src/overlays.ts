@@ -1,50 +1,15 @@
-import { FeatureCollection } from "geojson";
 import { FillLayer } from "react-map-gl";
 
 /**
- * checks if a provided json is a feature collection
- * @param json 
- * @returns 
+ * vector tile url template for the redlining data; the backend generates (and caches) each tile
+ * on demand, so only the tiles in view are downloaded instead of the whole dataset
  */
-function isFeatureCollection(json: any): json is FeatureCollection {
-  return json.type === "FeatureCollection";
-}
+export const redliningTiles = "http://localhost:1234/tiles/{z}/{x}/{y}";
 
 /**
- * helpfuler function that loads in the feature collection data through a call to the backend bounding box handler
- * with the full scope of latitude/longitude to load in entirety of geoJSON file
- * @returns 
+ * name of the layer inside each vector tile that holds the redlining features
  */
-function boundingBoxCall(): Promise<GeoJSON.FeatureCollection> {
-  return fetch(
-    "http://localhost:1234/mapsBoundingBox?lowerLatitude=-90&upperLatitude=90&lowerLongitude=-180&upperLongitude=180"
-  )
-    .then((r) => r.json())
-    .then((response) => {
-      let parseAnswer: GeoJSON.FeatureCollection;
-      var answer;
-      answer = response.data
-      parseAnswer = JSON.parse(answer)
-      return parseAnswer;
-    });
-}
-
-/**
- * constant that holdes the bounding box call feature data (resolves promise from boundingBoxCall())
- */
-export const featureData: GeoJSON.FeatureCollection = {
-  type: "FeatureCollection",
-  features: (await boundingBoxCall()).features,
-};
-
-
-/**
- * checks that featureData constant is a feature collection using heleper method
- * @returns 
- */
- export function overlayData() {
-  return isFeatureCollection(featureData) ? featureData : undefined;
-}
+const redliningSourceLayer = "redlining";
 
 /**
  * highlight layer for results of searching for area keywords on map
@@ -66,6 +31,7 @@ const propertyName = "holc_grade";
 export const geoLayer: FillLayer = {
   id: "geo_data",
   type: "fill",
+  "source-layer": redliningSourceLayer,
   paint: {
     "fill-color": [
       "match",